@@ -0,0 +1,118 @@
+package in.helparo.app;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Per-message cost of the native alert path, stage by stage and end to end:
+ * everything MyFirebaseMessagingService does before it builds the
+ * notification.
+ *
+ * Job IDs rotate through more payloads than the dedupe cache holds, so every
+ * message takes the miss path a real new job takes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class AlertPipelineBenchmark {
+
+    private static final int PAYLOADS = 1024;
+    private static final long NOW = PayloadDecodeBenchmark.Payloads.SENT_AT + 1_500L;
+
+    private List<Map<String, String>> payloads;
+    private JobAlert[] alerts;
+    private int next;
+
+    private PushDedupeCache dedupe;
+    private AlertExpiryGate expiryGate;
+    private DistanceGate distanceGate;
+    private AlertCoalescer coalescer;
+    private JobAlertQueue queue;
+    private PushPolicy policy;
+    private long policyClock;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        payloads = new ArrayList<>(PAYLOADS);
+        alerts = new JobAlert[PAYLOADS];
+        for (int i = 0; i < PAYLOADS; i++) {
+            payloads.add(PayloadDecodeBenchmark.Payloads.v2(String.format("job-%06d", i)));
+            alerts[i] = JobAlertDecoder.decode(payloads.get(i));
+        }
+
+        // Same settings as PushDedupeStore and MyFirebaseMessagingService
+        dedupe = new PushDedupeCache(256, 15 * 60_000L);
+        expiryGate = new AlertExpiryGate(AlertExpiryGate.DEFAULT_CLOCK_SKEW_MS,
+            AlertExpiryGate.DEFAULT_DOWNGRADE_WINDOW_MS);
+        distanceGate = new DistanceGate();
+        distanceGate.updateFix(16.5175, 80.6198, 0.02, NOW - 60_000L);
+        coalescer = new AlertCoalescer(AlertCoalescer.DEFAULT_WINDOW_MS, AlertCoalescer.DEFAULT_MAX_BURST_MS);
+        queue = new JobAlertQueue();
+        policy = new PushPolicy(TimeZone.getTimeZone("Asia/Kolkata"));
+        policy.setQuietHours(true, 22 * 60, 7 * 60, TimeZone.getTimeZone("Asia/Kolkata"));
+    }
+
+    private int nextIndex() {
+        int index = next;
+        next = (next + 1) % PAYLOADS;
+        return index;
+    }
+
+    @Benchmark
+    public boolean dedupe() {
+        JobAlert alert = alerts[nextIndex()];
+        return dedupe.checkAndMark(alert.getType(), alert.getJobId(), NOW);
+    }
+
+    @Benchmark
+    public AlertExpiryGate.Decision expiryGate() {
+        return expiryGate.evaluate(alerts[nextIndex()], NOW);
+    }
+
+    @Benchmark
+    public AlertExpiryGate.Decision distanceGate() {
+        return distanceGate.evaluate(alerts[nextIndex()], NOW);
+    }
+
+    /** ID allocation and ordering: one job in, one out, so the queue stays small */
+    @Benchmark
+    public int queueAddRemove() {
+        JobAlert alert = alerts[nextIndex()];
+        JobAlertQueue.Entry entry = queue.add(alert, NOW + 60_000L);
+        queue.remove(alert.getJobId());
+        return entry.notificationId;
+    }
+
+    /** Regular pushes: token buckets and quiet hours; the clock moves so buckets refill */
+    @Benchmark
+    public PushPolicy.Decision pushPolicy() {
+        policyClock += 7_000L;
+        return policy.evaluate("new_job_nearby", NOW + policyClock);
+    }
+
+    @Benchmark
+    public int fullJobAlert() {
+        int index = nextIndex();
+        JobAlert alert = JobAlertDecoder.decode(payloads.get(index));
+        if (alert == null || dedupe.checkAndMark(alert.getType(), alert.getJobId(), NOW)) return -1;
+        if (expiryGate.evaluate(alert, NOW) != AlertExpiryGate.Decision.DELIVER) return -2;
+        long remainingMs = expiryGate.remainingMillis(alert, NOW);
+        if (distanceGate.evaluate(alert, NOW) != AlertExpiryGate.Decision.DELIVER) return -3;
+        boolean leading = coalescer.onJobArrived(NOW, !queue.isEmpty());
+        JobAlertQueue.Entry entry = queue.add(alert, NOW + remainingMs);
+        queue.remove(alert.getJobId());
+        return leading ? entry.notificationId : -entry.notificationId;
+    }
+}
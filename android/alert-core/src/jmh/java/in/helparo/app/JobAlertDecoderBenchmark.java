@@ -0,0 +1,72 @@
+package in.helparo.app;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * {@link JobAlertDecoder} against the hand-rolled extraction that used to live
+ * in MyFirebaseMessagingService, per message. The decoder should come out ahead.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class JobAlertDecoderBenchmark {
+
+    private Map<String, String> data;
+
+    @Setup
+    public void setUp() {
+        data = PayloadDecodeBenchmark.Payloads.v1("550e8400-e29b-41d4-a716-446655440000");
+    }
+
+    @Benchmark
+    public int decoder() {
+        return decode(data);
+    }
+
+    @Benchmark
+    public int legacyExtraction() {
+        return legacyExtract(data);
+    }
+
+    private static int decode(Map<String, String> data) {
+        JobAlert alert = JobAlertDecoder.decode(data);
+        return alert.getSummary().length();
+    }
+
+    /**
+     * Copy of the previous onMessageReceived/showJobAlertNotification work up to
+     * notify(): log strings were built unconditionally, including the full map dump.
+     */
+    private static int legacyExtract(Map<String, String> data) {
+        int work = 0;
+        work += ("Data payload: " + data.toString()).length();
+        String type = data.get("type");
+        work += ("Message type: " + type).length();
+        if (!"new_job".equals(type) && !"urgent_job".equals(type)) return work;
+
+        String jobId = data.get("jobId");
+        if (jobId == null) jobId = data.get("job_id");
+        String title = data.get("title");
+        String description = data.get("description");
+        String price = data.get("price");
+        String location = data.get("location");
+        String customerName = data.get("customerName");
+        if (customerName == null) customerName = data.get("customer_name");
+        String urgency = data.get("urgency");
+
+        if (title == null) title = "New Job Alert!";
+        String body = "₹" + (price != null ? price : "0") + " • " + (location != null ? location : "Nearby");
+        work += ("Job: " + title + " - " + body).length();
+        work += jobId.length() + description.length() + customerName.length() + urgency.length();
+        return work;
+    }
+}
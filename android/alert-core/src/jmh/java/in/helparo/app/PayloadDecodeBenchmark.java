@@ -0,0 +1,122 @@
+package in.helparo.app;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of turning an FCM data map into {@link JobAlert}s, per message, for
+ * each payload format the backend sends. The compact v2 form should decode no
+ * slower than v1: compare decodeV2 against decodeV1 in the same run.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class PayloadDecodeBenchmark {
+
+    private Map<String, String> v1;
+    private Map<String, String> v2;
+    private Map<String, String> batch;
+
+    @Setup
+    public void setUp() {
+        v1 = Payloads.v1("550e8400-e29b-41d4-a716-446655440000");
+        v2 = Payloads.v2("550e8400-e29b-41d4-a716-446655440000");
+        batch = Payloads.batch(10);
+    }
+
+    @Benchmark
+    public JobAlert decodeV1() {
+        return JobAlertDecoder.decode(v1);
+    }
+
+    @Benchmark
+    public JobAlert decodeV2() {
+        return JobAlertDecoder.decode(v2);
+    }
+
+    /** Ten jobs in one message; divide by ten for the per-job cost */
+    @Benchmark
+    public List<JobAlert> decodeBatchOfTen() {
+        return JobAlertDecoder.decodeBatch(batch);
+    }
+
+    @Benchmark
+    public String typeOf() {
+        return JobAlertDecoder.typeOf(v2);
+    }
+
+    /**
+     * Payloads shaped like the ones the job-alert route and compact-payload.ts build
+     */
+    static final class Payloads {
+
+        static final long SENT_AT = 1705314600000L;
+
+        private Payloads() {
+        }
+
+        static Map<String, String> v1(String jobId) {
+            Map<String, String> data = new HashMap<>();
+            data.put("type", "new_job");
+            data.put("jobId", jobId);
+            data.put("job_id", jobId);
+            data.put("title", "Plumbing - Tap Repair");
+            data.put("description", "Kitchen tap leaking since morning");
+            data.put("price", "500");
+            data.put("location", "Labbipet, Vijayawada");
+            data.put("distance", "2.3 km");
+            data.put("customerName", "Ravi");
+            data.put("customer_name", "Ravi");
+            data.put("urgency", "urgent");
+            data.put("expiresAt", Long.toString(SENT_AT + 60_000L));
+            data.put("timestamp", "2024-01-15T10:30:00Z");
+            data.put("lat", "16.5062");
+            data.put("lng", "80.648");
+            return data;
+        }
+
+        static Map<String, String> v2(String jobId) {
+            Map<String, String> data = new HashMap<>();
+            data.put("v", "2");
+            data.put("s", Long.toString(SENT_AT, 36));
+            putJob(data, "", jobId);
+            return data;
+        }
+
+        static Map<String, String> batch(int jobs) {
+            Map<String, String> data = new HashMap<>();
+            data.put("v", "2");
+            data.put("t", "b");
+            data.put("s", Long.toString(SENT_AT, 36));
+            data.put("n", Integer.toString(jobs));
+            for (int rank = 0; rank < jobs; rank++) {
+                putJob(data, Integer.toString(rank), "550e8400-e29b-41d4-a716-4466554400" + (10 + rank));
+            }
+            return data;
+        }
+
+        private static void putJob(Map<String, String> data, String suffix, String jobId) {
+            data.put("t" + suffix, "n");
+            data.put("i" + suffix, jobId);
+            data.put("h" + suffix, "Plumbing - Tap Repair");
+            data.put("d" + suffix, "Kitchen tap leaking since morning");
+            data.put("p" + suffix, "500");
+            data.put("l" + suffix, "Labbipet, Vijayawada");
+            data.put("k" + suffix, "2.3 km");
+            data.put("c" + suffix, "Ravi");
+            data.put("u" + suffix, "u");
+            data.put("x" + suffix, "60");
+            data.put("g" + suffix, "16.5062,80.648");
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package in.helparo.app;
+
+/**
+ * Merges job pushes that arrive close together into a single wakeup.
+ *
+ * The first job of a burst is the leading edge: it wakes the device, vibrates
+ * and launches the alert screen straight away, so coalescing never delays the
+ * first alert. Jobs that follow within {@code windowMs} of the previous one
+ * (while earlier jobs are still unanswered) only join the alert stack and the
+ * grouped notification. Each joining job extends the window, up to
+ * {@code maxBurstMs} after the leading edge, after which the next job alerts
+ * again so a long surge still gets the helper's attention periodically.
+ */
+public final class AlertCoalescer {
+
+    public static final long DEFAULT_WINDOW_MS = 5_000L;
+    public static final long DEFAULT_MAX_BURST_MS = 30_000L;
+
+    private final long windowMs;
+    private final long maxBurstMs;
+
+    private boolean started;
+    private long burstStartedAt;
+    private long lastJobAt;
+    private long wakeups;
+    private long coalesced;
+
+    public AlertCoalescer(long windowMs, long maxBurstMs) {
+        this.windowMs = windowMs;
+        this.maxBurstMs = maxBurstMs;
+    }
+
+    /**
+     * Record a job arrival.
+     *
+     * @param othersPending whether earlier jobs are still waiting for an answer;
+     *                      if not, there is nothing to merge into
+     * @return true if this job should wake the device and alert, false if it
+     *         should join the current burst silently
+     */
+    public synchronized boolean onJobArrived(long nowMillis, boolean othersPending) {
+        boolean inBurst = othersPending
+            && started
+            && nowMillis - lastJobAt <= windowMs
+            && nowMillis - burstStartedAt <= maxBurstMs;
+
+        lastJobAt = nowMillis;
+        if (inBurst) {
+            coalesced++;
+            return false;
+        }
+
+        started = true;
+        burstStartedAt = nowMillis;
+        wakeups++;
+        return true;
+    }
+
+    /** Jobs that caused a wakeup */
+    public synchronized long getWakeups() {
+        return wakeups;
+    }
+
+    /** Jobs that were merged into an earlier wakeup */
+    public synchronized long getCoalesced() {
+        return coalesced;
+    }
+}
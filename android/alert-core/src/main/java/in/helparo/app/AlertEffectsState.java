@@ -0,0 +1,147 @@
+package in.helparo.app;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Which alert effects (vibration, alarm sound) should be running for the set
+ * of jobs currently alerting, and what has to change when a job arrives, is
+ * shown, answered or expires.
+ *
+ * Every event returns the actions to apply as a bit set. Repeated events are
+ * no-ops: a second start never restarts a running effect, and a stop only
+ * comes out once, when the last job leaves the set.
+ */
+public final class AlertEffectsState {
+
+    /** Short non-repeating buzz as the push arrives */
+    public static final int ACTION_PULSE = 1;
+    /** Repeating vibration while the alert screen is up */
+    public static final int ACTION_VIBRATE = 1 << 1;
+    /** Looping alarm sound */
+    public static final int ACTION_SOUND = 1 << 2;
+    /** Everything off: nothing is alerting any more */
+    public static final int ACTION_STOP = 1 << 3;
+
+    /** No job rings longer than this, even without a known expiry */
+    public static final long MAX_EFFECT_MS = 120_000L;
+
+    private final Map<String, Long> deadlines = new HashMap<>();
+    private final Set<String> shown = new HashSet<>();
+    private boolean pulsing;
+    private boolean vibrating;
+    private boolean sounding;
+
+    /**
+     * A job alert arrived
+     *
+     * @param deadline when it expires, epoch millis, or 0 if unknown
+     * @param buzz whether this alert should vibrate (the first of a burst); every
+     *             such alert pulses, also while earlier jobs are still pending
+     */
+    public synchronized int onAlert(String jobId, long deadline, boolean buzz, long nowMillis) {
+        track(jobId, deadline, nowMillis);
+        if (!buzz || vibrating) return 0;
+        pulsing = true;
+        return ACTION_PULSE;
+    }
+
+    /**
+     * A job is on the alert screen: vibrate and ring until it is answered
+     */
+    public synchronized int onShown(String jobId, long deadline, long nowMillis) {
+        track(jobId, deadline, nowMillis);
+        shown.add(jobId);
+        int actions = 0;
+        if (!vibrating) {
+            vibrating = true;
+            actions |= ACTION_VIBRATE;
+        }
+        if (!sounding) {
+            sounding = true;
+            actions |= ACTION_SOUND;
+        }
+        return actions;
+    }
+
+    /**
+     * A job was accepted, rejected or expired
+     */
+    public synchronized int onDone(String jobId) {
+        deadlines.remove(jobId);
+        shown.remove(jobId);
+        return stopIfIdle();
+    }
+
+    /**
+     * Drop jobs past their deadline
+     */
+    public synchronized int expire(long nowMillis) {
+        Iterator<Map.Entry<String, Long>> it = deadlines.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Long> job = it.next();
+            if (job.getValue() > nowMillis) continue;
+            it.remove();
+            shown.remove(job.getKey());
+        }
+        return stopIfIdle();
+    }
+
+    /**
+     * Forget every job, e.g. when the helper opened the app instead
+     */
+    public synchronized int stopAll() {
+        deadlines.clear();
+        shown.clear();
+        return stopIfIdle();
+    }
+
+    /**
+     * Whether the alert screen already took this job
+     */
+    public synchronized boolean isShown(String jobId) {
+        return shown.contains(jobId);
+    }
+
+    public synchronized boolean isActive() {
+        return pulsing || vibrating || sounding;
+    }
+
+    public synchronized int getActiveJobs() {
+        return deadlines.size();
+    }
+
+    public synchronized Set<String> getJobs() {
+        return new HashSet<>(deadlines.keySet());
+    }
+
+    /**
+     * The earliest job deadline, or 0 when no job is alerting
+     */
+    public synchronized long nextDeadline() {
+        long next = 0;
+        for (long deadline : deadlines.values()) {
+            if (next == 0 || deadline < next) next = deadline;
+        }
+        return next;
+    }
+
+    private void track(String jobId, long deadline, long nowMillis) {
+        long capped = nowMillis + MAX_EFFECT_MS;
+        long effective = deadline > 0 ? Math.min(deadline, capped) : capped;
+        Long known = deadlines.get(jobId);
+        // A later report (alert screen after push) never shortens a known deadline
+        deadlines.put(jobId, known != null ? Math.max(known, effective) : effective);
+    }
+
+    private int stopIfIdle() {
+        if (!deadlines.isEmpty() || !isActive()) return 0;
+        pulsing = false;
+        vibrating = false;
+        sounding = false;
+        return ACTION_STOP;
+    }
+}
@@ -0,0 +1,77 @@
+package in.helparo.app;
+
+/**
+ * Decides what to do with a job alert that may have been delayed (Doze, flaky
+ * network, FCM retries) by comparing its expiry with the device clock.
+ *
+ * - Still alive: deliver, and tell the caller how long the alert may stay up.
+ * - Expired recently: downgrade to a quiet "missed job" notification.
+ * - Expired long ago: drop it.
+ *
+ * Device and server clocks rarely agree exactly, so a configurable skew margin
+ * is added before an alert is considered expired.
+ */
+public final class AlertExpiryGate {
+
+    public enum Decision {
+        DELIVER,
+        DOWNGRADE,
+        DROP
+    }
+
+    /** Tolerated disagreement between server and device clocks */
+    public static final long DEFAULT_CLOCK_SKEW_MS = 5_000L;
+
+    /** Window after expiry in which a quiet "missed job" notice is still useful */
+    public static final long DEFAULT_DOWNGRADE_WINDOW_MS = 5 * 60_000L;
+
+    /** Lifetime assumed when the payload has a send timestamp but no expiresAt (new_job_nearby TTL) */
+    public static final long DEFAULT_JOB_TTL_MS = 60_000L;
+
+    /** Upper bound for how long a job alert stays on screen, expiry or not */
+    public static final long MAX_ALERT_LIFETIME_MS = 60_000L;
+
+    private final long clockSkewMarginMs;
+    private final long downgradeWindowMs;
+
+    public AlertExpiryGate() {
+        this(DEFAULT_CLOCK_SKEW_MS, DEFAULT_DOWNGRADE_WINDOW_MS);
+    }
+
+    public AlertExpiryGate(long clockSkewMarginMs, long downgradeWindowMs) {
+        this.clockSkewMarginMs = clockSkewMarginMs;
+        this.downgradeWindowMs = downgradeWindowMs;
+    }
+
+    public Decision evaluate(JobAlert alert, long nowMillis) {
+        long expiresAt = expiresAt(alert);
+        if (expiresAt == 0) return Decision.DELIVER;
+
+        long overdue = nowMillis - (expiresAt + clockSkewMarginMs);
+        if (overdue < 0) return Decision.DELIVER;
+        if (overdue <= downgradeWindowMs) return Decision.DOWNGRADE;
+        return Decision.DROP;
+    }
+
+    /**
+     * How long the alert may stay up from now, capped at {@link #MAX_ALERT_LIFETIME_MS}.
+     * Only meaningful when {@link #evaluate} returned DELIVER.
+     */
+    public long remainingMillis(JobAlert alert, long nowMillis) {
+        long expiresAt = expiresAt(alert);
+        if (expiresAt == 0) return MAX_ALERT_LIFETIME_MS;
+
+        long remaining = expiresAt + clockSkewMarginMs - nowMillis;
+        if (remaining <= 0) return 0;
+        return Math.min(remaining, MAX_ALERT_LIFETIME_MS);
+    }
+
+    /**
+     * @return the alert's expiry in epoch millis, or 0 if the payload gives no way to tell
+     */
+    static long expiresAt(JobAlert alert) {
+        if (alert.getExpiresAtMillis() > 0) return alert.getExpiresAtMillis();
+        if (alert.getSentAtMillis() > 0) return alert.getSentAtMillis() + DEFAULT_JOB_TTL_MS;
+        return 0;
+    }
+}
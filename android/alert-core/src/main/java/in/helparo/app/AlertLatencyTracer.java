@@ -0,0 +1,160 @@
+package in.helparo.app;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Timestamps the stages of a job alert, from the server sending the push to the
+ * helper answering it, so latency can be measured per device.
+ *
+ * The last {@link #CAPACITY} alerts live in a fixed-size ring of atomic arrays:
+ * {@link #begin} claims the next slot with a single increment and
+ * {@link #mark} sets a stage with a compare-and-set, so the FCM thread, the
+ * sound thread and the UI thread never block each other. The first mark of a
+ * stage wins. All times are wall clock (epoch millis) so they can be compared
+ * with the server's payload timestamp.
+ *
+ * Tracing is best effort: a slot reused while a very old alert is still being
+ * marked may mix two alerts, which only matters after {@link #CAPACITY} newer ones.
+ */
+public final class AlertLatencyTracer {
+
+    public static final int STAGE_SENT = 0;
+    public static final int STAGE_RECEIVED = 1;
+    public static final int STAGE_DECODED = 2;
+    public static final int STAGE_NOTIFIED = 3;
+    public static final int STAGE_ACTIVITY_CREATED = 4;
+    public static final int STAGE_FIRST_FRAME = 5;
+    public static final int STAGE_SOUND_STARTED = 6;
+    public static final int STAGE_ANSWERED = 7;
+
+    /** Names used when the stages are reported to the web app */
+    public static final String[] STAGE_NAMES = {
+        "sent", "received", "decoded", "notified",
+        "activityCreated", "firstFrame", "soundStarted", "answered"
+    };
+
+    static final int STAGE_COUNT = 8;
+    static final int CAPACITY = 64;
+
+    private static final AlertLatencyTracer INSTANCE = new AlertLatencyTracer();
+
+    private final AtomicLongArray keys = new AtomicLongArray(CAPACITY);
+    private final AtomicLongArray times = new AtomicLongArray(CAPACITY * STAGE_COUNT);
+    private final AtomicLong cursor = new AtomicLong();
+
+    AlertLatencyTracer() {
+    }
+
+    public static AlertLatencyTracer getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Start tracing an alert.
+     *
+     * @param sentAtMillis     the payload timestamp, 0 if the server did not send one
+     * @param receivedAtMillis when onMessageReceived was entered
+     */
+    public void begin(String jobId, long sentAtMillis, long receivedAtMillis) {
+        long key = key(jobId);
+        if (key == 0) return;
+
+        int slot = (int) (cursor.getAndIncrement() % CAPACITY);
+        keys.set(slot, 0); // Hide the slot while it is being reset
+        int base = slot * STAGE_COUNT;
+        for (int i = 0; i < STAGE_COUNT; i++) {
+            times.set(base + i, 0);
+        }
+        if (sentAtMillis > 0) times.set(base + STAGE_SENT, sentAtMillis);
+        if (receivedAtMillis > 0) times.set(base + STAGE_RECEIVED, receivedAtMillis);
+        keys.set(slot, key);
+    }
+
+    /**
+     * Record a stage for an alert that was started with {@link #begin}.
+     *
+     * @return false if the alert is not traced or the stage was already marked
+     */
+    public boolean mark(String jobId, int stage, long nowMillis) {
+        if (stage < 0 || stage >= STAGE_COUNT || nowMillis <= 0) return false;
+        int slot = find(key(jobId));
+        if (slot < 0) return false;
+        return times.compareAndSet(slot * STAGE_COUNT + stage, 0, nowMillis);
+    }
+
+    /**
+     * Latency percentiles between two stages over the traced alerts that have both.
+     *
+     * @param percentiles e.g. {50, 90, 99}
+     * @return one value per requested percentile (millis), or null if no alert has both stages
+     */
+    public long[] percentiles(int fromStage, int toStage, int... percentiles) {
+        long[] samples = samples(fromStage, toStage);
+        if (samples.length == 0) return null;
+        Arrays.sort(samples);
+        long[] result = new long[percentiles.length];
+        for (int i = 0; i < percentiles.length; i++) {
+            result[i] = nearestRank(samples, percentiles[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Number of traced alerts that have both stages
+     */
+    public int count(int fromStage, int toStage) {
+        return samples(fromStage, toStage).length;
+    }
+
+    /**
+     * Forget every traced alert
+     */
+    public void clear() {
+        for (int i = 0; i < CAPACITY; i++) {
+            keys.set(i, 0);
+        }
+        for (int i = 0; i < CAPACITY * STAGE_COUNT; i++) {
+            times.set(i, 0);
+        }
+    }
+
+    private long[] samples(int fromStage, int toStage) {
+        long[] samples = new long[CAPACITY];
+        int count = 0;
+        for (int slot = 0; slot < CAPACITY; slot++) {
+            if (keys.get(slot) == 0) continue;
+            long from = times.get(slot * STAGE_COUNT + fromStage);
+            long to = times.get(slot * STAGE_COUNT + toStage);
+            // Skip missing stages; clock skew against the server can make "to" earlier
+            if (from == 0 || to == 0 || to < from) continue;
+            samples[count++] = to - from;
+        }
+        return Arrays.copyOf(samples, count);
+    }
+
+    /**
+     * Newest slot traced for this key, -1 if none
+     */
+    private int find(long key) {
+        if (key == 0) return -1;
+        long newest = cursor.get() - 1;
+        for (int i = 0; i < CAPACITY && newest - i >= 0; i++) {
+            int slot = (int) ((newest - i) % CAPACITY);
+            if (keys.get(slot) == key) return slot;
+        }
+        return -1;
+    }
+
+    static long nearestRank(long[] sorted, int percentile) {
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)];
+    }
+
+    private static long key(String jobId) {
+        if (jobId == null || jobId.isEmpty()) return 0;
+        long key = PushDedupeCache.key("", jobId);
+        return key != 0 ? key : 1; // 0 marks an empty slot
+    }
+}
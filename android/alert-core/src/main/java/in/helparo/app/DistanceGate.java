@@ -0,0 +1,220 @@
+package in.helparo.app;
+
+/**
+ * Decides whether a job alert is close enough to the helper's last known
+ * position to deserve a full-screen takeover.
+ *
+ * The server matches helpers against the location it last saw, which can be
+ * hours old. Before anything wakes the device the job's coordinates are
+ * compared with the device's own last fix:
+ *
+ * - Within the radius (plus the fix's accuracy): deliver.
+ * - Within {@link #DOWNGRADE_FACTOR} times the radius: quiet notification.
+ * - Further away: suppress.
+ *
+ * Anything unknown fails open: jobs without coordinates, no fix yet, or a fix
+ * older than {@link #MAX_FIX_AGE_MS} are delivered as before.
+ *
+ * Everything that depends only on the fix and the radius (radians, cosine of
+ * the latitude, haversine thresholds) is computed when they change, so
+ * {@link #evaluate} is two sines, a cosine and a few multiplications, with no
+ * allocation, square root or arcsine.
+ */
+public final class DistanceGate {
+
+    /** Mean Earth radius (IUGG) */
+    static final double EARTH_RADIUS_KM = 6371.0088;
+
+    /** Helper profiles default to a 10 km service radius */
+    public static final double DEFAULT_RADIUS_KM = 10.0;
+
+    /** Jobs up to this many radii away still get a quiet notification */
+    public static final double DOWNGRADE_FACTOR = 1.5;
+
+    /** A fix older than this says little about where the helper is now */
+    public static final long MAX_FIX_AGE_MS = 30 * 60_000L;
+
+    /** Worse accuracy than this does not widen the radius any further */
+    static final double MAX_ACCURACY_KM = 5.0;
+
+    private double radiusKm = DEFAULT_RADIUS_KM;
+
+    // Last fix, precomputed
+    private boolean hasFix;
+    private double fixLatitude;
+    private double fixLongitude;
+    private double fixAccuracyKm;
+    private long fixAtMillis;
+    private double fixLatRad;
+    private double fixLngRad;
+    private double fixCosLat;
+
+    // Haversine "a" at the deliver and downgrade distances
+    private double deliverThreshold;
+    private double downgradeThreshold;
+
+    private long delivered;
+    private long downgraded;
+    private long suppressed;
+    private long noCoordinates;
+    private long noFix;
+
+    public DistanceGate() {
+        precomputeThresholds();
+    }
+
+    /**
+     * Set the helper's alert radius; values that are not positive are ignored
+     */
+    public synchronized void setRadiusKm(double radiusKm) {
+        if (!(radiusKm > 0)) return;
+        this.radiusKm = radiusKm;
+        precomputeThresholds();
+    }
+
+    public synchronized double getRadiusKm() {
+        return radiusKm;
+    }
+
+    /**
+     * Record a device fix; older fixes than the one held are ignored
+     *
+     * @param accuracyKm horizontal accuracy, 0 if unknown
+     * @return whether the fix was taken
+     */
+    public synchronized boolean updateFix(double latitude, double longitude, double accuracyKm, long fixAtMillis) {
+        if (!isValidCoordinate(latitude, longitude)) return false;
+        if (hasFix && fixAtMillis < this.fixAtMillis) return false;
+
+        hasFix = true;
+        fixLatitude = latitude;
+        fixLongitude = longitude;
+        fixAccuracyKm = accuracyKm > 0 ? Math.min(accuracyKm, MAX_ACCURACY_KM) : 0;
+        this.fixAtMillis = fixAtMillis;
+        fixLatRad = Math.toRadians(latitude);
+        fixLngRad = Math.toRadians(longitude);
+        fixCosLat = Math.cos(fixLatRad);
+        precomputeThresholds();
+        return true;
+    }
+
+    public synchronized AlertExpiryGate.Decision evaluate(JobAlert alert, long nowMillis) {
+        if (!alert.hasCoordinates()) {
+            noCoordinates++;
+            return AlertExpiryGate.Decision.DELIVER;
+        }
+        if (!hasFix || nowMillis - fixAtMillis > MAX_FIX_AGE_MS) {
+            noFix++;
+            return AlertExpiryGate.Decision.DELIVER;
+        }
+
+        double a = haversine(Math.toRadians(alert.getLatitude()), Math.toRadians(alert.getLongitude()));
+        if (a <= deliverThreshold) {
+            delivered++;
+            return AlertExpiryGate.Decision.DELIVER;
+        }
+        if (a <= downgradeThreshold) {
+            downgraded++;
+            return AlertExpiryGate.Decision.DOWNGRADE;
+        }
+        suppressed++;
+        return AlertExpiryGate.Decision.DROP;
+    }
+
+    /**
+     * Distance from the last fix, in km, or -1 without a fix. For logs and
+     * reports only; the gate itself never needs it.
+     */
+    public synchronized double distanceKm(double latitude, double longitude) {
+        if (!hasFix) return -1;
+        double a = haversine(Math.toRadians(latitude), Math.toRadians(longitude));
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.sqrt(Math.min(1, a)));
+    }
+
+    public synchronized boolean hasFix() {
+        return hasFix;
+    }
+
+    public synchronized double getFixLatitude() {
+        return fixLatitude;
+    }
+
+    public synchronized double getFixLongitude() {
+        return fixLongitude;
+    }
+
+    public synchronized double getFixAccuracyKm() {
+        return fixAccuracyKm;
+    }
+
+    public synchronized long getFixAtMillis() {
+        return fixAtMillis;
+    }
+
+    /** Within the radius */
+    public synchronized long getDelivered() {
+        return delivered;
+    }
+
+    public synchronized long getDowngraded() {
+        return downgraded;
+    }
+
+    public synchronized long getSuppressed() {
+        return suppressed;
+    }
+
+    /** Delivered because the payload had no coordinates */
+    public synchronized long getNoCoordinates() {
+        return noCoordinates;
+    }
+
+    /** Delivered because the device had no recent fix */
+    public synchronized long getNoFix() {
+        return noFix;
+    }
+
+    /**
+     * Continue counting from totals saved by a previous process
+     */
+    public synchronized void restoreCounts(long delivered, long downgraded, long suppressed,
+                                           long noCoordinates, long noFix) {
+        this.delivered = delivered;
+        this.downgraded = downgraded;
+        this.suppressed = suppressed;
+        this.noCoordinates = noCoordinates;
+        this.noFix = noFix;
+    }
+
+    public synchronized void clearCounts() {
+        restoreCounts(0, 0, 0, 0, 0);
+    }
+
+    static boolean isValidCoordinate(double latitude, double longitude) {
+        // Also rejects NaN; (0, 0) is what a missing value parses to, not a place we serve
+        return latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180
+            && !(latitude == 0 && longitude == 0);
+    }
+
+    private double haversine(double latRad, double lngRad) {
+        double sinLat = Math.sin((latRad - fixLatRad) / 2);
+        double sinLng = Math.sin((lngRad - fixLngRad) / 2);
+        return sinLat * sinLat + fixCosLat * Math.cos(latRad) * sinLng * sinLng;
+    }
+
+    private void precomputeThresholds() {
+        double deliverKm = radiusKm + fixAccuracyKm;
+        deliverThreshold = thresholdFor(deliverKm);
+        downgradeThreshold = thresholdFor(deliverKm * DOWNGRADE_FACTOR);
+    }
+
+    /**
+     * Haversine "a" for a distance: a = sin^2(d / 2R), so comparing a against
+     * this is the same as comparing distances
+     */
+    private static double thresholdFor(double km) {
+        double half = Math.min(km / (2 * EARTH_RADIUS_KM), Math.PI / 2);
+        double sin = Math.sin(half);
+        return sin * sin;
+    }
+}
@@ -0,0 +1,50 @@
+package in.helparo.app;
+
+/**
+ * Size arithmetic for decoding job images no larger than they are shown.
+ *
+ * A photo straight off a phone camera is 12 MP, 48 MB as a bitmap; the
+ * notification's big picture is a few hundred pixels high. Decoding with the
+ * sample size from {@link #sampleSize} keeps the decode itself within 2x of
+ * the target, and {@link #fitWithin} gives the final scaled size.
+ */
+public final class ImageSampling {
+
+    private ImageSampling() {
+    }
+
+    /**
+     * Largest power of two to divide the source by while both sides stay at
+     * least the requested size (BitmapFactory.Options.inSampleSize)
+     */
+    public static int sampleSize(int width, int height, int reqWidth, int reqHeight) {
+        if (width <= 0 || height <= 0 || reqWidth <= 0 || reqHeight <= 0) return 1;
+        int sample = 1;
+        while (width / (sample * 2) >= reqWidth && height / (sample * 2) >= reqHeight) {
+            sample *= 2;
+        }
+        return sample;
+    }
+
+    /**
+     * Width and height scaled down to fit inside the bounds, keeping the
+     * aspect ratio; never scaled up
+     */
+    public static int[] fitWithin(int width, int height, int maxWidth, int maxHeight) {
+        if (width <= 0 || height <= 0) return new int[]{0, 0};
+        if (width <= maxWidth && height <= maxHeight) return new int[]{width, height};
+        double scale = Math.min((double) maxWidth / width, (double) maxHeight / height);
+        return new int[]{
+            Math.max(1, (int) Math.round(width * scale)),
+            Math.max(1, (int) Math.round(height * scale))
+        };
+    }
+
+    /**
+     * Square in the middle of the image, as {x, y, side}, for the large icon
+     */
+    public static int[] centerSquare(int width, int height) {
+        int side = Math.min(width, height);
+        return new int[]{(width - side) / 2, (height - side) / 2, side};
+    }
+}
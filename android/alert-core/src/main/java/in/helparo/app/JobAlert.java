@@ -0,0 +1,210 @@
+package in.helparo.app;
+
+/**
+ * Immutable, validated job alert decoded from an FCM data payload.
+ *
+ * Built once by {@link JobAlertDecoder} and then handed to the notification,
+ * the full-screen activity and everything else on the alert path, so the
+ * payload map is only walked a single time per message.
+ */
+public final class JobAlert {
+
+    public static final String URGENCY_NORMAL = "normal";
+    public static final String URGENCY_URGENT = "urgent";
+    public static final String URGENCY_EMERGENCY = "emergency";
+
+    static final String DEFAULT_TITLE = "New Job Alert!";
+
+    private final String type;
+    private final String jobId;
+    private final String title;
+    private final String description;
+    private final String price;
+    private final String location;
+    private final String distance;
+    private final String customerName;
+    private final String urgency;
+    private final long sentAtMillis;
+    private final long expiresAtMillis;
+    private final double latitude;
+    private final double longitude;
+    private final String imageUrl;
+
+    private JobAlert(Builder builder) {
+        this.type = builder.type;
+        this.jobId = builder.jobId;
+        this.title = builder.title;
+        this.description = builder.description;
+        this.price = builder.price;
+        this.location = builder.location;
+        this.distance = builder.distance;
+        this.customerName = builder.customerName;
+        this.urgency = builder.urgency;
+        this.sentAtMillis = builder.sentAtMillis;
+        this.expiresAtMillis = builder.expiresAtMillis;
+        this.latitude = builder.latitude;
+        this.longitude = builder.longitude;
+        this.imageUrl = builder.imageUrl;
+    }
+
+    /**
+     * Fields by name rather than by position, since most of them are nullable
+     * Strings. Anything not set stays null, 0 or NaN; title and urgency fall
+     * back to their defaults.
+     */
+    static final class Builder {
+        private final String type;
+        private final String jobId;
+        private String title = DEFAULT_TITLE;
+        private String description;
+        private String price;
+        private String location;
+        private String distance;
+        private String customerName;
+        private String urgency = URGENCY_NORMAL;
+        private long sentAtMillis;
+        private long expiresAtMillis;
+        private double latitude = Double.NaN;
+        private double longitude = Double.NaN;
+        private String imageUrl;
+
+        Builder(String type, String jobId) {
+            this.type = type;
+            this.jobId = jobId;
+        }
+
+        Builder title(String title) {
+            this.title = title != null ? title : DEFAULT_TITLE;
+            return this;
+        }
+
+        Builder description(String description) {
+            this.description = description;
+            return this;
+        }
+
+        Builder price(String price) {
+            this.price = price;
+            return this;
+        }
+
+        Builder location(String location) {
+            this.location = location;
+            return this;
+        }
+
+        Builder distance(String distance) {
+            this.distance = distance;
+            return this;
+        }
+
+        Builder customerName(String customerName) {
+            this.customerName = customerName;
+            return this;
+        }
+
+        Builder urgency(String urgency) {
+            this.urgency = urgency != null ? urgency : URGENCY_NORMAL;
+            return this;
+        }
+
+        Builder sentAtMillis(long sentAtMillis) {
+            this.sentAtMillis = sentAtMillis;
+            return this;
+        }
+
+        Builder expiresAtMillis(long expiresAtMillis) {
+            this.expiresAtMillis = expiresAtMillis;
+            return this;
+        }
+
+        Builder coordinates(double latitude, double longitude) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            return this;
+        }
+
+        Builder imageUrl(String imageUrl) {
+            this.imageUrl = imageUrl;
+            return this;
+        }
+
+        JobAlert build() {
+            return new JobAlert(this);
+        }
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    /** Never null - falls back to a generic title */
+    public String getTitle() {
+        return title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getPrice() {
+        return price;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public String getDistance() {
+        return distance;
+    }
+
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    /** One of the URGENCY_* constants, never null */
+    public String getUrgency() {
+        return urgency;
+    }
+
+    /** Server send time in epoch millis, 0 if the payload had none */
+    public long getSentAtMillis() {
+        return sentAtMillis;
+    }
+
+    /** Job expiry in epoch millis, 0 if the payload had none */
+    public long getExpiresAtMillis() {
+        return expiresAtMillis;
+    }
+
+    /** Job latitude in degrees, NaN if the payload had none */
+    public double getLatitude() {
+        return latitude;
+    }
+
+    /** Job longitude in degrees, NaN if the payload had none */
+    public double getLongitude() {
+        return longitude;
+    }
+
+    /** https URL of the job photo or a location thumbnail, null if the payload had none */
+    public String getImageUrl() {
+        return imageUrl;
+    }
+
+    public boolean hasCoordinates() {
+        return DistanceGate.isValidCoordinate(latitude, longitude);
+    }
+
+    /**
+     * One-line summary used as the notification body, e.g. "₹500 • Labbipet"
+     */
+    public String getSummary() {
+        return "₹" + (price != null ? price : "0") + " • " + (location != null ? location : "Nearby");
+    }
+}
@@ -0,0 +1,546 @@
+package in.helparo.app;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decodes FCM data payloads into {@link JobAlert} values.
+ *
+ * The payload is walked exactly once: key aliases sent by different backend
+ * versions (jobId/job_id/requestId, customerName/customer_name, title/jobTitle)
+ * are resolved inline, enum-like fields are mapped onto shared constants and
+ * malformed payloads are rejected before the service wakes the device. Titles
+ * and locations repeat across alerts (the same few services and areas), so
+ * they are pooled and every queued or stored alert shares one copy of each.
+ *
+ * Payloads with {@code v = "2"} use the compact single-letter keys below
+ * instead. They carry one job ID instead of three aliases, base-36 epoch
+ * millis instead of ISO strings and the expiry relative to the send time, so
+ * a typical alert is less than half the size of a v1 one and leaves room in
+ * FCM's 4 KB for a longer description.
+ *
+ * <pre>
+ *   v  "2"                    i  job ID
+ *   t  n = new_job, u = urgent_job
+ *   h  title                  d  description
+ *   p  price                  l  location
+ *   k  distance               c  customer name
+ *   u  urgency: n, u or e     g  "lat,lng"
+ *   s  sent at, epoch millis in base 36
+ *   x  expires this many seconds after s
+ *   m  image URL (https only)
+ * </pre>
+ *
+ * A {@link #TYPE_JOB_BATCH} message carries several such jobs at once, see
+ * {@link #decodeBatch}.
+ *
+ * src/lib/push-system/compact-payload.ts is the encoder for this format.
+ */
+public final class JobAlertDecoder {
+
+    public static final String TYPE_NEW_JOB = "new_job";
+    public static final String TYPE_URGENT_JOB = "urgent_job";
+
+    /** Job IDs are UUIDs today; anything much longer is not ours */
+    static final int MAX_ID_LENGTH = 64;
+
+    /** FCM caps the whole data payload at 4 KB, so no single field can be larger */
+    static final int MAX_FIELD_LENGTH = 4096;
+
+    /** Value of the "v" key in compact payloads */
+    public static final String VERSION_COMPACT = "2";
+
+    /** Several ranked jobs in one compact message, see {@link #decodeBatch} */
+    public static final String TYPE_JOB_BATCH = "new_job_batch";
+
+    /** FCM's limit for the whole data payload, keys included */
+    static final int MAX_PAYLOAD_BYTES = 4096;
+
+    /** Even short jobs stop fitting into 4 KB well before this */
+    static final int MAX_BATCH_JOBS = 20;
+
+    /** The image is optional; a longer or non-https URL is dropped, not the alert */
+    static final int MAX_IMAGE_URL_LENGTH = 512;
+
+    /** Distinct titles and locations kept for reuse; a helper works a handful of areas and services */
+    static final int MAX_POOLED = 64;
+
+    /** Longer values are free text, not worth pooling */
+    static final int MAX_POOLED_LENGTH = 80;
+
+    private static final LinkedHashMap<String, String> POOL =
+        new LinkedHashMap<String, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > MAX_POOLED;
+            }
+        };
+
+    // Field slots of a compact job
+    private static final int F_TYPE = 0;
+    private static final int F_ID = 1;
+    private static final int F_TITLE = 2;
+    private static final int F_DESCRIPTION = 3;
+    private static final int F_PRICE = 4;
+    private static final int F_LOCATION = 5;
+    private static final int F_DISTANCE = 6;
+    private static final int F_CUSTOMER = 7;
+    private static final int F_URGENCY = 8;
+    private static final int F_EXPIRES = 9;
+    private static final int F_COORDINATES = 10;
+    private static final int F_IMAGE = 11;
+    private static final int FIELD_COUNT = 12;
+
+    private JobAlertDecoder() {
+    }
+
+    /**
+     * Whether a message of this type should go through the full-screen job alert path
+     */
+    public static boolean isJobAlertType(String type) {
+        return TYPE_NEW_JOB.equals(type) || TYPE_URGENT_JOB.equals(type);
+    }
+
+    /**
+     * The message type of any payload, v1 or compact
+     */
+    public static String typeOf(Map<String, String> data) {
+        String type = data.get("type");
+        if (type == null && VERSION_COMPACT.equals(data.get("v"))) {
+            type = compactType(data.get("t"));
+        }
+        return type;
+    }
+
+    /**
+     * Decode a job alert payload.
+     *
+     * @return the decoded alert, or null if the payload is not a valid job alert
+     */
+    public static JobAlert decode(Map<String, String> data) {
+        if (data == null || data.isEmpty()) return null;
+        if (VERSION_COMPACT.equals(data.get("v"))) return decodeCompact(data);
+
+        String type = null;
+        String jobId = null;
+        String jobIdAlias = null;
+        String requestId = null;
+        String title = null;
+        String titleAlias = null;
+        String description = null;
+        String price = null;
+        String location = null;
+        String distance = null;
+        String customerName = null;
+        String customerNameAlias = null;
+        String urgency = JobAlert.URGENCY_NORMAL;
+        long sentAt = 0;
+        long expiresAt = 0;
+        double latitude = Double.NaN;
+        double longitude = Double.NaN;
+        String imageUrl = null;
+
+        for (Map.Entry<String, String> entry : data.entrySet()) {
+            String key = entry.getKey();
+            String value = entry.getValue();
+            if (key == null || value == null || value.isEmpty()) continue;
+            if (value.length() > MAX_FIELD_LENGTH) return null;
+
+            switch (key) {
+                case "type":
+                    type = canonicalType(value);
+                    if (type == null) return null;
+                    break;
+                case "jobId":
+                    jobId = value;
+                    break;
+                case "job_id":
+                    jobIdAlias = value;
+                    break;
+                case "requestId":
+                    requestId = value;
+                    break;
+                case "title":
+                    title = value;
+                    break;
+                case "jobTitle":
+                    titleAlias = value;
+                    break;
+                case "description":
+                    description = value;
+                    break;
+                case "price":
+                    price = value;
+                    break;
+                case "location":
+                    location = value;
+                    break;
+                case "distance":
+                    distance = value;
+                    break;
+                case "customerName":
+                    customerName = value;
+                    break;
+                case "customer_name":
+                    customerNameAlias = value;
+                    break;
+                case "urgency":
+                    urgency = canonicalUrgency(value);
+                    break;
+                case "timestamp":
+                    sentAt = PushTimestamps.parse(value);
+                    break;
+                case "expiresAt":
+                    expiresAt = PushTimestamps.parse(value);
+                    break;
+                case "lat":
+                    latitude = parseDegrees(value);
+                    break;
+                case "lng":
+                    longitude = parseDegrees(value);
+                    break;
+                case "imageUrl":
+                    imageUrl = imageUrlOrNull(value);
+                    break;
+                default:
+                    // Unknown keys (version, click_action...) are ignored here
+                    break;
+            }
+        }
+
+        if (type == null) return null;
+
+        if (jobId == null) jobId = jobIdAlias;
+        if (jobId == null) jobId = requestId;
+        if (!isValidId(jobId)) return null;
+
+        if (title == null) title = titleAlias;
+        if (title == null) title = JobAlert.DEFAULT_TITLE;
+        if (customerName == null) customerName = customerNameAlias;
+
+        return new JobAlert.Builder(type, jobId)
+            .title(pooled(title))
+            .description(description)
+            .price(price)
+            .location(pooled(location))
+            .distance(distance)
+            .customerName(customerName)
+            .urgency(urgency)
+            .sentAtMillis(sentAt)
+            .expiresAtMillis(expiresAt)
+            .coordinates(latitude, longitude)
+            .imageUrl(imageUrl)
+            .build();
+    }
+
+    /**
+     * Decode a v2 payload; same rules and defaults as v1, one key per field
+     */
+    private static JobAlert decodeCompact(Map<String, String> data) {
+        String[] fields = new String[FIELD_COUNT];
+        long sentAt = 0;
+
+        for (Map.Entry<String, String> entry : data.entrySet()) {
+            String key = entry.getKey();
+            String value = entry.getValue();
+            if (key == null || key.length() != 1 || value == null || value.isEmpty()) continue;
+            if (value.length() > MAX_FIELD_LENGTH) return null;
+
+            char name = key.charAt(0);
+            if (name == 's') {
+                sentAt = Math.max(0, parseUnsigned(value, 36));
+                continue;
+            }
+            int slot = fieldSlot(name);
+            if (slot >= 0) fields[slot] = value;
+        }
+
+        return buildCompact(fields, sentAt);
+    }
+
+    /**
+     * Decode a new_job_batch payload: several jobs in one message, in the
+     * order the server ranked them.
+     *
+     * <pre>
+     *   v  "2"     t  b          s  sent at (base 36), shared
+     *   n  number of jobs
+     *   i0, h0, t0 ... i1, h1 ...   job fields as above, suffixed by rank
+     * </pre>
+     *
+     * A batch is all or nothing: a count outside 1..{@link #MAX_BATCH_JOBS},
+     * a payload over FCM's 4 KB, a field for a rank at or past the count, or
+     * any job that would not decode on its own rejects the whole message.
+     *
+     * @return the jobs in rank order, or null if the batch is not valid
+     */
+    public static List<JobAlert> decodeBatch(Map<String, String> data) {
+        if (data == null || !VERSION_COMPACT.equals(data.get("v"))) return null;
+        if (!TYPE_JOB_BATCH.equals(typeOf(data))) return null;
+
+        long announced = parseUnsigned(nullToEmpty(data.get("n")), 10);
+        if (announced < 1 || announced > MAX_BATCH_JOBS) return null;
+        int count = (int) announced;
+
+        String[][] jobs = new String[count][FIELD_COUNT];
+        long sentAt = 0;
+        int bytes = 0;
+
+        for (Map.Entry<String, String> entry : data.entrySet()) {
+            String key = entry.getKey();
+            String value = entry.getValue();
+            if (key == null || value == null) continue;
+            bytes += utf8Length(key) + utf8Length(value);
+            if (bytes > MAX_PAYLOAD_BYTES) return null;
+            if (value.isEmpty()) continue;
+
+            int length = key.length();
+            if (length == 1) {
+                if (key.charAt(0) == 's') sentAt = Math.max(0, parseUnsigned(value, 36));
+                continue;
+            }
+            int slot = fieldSlot(key.charAt(0));
+            if (slot < 0 || length > 3) continue;
+            // Rank without leading zeros, so every field has exactly one key
+            if (length == 3 && key.charAt(1) == '0') continue;
+            long rank = parseUnsigned(key.substring(1), 10);
+            if (rank < 0) continue;
+            if (rank >= count) return null; // More jobs than announced: partial or tampered
+            jobs[(int) rank][slot] = value;
+        }
+
+        List<JobAlert> alerts = new ArrayList<>(count);
+        for (String[] fields : jobs) {
+            JobAlert alert = buildCompact(fields, sentAt);
+            if (alert == null) return null; // Fewer jobs than announced, or a bad one
+            alerts.add(alert);
+        }
+        return alerts;
+    }
+
+    private static JobAlert buildCompact(String[] fields, long sentAt) {
+        String type = compactType(fields[F_TYPE]);
+        String jobId = fields[F_ID];
+        if (!isJobAlertType(type) || !isValidId(jobId)) return null;
+
+        String title = fields[F_TITLE] != null ? fields[F_TITLE] : JobAlert.DEFAULT_TITLE;
+        String urgency = fields[F_URGENCY] != null ? compactUrgency(fields[F_URGENCY]) : JobAlert.URGENCY_NORMAL;
+
+        // Without a send time there is nothing to anchor the expiry to
+        long expiresInSeconds = fields[F_EXPIRES] != null ? parseUnsigned(fields[F_EXPIRES], 10) : -1;
+        long expiresAt = sentAt > 0 && expiresInSeconds >= 0 ? sentAt + expiresInSeconds * 1000 : 0;
+
+        double latitude = Double.NaN;
+        double longitude = Double.NaN;
+        String coordinates = fields[F_COORDINATES];
+        if (coordinates != null && coordinates.length() <= 48) {
+            int comma = coordinates.indexOf(',');
+            if (comma > 0) {
+                latitude = parseDegrees(coordinates.substring(0, comma));
+                longitude = parseDegrees(coordinates.substring(comma + 1));
+            }
+        }
+
+        return new JobAlert.Builder(type, jobId)
+            .title(pooled(title))
+            .description(fields[F_DESCRIPTION])
+            .price(fields[F_PRICE])
+            .location(pooled(fields[F_LOCATION]))
+            .distance(fields[F_DISTANCE])
+            .customerName(fields[F_CUSTOMER])
+            .urgency(urgency)
+            .sentAtMillis(sentAt)
+            .expiresAtMillis(expiresAt)
+            .coordinates(latitude, longitude)
+            .imageUrl(imageUrlOrNull(fields[F_IMAGE]))
+            .build();
+    }
+
+    /**
+     * Slot in a compact field array for a key letter, or -1 for letters that
+     * are not job fields (v, s, n)
+     */
+    private static int fieldSlot(char name) {
+        switch (name) {
+            case 't':
+                return F_TYPE;
+            case 'i':
+                return F_ID;
+            case 'h':
+                return F_TITLE;
+            case 'd':
+                return F_DESCRIPTION;
+            case 'p':
+                return F_PRICE;
+            case 'l':
+                return F_LOCATION;
+            case 'k':
+                return F_DISTANCE;
+            case 'c':
+                return F_CUSTOMER;
+            case 'u':
+                return F_URGENCY;
+            case 'x':
+                return F_EXPIRES;
+            case 'g':
+                return F_COORDINATES;
+            case 'm':
+                return F_IMAGE;
+            default:
+                return -1;
+        }
+    }
+
+    private static String compactType(String value) {
+        if (value == null || value.length() != 1) return null;
+        switch (value.charAt(0)) {
+            case 'n':
+                return TYPE_NEW_JOB;
+            case 'u':
+                return TYPE_URGENT_JOB;
+            case 'b':
+                return TYPE_JOB_BATCH;
+            default:
+                return null;
+        }
+    }
+
+    private static String compactUrgency(String value) {
+        switch (value) {
+            case "u":
+                return JobAlert.URGENCY_URGENT;
+            case "e":
+                return JobAlert.URGENCY_EMERGENCY;
+            default:
+                return JobAlert.URGENCY_NORMAL;
+        }
+    }
+
+    /**
+     * Non-negative integer in the given radix, or -1 if malformed; at most 12
+     * digits so it cannot overflow
+     */
+    private static long parseUnsigned(String value, int radix) {
+        int length = value.length();
+        if (length > 12) return -1;
+        long result = 0;
+        for (int i = 0; i < length; i++) {
+            int digit = Character.digit(value.charAt(i), radix);
+            if (digit < 0) return -1;
+            result = result * radix + digit;
+        }
+        return result;
+    }
+
+    /**
+     * Only https images are fetched; anything else would be a cleartext request
+     * or a local file the payload should not point at
+     */
+    private static String imageUrlOrNull(String value) {
+        if (value == null || value.length() > MAX_IMAGE_URL_LENGTH) return null;
+        if (!value.regionMatches(true, 0, "https://", 0, 8) || value.length() == 8) return null;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) <= ' ') return null;
+        }
+        return value;
+    }
+
+    /**
+     * The copy of this value already held by an earlier alert, so repeated
+     * titles and locations do not each keep their own string
+     */
+    static String pooled(String value) {
+        if (value == null || value.length() > MAX_POOLED_LENGTH) return value;
+        synchronized (POOL) {
+            String shared = POOL.get(value);
+            if (shared != null) return shared;
+            POOL.put(value, value);
+            return value;
+        }
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+
+    /**
+     * Bytes this string takes in UTF-8, which is what FCM counts, without encoding it
+     */
+    static int utf8Length(String value) {
+        int bytes = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Coordinates are optional, so a bad value only loses them (NaN) instead of
+     * rejecting the alert
+     */
+    private static double parseDegrees(String value) {
+        if (value.length() > 32) return Double.NaN;
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Map the type onto the shared constant so later comparisons are reference-cheap
+     * and no per-message copy is retained.
+     */
+    private static String canonicalType(String value) {
+        switch (value) {
+            case TYPE_NEW_JOB:
+                return TYPE_NEW_JOB;
+            case TYPE_URGENT_JOB:
+                return TYPE_URGENT_JOB;
+            default:
+                return null;
+        }
+    }
+
+    private static String canonicalUrgency(String value) {
+        switch (value) {
+            case JobAlert.URGENCY_URGENT:
+                return JobAlert.URGENCY_URGENT;
+            case JobAlert.URGENCY_EMERGENCY:
+                return JobAlert.URGENCY_EMERGENCY;
+            default:
+                return JobAlert.URGENCY_NORMAL;
+        }
+    }
+
+    /**
+     * IDs end up in PendingIntent extras and notification tags, so only accept
+     * short UUID-like strings.
+     */
+    private static boolean isValidId(String id) {
+        if (id == null) return false;
+        int length = id.length();
+        if (length == 0 || length > MAX_ID_LENGTH) return false;
+        for (int i = 0; i < length; i++) {
+            char c = id.charAt(i);
+            boolean ok = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')
+                || (c >= '0' && c <= '9') || c == '-' || c == '_';
+            if (!ok) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,248 @@
+package in.helparo.app;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory queue of job alerts that are currently waiting for an answer.
+ *
+ * Every job gets its own notification ID for as long as it is queued, and
+ * PendingIntent request codes are derived from that ID ({@link #requestCode}),
+ * so two jobs arriving seconds apart never overwrite each other's notification
+ * or actions. {@link #snapshot()} orders jobs the way the alert screen pages
+ * through them: most urgent first, then soonest to expire.
+ *
+ * Shared by MyFirebaseMessagingService, JobAlertActivity and the receivers,
+ * which all run in the app process.
+ */
+public final class JobAlertQueue {
+
+    /** Notification IDs handed out to job alerts: [FIRST_ID, FIRST_ID + MAX_ALERTS) */
+    static final int FIRST_ID = 1000;
+
+    /** More than this many unanswered jobs is noise; the least urgent one is dropped */
+    static final int MAX_ALERTS = 32;
+
+    /** PendingIntent slots per notification, see {@link #requestCode} */
+    public static final int SLOT_FULL_SCREEN = 0;
+    public static final int SLOT_CONTENT = 1;
+    public static final int SLOT_ACCEPT = 2;
+    public static final int SLOT_REJECT = 3;
+    private static final int SLOTS = 4;
+
+    public interface Listener {
+        void onQueueChanged();
+    }
+
+    /**
+     * A queued job alert with its notification ID and the time it should
+     * disappear (device clock, epoch millis).
+     */
+    public static final class Entry {
+        public final JobAlert alert;
+        public final int notificationId;
+        public final long dismissAt;
+        final long sequence;
+
+        Entry(JobAlert alert, int notificationId, long dismissAt, long sequence) {
+            this.alert = alert;
+            this.notificationId = notificationId;
+            this.dismissAt = dismissAt;
+            this.sequence = sequence;
+        }
+    }
+
+    static final Comparator<Entry> ORDER = (a, b) -> {
+        int byUrgency = Integer.compare(urgencyRank(b.alert), urgencyRank(a.alert));
+        if (byUrgency != 0) return byUrgency;
+        int byExpiry = Long.compare(a.dismissAt, b.dismissAt);
+        if (byExpiry != 0) return byExpiry;
+        return Long.compare(a.sequence, b.sequence);
+    };
+
+    private static final JobAlertQueue INSTANCE = new JobAlertQueue();
+
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final boolean[] usedIds = new boolean[MAX_ALERTS];
+    private int nextIdOffset;
+    private long sequence;
+    private Listener listener;
+
+    JobAlertQueue() {
+    }
+
+    public static JobAlertQueue getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * PendingIntent request code for one of the SLOT_* actions of a notification.
+     * Unique across all queued jobs because notification IDs are.
+     */
+    public static int requestCode(int notificationId, int slot) {
+        return notificationId * SLOTS + slot;
+    }
+
+    /**
+     * Queue a job, or refresh it if the same job is already queued (keeping its ID).
+     *
+     * @return the queued entry
+     */
+    public Entry add(JobAlert alert, long dismissAt) {
+        return add(alert, dismissAt, null);
+    }
+
+    /**
+     * Same as {@link #add(JobAlert, long)}, collecting entries evicted to stay
+     * within {@link #MAX_ALERTS} so the caller can cancel their notifications.
+     */
+    public Entry add(JobAlert alert, long dismissAt, List<Entry> evicted) {
+        Entry entry;
+        Listener toNotify;
+        synchronized (this) {
+            Entry existing = entries.get(alert.getJobId());
+            if (existing != null) {
+                entry = new Entry(alert, existing.notificationId, dismissAt, existing.sequence);
+            } else {
+                if (entries.size() >= MAX_ALERTS) {
+                    Entry victim = Collections.max(entries.values(), ORDER);
+                    removeLocked(victim.alert.getJobId());
+                    if (evicted != null) evicted.add(victim);
+                }
+                entry = new Entry(alert, allocateIdLocked(), dismissAt, sequence++);
+            }
+            entries.put(alert.getJobId(), entry);
+            toNotify = listener;
+        }
+        if (toNotify != null) toNotify.onQueueChanged();
+        return entry;
+    }
+
+    /**
+     * Remove exactly one job (accepted, rejected or expired).
+     *
+     * @return the removed entry, or null if the job was not queued
+     */
+    public Entry remove(String jobId) {
+        if (jobId == null) return null;
+        Entry removed;
+        Listener toNotify;
+        synchronized (this) {
+            removed = removeLocked(jobId);
+            toNotify = listener;
+        }
+        if (removed != null && toNotify != null) toNotify.onQueueChanged();
+        return removed;
+    }
+
+    /**
+     * Remove every job whose dismiss time has passed.
+     *
+     * @return the removed entries, empty if none
+     */
+    public List<Entry> removeExpired(long nowMillis) {
+        List<Entry> removed = new ArrayList<>();
+        Listener toNotify;
+        synchronized (this) {
+            for (Entry entry : new ArrayList<>(entries.values())) {
+                if (entry.dismissAt > 0 && entry.dismissAt <= nowMillis) {
+                    removeLocked(entry.alert.getJobId());
+                    removed.add(entry);
+                }
+            }
+            toNotify = listener;
+        }
+        if (!removed.isEmpty() && toNotify != null) toNotify.onQueueChanged();
+        return removed;
+    }
+
+    public synchronized Entry get(String jobId) {
+        return jobId != null ? entries.get(jobId) : null;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * Queued jobs in display order (most urgent, then soonest to expire)
+     */
+    public synchronized List<Entry> snapshot() {
+        List<Entry> list = new ArrayList<>(entries.values());
+        Collections.sort(list, ORDER);
+        return list;
+    }
+
+    /**
+     * Earliest dismiss time among queued jobs, 0 if none
+     */
+    public synchronized long nextDismissAt() {
+        long next = 0;
+        for (Entry entry : entries.values()) {
+            if (entry.dismissAt > 0 && (next == 0 || entry.dismissAt < next)) next = entry.dismissAt;
+        }
+        return next;
+    }
+
+    /**
+     * Single listener (the visible JobAlertActivity). Called on the thread that
+     * changed the queue.
+     */
+    public synchronized void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Clear the listener only if it is still the given one, so a finishing activity
+     * does not unhook the instance that replaced it.
+     */
+    public synchronized void removeListener(Listener listener) {
+        if (this.listener == listener) this.listener = null;
+    }
+
+    synchronized void clear() {
+        entries.clear();
+        for (int i = 0; i < usedIds.length; i++) usedIds[i] = false;
+        nextIdOffset = 0;
+        sequence = 0;
+        listener = null;
+    }
+
+    private Entry removeLocked(String jobId) {
+        Entry removed = entries.remove(jobId);
+        if (removed != null) usedIds[removed.notificationId - FIRST_ID] = false;
+        return removed;
+    }
+
+    /**
+     * Round-robin over the ID range so a just-freed ID is not immediately reused
+     * while the system may still be animating its old notification away.
+     */
+    private int allocateIdLocked() {
+        for (int i = 0; i < MAX_ALERTS; i++) {
+            int offset = (nextIdOffset + i) % MAX_ALERTS;
+            if (!usedIds[offset]) {
+                usedIds[offset] = true;
+                nextIdOffset = (offset + 1) % MAX_ALERTS;
+                return FIRST_ID + offset;
+            }
+        }
+        // Unreachable: add() evicts before allocating
+        throw new IllegalStateException("No free job alert notification ID");
+    }
+
+    static int urgencyRank(JobAlert alert) {
+        String urgency = alert.getUrgency();
+        if (JobAlert.URGENCY_EMERGENCY.equals(urgency)) return 2;
+        if (JobAlert.URGENCY_URGENT.equals(urgency)) return 1;
+        return 0;
+    }
+}
@@ -0,0 +1,170 @@
+package in.helparo.app;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded, time-expiring index of push messages that were already handled.
+ *
+ * Entries are stored as a 64-bit hash of (type, id) plus an expiry time, so no
+ * payload strings are retained and memory is capped at {@code maxEntries}.
+ * Lookups and inserts are O(1); when full, the oldest entry is evicted.
+ *
+ * The index can be written to and restored from a compact binary form
+ * (16 bytes per entry) so it survives the process being killed between
+ * an FCM delivery and its redelivery.
+ */
+public final class PushDedupeCache {
+
+    private static final int FILE_MAGIC = 0x48444431; // "HDD1"
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final LinkedHashMap<Long, Long> expiries;
+
+    private long hits;
+    private long misses;
+
+    public PushDedupeCache(int maxEntries, long ttlMillis) {
+        if (maxEntries <= 0) throw new IllegalArgumentException("maxEntries must be > 0");
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.expiries = new LinkedHashMap<Long, Long>(maxEntries * 4 / 3 + 1) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+                return size() > PushDedupeCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Check whether (type, id) was seen within the TTL and record it if not.
+     *
+     * @return true if this is a duplicate that should be dropped
+     */
+    public boolean checkAndMark(String type, String id, long nowMillis) {
+        return checkAndMark(type, id, nowMillis, 0);
+    }
+
+    /**
+     * Like {@link #checkAndMark(String, String, long)}, but a new entry lives no
+     * longer than {@code notAfterMillis} (e.g. the job's expiry); 0 means the TTL only.
+     *
+     * @return true if this is a duplicate that should be dropped
+     */
+    public synchronized boolean checkAndMark(String type, String id, long nowMillis, long notAfterMillis) {
+        Long key = key(type, id);
+        Long expiresAt = expiries.get(key);
+        if (expiresAt != null && expiresAt > nowMillis) {
+            hits++;
+            return true;
+        }
+
+        misses++;
+        // Remove first so a re-insert moves the key to the young end of the eviction order
+        expiries.remove(key);
+        long expiresAtMillis = nowMillis + ttlMillis;
+        if (notAfterMillis > 0) expiresAtMillis = Math.min(expiresAtMillis, notAfterMillis);
+        expiries.put(key, expiresAtMillis);
+        return false;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized int size() {
+        return expiries.size();
+    }
+
+    /**
+     * Write all live entries and the counters in compact binary form.
+     */
+    public synchronized void writeTo(OutputStream out, long nowMillis) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        int live = 0;
+        for (long expiresAt : expiries.values()) {
+            if (expiresAt > nowMillis) live++;
+        }
+
+        data.writeInt(FILE_MAGIC);
+        data.writeLong(hits);
+        data.writeLong(misses);
+        data.writeInt(live);
+        for (Map.Entry<Long, Long> entry : expiries.entrySet()) {
+            if (entry.getValue() <= nowMillis) continue;
+            data.writeLong(entry.getKey());
+            data.writeLong(entry.getValue());
+        }
+        data.flush();
+    }
+
+    /**
+     * Restore entries written by {@link #writeTo}. Expired entries are skipped;
+     * a truncated or foreign stream leaves the cache untouched.
+     */
+    public synchronized void readFrom(InputStream in, long nowMillis) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != FILE_MAGIC) return;
+
+        long storedHits = data.readLong();
+        long storedMisses = data.readLong();
+        int count = data.readInt();
+        if (count < 0 || count > maxEntries) return;
+
+        // Read everything before touching the map so a truncated file changes nothing
+        long[] keys = new long[count];
+        long[] expiresAt = new long[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = data.readLong();
+            expiresAt[i] = data.readLong();
+        }
+
+        expiries.clear();
+        for (int i = 0; i < count; i++) {
+            if (expiresAt[i] > nowMillis) expiries.put(keys[i], expiresAt[i]);
+        }
+        hits = storedHits;
+        misses = storedMisses;
+    }
+
+    /**
+     * Drop expired entries. Not needed for correctness, only to keep the
+     * persisted form small.
+     */
+    public synchronized void prune(long nowMillis) {
+        Iterator<Long> it = expiries.values().iterator();
+        while (it.hasNext()) {
+            if (it.next() <= nowMillis) it.remove();
+        }
+    }
+
+    /**
+     * 64-bit FNV-1a over type, a separator and id
+     */
+    static long key(String type, String id) {
+        long hash = 0xcbf29ce484222325L;
+        hash = mix(hash, type);
+        hash = (hash ^ 0x1F) * 0x100000001b3L;
+        hash = mix(hash, id);
+        return hash;
+    }
+
+    private static long mix(long hash, String value) {
+        if (value == null) return hash;
+        for (int i = 0, n = value.length(); i < n; i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+}
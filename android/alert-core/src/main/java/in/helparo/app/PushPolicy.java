@@ -0,0 +1,305 @@
+package in.helparo.app;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Per-type rate limits and quiet hours for regular (non job alert) pushes,
+ * mirroring PUSH_DECISIONS in src/lib/push-system/types.ts.
+ *
+ * The server enforces the same limits, but retries, several senders and
+ * clock drift still let bursts through. Each type gets two token buckets
+ * (per hour and per day) that refill continuously; a push that finds either
+ * empty, or arrives during quiet hours for a type that respects them, is not
+ * allowed to alert. The caller still shows it, silently, in a summary.
+ *
+ * Bucket levels are kept in milli-tokens with the time each was last topped
+ * up, so the state per type is two ints and two longs and the whole policy
+ * fits well under a kilobyte on disk.
+ */
+public final class PushPolicy {
+
+    public enum Decision {
+        /** Post normally */
+        ALERT,
+        /** Quiet hours: post silently into the summary */
+        QUIET,
+        /** A bucket is empty: post silently into the summary */
+        OVER_LIMIT
+    }
+
+    /** Limits for one push type */
+    public static final class Rule {
+        final int maxPerHour;
+        final int maxPerDay;
+        final boolean highPriority;
+        final boolean respectQuietHours;
+
+        Rule(int maxPerHour, int maxPerDay, boolean highPriority, boolean respectQuietHours) {
+            this.maxPerHour = maxPerHour;
+            this.maxPerDay = maxPerDay;
+            this.highPriority = highPriority;
+            this.respectQuietHours = respectQuietHours;
+        }
+
+        public boolean isHighPriority() {
+            return highPriority;
+        }
+    }
+
+    private static final int FILE_MAGIC = 0x48505031; // "HPP1"
+
+    static final long HOUR_MS = 60 * 60_000L;
+    static final long DAY_MS = 24 * HOUR_MS;
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    /** Types the server does not list (yet) are treated like a chatty normal-priority type */
+    static final Rule DEFAULT_RULE = new Rule(5, 20, false, true);
+
+    /** Unknown type names come from the server; keep the table bounded */
+    static final int MAX_TYPES = 32;
+
+    private static final Map<String, Rule> RULES = new HashMap<>();
+
+    static {
+        RULES.put("booking_abandoned", new Rule(1, 2, false, true));
+        RULES.put("helpers_searching", new Rule(2, 10, false, false));
+        RULES.put("helper_applied", new Rule(10, 50, true, false));
+        RULES.put("helper_assigned", new Rule(5, 20, true, false));
+        RULES.put("job_started", new Rule(5, 20, true, false));
+        RULES.put("job_completed", new Rule(5, 20, true, false));
+        RULES.put("payment_pending", new Rule(1, 3, false, true));
+        RULES.put("no_helpers_found", new Rule(2, 5, false, false));
+        RULES.put("re_engagement", new Rule(1, 1, false, true));
+        RULES.put("new_job_nearby", new Rule(30, 100, true, false));
+        RULES.put("job_expiring", new Rule(10, 50, true, false));
+        RULES.put("job_accepted", new Rule(5, 20, true, false));
+        RULES.put("job_rejected", new Rule(10, 50, false, false));
+        RULES.put("customer_otp_shared", new Rule(5, 20, true, false));
+        RULES.put("payment_credited", new Rule(5, 20, false, true));
+        RULES.put("inactivity_reminder", new Rule(1, 1, false, true));
+        RULES.put("document_expiring", new Rule(1, 2, false, true));
+    }
+
+    /** Bucket levels for one type, in milli-tokens */
+    private static final class Buckets {
+        int hour;
+        int day;
+        long hourRefilledAt;
+        long dayRefilledAt;
+    }
+
+    private final Map<String, Buckets> buckets = new HashMap<>();
+
+    private boolean quietEnabled;
+    private int quietStartMinute = 22 * 60;
+    private int quietEndMinute = 7 * 60;
+    private TimeZone timeZone;
+
+    private long alerted;
+    private long quieted;
+    private long overLimit;
+
+    public PushPolicy(TimeZone timeZone) {
+        this.timeZone = timeZone;
+    }
+
+    public static Rule ruleFor(String type) {
+        Rule rule = type != null ? RULES.get(type) : null;
+        return rule != null ? rule : DEFAULT_RULE;
+    }
+
+    /**
+     * Decide how a push of this type may be shown; an ALERT takes a token from
+     * both of the type's buckets
+     */
+    public synchronized Decision evaluate(String type, long nowMillis) {
+        Rule rule = ruleFor(type);
+        if (rule.respectQuietHours && isQuietAt(nowMillis)) {
+            quieted++;
+            return Decision.QUIET;
+        }
+
+        String key = type != null ? type : "";
+        Buckets state = buckets.get(key);
+        if (state == null) {
+            if (buckets.size() >= MAX_TYPES) evictOldest();
+            state = new Buckets();
+            state.hour = rule.maxPerHour * 1000;
+            state.day = rule.maxPerDay * 1000;
+            state.hourRefilledAt = nowMillis;
+            state.dayRefilledAt = nowMillis;
+            buckets.put(key, state);
+        } else {
+            state.hour = refill(state.hour, rule.maxPerHour, HOUR_MS, state.hourRefilledAt, nowMillis);
+            state.hourRefilledAt = refilledAt(state.hourRefilledAt, rule.maxPerHour, HOUR_MS, nowMillis);
+            state.day = refill(state.day, rule.maxPerDay, DAY_MS, state.dayRefilledAt, nowMillis);
+            state.dayRefilledAt = refilledAt(state.dayRefilledAt, rule.maxPerDay, DAY_MS, nowMillis);
+        }
+
+        if (state.hour < 1000 || state.day < 1000) {
+            overLimit++;
+            return Decision.OVER_LIMIT;
+        }
+        state.hour -= 1000;
+        state.day -= 1000;
+        alerted++;
+        return Decision.ALERT;
+    }
+
+    /**
+     * Quiet hours as "HH:mm" minutes of the day in the given zone; start after
+     * end means overnight (22:00 - 07:00)
+     */
+    public synchronized void setQuietHours(boolean enabled, int startMinute, int endMinute, TimeZone zone) {
+        quietEnabled = enabled && startMinute != endMinute;
+        quietStartMinute = Math.floorMod(startMinute, MINUTES_PER_DAY);
+        quietEndMinute = Math.floorMod(endMinute, MINUTES_PER_DAY);
+        if (zone != null) timeZone = zone;
+    }
+
+    public synchronized boolean isQuietAt(long nowMillis) {
+        if (!quietEnabled) return false;
+        long local = nowMillis + timeZone.getOffset(nowMillis);
+        int minute = (int) Math.floorMod(local / 60_000L, (long) MINUTES_PER_DAY);
+        if (quietStartMinute > quietEndMinute) {
+            return minute >= quietStartMinute || minute < quietEndMinute;
+        }
+        return minute >= quietStartMinute && minute < quietEndMinute;
+    }
+
+    public synchronized boolean isQuietEnabled() {
+        return quietEnabled;
+    }
+
+    public synchronized int getQuietStartMinute() {
+        return quietStartMinute;
+    }
+
+    public synchronized int getQuietEndMinute() {
+        return quietEndMinute;
+    }
+
+    public synchronized String getTimeZoneId() {
+        return timeZone.getID();
+    }
+
+    public synchronized long getAlerted() {
+        return alerted;
+    }
+
+    public synchronized long getQuieted() {
+        return quieted;
+    }
+
+    public synchronized long getOverLimit() {
+        return overLimit;
+    }
+
+    public synchronized int getTrackedTypes() {
+        return buckets.size();
+    }
+
+    /**
+     * Write the quiet hours, the counters and every type's buckets in compact binary form
+     */
+    public synchronized void writeTo(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(FILE_MAGIC);
+        data.writeBoolean(quietEnabled);
+        data.writeShort(quietStartMinute);
+        data.writeShort(quietEndMinute);
+        data.writeUTF(timeZone.getID());
+        data.writeLong(alerted);
+        data.writeLong(quieted);
+        data.writeLong(overLimit);
+        data.writeShort(buckets.size());
+        for (Map.Entry<String, Buckets> entry : buckets.entrySet()) {
+            Buckets state = entry.getValue();
+            data.writeUTF(entry.getKey());
+            data.writeInt(state.hour);
+            data.writeInt(state.day);
+            data.writeLong(state.hourRefilledAt);
+            data.writeLong(state.dayRefilledAt);
+        }
+        data.flush();
+    }
+
+    /**
+     * Restore state written by {@link #writeTo}; a truncated or foreign stream
+     * leaves the policy untouched
+     */
+    public synchronized void readFrom(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != FILE_MAGIC) return;
+
+        boolean storedQuiet = data.readBoolean();
+        int storedStart = data.readShort();
+        int storedEnd = data.readShort();
+        String zoneId = data.readUTF();
+        long storedAlerted = data.readLong();
+        long storedQuieted = data.readLong();
+        long storedOverLimit = data.readLong();
+        int count = data.readShort();
+        if (count < 0 || count > MAX_TYPES) return;
+
+        // Read everything before touching the state so a truncated file changes nothing
+        Map<String, Buckets> restored = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            String type = data.readUTF();
+            Buckets state = new Buckets();
+            state.hour = data.readInt();
+            state.day = data.readInt();
+            state.hourRefilledAt = data.readLong();
+            state.dayRefilledAt = data.readLong();
+            restored.put(type, state);
+        }
+
+        buckets.clear();
+        buckets.putAll(restored);
+        setQuietHours(storedQuiet, storedStart, storedEnd, TimeZone.getTimeZone(zoneId));
+        alerted = storedAlerted;
+        quieted = storedQuieted;
+        overLimit = storedOverLimit;
+    }
+
+    /**
+     * Level after topping up at maxPerPeriod tokens per period since refilledAt
+     */
+    private static int refill(int level, int maxPerPeriod, long periodMs, long refilledAt, long nowMillis) {
+        long elapsed = nowMillis - refilledAt;
+        if (elapsed <= 0) return level; // Clock went back: wait until it catches up
+        long capacity = maxPerPeriod * 1000L;
+        return (int) Math.min(capacity, level + elapsed * capacity / periodMs);
+    }
+
+    /**
+     * Only the time that actually turned into whole milli-tokens is used up, so
+     * frequent pushes never lose the fractions in between
+     */
+    private static long refilledAt(long refilledAt, int maxPerPeriod, long periodMs, long nowMillis) {
+        long elapsed = nowMillis - refilledAt;
+        if (elapsed <= 0) return refilledAt;
+        long capacity = maxPerPeriod * 1000L;
+        long gained = elapsed * capacity / periodMs;
+        return refilledAt + gained * periodMs / capacity;
+    }
+
+    private void evictOldest() {
+        String oldest = null;
+        long oldestAt = Long.MAX_VALUE;
+        for (Map.Entry<String, Buckets> entry : buckets.entrySet()) {
+            if (entry.getValue().hourRefilledAt < oldestAt) {
+                oldestAt = entry.getValue().hourRefilledAt;
+                oldest = entry.getKey();
+            }
+        }
+        if (oldest != null) buckets.remove(oldest);
+    }
+}
@@ -0,0 +1,106 @@
+package in.helparo.app;
+
+/**
+ * Parses the timestamp formats our backend puts into push payloads without
+ * allocating (java.time is not available on our minSdk without desugaring).
+ *
+ * Accepted forms:
+ * - epoch milliseconds, e.g. "1705314660000" (job-alert route's expiresAt)
+ * - ISO-8601 UTC, e.g. "2024-01-15T10:30:00Z" or "2024-01-15T10:30:00.123Z"
+ * - ISO-8601 with offset, e.g. "2024-01-15T16:00:00+05:30"
+ */
+public final class PushTimestamps {
+
+    private PushTimestamps() {
+    }
+
+    /**
+     * @return epoch milliseconds, or 0 if the value is missing or not understood
+     */
+    public static long parse(String value) {
+        if (value == null || value.isEmpty()) return 0;
+        if (value.length() >= 20 && value.charAt(4) == '-') return parseIso(value);
+        return parseEpochMillis(value);
+    }
+
+    private static long parseEpochMillis(String value) {
+        int length = value.length();
+        if (length > 15) return 0;
+        long result = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') return 0;
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+
+    private static long parseIso(String s) {
+        if (s.charAt(7) != '-' || s.charAt(10) != 'T' || s.charAt(13) != ':' || s.charAt(16) != ':') {
+            return 0;
+        }
+        int year = digits(s, 0, 4);
+        int month = digits(s, 5, 2);
+        int day = digits(s, 8, 2);
+        int hour = digits(s, 11, 2);
+        int minute = digits(s, 14, 2);
+        int second = digits(s, 17, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31
+            || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 60) {
+            return 0;
+        }
+
+        int i = 19;
+        int millis = 0;
+        if (s.charAt(i) == '.') {
+            i++;
+            int scale = 100;
+            while (i < s.length() && s.charAt(i) >= '0' && s.charAt(i) <= '9') {
+                millis += (s.charAt(i) - '0') * scale;
+                scale /= 10;
+                i++;
+            }
+        }
+        if (i >= s.length()) return 0;
+
+        long offsetMillis;
+        char zone = s.charAt(i);
+        if (zone == 'Z' && i == s.length() - 1) {
+            offsetMillis = 0;
+        } else if ((zone == '+' || zone == '-') && i + 6 == s.length() && s.charAt(i + 3) == ':') {
+            int offsetHours = digits(s, i + 1, 2);
+            int offsetMinutes = digits(s, i + 4, 2);
+            if (offsetHours < 0 || offsetMinutes < 0) return 0;
+            offsetMillis = (offsetHours * 60L + offsetMinutes) * 60_000L;
+            if (zone == '-') offsetMillis = -offsetMillis;
+        } else {
+            return 0;
+        }
+
+        long days = daysFromCivil(year, month, day);
+        long epochSeconds = days * 86_400L + hour * 3_600L + minute * 60L + second;
+        return epochSeconds * 1000L + millis - offsetMillis;
+    }
+
+    private static int digits(String s, int start, int count) {
+        int result = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+
+    /**
+     * Days since 1970-01-01 for a proleptic Gregorian date (Howard Hinnant's algorithm)
+     */
+    private static long daysFromCivil(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097L + dayOfEra - 719_468L;
+    }
+}
@@ -0,0 +1,241 @@
+package in.helparo.app;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Stable IDs, groups, channels and in-place bundling for regular (non job
+ * alert) pushes.
+ *
+ * Every push is keyed by (type, requestId): a second push for the same key
+ * updates the notification already in the shade instead of posting another
+ * one. Pushes without a requestId (payment_credited, re_engagement) have
+ * nothing to update and each get their own notification. helper_applied bids
+ * for one booking are folded into a single entry ("3 helpers applied — best
+ * ₹499"); other types simply show their latest text. Each type gets its own
+ * notification group, and the channel follows getChannelId() in
+ * src/lib/push-system/dispatcher.ts so notifications the system posts for us
+ * land on the same channels.
+ *
+ * Bundle state is in memory and capped at {@link #MAX_BUNDLES} keys. After a
+ * process restart the count falls back to the server's totalBids, so only the
+ * best price of earlier bids can be forgotten.
+ */
+public final class RegularNotificationBundler {
+
+    public static final String TYPE_HELPER_APPLIED = "helper_applied";
+
+    /** Channel IDs; must match NotificationChannels and dispatcher.ts getChannelId() */
+    public static final String CHANNEL_DEFAULT = "default";
+    public static final String CHANNEL_JOB_ALERTS = "job_alerts";
+    public static final String CHANNEL_JOB_UPDATES = "job_updates";
+    public static final String CHANNEL_PAYMENTS = "payments";
+
+    /**
+     * Regular IDs are hashed into [ID_BASE, Integer.MAX_VALUE], well clear of
+     * the job alert IDs and the fixed summaries (998, 999)
+     */
+    static final int ID_BASE = 0x40000000;
+
+    /**
+     * Quiet job notices (missed, or just outside the alert radius) are hashed
+     * into [QUIET_JOB_ID_BASE, ID_BASE), below the regular range
+     */
+    static final int QUIET_JOB_ID_BASE = 0x20000000;
+
+    static final int MAX_BUNDLES = 64;
+
+    private static final String GROUP_PREFIX = "helparo_";
+
+    /** What to post for one push */
+    public static final class Update {
+        final int id;
+        final String type;
+        final String title;
+        final String text;
+        final int count;
+
+        Update(int id, String type, String title, String text, int count) {
+            this.id = id;
+            this.type = type;
+            this.title = title;
+            this.text = text;
+            this.count = count;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        /** Pushes folded into this notification so far */
+        public int getCount() {
+            return count;
+        }
+
+        public String getGroup() {
+            return groupFor(type);
+        }
+
+        public String getChannel() {
+            return channelFor(type);
+        }
+
+        public int getSummaryId() {
+            return summaryIdFor(type);
+        }
+    }
+
+    /** What has been folded into one (type, requestId) notification */
+    private static final class Bundle {
+        int count;
+        long bestPrice = -1;
+        String bestPriceText;
+    }
+
+    /** Fallback key for pushes with neither a requestId nor a timestamp */
+    private int standalonePushes;
+
+    private final LinkedHashMap<Integer, Bundle> bundles =
+        new LinkedHashMap<Integer, Bundle>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Bundle> eldest) {
+                return size() > MAX_BUNDLES;
+            }
+        };
+
+    /**
+     * Fold a push into the notification for its (type, requestId).
+     *
+     * @param data the FCM data payload, read for helper_applied's price and bid count
+     */
+    public synchronized Update add(String type, String requestId, String title, String text,
+                                   Map<String, String> data) {
+        if (requestId == null) {
+            String sentAt = data != null ? data.get("timestamp") : null;
+            return new Update(standaloneId(type, sentAt != null ? sentAt : "#" + (++standalonePushes)),
+                type, title, text, 1);
+        }
+
+        int id = notificationId(type, requestId);
+        Bundle bundle = bundles.get(id);
+        if (bundle == null) {
+            bundle = new Bundle();
+            bundles.put(id, bundle);
+        }
+        bundle.count++;
+
+        if (!TYPE_HELPER_APPLIED.equals(type)) {
+            return new Update(id, type, title, text, bundle.count);
+        }
+
+        String priceText = data != null ? data.get("proposedPrice") : null;
+        long price = parsePrice(priceText);
+        if (price >= 0 && (bundle.bestPrice < 0 || price < bundle.bestPrice)) {
+            bundle.bestPrice = price;
+            bundle.bestPriceText = priceText.trim();
+        }
+        // The server's running total also covers bids from before a restart
+        long totalBids = data != null ? parsePrice(data.get("totalBids")) : -1;
+        if (totalBids > bundle.count && totalBids <= Integer.MAX_VALUE) {
+            bundle.count = (int) totalBids;
+        }
+
+        if (bundle.count < 2) {
+            return new Update(id, type, title, text, bundle.count);
+        }
+        String heading = bundle.count + " helpers applied";
+        if (bundle.bestPriceText != null) heading += " — best " + bundle.bestPriceText;
+        return new Update(id, type, heading, text, bundle.count);
+    }
+
+    /** Forget everything folded so far; tests and sign-out */
+    public synchronized void clear() {
+        bundles.clear();
+        standalonePushes = 0;
+    }
+
+    public static int notificationId(String type, String requestId) {
+        return stableId(String.valueOf(type) + '|' + (requestId != null ? requestId : ""));
+    }
+
+    /**
+     * ID for a push that has no requestId, unique per {@code pushKey} (the
+     * server's send timestamp); '@' cannot appear in a (type, requestId) key's type
+     */
+    public static int standaloneId(String type, String pushKey) {
+        return stableId(String.valueOf(type) + '@' + pushKey);
+    }
+
+    /** One summary per type group; '#' cannot appear in a (type, requestId) key's type */
+    public static int summaryIdFor(String type) {
+        return stableId(String.valueOf(type) + "#summary");
+    }
+
+    public static String groupFor(String type) {
+        return GROUP_PREFIX + (type != null ? type : "other");
+    }
+
+    public static String channelFor(String type) {
+        if (type == null) return CHANNEL_DEFAULT;
+        switch (type) {
+            case "new_job_nearby":
+            case "job_expiring":
+                return CHANNEL_JOB_ALERTS;
+            case "helper_applied":
+            case "helper_assigned":
+            case "job_started":
+            case "job_completed":
+            case "job_accepted":
+                return CHANNEL_JOB_UPDATES;
+            case "payment_credited":
+            case "payment_pending":
+                return CHANNEL_PAYMENTS;
+            default:
+                return CHANNEL_DEFAULT;
+        }
+    }
+
+    /** Heading of a type group's summary */
+    public static String summaryTitle(String type, int count) {
+        if (TYPE_HELPER_APPLIED.equals(type)) return count + " bookings with new helpers";
+        return count + " updates";
+    }
+
+    /** Notification ID, also used as request code, of a quiet job notice */
+    public static int quietJobId(String jobId) {
+        return stableId(QUIET_JOB_ID_BASE, String.valueOf(jobId));
+    }
+
+    static int stableId(String key) {
+        return stableId(ID_BASE, key);
+    }
+
+    /** Hash into [base, 2 * base); base must be a power of two */
+    private static int stableId(int base, String key) {
+        return base | (key.hashCode() & (base - 1));
+    }
+
+    /**
+     * Whole rupees from "₹1,299" or "1299.00"; -1 if there are no digits
+     */
+    static long parsePrice(String value) {
+        if (value == null) return -1;
+        long result = -1;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '.') break;
+            if (c < '0' || c > '9') continue;
+            result = (result < 0 ? 0 : result) * 10 + (c - '0');
+            if (result > Integer.MAX_VALUE) return -1;
+        }
+        return result;
+    }
+}
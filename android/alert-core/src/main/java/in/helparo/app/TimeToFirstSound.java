@@ -0,0 +1,105 @@
+package in.helparo.app;
+
+import java.util.Arrays;
+
+/**
+ * Running statistics for the time between "an alert wants sound" and the
+ * player actually starting.
+ *
+ * Warm starts (the player was already prepared) and cold starts (it had to be
+ * prepared on demand) are counted separately, since a cold start on a cheap
+ * device is what blows the budget. Samples are kept in a small ring so a
+ * median of recent alerts can be reported without unbounded memory.
+ */
+public final class TimeToFirstSound {
+
+    /** Start-of-playback budget; anything slower is reported as over budget */
+    public static final long DEFAULT_BUDGET_MS = 250L;
+
+    static final int MAX_SAMPLES = 32;
+
+    private final long budgetMs;
+    private final long[] samples = new long[MAX_SAMPLES];
+    private int sampleCount;
+    private int nextSample;
+
+    private long warmStarts;
+    private long coldStarts;
+    private long fallbacks;
+    private long overBudget;
+    private long lastMillis = -1;
+    private long maxMillis;
+
+    public TimeToFirstSound(long budgetMs) {
+        this.budgetMs = budgetMs;
+    }
+
+    /**
+     * Record one playback start.
+     *
+     * @param millis   time from the play request to the player starting
+     * @param warm     whether the player was already prepared
+     * @param fallback whether the Ringtone fallback had to be used
+     * @return true if the start was within budget
+     */
+    public synchronized boolean record(long millis, boolean warm, boolean fallback) {
+        if (millis < 0) millis = 0;
+        if (warm) warmStarts++; else coldStarts++;
+        if (fallback) fallbacks++;
+
+        lastMillis = millis;
+        if (millis > maxMillis) maxMillis = millis;
+
+        samples[nextSample] = millis;
+        nextSample = (nextSample + 1) % MAX_SAMPLES;
+        if (sampleCount < MAX_SAMPLES) sampleCount++;
+
+        boolean withinBudget = millis <= budgetMs;
+        if (!withinBudget) overBudget++;
+        return withinBudget;
+    }
+
+    public long getBudgetMs() {
+        return budgetMs;
+    }
+
+    public synchronized long getCount() {
+        return warmStarts + coldStarts;
+    }
+
+    public synchronized long getWarmStarts() {
+        return warmStarts;
+    }
+
+    public synchronized long getColdStarts() {
+        return coldStarts;
+    }
+
+    public synchronized long getFallbacks() {
+        return fallbacks;
+    }
+
+    public synchronized long getOverBudget() {
+        return overBudget;
+    }
+
+    /** Last recorded start, -1 if none yet */
+    public synchronized long getLastMillis() {
+        return lastMillis;
+    }
+
+    public synchronized long getMaxMillis() {
+        return maxMillis;
+    }
+
+    /**
+     * Median of the most recent {@link #MAX_SAMPLES} starts, -1 if none yet
+     */
+    public synchronized long getMedianMillis() {
+        if (sampleCount == 0) return -1;
+        long[] sorted = new long[sampleCount];
+        System.arraycopy(samples, 0, sorted, 0, sampleCount);
+        Arrays.sort(sorted);
+        return sorted[sampleCount / 2];
+    }
+}
@@ -0,0 +1,225 @@
+package in.helparo.app;
+
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.TreeMap;
+
+/**
+ * Decides when the shared job alert wake lock is held, and for how long.
+ *
+ * Every alert that wants the screen on takes a reference under its job ID
+ * with a hold time. The lock is held while any alert holds a reference that
+ * has not timed out, and one continuous hold never lasts longer than
+ * {@link #MAX_HOLD_MS}, however many alerts join it. Answering or expiring an
+ * alert drops all its references at once.
+ *
+ * Held time is added up per local calendar day for reporting.
+ */
+public final class WakeLockLedger {
+
+    /** Longest continuous hold, from the first acquisition of a burst */
+    public static final long MAX_HOLD_MS = 120_000L;
+
+    /** Days of held-time totals kept for reporting */
+    static final int DAYS_KEPT = 14;
+
+    private static final class Holder {
+        int references;
+        long deadline;
+    }
+
+    private final TimeZone timeZone;
+    private final Map<String, Holder> holders = new HashMap<>();
+    /** "yyyy-MM-dd" -> held millis, finished holds only */
+    private final TreeMap<String, Long> heldByDay = new TreeMap<>();
+
+    /** Start of the current hold, or 0 when the lock is not held */
+    private long heldSince;
+    private long lockDeadline;
+
+    private long acquisitions;
+    private long cappedAcquisitions;
+    private long holds;
+
+    public WakeLockLedger(TimeZone timeZone) {
+        this.timeZone = timeZone;
+    }
+
+    /**
+     * Take a reference for an alert
+     *
+     * @return when the lock must be released at the latest, or 0 if it must not be held
+     */
+    public synchronized long acquire(String key, long holdMs, long nowMillis) {
+        // A hold that reached its cap ends here, so this starts a new one
+        expireLocked(nowMillis);
+        acquisitions++;
+        Holder holder = holders.get(key);
+        if (holder == null) {
+            holder = new Holder();
+            holders.put(key, holder);
+        }
+        holder.references++;
+        holder.deadline = Math.max(holder.deadline, nowMillis + holdMs);
+
+        if (heldSince == 0) {
+            heldSince = nowMillis;
+            holds++;
+        }
+        long capped = Math.min(maxDeadlineLocked(), heldSince + MAX_HOLD_MS);
+        if (capped < nowMillis + holdMs) cappedAcquisitions++;
+        lockDeadline = capped;
+        return lockDeadline;
+    }
+
+    /**
+     * Drop one reference of an alert
+     *
+     * @return the new release deadline, or 0 if the lock must be released now
+     */
+    public synchronized long release(String key, long nowMillis) {
+        Holder holder = holders.get(key);
+        if (holder != null && --holder.references <= 0) holders.remove(key);
+        return updateLocked(nowMillis);
+    }
+
+    /**
+     * Drop every reference of an alert, e.g. when it was answered or expired
+     *
+     * @return the new release deadline, or 0 if the lock must be released now
+     */
+    public synchronized long releaseAll(String key, long nowMillis) {
+        holders.remove(key);
+        return updateLocked(nowMillis);
+    }
+
+    /**
+     * Drop every reference
+     */
+    public synchronized void clear(long nowMillis) {
+        holders.clear();
+        updateLocked(nowMillis);
+    }
+
+    /**
+     * Drop references past their hold time
+     *
+     * @return the new release deadline, or 0 if the lock must be released now
+     */
+    public synchronized long expire(long nowMillis) {
+        expireLocked(nowMillis);
+        return lockDeadline;
+    }
+
+    public synchronized boolean isHeld() {
+        return heldSince > 0;
+    }
+
+    /** Alerts holding at least one reference */
+    public synchronized int getActiveAlerts() {
+        return holders.size();
+    }
+
+    public synchronized long getAcquisitions() {
+        return acquisitions;
+    }
+
+    /** Acquisitions cut short by {@link #MAX_HOLD_MS} */
+    public synchronized long getCappedAcquisitions() {
+        return cappedAcquisitions;
+    }
+
+    /** Times the lock went from released to held */
+    public synchronized long getHolds() {
+        return holds;
+    }
+
+    /**
+     * Held millis per local day ("yyyy-MM-dd"), including the hold in progress
+     */
+    public synchronized Map<String, Long> getHeldByDay(long nowMillis) {
+        expireLocked(nowMillis);
+        TreeMap<String, Long> totals = new TreeMap<>(heldByDay);
+        if (heldSince > 0) addSpan(totals, heldSince, Math.min(nowMillis, lockDeadline));
+        return totals;
+    }
+
+    /**
+     * Restore totals saved by an earlier process
+     */
+    public synchronized void restoreHeldByDay(Map<String, Long> saved) {
+        for (Map.Entry<String, Long> day : saved.entrySet()) {
+            heldByDay.merge(day.getKey(), day.getValue(), Long::sum);
+        }
+        trimDays();
+    }
+
+    /**
+     * Totals of finished holds only, for saving
+     */
+    public synchronized Map<String, Long> getFinishedHeldByDay() {
+        return new TreeMap<>(heldByDay);
+    }
+
+    private void expireLocked(long nowMillis) {
+        Iterator<Holder> it = holders.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().deadline <= nowMillis) it.remove();
+        }
+        updateLocked(nowMillis);
+    }
+
+    private long updateLocked(long nowMillis) {
+        if (heldSince == 0) return 0;
+        long deadline = holders.isEmpty() ? 0 : Math.min(maxDeadlineLocked(), heldSince + MAX_HOLD_MS);
+        if (deadline > nowMillis) {
+            lockDeadline = deadline;
+            return lockDeadline;
+        }
+        // Released now, or timed out earlier at its deadline
+        addSpan(heldByDay, heldSince, Math.min(nowMillis, lockDeadline));
+        trimDays();
+        holders.clear();
+        heldSince = 0;
+        lockDeadline = 0;
+        return 0;
+    }
+
+    private long maxDeadlineLocked() {
+        long max = 0;
+        for (Holder holder : holders.values()) {
+            max = Math.max(max, holder.deadline);
+        }
+        return max;
+    }
+
+    /**
+     * Add [start, end) to the totals, split at local midnights
+     */
+    private void addSpan(Map<String, Long> totals, long start, long end) {
+        Calendar calendar = Calendar.getInstance(timeZone, Locale.US);
+        while (start < end) {
+            calendar.setTimeInMillis(start);
+            String day = String.format(Locale.US, "%04d-%02d-%02d", calendar.get(Calendar.YEAR),
+                calendar.get(Calendar.MONTH) + 1, calendar.get(Calendar.DAY_OF_MONTH));
+            calendar.set(Calendar.HOUR_OF_DAY, 0);
+            calendar.set(Calendar.MINUTE, 0);
+            calendar.set(Calendar.SECOND, 0);
+            calendar.set(Calendar.MILLISECOND, 0);
+            calendar.add(Calendar.DAY_OF_MONTH, 1);
+            long spanEnd = Math.min(end, calendar.getTimeInMillis());
+            totals.merge(day, spanEnd - start, Long::sum);
+            start = spanEnd;
+        }
+    }
+
+    private void trimDays() {
+        while (heldByDay.size() > DAYS_KEPT) {
+            heldByDay.pollFirstEntry();
+        }
+    }
+}
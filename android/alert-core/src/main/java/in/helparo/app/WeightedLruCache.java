@@ -0,0 +1,95 @@
+package in.helparo.app;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-memory LRU bounded by the total weight of its values (bytes, for bitmaps)
+ * rather than by count.
+ *
+ * A put that takes the total over {@code maxWeight} evicts least recently used
+ * entries until it fits; a single value heavier than the whole budget is not
+ * kept at all. All operations are O(1) apart from the evictions they cause.
+ */
+public final class WeightedLruCache<K, V> {
+
+    /** Cost of one value against the budget; must not change while it is cached */
+    public interface Weigher<V> {
+        long weigh(V value);
+    }
+
+    private final LinkedHashMap<K, V> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Weigher<V> weigher;
+    private long maxWeight;
+    private long weight;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public WeightedLruCache(long maxWeight, Weigher<V> weigher) {
+        if (maxWeight <= 0) throw new IllegalArgumentException("maxWeight must be > 0");
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+    public synchronized V get(K key) {
+        V value = entries.get(key);
+        if (value != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return value;
+    }
+
+    public synchronized void put(K key, V value) {
+        V previous = entries.remove(key);
+        if (previous != null) weight -= weigher.weigh(previous);
+
+        long cost = weigher.weigh(value);
+        if (cost > maxWeight) return;
+        entries.put(key, value);
+        weight += cost;
+        trimTo(maxWeight);
+    }
+
+    public synchronized void remove(K key) {
+        V previous = entries.remove(key);
+        if (previous != null) weight -= weigher.weigh(previous);
+    }
+
+    /**
+     * Evict least recently used entries until the total is at most {@code target};
+     * 0 empties the cache (e.g. on memory pressure)
+     */
+    public synchronized void trimTo(long target) {
+        Iterator<Map.Entry<K, V>> it = entries.entrySet().iterator();
+        while (weight > target && it.hasNext()) {
+            weight -= weigher.weigh(it.next().getValue());
+            it.remove();
+            evictions++;
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long weight() {
+        return weight;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+}
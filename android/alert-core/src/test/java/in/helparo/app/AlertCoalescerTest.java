@@ -0,0 +1,57 @@
+package in.helparo.app;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * JVM tests for {@link AlertCoalescer}.
+ */
+public class AlertCoalescerTest {
+
+    private final AlertCoalescer coalescer = new AlertCoalescer(5_000, 30_000);
+
+    @Test
+    public void firstJobAlwaysAlerts() {
+        assertTrue(coalescer.onJobArrived(1_000, false));
+        assertEquals(1, coalescer.getWakeups());
+    }
+
+    @Test
+    public void burstSharesOneWakeup() {
+        assertTrue(coalescer.onJobArrived(1_000, false));
+        assertFalse(coalescer.onJobArrived(2_000, true));
+        assertFalse(coalescer.onJobArrived(6_500, true));
+        assertFalse(coalescer.onJobArrived(11_000, true));
+
+        assertEquals(1, coalescer.getWakeups());
+        assertEquals(3, coalescer.getCoalesced());
+    }
+
+    @Test
+    public void gapLongerThanWindowAlertsAgain() {
+        assertTrue(coalescer.onJobArrived(1_000, false));
+        assertTrue(coalescer.onJobArrived(6_001, true));
+    }
+
+    @Test
+    public void answeredBurstDoesNotSilenceNextJob() {
+        assertTrue(coalescer.onJobArrived(1_000, false));
+        // Helper already answered the first job; nothing to merge into
+        assertTrue(coalescer.onJobArrived(2_000, false));
+    }
+
+    @Test
+    public void longSurgeAlertsPeriodically() {
+        assertTrue(coalescer.onJobArrived(0, false));
+        long now = 0;
+        int wakeups = 1;
+        for (int i = 0; i < 20; i++) {
+            now += 4_000;
+            if (coalescer.onJobArrived(now, true)) wakeups++;
+        }
+
+        // 80 seconds of jobs every 4s: one wakeup per 30s burst cap
+        assertEquals(3, wakeups);
+    }
+}
@@ -0,0 +1,142 @@
+package in.helparo.app;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * JVM tests for {@link AlertEffectsState}.
+ */
+public class AlertEffectsStateTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+
+    private AlertEffectsState state;
+
+    @Before
+    public void setUp() {
+        state = new AlertEffectsState();
+    }
+
+    @Test
+    public void pushPulsesOncePerBurst() {
+        assertEquals(AlertEffectsState.ACTION_PULSE, state.onAlert("job-1", NOW + 30_000, true, NOW));
+        assertEquals(0, state.onAlert("job-2", NOW + 30_000, false, NOW + 200));
+    }
+
+    @Test
+    public void nextBurstPulsesAgainWhileJobsArePending() {
+        AlertCoalescer coalescer = new AlertCoalescer(
+            AlertCoalescer.DEFAULT_WINDOW_MS, AlertCoalescer.DEFAULT_MAX_BURST_MS);
+        long deadline = NOW + 110_000;
+        int pulses = 0;
+        // One job every 4 s for 40 s, none answered: past the 30 s cap a new burst starts
+        for (int i = 0; i <= 10; i++) {
+            long at = NOW + i * 4_000L;
+            boolean leading = coalescer.onJobArrived(at, i > 0);
+            if (state.onAlert("job-" + i, deadline, leading, at) == AlertEffectsState.ACTION_PULSE) pulses++;
+        }
+
+        assertEquals(2, coalescer.getWakeups());
+        assertEquals(2, pulses);
+        assertEquals(11, state.getActiveJobs());
+    }
+
+    @Test
+    public void silentAlertIsTrackedWithoutEffects() {
+        assertEquals(0, state.onAlert("job-1", NOW + 30_000, false, NOW));
+        assertFalse(state.isActive());
+        assertEquals(1, state.getActiveJobs());
+        // Nothing was running, so nothing needs stopping
+        assertEquals(0, state.onDone("job-1"));
+    }
+
+    @Test
+    public void alertScreenStartsVibrationAndSoundOnce() {
+        state.onAlert("job-1", NOW + 30_000, true, NOW);
+
+        assertEquals(AlertEffectsState.ACTION_VIBRATE | AlertEffectsState.ACTION_SOUND,
+            state.onShown("job-1", NOW + 30_000, NOW + 500));
+        assertEquals(0, state.onShown("job-1", NOW + 30_000, NOW + 600));
+        assertEquals(0, state.onShown("job-2", NOW + 40_000, NOW + 700));
+        assertTrue(state.isShown("job-2"));
+    }
+
+    @Test
+    public void continuousVibrationSuppressesLaterPulses() {
+        state.onShown("job-1", NOW + 30_000, NOW);
+
+        assertEquals(0, state.onAlert("job-2", NOW + 30_000, true, NOW + 1_000));
+    }
+
+    @Test
+    public void stopComesOutOnlyWhenTheLastJobIsDone() {
+        state.onShown("job-1", NOW + 30_000, NOW);
+        state.onShown("job-2", NOW + 30_000, NOW);
+
+        assertEquals(0, state.onDone("job-1"));
+        assertTrue(state.isActive());
+        assertEquals(AlertEffectsState.ACTION_STOP, state.onDone("job-2"));
+        assertFalse(state.isActive());
+    }
+
+    @Test
+    public void repeatedAnswersAreHarmless() {
+        state.onShown("job-1", NOW + 30_000, NOW);
+
+        // Alert screen and notification action both report the same answer
+        assertEquals(AlertEffectsState.ACTION_STOP, state.onDone("job-1"));
+        assertEquals(0, state.onDone("job-1"));
+        assertEquals(0, state.onDone("job-unknown"));
+    }
+
+    @Test
+    public void effectsRestartAfterAStop() {
+        state.onShown("job-1", NOW + 30_000, NOW);
+        state.onDone("job-1");
+
+        assertEquals(AlertEffectsState.ACTION_PULSE, state.onAlert("job-2", NOW + 60_000, true, NOW + 1_000));
+        assertEquals(AlertEffectsState.ACTION_VIBRATE | AlertEffectsState.ACTION_SOUND,
+            state.onShown("job-2", NOW + 60_000, NOW + 1_500));
+    }
+
+    @Test
+    public void expiryStopsEverything() {
+        state.onShown("job-1", NOW + 30_000, NOW);
+        state.onAlert("job-2", NOW + 45_000, false, NOW);
+
+        assertEquals(NOW + 30_000, state.nextDeadline());
+        assertEquals(0, state.expire(NOW + 30_000));
+        assertFalse(state.isShown("job-1"));
+        assertEquals(AlertEffectsState.ACTION_STOP, state.expire(NOW + 45_000));
+        assertEquals(0, state.nextDeadline());
+    }
+
+    @Test
+    public void unknownOrFarDeadlineIsCapped() {
+        state.onShown("job-1", 0, NOW);
+        state.onAlert("job-2", NOW + 3_600_000, true, NOW);
+
+        assertEquals(NOW + AlertEffectsState.MAX_EFFECT_MS, state.nextDeadline());
+        assertEquals(AlertEffectsState.ACTION_STOP, state.expire(NOW + AlertEffectsState.MAX_EFFECT_MS));
+    }
+
+    @Test
+    public void laterReportNeverShortensTheDeadline() {
+        state.onAlert("job-1", NOW + 60_000, true, NOW);
+        state.onShown("job-1", NOW + 20_000, NOW + 1_000);
+
+        assertEquals(NOW + 60_000, state.nextDeadline());
+    }
+
+    @Test
+    public void stopAllForgetsEveryJob() {
+        state.onShown("job-1", NOW + 30_000, NOW);
+        state.onAlert("job-2", NOW + 30_000, false, NOW);
+
+        assertEquals(AlertEffectsState.ACTION_STOP, state.stopAll());
+        assertEquals(0, state.getActiveJobs());
+        assertEquals(0, state.stopAll());
+    }
+}
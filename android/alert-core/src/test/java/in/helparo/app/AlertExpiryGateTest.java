@@ -0,0 +1,111 @@
+package in.helparo.app;
+
+import static org.junit.Assert.*;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * JVM tests for {@link AlertExpiryGate} and {@link PushTimestamps}.
+ */
+public class AlertExpiryGateTest {
+
+    private static final long SKEW = 5_000L;
+    private static final long WINDOW = 60_000L;
+
+    private final AlertExpiryGate gate = new AlertExpiryGate(SKEW, WINDOW);
+
+    private static JobAlert alert(long sentAt, long expiresAt) {
+        Map<String, String> data = JobAlertDecoderTest.jobPayload();
+        data.remove("timestamp");
+        data.remove("expiresAt");
+        if (sentAt > 0) data.put("timestamp", String.valueOf(sentAt));
+        if (expiresAt > 0) data.put("expiresAt", String.valueOf(expiresAt));
+        return JobAlertDecoder.decode(data);
+    }
+
+    @Test
+    public void deliversLiveAlertWithRemainingLifetime() {
+        JobAlert alert = alert(100_000, 130_000);
+
+        assertEquals(AlertExpiryGate.Decision.DELIVER, gate.evaluate(alert, 110_000));
+        assertEquals(25_000, gate.remainingMillis(alert, 110_000));
+    }
+
+    @Test
+    public void skewMarginKeepsJustExpiredAlertAlive() {
+        JobAlert alert = alert(100_000, 130_000);
+
+        assertEquals(AlertExpiryGate.Decision.DELIVER, gate.evaluate(alert, 134_000));
+        assertEquals(1_000, gate.remainingMillis(alert, 134_000));
+    }
+
+    @Test
+    public void downgradesRecentlyExpiredAlert() {
+        JobAlert alert = alert(100_000, 130_000);
+
+        assertEquals(AlertExpiryGate.Decision.DOWNGRADE, gate.evaluate(alert, 135_000));
+        assertEquals(AlertExpiryGate.Decision.DOWNGRADE, gate.evaluate(alert, 135_000 + WINDOW));
+    }
+
+    @Test
+    public void dropsLongExpiredAlert() {
+        JobAlert alert = alert(100_000, 130_000);
+
+        assertEquals(AlertExpiryGate.Decision.DROP, gate.evaluate(alert, 135_001 + WINDOW));
+    }
+
+    @Test
+    public void fallsBackToSendTimePlusDefaultTtl() {
+        JobAlert alert = alert(100_000, 0);
+
+        assertEquals(AlertExpiryGate.Decision.DELIVER, gate.evaluate(alert, 150_000));
+        assertEquals(100_000 + AlertExpiryGate.DEFAULT_JOB_TTL_MS + SKEW - 150_000,
+            gate.remainingMillis(alert, 150_000));
+    }
+
+    @Test
+    public void deliversWhenPayloadHasNoTimes() {
+        JobAlert alert = alert(0, 0);
+
+        assertEquals(AlertExpiryGate.Decision.DELIVER, gate.evaluate(alert, Long.MAX_VALUE / 2));
+        assertEquals(AlertExpiryGate.MAX_ALERT_LIFETIME_MS, gate.remainingMillis(alert, 0));
+    }
+
+    @Test
+    public void remainingLifetimeIsCapped() {
+        JobAlert alert = alert(100_000, 100_000 + 10 * 60_000);
+
+        assertEquals(AlertExpiryGate.MAX_ALERT_LIFETIME_MS, gate.remainingMillis(alert, 100_000));
+    }
+
+    @Test
+    public void parsesEpochMillis() {
+        assertEquals(1705314660000L, PushTimestamps.parse("1705314660000"));
+    }
+
+    @Test
+    public void parsesIsoUtc() {
+        assertEquals(1705314600000L, PushTimestamps.parse("2024-01-15T10:30:00Z"));
+        assertEquals(1705314600123L, PushTimestamps.parse("2024-01-15T10:30:00.123Z"));
+        // JS toISOString() output
+        assertEquals(1709208000500L, PushTimestamps.parse("2024-02-29T12:00:00.500Z"));
+    }
+
+    @Test
+    public void parsesIsoWithOffset() {
+        assertEquals(1705314600000L, PushTimestamps.parse("2024-01-15T16:00:00+05:30"));
+        assertEquals(1705314600000L, PushTimestamps.parse("2024-01-15T05:30:00-05:00"));
+    }
+
+    @Test
+    public void rejectsGarbage() {
+        assertEquals(0, PushTimestamps.parse(null));
+        assertEquals(0, PushTimestamps.parse(""));
+        assertEquals(0, PushTimestamps.parse("soon"));
+        assertEquals(0, PushTimestamps.parse("2024-01-15 10:30:00Z"));
+        assertEquals(0, PushTimestamps.parse("2024-13-15T10:30:00Z"));
+        assertEquals(0, PushTimestamps.parse("2024-01-15T10:30:00"));
+    }
+}
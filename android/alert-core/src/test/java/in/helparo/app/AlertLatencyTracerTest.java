@@ -0,0 +1,87 @@
+package in.helparo.app;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * JVM tests for {@link AlertLatencyTracer}.
+ */
+public class AlertLatencyTracerTest {
+
+    private final AlertLatencyTracer tracer = new AlertLatencyTracer();
+
+    @Test
+    public void marksStagesOfTracedAlert() {
+        tracer.begin("job-1", 1_000, 1_400);
+        assertTrue(tracer.mark("job-1", AlertLatencyTracer.STAGE_DECODED, 1_401));
+        assertTrue(tracer.mark("job-1", AlertLatencyTracer.STAGE_SOUND_STARTED, 1_700));
+
+        assertArrayEquals(new long[] {400},
+            tracer.percentiles(AlertLatencyTracer.STAGE_SENT, AlertLatencyTracer.STAGE_RECEIVED, 50));
+        assertArrayEquals(new long[] {700},
+            tracer.percentiles(AlertLatencyTracer.STAGE_SENT, AlertLatencyTracer.STAGE_SOUND_STARTED, 50));
+    }
+
+    @Test
+    public void firstMarkWins() {
+        tracer.begin("job-1", 0, 1_000);
+        assertTrue(tracer.mark("job-1", AlertLatencyTracer.STAGE_ANSWERED, 5_000));
+        assertFalse(tracer.mark("job-1", AlertLatencyTracer.STAGE_ANSWERED, 9_000));
+
+        assertArrayEquals(new long[] {4_000},
+            tracer.percentiles(AlertLatencyTracer.STAGE_RECEIVED, AlertLatencyTracer.STAGE_ANSWERED, 99));
+    }
+
+    @Test
+    public void untracedJobsAreIgnored() {
+        assertFalse(tracer.mark("unknown", AlertLatencyTracer.STAGE_DECODED, 1_000));
+        assertFalse(tracer.mark(null, AlertLatencyTracer.STAGE_DECODED, 1_000));
+        assertNull(tracer.percentiles(AlertLatencyTracer.STAGE_RECEIVED, AlertLatencyTracer.STAGE_DECODED, 50));
+    }
+
+    @Test
+    public void missingServerTimestampIsExcluded() {
+        tracer.begin("job-1", 0, 1_000);
+        tracer.mark("job-1", AlertLatencyTracer.STAGE_SOUND_STARTED, 1_200);
+
+        assertEquals(0, tracer.count(AlertLatencyTracer.STAGE_SENT, AlertLatencyTracer.STAGE_SOUND_STARTED));
+        assertEquals(1, tracer.count(AlertLatencyTracer.STAGE_RECEIVED, AlertLatencyTracer.STAGE_SOUND_STARTED));
+    }
+
+    @Test
+    public void percentilesUseNearestRank() {
+        for (int i = 1; i <= 10; i++) {
+            String jobId = "job-" + i;
+            tracer.begin(jobId, 0, 1_000);
+            tracer.mark(jobId, AlertLatencyTracer.STAGE_NOTIFIED, 1_000 + i * 10);
+        }
+
+        assertArrayEquals(new long[] {50, 90, 100},
+            tracer.percentiles(AlertLatencyTracer.STAGE_RECEIVED, AlertLatencyTracer.STAGE_NOTIFIED, 50, 90, 99));
+    }
+
+    @Test
+    public void ringKeepsOnlyRecentAlerts() {
+        for (int i = 0; i < AlertLatencyTracer.CAPACITY + 10; i++) {
+            String jobId = "job-" + i;
+            tracer.begin(jobId, 0, 1_000);
+            tracer.mark(jobId, AlertLatencyTracer.STAGE_DECODED, 1_001);
+        }
+
+        assertEquals(AlertLatencyTracer.CAPACITY,
+            tracer.count(AlertLatencyTracer.STAGE_RECEIVED, AlertLatencyTracer.STAGE_DECODED));
+        assertFalse(tracer.mark("job-0", AlertLatencyTracer.STAGE_NOTIFIED, 1_002));
+        assertTrue(tracer.mark("job-10", AlertLatencyTracer.STAGE_NOTIFIED, 1_002));
+    }
+
+    @Test
+    public void retracedJobUsesNewestSlot() {
+        tracer.begin("job-1", 0, 1_000);
+        tracer.begin("job-1", 0, 2_000);
+        tracer.mark("job-1", AlertLatencyTracer.STAGE_DECODED, 2_010);
+
+        assertArrayEquals(new long[] {10},
+            tracer.percentiles(AlertLatencyTracer.STAGE_RECEIVED, AlertLatencyTracer.STAGE_DECODED, 50));
+    }
+}
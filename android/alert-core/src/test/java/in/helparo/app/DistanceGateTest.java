@@ -0,0 +1,138 @@
+package in.helparo.app;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * JVM tests for {@link DistanceGate}.
+ */
+public class DistanceGateTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+
+    // Benz Circle, Vijayawada
+    private static final double HELPER_LAT = 16.4986;
+    private static final double HELPER_LNG = 80.6560;
+
+    private DistanceGate gate;
+
+    @Before
+    public void setUp() {
+        gate = new DistanceGate();
+        gate.setRadiusKm(10);
+        gate.updateFix(HELPER_LAT, HELPER_LNG, 0, NOW - 60_000);
+    }
+
+    private static JobAlert jobAt(double latitude, double longitude) {
+        return new JobAlert.Builder(JobAlertDecoder.TYPE_NEW_JOB, "job-1")
+            .title("Job")
+            .price("500")
+            .coordinates(latitude, longitude)
+            .build();
+    }
+
+    @Test
+    public void distanceMatchesKnownValue() {
+        // Benz Circle to Guntur is about 31.7 km as the crow flies
+        assertEquals(31.7, gate.distanceKm(16.3067, 80.4365), 0.1);
+        // One degree of latitude along a meridian is 111.2 km
+        assertEquals(111.2, gate.distanceKm(HELPER_LAT + 1, HELPER_LNG), 0.05);
+    }
+
+    @Test
+    public void nearbyJobIsDelivered() {
+        // Labbipet, ~1.5 km away
+        assertEquals(AlertExpiryGate.Decision.DELIVER, gate.evaluate(jobAt(16.5062, 80.6480), NOW));
+        assertEquals(1, gate.getDelivered());
+    }
+
+    @Test
+    public void jobJustOutsideTheRadiusIsDowngraded() {
+        // ~12 km north
+        assertEquals(AlertExpiryGate.Decision.DOWNGRADE, gate.evaluate(jobAt(16.6065, 80.6560), NOW));
+        assertEquals(1, gate.getDowngraded());
+    }
+
+    @Test
+    public void farJobIsSuppressedAndCounted() {
+        // Guntur, ~30 km
+        assertEquals(AlertExpiryGate.Decision.DROP, gate.evaluate(jobAt(16.3067, 80.4365), NOW));
+        assertEquals(AlertExpiryGate.Decision.DROP, gate.evaluate(jobAt(17.3850, 78.4867), NOW));
+        assertEquals(2, gate.getSuppressed());
+    }
+
+    @Test
+    public void boundaryFollowsTheRadius() {
+        // 0.09 degrees of latitude is ~10.0 km
+        JobAlert edge = jobAt(HELPER_LAT + 0.0895, HELPER_LNG);
+        assertEquals(AlertExpiryGate.Decision.DELIVER, gate.evaluate(edge, NOW));
+
+        gate.setRadiusKm(5);
+        assertEquals(AlertExpiryGate.Decision.DROP, gate.evaluate(edge, NOW));
+        gate.setRadiusKm(7);
+        assertEquals(AlertExpiryGate.Decision.DOWNGRADE, gate.evaluate(edge, NOW));
+    }
+
+    @Test
+    public void poorAccuracyWidensTheRadius() {
+        JobAlert job = jobAt(HELPER_LAT + 0.1, HELPER_LNG); // ~11 km
+        assertEquals(AlertExpiryGate.Decision.DOWNGRADE, gate.evaluate(job, NOW));
+
+        gate.updateFix(HELPER_LAT, HELPER_LNG, 2.0, NOW);
+        assertEquals(AlertExpiryGate.Decision.DELIVER, gate.evaluate(job, NOW));
+    }
+
+    @Test
+    public void missingInformationFailsOpen() {
+        JobAlert far = jobAt(17.3850, 78.4867);
+
+        assertEquals(AlertExpiryGate.Decision.DELIVER, gate.evaluate(jobAt(Double.NaN, Double.NaN), NOW));
+        assertEquals(1, gate.getNoCoordinates());
+
+        // Fix too old to trust
+        assertEquals(AlertExpiryGate.Decision.DELIVER,
+            gate.evaluate(far, NOW + DistanceGate.MAX_FIX_AGE_MS));
+        assertEquals(1, gate.getNoFix());
+
+        DistanceGate noFix = new DistanceGate();
+        assertEquals(AlertExpiryGate.Decision.DELIVER, noFix.evaluate(far, NOW));
+        assertEquals(1, noFix.getNoFix());
+    }
+
+    @Test
+    public void olderFixDoesNotReplaceANewerOne() {
+        assertFalse(gate.updateFix(17.3850, 78.4867, 0, NOW - 120_000));
+        assertEquals(HELPER_LAT, gate.getFixLatitude(), 0);
+
+        assertTrue(gate.updateFix(17.3850, 78.4867, 0, NOW));
+        assertEquals(17.3850, gate.getFixLatitude(), 0);
+    }
+
+    @Test
+    public void invalidFixesAreIgnored() {
+        assertFalse(gate.updateFix(Double.NaN, 80, 0, NOW));
+        assertFalse(gate.updateFix(0, 0, 0, NOW));
+        assertFalse(gate.updateFix(91, 80, 0, NOW));
+        assertEquals(HELPER_LAT, gate.getFixLatitude(), 0);
+    }
+
+    @Test
+    public void nonPositiveRadiusIsIgnored() {
+        gate.setRadiusKm(0);
+        gate.setRadiusKm(Double.NaN);
+        assertEquals(10, gate.getRadiusKm(), 0);
+    }
+
+    @Test
+    public void countsCanBeRestoredAndCleared() {
+        gate.restoreCounts(1, 2, 3, 4, 5);
+        gate.evaluate(jobAt(17.3850, 78.4867), NOW);
+        assertEquals(4, gate.getSuppressed());
+
+        gate.clearCounts();
+        assertEquals(0, gate.getSuppressed());
+        assertEquals(0, gate.getDelivered());
+    }
+}
@@ -0,0 +1,53 @@
+package in.helparo.app;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * JVM tests for {@link ImageSampling}.
+ */
+public class ImageSamplingTest {
+
+    @Test
+    public void cameraPhotoIsSampledDownForTheBigPicture() {
+        // 12 MP photo into a 720x360 picture: 4000/4 = 1000 >= 720, 3000/4 = 750 >= 360
+        assertEquals(4, ImageSampling.sampleSize(4000, 3000, 720, 360));
+    }
+
+    @Test
+    public void neverSamplesBelowTheRequestedSize() {
+        assertEquals(1, ImageSampling.sampleSize(720, 360, 720, 360));
+        assertEquals(1, ImageSampling.sampleSize(1439, 719, 720, 360));
+        assertEquals(2, ImageSampling.sampleSize(1440, 720, 720, 360));
+        // Smaller than requested: decode as is
+        assertEquals(1, ImageSampling.sampleSize(200, 100, 720, 360));
+    }
+
+    @Test
+    public void narrowSideLimitsTheSample() {
+        // A tall screenshot: the width runs out first
+        assertEquals(1, ImageSampling.sampleSize(1080, 8000, 720, 360));
+    }
+
+    @Test
+    public void badDimensionsDecodeAsIs() {
+        assertEquals(1, ImageSampling.sampleSize(-1, -1, 720, 360));
+        assertEquals(1, ImageSampling.sampleSize(4000, 3000, 0, 0));
+    }
+
+    @Test
+    public void fitsWithinKeepingAspectRatio() {
+        assertArrayEquals(new int[]{480, 360}, ImageSampling.fitWithin(1000, 750, 720, 360));
+        assertArrayEquals(new int[]{720, 180}, ImageSampling.fitWithin(2000, 500, 720, 360));
+        // Never scaled up
+        assertArrayEquals(new int[]{300, 200}, ImageSampling.fitWithin(300, 200, 720, 360));
+        assertArrayEquals(new int[]{0, 0}, ImageSampling.fitWithin(0, 200, 720, 360));
+    }
+
+    @Test
+    public void centerSquareForTheIcon() {
+        assertArrayEquals(new int[]{120, 0, 360}, ImageSampling.centerSquare(600, 360));
+        assertArrayEquals(new int[]{0, 50, 100}, ImageSampling.centerSquare(100, 200));
+    }
+}
@@ -0,0 +1,508 @@
+package in.helparo.app;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * JVM tests for {@link JobAlertDecoder}.
+ */
+public class JobAlertDecoderTest {
+
+    static Map<String, String> jobPayload() {
+        // Mirrors the data block built by /api/push/job-alert
+        Map<String, String> data = new HashMap<>();
+        data.put("type", "new_job");
+        data.put("jobId", "550e8400-e29b-41d4-a716-446655440000");
+        data.put("job_id", "550e8400-e29b-41d4-a716-446655440000");
+        data.put("title", "Plumbing - Tap Repair");
+        data.put("description", "Kitchen tap leaking since morning");
+        data.put("price", "500");
+        data.put("location", "Labbipet, Vijayawada");
+        data.put("distance", "2.3 km");
+        data.put("customerName", "Ravi");
+        data.put("customer_name", "Ravi");
+        data.put("urgency", "urgent");
+        data.put("expiresAt", "1705314660000");
+        data.put("timestamp", "2024-01-15T10:30:00Z");
+        data.put("lat", "16.5062");
+        data.put("lng", "80.648");
+        return data;
+    }
+
+    /**
+     * The same alert as {@link #jobPayload()}, encoded the way
+     * src/lib/push-system/compact-payload.ts does
+     */
+    static Map<String, String> compactPayload() {
+        Map<String, String> data = new HashMap<>();
+        data.put("v", "2");
+        data.put("t", "n");
+        data.put("i", "550e8400-e29b-41d4-a716-446655440000");
+        data.put("h", "Plumbing - Tap Repair");
+        data.put("d", "Kitchen tap leaking since morning");
+        data.put("p", "500");
+        data.put("l", "Labbipet, Vijayawada");
+        data.put("k", "2.3 km");
+        data.put("c", "Ravi");
+        data.put("u", "u");
+        data.put("s", Long.toString(1705314600000L, 36));
+        data.put("x", "60");
+        data.put("g", "16.5062,80.648");
+        return data;
+    }
+
+    private static int payloadBytes(Map<String, String> data) {
+        int total = 0;
+        for (Map.Entry<String, String> entry : data.entrySet()) {
+            total += entry.getKey().getBytes(StandardCharsets.UTF_8).length;
+            total += entry.getValue().getBytes(StandardCharsets.UTF_8).length;
+        }
+        return total;
+    }
+
+    private static void assertSameAlert(JobAlert expected, JobAlert actual) {
+        assertNotNull(actual);
+        assertSame(expected.getType(), actual.getType());
+        assertEquals(expected.getJobId(), actual.getJobId());
+        assertEquals(expected.getTitle(), actual.getTitle());
+        assertEquals(expected.getDescription(), actual.getDescription());
+        assertEquals(expected.getPrice(), actual.getPrice());
+        assertEquals(expected.getDistance(), actual.getDistance());
+        assertEquals(expected.getCustomerName(), actual.getCustomerName());
+        assertSame(expected.getUrgency(), actual.getUrgency());
+        assertEquals(expected.getSummary(), actual.getSummary());
+        assertEquals(expected.getSentAtMillis(), actual.getSentAtMillis());
+        assertEquals(expected.getExpiresAtMillis(), actual.getExpiresAtMillis());
+        assertEquals(expected.getLatitude(), actual.getLatitude(), 0);
+        assertEquals(expected.getLongitude(), actual.getLongitude(), 0);
+        assertEquals(expected.getImageUrl(), actual.getImageUrl());
+    }
+
+    @Test
+    public void decodesFullPayload() {
+        JobAlert alert = JobAlertDecoder.decode(jobPayload());
+
+        assertNotNull(alert);
+        assertSame(JobAlertDecoder.TYPE_NEW_JOB, alert.getType());
+        assertEquals("550e8400-e29b-41d4-a716-446655440000", alert.getJobId());
+        assertEquals("Plumbing - Tap Repair", alert.getTitle());
+        assertEquals("Kitchen tap leaking since morning", alert.getDescription());
+        assertEquals("500", alert.getPrice());
+        assertEquals("2.3 km", alert.getDistance());
+        assertEquals("Ravi", alert.getCustomerName());
+        assertSame(JobAlert.URGENCY_URGENT, alert.getUrgency());
+        assertEquals("₹500 • Labbipet, Vijayawada", alert.getSummary());
+        assertEquals(1705314600000L, alert.getSentAtMillis());
+        assertEquals(1705314660000L, alert.getExpiresAtMillis());
+        assertTrue(alert.hasCoordinates());
+        assertEquals(16.5062, alert.getLatitude(), 0);
+        assertEquals(80.648, alert.getLongitude(), 0);
+    }
+
+    @Test
+    public void badCoordinatesAreDroppedNotTheAlert() {
+        Map<String, String> data = jobPayload();
+        data.put("lat", "not-a-number");
+
+        JobAlert alert = JobAlertDecoder.decode(data);
+
+        assertNotNull(alert);
+        assertFalse(alert.hasCoordinates());
+
+        data.put("lat", "116.5");
+        assertFalse(JobAlertDecoder.decode(data).hasCoordinates());
+
+        data.remove("lat");
+        data.remove("lng");
+        assertFalse(JobAlertDecoder.decode(data).hasCoordinates());
+    }
+
+    @Test
+    public void resolvesAliases() {
+        Map<String, String> data = new HashMap<>();
+        data.put("type", "urgent_job");
+        data.put("job_id", "job-1");
+        data.put("customer_name", "Sita");
+        data.put("jobTitle", "Electrician");
+
+        JobAlert alert = JobAlertDecoder.decode(data);
+
+        assertNotNull(alert);
+        assertEquals("job-1", alert.getJobId());
+        assertEquals("Sita", alert.getCustomerName());
+        assertEquals("Electrician", alert.getTitle());
+    }
+
+    @Test
+    public void repeatedTitlesAndLocationsShareOneCopy() {
+        JobAlert first = JobAlertDecoder.decode(jobPayload());
+        Map<String, String> data = jobPayload();
+        data.put("jobId", "second-job");
+        data.put("title", new String("Plumbing - Tap Repair"));
+        data.put("location", new String("Labbipet, Vijayawada"));
+        data.put("description", new String("Kitchen tap leaking since morning"));
+        JobAlert second = JobAlertDecoder.decode(data);
+
+        assertSame(first.getTitle(), second.getTitle());
+        assertSame(first.getLocation(), second.getLocation());
+        // Free text is not pooled
+        assertNotSame(first.getDescription(), second.getDescription());
+    }
+
+    @Test
+    public void primaryKeyWinsOverAlias() {
+        Map<String, String> data = jobPayload();
+        data.put("job_id", "other-job");
+        data.put("customer_name", "Someone Else");
+
+        JobAlert alert = JobAlertDecoder.decode(data);
+
+        assertEquals("550e8400-e29b-41d4-a716-446655440000", alert.getJobId());
+        assertEquals("Ravi", alert.getCustomerName());
+    }
+
+    @Test
+    public void fallsBackToRequestId() {
+        Map<String, String> data = new HashMap<>();
+        data.put("type", "new_job");
+        data.put("requestId", "req-42");
+
+        assertEquals("req-42", JobAlertDecoder.decode(data).getJobId());
+    }
+
+    @Test
+    public void appliesDefaults() {
+        Map<String, String> data = new HashMap<>();
+        data.put("type", "new_job");
+        data.put("jobId", "job-1");
+        data.put("customerName", "");
+        data.put("urgency", "whatever");
+
+        JobAlert alert = JobAlertDecoder.decode(data);
+
+        assertEquals(JobAlert.DEFAULT_TITLE, alert.getTitle());
+        assertNull(alert.getCustomerName());
+        assertSame(JobAlert.URGENCY_NORMAL, alert.getUrgency());
+        assertEquals("₹0 • Nearby", alert.getSummary());
+    }
+
+    @Test
+    public void rejectsMissingJobId() {
+        Map<String, String> data = jobPayload();
+        data.remove("jobId");
+        data.remove("job_id");
+
+        assertNull(JobAlertDecoder.decode(data));
+    }
+
+    @Test
+    public void rejectsMalformedJobId() {
+        Map<String, String> data = jobPayload();
+        data.put("jobId", "../../etc/passwd");
+
+        assertNull(JobAlertDecoder.decode(data));
+    }
+
+    @Test
+    public void rejectsUnknownType() {
+        Map<String, String> data = jobPayload();
+        data.put("type", "helper_applied");
+
+        assertNull(JobAlertDecoder.decode(data));
+    }
+
+    @Test
+    public void rejectsOversizedField() {
+        Map<String, String> data = jobPayload();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i <= JobAlertDecoder.MAX_FIELD_LENGTH; i++) sb.append('x');
+        data.put("description", sb.toString());
+
+        assertNull(JobAlertDecoder.decode(data));
+    }
+
+    @Test
+    public void rejectsEmptyPayload() {
+        assertNull(JobAlertDecoder.decode(null));
+        assertNull(JobAlertDecoder.decode(new HashMap<>()));
+    }
+
+    @Test
+    public void compactPayloadDecodesToTheSameAlert() {
+        assertSameAlert(JobAlertDecoder.decode(jobPayload()), JobAlertDecoder.decode(compactPayload()));
+    }
+
+    @Test
+    public void compactPayloadIsLessThanHalfTheSize() {
+        int v1 = payloadBytes(jobPayload());
+        int v2 = payloadBytes(compactPayload());
+        assertTrue("v2 " + v2 + " bytes vs v1 " + v1, v2 * 2 < v1);
+    }
+
+    @Test
+    public void typeOfReadsBothVersions() {
+        assertEquals("new_job", JobAlertDecoder.typeOf(jobPayload()));
+        assertEquals("new_job", JobAlertDecoder.typeOf(compactPayload()));
+
+        Map<String, String> urgent = compactPayload();
+        urgent.put("t", "u");
+        assertEquals("urgent_job", JobAlertDecoder.typeOf(urgent));
+
+        // Short keys mean nothing without the version marker
+        Map<String, String> unversioned = compactPayload();
+        unversioned.remove("v");
+        assertNull(JobAlertDecoder.typeOf(unversioned));
+        assertNull(JobAlertDecoder.decode(unversioned));
+    }
+
+    @Test
+    public void compactOptionalFieldsFallBackToDefaults() {
+        Map<String, String> data = new HashMap<>();
+        data.put("v", "2");
+        data.put("t", "u");
+        data.put("i", "job-1");
+
+        JobAlert alert = JobAlertDecoder.decode(data);
+
+        assertSame(JobAlertDecoder.TYPE_URGENT_JOB, alert.getType());
+        assertEquals(JobAlert.DEFAULT_TITLE, alert.getTitle());
+        assertSame(JobAlert.URGENCY_NORMAL, alert.getUrgency());
+        assertEquals(0, alert.getSentAtMillis());
+        assertEquals(0, alert.getExpiresAtMillis());
+        assertFalse(alert.hasCoordinates());
+    }
+
+    @Test
+    public void compactExpiryNeedsASendTime() {
+        Map<String, String> data = compactPayload();
+        data.put("x", "0");
+        assertEquals(1705314600000L, JobAlertDecoder.decode(data).getExpiresAtMillis());
+
+        data.put("x", "soon");
+        assertEquals(0, JobAlertDecoder.decode(data).getExpiresAtMillis());
+
+        data.put("x", "60");
+        data.put("s", "not base 36!");
+        JobAlert alert = JobAlertDecoder.decode(data);
+        assertEquals(0, alert.getSentAtMillis());
+        assertEquals(0, alert.getExpiresAtMillis());
+    }
+
+    @Test
+    public void compactCoordinatesAreOptional() {
+        Map<String, String> data = compactPayload();
+        data.put("g", "16.5062");
+        assertFalse(JobAlertDecoder.decode(data).hasCoordinates());
+
+        data.put("g", "16.5062,east");
+        assertFalse(JobAlertDecoder.decode(data).hasCoordinates());
+
+        data.put("g", "-33.8688,151.2093");
+        JobAlert alert = JobAlertDecoder.decode(data);
+        assertEquals(-33.8688, alert.getLatitude(), 0);
+        assertEquals(151.2093, alert.getLongitude(), 0);
+    }
+
+    @Test
+    public void compactPayloadIsValidatedLikeV1() {
+        Map<String, String> data = compactPayload();
+        data.put("t", "x");
+        assertNull(JobAlertDecoder.decode(data));
+
+        data = compactPayload();
+        data.put("i", "../../etc/passwd");
+        assertNull(JobAlertDecoder.decode(data));
+
+        data = compactPayload();
+        data.remove("i");
+        assertNull(JobAlertDecoder.decode(data));
+
+        // v1 keys are not read in a v2 payload
+        data.put("jobId", "550e8400-e29b-41d4-a716-446655440000");
+        assertNull(JobAlertDecoder.decode(data));
+    }
+
+    @Test
+    public void imageUrlIsOptionalAndHttpsOnly() {
+        assertNull(JobAlertDecoder.decode(jobPayload()).getImageUrl());
+
+        Map<String, String> data = jobPayload();
+        data.put("imageUrl", "https://cdn.helparo.in/jobs/550e8400.jpg");
+        assertEquals("https://cdn.helparo.in/jobs/550e8400.jpg", JobAlertDecoder.decode(data).getImageUrl());
+
+        String[] rejected = {
+            "http://cdn.helparo.in/jobs/550e8400.jpg",
+            "file:///data/data/in.helparo.app/shared_prefs/session.xml",
+            "https://",
+            "https://cdn.helparo.in/a b.jpg",
+            "https://cdn.helparo.in/" + "x".repeat(JobAlertDecoder.MAX_IMAGE_URL_LENGTH),
+        };
+        for (String url : rejected) {
+            data.put("imageUrl", url);
+            JobAlert alert = JobAlertDecoder.decode(data);
+            assertNotNull(url, alert);
+            assertNull(url, alert.getImageUrl());
+        }
+    }
+
+    @Test
+    public void compactImageUrlMatchesV1() {
+        Map<String, String> v1 = jobPayload();
+        v1.put("imageUrl", "https://cdn.helparo.in/jobs/550e8400.jpg");
+        Map<String, String> v2 = compactPayload();
+        v2.put("m", "https://cdn.helparo.in/jobs/550e8400.jpg");
+
+        assertSameAlert(JobAlertDecoder.decode(v1), JobAlertDecoder.decode(v2));
+
+        Map<String, String> batch = batchPayload(2);
+        batch.put("m1", "https://cdn.helparo.in/jobs/second.jpg");
+        List<JobAlert> jobs = JobAlertDecoder.decodeBatch(batch);
+        assertNull(jobs.get(0).getImageUrl());
+        assertEquals("https://cdn.helparo.in/jobs/second.jpg", jobs.get(1).getImageUrl());
+    }
+
+    /**
+     * A new_job_batch message the way compact-payload.ts encodes it: the
+     * jobs' compact fields suffixed with their rank
+     */
+    static Map<String, String> batchPayload(int jobs) {
+        String[][] samples = {
+            {"Plumbing - Tap Repair", "Kitchen tap leaking since morning", "500", "Labbipet, Vijayawada", "2.3 km"},
+            {"Electrician - Fan Fitting", "Two ceiling fans, wiring is ready", "650", "Benz Circle, Vijayawada", "3.1 km"},
+            {"Deep Cleaning - 2BHK", "Move-out cleaning, balcony included", "2400", "Patamata, Vijayawada", "4.8 km"},
+        };
+        Map<String, String> data = new HashMap<>();
+        data.put("v", "2");
+        data.put("t", "b");
+        data.put("s", Long.toString(1705314600000L, 36));
+        data.put("n", Integer.toString(jobs));
+        for (int rank = 0; rank < jobs; rank++) {
+            String[] sample = samples[rank % samples.length];
+            data.put("t" + rank, rank == 0 ? "u" : "n");
+            data.put("i" + rank, "550e8400-e29b-41d4-a716-4466554400" + (10 + rank));
+            data.put("h" + rank, sample[0]);
+            data.put("d" + rank, sample[1]);
+            data.put("p" + rank, sample[2]);
+            data.put("l" + rank, sample[3]);
+            data.put("k" + rank, sample[4]);
+            data.put("u" + rank, rank == 0 ? "e" : "n");
+            data.put("x" + rank, "60");
+            data.put("g" + rank, "16.50" + rank + ",80.64" + rank);
+        }
+        return data;
+    }
+
+    @Test
+    public void decodesBatchInRankOrder() {
+        Map<String, String> data = batchPayload(3);
+        assertEquals(JobAlertDecoder.TYPE_JOB_BATCH, JobAlertDecoder.typeOf(data));
+
+        List<JobAlert> jobs = JobAlertDecoder.decodeBatch(data);
+
+        assertEquals(3, jobs.size());
+        JobAlert first = jobs.get(0);
+        assertSame(JobAlertDecoder.TYPE_URGENT_JOB, first.getType());
+        assertEquals("550e8400-e29b-41d4-a716-446655440010", first.getJobId());
+        assertSame(JobAlert.URGENCY_EMERGENCY, first.getUrgency());
+        assertEquals("₹500 • Labbipet, Vijayawada", first.getSummary());
+        assertEquals(16.500, first.getLatitude(), 0);
+
+        JobAlert third = jobs.get(2);
+        assertSame(JobAlertDecoder.TYPE_NEW_JOB, third.getType());
+        assertEquals("550e8400-e29b-41d4-a716-446655440012", third.getJobId());
+        assertEquals("Deep Cleaning - 2BHK", third.getTitle());
+        assertEquals(1705314600000L, third.getSentAtMillis());
+        assertEquals(1705314660000L, third.getExpiresAtMillis());
+    }
+
+    @Test
+    public void batchIsNotASingleAlert() {
+        assertNull(JobAlertDecoder.decode(batchPayload(2)));
+        assertNull(JobAlertDecoder.decodeBatch(compactPayload()));
+        assertNull(JobAlertDecoder.decodeBatch(jobPayload()));
+    }
+
+    @Test
+    public void rejectsPartialBatch() {
+        // Announces three, carries two
+        Map<String, String> data = batchPayload(2);
+        data.put("n", "3");
+        assertNull(JobAlertDecoder.decodeBatch(data));
+
+        // Carries three, announces two
+        data = batchPayload(3);
+        data.put("n", "2");
+        assertNull(JobAlertDecoder.decodeBatch(data));
+
+        // One job lost its ID
+        data = batchPayload(3);
+        data.remove("i1");
+        assertNull(JobAlertDecoder.decodeBatch(data));
+
+        // One job is not a job
+        data = batchPayload(3);
+        data.put("t2", "b");
+        assertNull(JobAlertDecoder.decodeBatch(data));
+    }
+
+    @Test
+    public void rejectsBadCounts() {
+        Map<String, String> data = batchPayload(1);
+        for (String count : new String[]{"0", "-1", "", "two", "21", "4294967297"}) {
+            data.put("n", count);
+            assertNull(count, JobAlertDecoder.decodeBatch(data));
+        }
+        data.remove("n");
+        assertNull(JobAlertDecoder.decodeBatch(data));
+    }
+
+    @Test
+    public void ignoresUnrelatedKeysInBatch() {
+        Map<String, String> data = batchPayload(2);
+        data.put("click_action", "OPEN_JOB");
+        data.put("ix", "not a rank");
+        data.put("i01", "leading zero");
+
+        assertEquals(2, JobAlertDecoder.decodeBatch(data).size());
+    }
+
+    @Test
+    public void batchUpToFourKilobytesIsAccepted() {
+        Map<String, String> data = batchPayload(12);
+        int bytes = payloadBytes(data);
+        assertTrue("sample batch is " + bytes + " bytes", bytes < JobAlertDecoder.MAX_PAYLOAD_BYTES);
+
+        // Pad the last job's description to exactly the limit, with multi-byte text
+        StringBuilder description = new StringBuilder(data.get("d11"));
+        int room = JobAlertDecoder.MAX_PAYLOAD_BYTES - bytes;
+        while (room >= 3) {
+            description.append('₹');
+            room -= 3;
+        }
+        while (room-- > 0) description.append('.');
+        data.put("d11", description.toString());
+        assertEquals(JobAlertDecoder.MAX_PAYLOAD_BYTES, payloadBytes(data));
+
+        List<JobAlert> jobs = JobAlertDecoder.decodeBatch(data);
+        assertEquals(12, jobs.size());
+        assertEquals(description.toString(), jobs.get(11).getDescription());
+
+        // One byte more and the whole batch goes
+        data.put("d11", description + ".");
+        assertNull(JobAlertDecoder.decodeBatch(data));
+    }
+
+    @Test
+    public void utf8LengthMatchesTheEncoder() {
+        for (String sample : new String[]{"", "abc", "₹500 • Labbipet", "విజయవాడ", "🚨 job"}) {
+            assertEquals(sample, sample.getBytes(StandardCharsets.UTF_8).length,
+                JobAlertDecoder.utf8Length(sample));
+        }
+    }
+}
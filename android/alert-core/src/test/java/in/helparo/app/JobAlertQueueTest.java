@@ -0,0 +1,130 @@
+package in.helparo.app;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * JVM tests for {@link JobAlertQueue}.
+ */
+public class JobAlertQueueTest {
+
+    private final JobAlertQueue queue = new JobAlertQueue();
+
+    private static JobAlert job(String jobId, String urgency) {
+        Map<String, String> data = JobAlertDecoderTest.jobPayload();
+        data.put("jobId", jobId);
+        data.put("urgency", urgency);
+        return JobAlertDecoder.decode(data);
+    }
+
+    @Test
+    public void eachJobGetsItsOwnNotificationId() {
+        JobAlertQueue.Entry first = queue.add(job("job-1", "normal"), 10_000);
+        JobAlertQueue.Entry second = queue.add(job("job-2", "normal"), 10_000);
+
+        assertNotEquals(first.notificationId, second.notificationId);
+        assertEquals(2, queue.size());
+    }
+
+    @Test
+    public void requeueKeepsNotificationId() {
+        JobAlertQueue.Entry first = queue.add(job("job-1", "normal"), 10_000);
+        JobAlertQueue.Entry again = queue.add(job("job-1", "urgent"), 20_000);
+
+        assertEquals(first.notificationId, again.notificationId);
+        assertEquals(1, queue.size());
+        assertEquals(20_000, queue.get("job-1").dismissAt);
+    }
+
+    @Test
+    public void requestCodesNeverCollide() {
+        Set<Integer> codes = new HashSet<>();
+        for (int i = 0; i < JobAlertQueue.MAX_ALERTS; i++) {
+            int id = queue.add(job("job-" + i, "normal"), 10_000).notificationId;
+            codes.add(JobAlertQueue.requestCode(id, JobAlertQueue.SLOT_FULL_SCREEN));
+            codes.add(JobAlertQueue.requestCode(id, JobAlertQueue.SLOT_CONTENT));
+            codes.add(JobAlertQueue.requestCode(id, JobAlertQueue.SLOT_ACCEPT));
+            codes.add(JobAlertQueue.requestCode(id, JobAlertQueue.SLOT_REJECT));
+        }
+
+        assertEquals(JobAlertQueue.MAX_ALERTS * 4, codes.size());
+    }
+
+    @Test
+    public void ordersByUrgencyThenExpiry() {
+        queue.add(job("late-normal", "normal"), 30_000);
+        queue.add(job("soon-normal", "normal"), 10_000);
+        queue.add(job("urgent", "urgent"), 50_000);
+        queue.add(job("emergency", "emergency"), 60_000);
+
+        List<JobAlertQueue.Entry> stack = queue.snapshot();
+
+        assertEquals("emergency", stack.get(0).alert.getJobId());
+        assertEquals("urgent", stack.get(1).alert.getJobId());
+        assertEquals("soon-normal", stack.get(2).alert.getJobId());
+        assertEquals("late-normal", stack.get(3).alert.getJobId());
+    }
+
+    @Test
+    public void removeTakesOutExactlyOneJob() {
+        queue.add(job("job-1", "normal"), 10_000);
+        queue.add(job("job-2", "normal"), 10_000);
+
+        assertNotNull(queue.remove("job-1"));
+        assertNull(queue.remove("job-1"));
+        assertEquals(1, queue.size());
+        assertNotNull(queue.get("job-2"));
+    }
+
+    @Test
+    public void removesExpiredJobs() {
+        queue.add(job("job-1", "normal"), 10_000);
+        queue.add(job("job-2", "normal"), 20_000);
+
+        assertEquals(10_000, queue.nextDismissAt());
+        List<JobAlertQueue.Entry> expired = queue.removeExpired(15_000);
+
+        assertEquals(1, expired.size());
+        assertEquals("job-1", expired.get(0).alert.getJobId());
+        assertEquals(20_000, queue.nextDismissAt());
+    }
+
+    @Test
+    public void evictsLeastUrgentWhenFull() {
+        queue.add(job("keep", "emergency"), 10_000);
+        for (int i = 1; i < JobAlertQueue.MAX_ALERTS; i++) {
+            queue.add(job("job-" + i, "normal"), 10_000 + i);
+        }
+
+        List<JobAlertQueue.Entry> evicted = new ArrayList<>();
+        JobAlertQueue.Entry added = queue.add(job("new", "urgent"), 5_000, evicted);
+
+        assertEquals(JobAlertQueue.MAX_ALERTS, queue.size());
+        assertEquals(1, evicted.size());
+        assertEquals("job-" + (JobAlertQueue.MAX_ALERTS - 1), evicted.get(0).alert.getJobId());
+        assertEquals(evicted.get(0).notificationId, added.notificationId);
+        assertNotNull(queue.get("keep"));
+    }
+
+    @Test
+    public void notifiesListenerOnChange() {
+        int[] calls = {0};
+        JobAlertQueue.Listener listener = () -> calls[0]++;
+        queue.setListener(listener);
+
+        queue.add(job("job-1", "normal"), 10_000);
+        queue.remove("job-1");
+        queue.remove("job-1");
+        queue.removeListener(listener);
+        queue.add(job("job-2", "normal"), 10_000);
+
+        assertEquals(2, calls[0]);
+    }
+}
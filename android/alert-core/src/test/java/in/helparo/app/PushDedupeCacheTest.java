@@ -0,0 +1,104 @@
+package in.helparo.app;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+/**
+ * JVM tests for {@link PushDedupeCache}.
+ */
+public class PushDedupeCacheTest {
+
+    private static final long TTL = 60_000L;
+
+    @Test
+    public void secondDeliveryIsDuplicate() {
+        PushDedupeCache cache = new PushDedupeCache(16, TTL);
+
+        assertFalse(cache.checkAndMark("new_job", "job-1", 1_000));
+        assertTrue(cache.checkAndMark("new_job", "job-1", 2_000));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void typeIsPartOfTheKey() {
+        PushDedupeCache cache = new PushDedupeCache(16, TTL);
+
+        assertFalse(cache.checkAndMark("new_job", "job-1", 1_000));
+        assertFalse(cache.checkAndMark("urgent_job", "job-1", 1_000));
+    }
+
+    @Test
+    public void entriesExpire() {
+        PushDedupeCache cache = new PushDedupeCache(16, TTL);
+
+        assertFalse(cache.checkAndMark("new_job", "job-1", 1_000));
+        assertFalse(cache.checkAndMark("new_job", "job-1", 1_000 + TTL));
+        assertTrue(cache.checkAndMark("new_job", "job-1", 2_000 + TTL));
+    }
+
+    @Test
+    public void entryLivesNoLongerThanItsCap() {
+        PushDedupeCache cache = new PushDedupeCache(16, TTL);
+
+        assertFalse(cache.checkAndMark("new_job", "job-1", 1_000, 5_000));
+        assertTrue(cache.checkAndMark("new_job", "job-1", 4_999, 5_000));
+        assertFalse(cache.checkAndMark("new_job", "job-1", 5_000, 5_000));
+    }
+
+    @Test
+    public void capBeyondTtlKeepsTtl() {
+        PushDedupeCache cache = new PushDedupeCache(16, TTL);
+
+        assertFalse(cache.checkAndMark("new_job", "job-1", 1_000, 10 * TTL));
+        assertFalse(cache.checkAndMark("new_job", "job-1", 1_000 + TTL, 10 * TTL));
+    }
+
+    @Test
+    public void sizeIsBounded() {
+        PushDedupeCache cache = new PushDedupeCache(4, TTL);
+
+        for (int i = 0; i < 10; i++) {
+            cache.checkAndMark("new_job", "job-" + i, 1_000);
+        }
+
+        assertEquals(4, cache.size());
+        // Oldest entries were evicted, newest kept
+        assertFalse(cache.checkAndMark("new_job", "job-0", 1_000));
+        assertTrue(cache.checkAndMark("new_job", "job-9", 1_000));
+    }
+
+    @Test
+    public void survivesRoundTrip() throws IOException {
+        PushDedupeCache cache = new PushDedupeCache(16, TTL);
+        cache.checkAndMark("new_job", "job-1", 1_000);
+        cache.checkAndMark("new_job", "job-1", 1_500);
+        cache.checkAndMark("new_job", "job-2", 1_000 - TTL / 2);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        cache.writeTo(out, 1_000 + TTL / 2);
+
+        PushDedupeCache restored = new PushDedupeCache(16, TTL);
+        restored.readFrom(new ByteArrayInputStream(out.toByteArray()), 2_000);
+
+        assertEquals(1, restored.size());
+        assertEquals(1, restored.getHits());
+        assertTrue(restored.checkAndMark("new_job", "job-1", 2_000));
+        assertFalse(restored.checkAndMark("new_job", "job-2", 2_000));
+    }
+
+    @Test
+    public void ignoresForeignFile() throws IOException {
+        PushDedupeCache cache = new PushDedupeCache(16, TTL);
+        cache.checkAndMark("new_job", "job-1", 1_000);
+
+        cache.readFrom(new ByteArrayInputStream(new byte[]{1, 2, 3, 4}), 1_000);
+
+        assertTrue(cache.checkAndMark("new_job", "job-1", 1_000));
+    }
+}
@@ -0,0 +1,204 @@
+package in.helparo.app;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.TimeZone;
+
+/**
+ * JVM tests for {@link PushPolicy}. The clock is whatever each test passes in.
+ */
+public class PushPolicyTest {
+
+    private static final TimeZone IST = TimeZone.getTimeZone("Asia/Kolkata");
+
+    // 2023-11-14 22:13:20 UTC = 2023-11-15 03:43:20 IST
+    private static final long NOW = 1_700_000_000_000L;
+    // 2023-11-15 12:00:00 IST
+    private static final long NOON_IST = 1_700_029_800_000L;
+
+    private static final long MINUTE = 60_000L;
+
+    private PushPolicy policy;
+
+    @Before
+    public void setUp() {
+        policy = new PushPolicy(IST);
+    }
+
+    @Test
+    public void burstIsCutAtTheHourlyLimit() {
+        // new_job_nearby: 30/hr
+        for (int i = 0; i < 30; i++) {
+            assertEquals(PushPolicy.Decision.ALERT, policy.evaluate("new_job_nearby", NOW + i));
+        }
+        assertEquals(PushPolicy.Decision.OVER_LIMIT, policy.evaluate("new_job_nearby", NOW + 30));
+        assertEquals(30, policy.getAlerted());
+        assertEquals(1, policy.getOverLimit());
+    }
+
+    @Test
+    public void typesHaveTheirOwnBuckets() {
+        assertEquals(PushPolicy.Decision.ALERT, policy.evaluate("re_engagement", NOON_IST));
+        assertEquals(PushPolicy.Decision.OVER_LIMIT, policy.evaluate("re_engagement", NOON_IST + 1));
+        assertEquals(PushPolicy.Decision.ALERT, policy.evaluate("job_accepted", NOON_IST + 2));
+    }
+
+    @Test
+    public void hourlyBucketRefillsContinuously() {
+        for (int i = 0; i < 30; i++) policy.evaluate("new_job_nearby", NOW);
+
+        // One token every two minutes
+        assertEquals(PushPolicy.Decision.OVER_LIMIT, policy.evaluate("new_job_nearby", NOW + MINUTE));
+        assertEquals(PushPolicy.Decision.ALERT, policy.evaluate("new_job_nearby", NOW + 2 * MINUTE));
+        assertEquals(PushPolicy.Decision.OVER_LIMIT, policy.evaluate("new_job_nearby", NOW + 2 * MINUTE));
+    }
+
+    @Test
+    public void frequentPushesDoNotLoseRefillFractions() {
+        // helper_assigned: 5/hr, one token every 12 minutes
+        for (int i = 0; i < 5; i++) policy.evaluate("helper_assigned", NOW);
+
+        // Polled every 7 ms: each step is worth less than a milli-token
+        long t = NOW;
+        while (t < NOW + 12 * MINUTE - 7) {
+            t += 7;
+            assertEquals(PushPolicy.Decision.OVER_LIMIT, policy.evaluate("helper_assigned", t));
+            if (t > NOW + 30_000) t += 29_000; // Keep the loop short
+        }
+        assertEquals(PushPolicy.Decision.ALERT, policy.evaluate("helper_assigned", NOW + 12 * MINUTE));
+    }
+
+    @Test
+    public void dailyLimitHoldsAcrossHours() {
+        // payment_pending: 1/hr, 3/day; quiet hours are off by default
+        long t = NOW;
+        for (int i = 0; i < 3; i++) {
+            assertEquals(PushPolicy.Decision.ALERT, policy.evaluate("payment_pending", t));
+            t += PushPolicy.HOUR_MS;
+        }
+        // Hourly bucket is full again, daily one is not
+        assertEquals(PushPolicy.Decision.OVER_LIMIT, policy.evaluate("payment_pending", t));
+        // A third of a day later one daily token is back
+        assertEquals(PushPolicy.Decision.ALERT, policy.evaluate("payment_pending", NOW + PushPolicy.DAY_MS / 3));
+    }
+
+    @Test
+    public void clockGoingBackDoesNotRefill() {
+        policy.evaluate("re_engagement", NOON_IST);
+        assertEquals(PushPolicy.Decision.OVER_LIMIT, policy.evaluate("re_engagement", NOON_IST - PushPolicy.DAY_MS));
+        assertEquals(PushPolicy.Decision.OVER_LIMIT, policy.evaluate("re_engagement", NOON_IST + MINUTE));
+    }
+
+    @Test
+    public void overnightQuietHoursHoldLowPriorityTypes() {
+        policy.setQuietHours(true, 22 * 60, 7 * 60, IST);
+
+        // 03:43 IST
+        assertTrue(policy.isQuietAt(NOW));
+        assertEquals(PushPolicy.Decision.QUIET, policy.evaluate("payment_credited", NOW));
+        // Time-sensitive types ignore quiet hours
+        assertEquals(PushPolicy.Decision.ALERT, policy.evaluate("job_accepted", NOW));
+        assertEquals(1, policy.getQuieted());
+
+        // 12:00 IST
+        assertFalse(policy.isQuietAt(NOON_IST));
+        assertEquals(PushPolicy.Decision.ALERT, policy.evaluate("payment_credited", NOON_IST));
+    }
+
+    @Test
+    public void quietHoursEdges() {
+        policy.setQuietHours(true, 22 * 60, 7 * 60, IST);
+        long midnight = NOON_IST + 12 * PushPolicy.HOUR_MS;
+
+        assertFalse(policy.isQuietAt(midnight - 2 * PushPolicy.HOUR_MS - 1)); // 21:59:59.999
+        assertTrue(policy.isQuietAt(midnight - 2 * PushPolicy.HOUR_MS));     // 22:00
+        assertTrue(policy.isQuietAt(midnight + 7 * PushPolicy.HOUR_MS - 1));  // 06:59:59.999
+        assertFalse(policy.isQuietAt(midnight + 7 * PushPolicy.HOUR_MS));    // 07:00
+    }
+
+    @Test
+    public void sameDayQuietHoursAndTimeZone() {
+        // 13:00 - 15:00 UTC is 18:30 - 20:30 IST
+        policy.setQuietHours(true, 13 * 60, 15 * 60, TimeZone.getTimeZone("UTC"));
+        long noonUtc = NOON_IST + 5 * PushPolicy.HOUR_MS + 30 * MINUTE;
+
+        assertFalse(policy.isQuietAt(noonUtc));
+        assertTrue(policy.isQuietAt(noonUtc + 90 * MINUTE));
+        assertFalse(policy.isQuietAt(noonUtc + 3 * PushPolicy.HOUR_MS));
+    }
+
+    @Test
+    public void disabledOrEmptyQuietHoursNeverHold() {
+        assertFalse(policy.isQuietAt(NOW));
+        policy.setQuietHours(true, 7 * 60, 7 * 60, IST);
+        assertFalse(policy.isQuietEnabled());
+        policy.setQuietHours(false, 22 * 60, 7 * 60, IST);
+        assertEquals(PushPolicy.Decision.ALERT, policy.evaluate("re_engagement", NOW));
+    }
+
+    @Test
+    public void unknownTypesUseTheDefaultRule() {
+        for (int i = 0; i < PushPolicy.DEFAULT_RULE.maxPerHour; i++) {
+            assertEquals(PushPolicy.Decision.ALERT, policy.evaluate("brand_new_type", NOON_IST));
+        }
+        assertEquals(PushPolicy.Decision.OVER_LIMIT, policy.evaluate("brand_new_type", NOON_IST));
+        assertEquals(PushPolicy.Decision.ALERT, policy.evaluate(null, NOON_IST));
+        assertFalse(PushPolicy.ruleFor(null).isHighPriority());
+        assertTrue(PushPolicy.ruleFor("helper_applied").isHighPriority());
+    }
+
+    @Test
+    public void trackedTypesAreBounded() {
+        for (int i = 0; i < PushPolicy.MAX_TYPES + 10; i++) {
+            policy.evaluate("type_" + i, NOON_IST + i);
+        }
+        assertEquals(PushPolicy.MAX_TYPES, policy.getTrackedTypes());
+    }
+
+    @Test
+    public void stateSurvivesARoundTrip() throws IOException {
+        policy.setQuietHours(true, 22 * 60, 7 * 60, IST);
+        for (int i = 0; i < 30; i++) policy.evaluate("new_job_nearby", NOW);
+        policy.evaluate("payment_credited", NOW);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        policy.writeTo(out);
+        assertTrue("compact state", out.size() < 256);
+
+        PushPolicy restored = new PushPolicy(TimeZone.getTimeZone("UTC"));
+        restored.readFrom(new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals(PushPolicy.Decision.OVER_LIMIT, restored.evaluate("new_job_nearby", NOW + 1));
+        assertEquals(PushPolicy.Decision.QUIET, restored.evaluate("payment_credited", NOW + 1));
+        assertEquals("Asia/Kolkata", restored.getTimeZoneId());
+        assertEquals(30, restored.getAlerted());
+        assertEquals(2, restored.getQuieted());
+    }
+
+    @Test
+    public void foreignOrTruncatedStateIsIgnored() throws IOException {
+        policy.evaluate("new_job_nearby", NOW);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        policy.writeTo(out);
+        byte[] bytes = out.toByteArray();
+
+        PushPolicy restored = new PushPolicy(IST);
+        restored.readFrom(new ByteArrayInputStream(new byte[]{1, 2, 3, 4}));
+        assertEquals(0, restored.getAlerted());
+
+        try {
+            restored.readFrom(new ByteArrayInputStream(bytes, 0, bytes.length - 4));
+            fail("truncated state should not parse");
+        } catch (IOException expected) {
+            // Caller logs and starts fresh
+        }
+        assertEquals(0, restored.getTrackedTypes());
+        assertEquals(0, restored.getAlerted());
+    }
+}
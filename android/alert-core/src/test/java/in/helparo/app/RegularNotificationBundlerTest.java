@@ -0,0 +1,165 @@
+package in.helparo.app;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * JVM tests for {@link RegularNotificationBundler}.
+ */
+public class RegularNotificationBundlerTest {
+
+    private RegularNotificationBundler bundler;
+
+    @Before
+    public void setUp() {
+        bundler = new RegularNotificationBundler();
+    }
+
+    @Test
+    public void bidsForOneBookingFoldIntoOneNotification() {
+        RegularNotificationBundler.Update first = bid("req-1", "₹599", "1");
+        assertEquals("🙋 New helper applied!", first.getTitle());
+        assertEquals(1, first.getCount());
+
+        RegularNotificationBundler.Update second = bid("req-1", "₹499", "2");
+        RegularNotificationBundler.Update third = bid("req-1", "₹650", "3");
+
+        assertEquals(first.getId(), second.getId());
+        assertEquals(first.getId(), third.getId());
+        assertEquals("3 helpers applied — best ₹499", third.getTitle());
+        assertEquals("Ravi applied for ₹650", third.getText());
+    }
+
+    @Test
+    public void bookingsGetTheirOwnNotificationInOneGroup() {
+        RegularNotificationBundler.Update a = bid("req-1", "₹599", "1");
+        RegularNotificationBundler.Update b = bid("req-2", "₹599", "1");
+
+        assertNotEquals(a.getId(), b.getId());
+        assertEquals(a.getGroup(), b.getGroup());
+        assertEquals(a.getSummaryId(), b.getSummaryId());
+        assertEquals("🙋 New helper applied!", b.getTitle());
+    }
+
+    @Test
+    public void serverBidCountCoversBidsFromBeforeARestart() {
+        RegularNotificationBundler.Update update = bid("req-1", "₹1,299", "4");
+
+        assertEquals(4, update.getCount());
+        assertEquals("4 helpers applied — best ₹1,299", update.getTitle());
+    }
+
+    @Test
+    public void missingPriceLeavesItOutOfTheHeading() {
+        bid("req-1", null, null);
+        RegularNotificationBundler.Update update = bid("req-1", "", null);
+
+        assertEquals("2 helpers applied", update.getTitle());
+    }
+
+    @Test
+    public void otherTypesUpdateInPlaceWithTheirLatestText() {
+        RegularNotificationBundler.Update first =
+            bundler.add("job_started", "req-1", "Work started!", "Ravi started", null);
+        RegularNotificationBundler.Update again =
+            bundler.add("job_started", "req-1", "Work started!", "Ravi resumed", null);
+
+        assertEquals(first.getId(), again.getId());
+        assertEquals("Work started!", again.getTitle());
+        assertEquals("Ravi resumed", again.getText());
+        assertEquals(2, again.getCount());
+    }
+
+    @Test
+    public void idsAreStablePerTypeAndRequest() {
+        int id = RegularNotificationBundler.notificationId("helper_applied", "req-1");
+
+        assertEquals(id, RegularNotificationBundler.notificationId("helper_applied", "req-1"));
+        assertNotEquals(id, RegularNotificationBundler.notificationId("helper_assigned", "req-1"));
+        assertNotEquals(id, RegularNotificationBundler.summaryIdFor("helper_applied"));
+    }
+
+    @Test
+    public void pushesWithoutRequestNeverReplaceEachOther() {
+        Map<String, String> first = new HashMap<>();
+        first.put("timestamp", "2024-01-15T10:30:00.000Z");
+        Map<String, String> second = new HashMap<>();
+        second.put("timestamp", "2024-01-15T10:31:00.000Z");
+
+        RegularNotificationBundler.Update a = bundler.add("payment_credited", null, "Paid", "₹500", first);
+        RegularNotificationBundler.Update b = bundler.add("payment_credited", null, "Paid", "₹700", second);
+        RegularNotificationBundler.Update c = bundler.add("payment_credited", null, "Paid", "₹900", null);
+        RegularNotificationBundler.Update d = bundler.add("payment_credited", null, "Paid", "₹900", null);
+
+        assertNotEquals(a.getId(), b.getId());
+        assertNotEquals(c.getId(), d.getId());
+        assertEquals(1, b.getCount());
+        assertNotEquals(a.getId(), RegularNotificationBundler.notificationId("payment_credited", null));
+        assertTrue(a.getId() >= RegularNotificationBundler.ID_BASE);
+    }
+
+    @Test
+    public void idsStayClearOfJobAlertsAndSummaries() {
+        String[] keys = {"", "a", "helper_applied|req-1", "payment_pending|", "x#summary"};
+        for (String key : keys) {
+            int id = RegularNotificationBundler.stableId(key);
+            assertTrue(key, id >= RegularNotificationBundler.ID_BASE);
+        }
+    }
+
+    @Test
+    public void quietJobIdsHaveTheirOwnRange() {
+        String[] jobIds = {"", "job-1", "550e8400-e29b-41d4-a716-446655440000", null};
+        for (String jobId : jobIds) {
+            int id = RegularNotificationBundler.quietJobId(jobId);
+            assertTrue(String.valueOf(jobId), id >= RegularNotificationBundler.QUIET_JOB_ID_BASE);
+            assertTrue(String.valueOf(jobId), id < RegularNotificationBundler.ID_BASE);
+        }
+        assertEquals(RegularNotificationBundler.quietJobId("job-1"), RegularNotificationBundler.quietJobId("job-1"));
+    }
+
+    @Test
+    public void channelsFollowTheDispatcher() {
+        assertEquals("job_updates", RegularNotificationBundler.channelFor("helper_applied"));
+        assertEquals("job_updates", RegularNotificationBundler.channelFor("job_accepted"));
+        assertEquals("payments", RegularNotificationBundler.channelFor("payment_pending"));
+        assertEquals("job_alerts", RegularNotificationBundler.channelFor("job_expiring"));
+        assertEquals("default", RegularNotificationBundler.channelFor("re_engagement"));
+        assertEquals("default", RegularNotificationBundler.channelFor(null));
+    }
+
+    @Test
+    public void bundleStateIsBounded() {
+        bid("req-0", "₹100", null);
+        for (int i = 1; i <= RegularNotificationBundler.MAX_BUNDLES; i++) {
+            bid("req-" + i, "₹599", null);
+        }
+
+        // req-0 was evicted, so it starts over
+        assertEquals(1, bid("req-0", "₹599", null).getCount());
+    }
+
+    @Test
+    public void parsesPrices() {
+        assertEquals(499, RegularNotificationBundler.parsePrice("₹499"));
+        assertEquals(1299, RegularNotificationBundler.parsePrice("₹1,299.50"));
+        assertEquals(-1, RegularNotificationBundler.parsePrice("free"));
+        assertEquals(-1, RegularNotificationBundler.parsePrice(null));
+        assertEquals(-1, RegularNotificationBundler.parsePrice("99999999999"));
+    }
+
+    private RegularNotificationBundler.Update bid(String requestId, String price, String totalBids) {
+        Map<String, String> data = new HashMap<>();
+        data.put("type", "helper_applied");
+        data.put("requestId", requestId);
+        if (price != null) data.put("proposedPrice", price);
+        if (totalBids != null) data.put("totalBids", totalBids);
+        return bundler.add("helper_applied", requestId, "🙋 New helper applied!",
+            "Ravi applied for " + price, data);
+    }
+}
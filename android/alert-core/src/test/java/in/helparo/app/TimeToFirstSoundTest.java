@@ -0,0 +1,56 @@
+package in.helparo.app;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * JVM tests for {@link TimeToFirstSound}.
+ */
+public class TimeToFirstSoundTest {
+
+    private final TimeToFirstSound stats = new TimeToFirstSound(250);
+
+    @Test
+    public void emptyStatsReportNothing() {
+        assertEquals(0, stats.getCount());
+        assertEquals(-1, stats.getLastMillis());
+        assertEquals(-1, stats.getMedianMillis());
+    }
+
+    @Test
+    public void countsWarmColdAndFallbackStarts() {
+        assertTrue(stats.record(12, true, false));
+        assertTrue(stats.record(180, false, false));
+        assertFalse(stats.record(260, false, true));
+
+        assertEquals(3, stats.getCount());
+        assertEquals(1, stats.getWarmStarts());
+        assertEquals(2, stats.getColdStarts());
+        assertEquals(1, stats.getFallbacks());
+        assertEquals(1, stats.getOverBudget());
+        assertEquals(260, stats.getLastMillis());
+        assertEquals(260, stats.getMaxMillis());
+        assertEquals(180, stats.getMedianMillis());
+    }
+
+    @Test
+    public void medianOnlyCoversRecentSamples() {
+        for (int i = 0; i < TimeToFirstSound.MAX_SAMPLES; i++) {
+            stats.record(1_000, false, false);
+        }
+        for (int i = 0; i < TimeToFirstSound.MAX_SAMPLES; i++) {
+            stats.record(10, true, false);
+        }
+
+        assertEquals(10, stats.getMedianMillis());
+        assertEquals(1_000, stats.getMaxMillis());
+        assertEquals(TimeToFirstSound.MAX_SAMPLES, stats.getOverBudget());
+    }
+
+    @Test
+    public void negativeDurationsClampToZero() {
+        stats.record(-5, true, false);
+        assertEquals(0, stats.getLastMillis());
+    }
+}
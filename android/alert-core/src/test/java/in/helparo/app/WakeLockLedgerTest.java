@@ -0,0 +1,166 @@
+package in.helparo.app;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * JVM tests for {@link WakeLockLedger}.
+ */
+public class WakeLockLedgerTest {
+
+    private static final TimeZone IST = TimeZone.getTimeZone("Asia/Kolkata");
+
+    // 2023-11-14 22:13:20 UTC = 2023-11-15 03:43:20 IST
+    private static final long NOW = 1_700_000_000_000L;
+
+    private WakeLockLedger ledger;
+
+    @Before
+    public void setUp() {
+        ledger = new WakeLockLedger(IST);
+    }
+
+    @Test
+    public void firstAcquisitionHoldsUntilItsTimeout() {
+        assertEquals(NOW + 30_000, ledger.acquire("job-1", 30_000, NOW));
+        assertTrue(ledger.isHeld());
+        assertEquals(1, ledger.getHolds());
+    }
+
+    @Test
+    public void answeringReleasesAtOnceAndCountsHeldTime() {
+        ledger.acquire("job-1", 30_000, NOW);
+
+        assertEquals(0, ledger.releaseAll("job-1", NOW + 4_000));
+
+        assertFalse(ledger.isHeld());
+        assertEquals(Long.valueOf(4_000), ledger.getHeldByDay(NOW + 10_000).get("2023-11-15"));
+    }
+
+    @Test
+    public void overlappingAlertsShareOneHold() {
+        ledger.acquire("job-1", 30_000, NOW);
+        assertEquals(NOW + 35_000, ledger.acquire("job-2", 30_000, NOW + 5_000));
+
+        // job-1 answered: job-2 still wants the screen
+        assertEquals(NOW + 35_000, ledger.releaseAll("job-1", NOW + 6_000));
+        assertEquals(0, ledger.releaseAll("job-2", NOW + 8_000));
+
+        assertEquals(1, ledger.getHolds());
+        assertEquals(Long.valueOf(8_000), ledger.getHeldByDay(NOW + 8_000).get("2023-11-15"));
+    }
+
+    @Test
+    public void referencesAreCountedPerAlert() {
+        // Push and alert screen both take a reference on the same job
+        ledger.acquire("job-1", 30_000, NOW);
+        ledger.acquire("job-1", 60_000, NOW + 1_000);
+
+        assertEquals(NOW + 61_000, ledger.release("job-1", NOW + 2_000));
+        assertTrue(ledger.isHeld());
+        assertEquals(0, ledger.release("job-1", NOW + 3_000));
+        assertFalse(ledger.isHeld());
+    }
+
+    @Test
+    public void releaseAllDropsEveryReferenceOfTheAlert() {
+        ledger.acquire("job-1", 30_000, NOW);
+        ledger.acquire("job-1", 120_000, NOW);
+
+        assertEquals(0, ledger.releaseAll("job-1", NOW + 1_000));
+        assertEquals(0, ledger.getActiveAlerts());
+    }
+
+    @Test
+    public void holdIsCappedHoweverManyAlertsJoin() {
+        long deadline = 0;
+        for (int i = 0; i < 10; i++) {
+            deadline = ledger.acquire("job-" + i, 60_000, NOW + i * 10_000);
+        }
+
+        assertEquals(NOW + WakeLockLedger.MAX_HOLD_MS, deadline);
+        assertTrue(ledger.getCappedAcquisitions() > 0);
+
+        // Past the cap the lock is released and accounted only up to the cap
+        assertEquals(0, ledger.expire(NOW + WakeLockLedger.MAX_HOLD_MS + 50_000));
+        assertFalse(ledger.isHeld());
+        assertEquals(Long.valueOf(WakeLockLedger.MAX_HOLD_MS),
+            ledger.getHeldByDay(NOW + 500_000).get("2023-11-15"));
+    }
+
+    @Test
+    public void alertAfterTheCapStartsANewHold() {
+        ledger.acquire("job-1", 200_000, NOW);
+
+        long deadline = ledger.acquire("job-2", 30_000, NOW + WakeLockLedger.MAX_HOLD_MS + 1_000);
+
+        assertEquals(NOW + WakeLockLedger.MAX_HOLD_MS + 31_000, deadline);
+        assertEquals(2, ledger.getHolds());
+        assertEquals(1, ledger.getActiveAlerts());
+    }
+
+    @Test
+    public void timedOutHoldIsCountedUpToItsDeadline() {
+        ledger.acquire("job-1", 30_000, NOW);
+
+        // Nobody answered; noticed much later
+        assertEquals(0, ledger.expire(NOW + 600_000));
+
+        assertEquals(Long.valueOf(30_000), ledger.getHeldByDay(NOW + 600_000).get("2023-11-15"));
+    }
+
+    @Test
+    public void holdInProgressIsReported() {
+        ledger.acquire("job-1", 60_000, NOW);
+
+        assertEquals(Long.valueOf(20_000), ledger.getHeldByDay(NOW + 20_000).get("2023-11-15"));
+        assertTrue(ledger.getFinishedHeldByDay().isEmpty());
+    }
+
+    @Test
+    public void holdAcrossMidnightIsSplitBetweenDays() {
+        // 2023-11-15 23:59:30 IST
+        long beforeMidnight = 1_700_072_970_000L;
+        ledger.acquire("job-1", 60_000, beforeMidnight);
+        ledger.releaseAll("job-1", beforeMidnight + 50_000);
+
+        Map<String, Long> days = ledger.getHeldByDay(beforeMidnight + 50_000);
+        assertEquals(Long.valueOf(30_000), days.get("2023-11-15"));
+        assertEquals(Long.valueOf(20_000), days.get("2023-11-16"));
+    }
+
+    @Test
+    public void restoredTotalsAreAddedTo() {
+        ledger.restoreHeldByDay(Collections.singletonMap("2023-11-15", 5_000L));
+        ledger.acquire("job-1", 30_000, NOW);
+        ledger.releaseAll("job-1", NOW + 1_000);
+
+        assertEquals(Long.valueOf(6_000), ledger.getFinishedHeldByDay().get("2023-11-15"));
+    }
+
+    @Test
+    public void onlyRecentDaysAreKept() {
+        for (int day = 0; day < WakeLockLedger.DAYS_KEPT + 5; day++) {
+            long start = NOW + day * 86_400_000L;
+            ledger.acquire("job-" + day, 10_000, start);
+            ledger.releaseAll("job-" + day, start + 1_000);
+        }
+
+        Map<String, Long> days = ledger.getFinishedHeldByDay();
+        assertEquals(WakeLockLedger.DAYS_KEPT, days.size());
+        assertFalse(days.containsKey("2023-11-15"));
+    }
+
+    @Test
+    public void releasingAnUnknownAlertIsHarmless() {
+        assertEquals(0, ledger.releaseAll("job-x", NOW));
+        ledger.acquire("job-1", 30_000, NOW);
+        assertEquals(NOW + 30_000, ledger.releaseAll("job-x", NOW + 1_000));
+    }
+}
@@ -0,0 +1,91 @@
+package in.helparo.app;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * JVM tests for {@link WeightedLruCache}, with byte arrays weighing their length.
+ */
+public class WeightedLruCacheTest {
+
+    private WeightedLruCache<String, byte[]> cache;
+
+    @Before
+    public void setUp() {
+        cache = new WeightedLruCache<>(100, value -> value.length);
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedByWeight() {
+        cache.put("a", new byte[40]);
+        cache.put("b", new byte[40]);
+        cache.get("a");
+        cache.put("c", new byte[40]);
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertEquals(80, cache.weight());
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    public void oneLargeValueCanEvictSeveral() {
+        cache.put("a", new byte[30]);
+        cache.put("b", new byte[30]);
+        cache.put("c", new byte[30]);
+        cache.put("d", new byte[90]);
+
+        assertEquals(1, cache.size());
+        assertEquals(90, cache.weight());
+        assertEquals(3, cache.getEvictions());
+    }
+
+    @Test
+    public void valueOverTheBudgetIsNotKept() {
+        cache.put("a", new byte[50]);
+        cache.put("huge", new byte[101]);
+
+        assertNull(cache.get("huge"));
+        assertNotNull(cache.get("a"));
+        assertEquals(50, cache.weight());
+    }
+
+    @Test
+    public void replacingAValueUpdatesTheWeight() {
+        cache.put("a", new byte[60]);
+        cache.put("a", new byte[20]);
+
+        assertEquals(1, cache.size());
+        assertEquals(20, cache.weight());
+
+        // Replaced by something too big: the old value is gone too
+        cache.put("a", new byte[200]);
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.weight());
+    }
+
+    @Test
+    public void trimToZeroEmptiesTheCache() {
+        cache.put("a", new byte[10]);
+        cache.put("b", new byte[10]);
+        cache.remove("a");
+        assertEquals(10, cache.weight());
+
+        cache.trimTo(0);
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.weight());
+    }
+
+    @Test
+    public void countsHitsAndMisses() {
+        cache.put("a", new byte[10]);
+        cache.get("a");
+        cache.get("b");
+
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+}
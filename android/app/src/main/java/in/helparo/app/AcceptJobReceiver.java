@@ -0,0 +1,68 @@
+package in.helparo.app;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+
+/**
+ * BroadcastReceiver that claims a job natively when the helper taps Accept,
+ * without launching MainActivity and waiting for the WebView to boot.
+ *
+ * The accept is queued in the durable response outbox ({@link JobResponses})
+ * and sent on its background thread with the session token the web app handed
+ * over; the job's notification shows the progress and then whether the job was
+ * confirmed or lost. Opening the app is left to the helper.
+ */
+public class AcceptJobReceiver extends BroadcastReceiver {
+
+    /**
+     * Whether Accept can be handled natively right now (a usable session exists)
+     */
+    static boolean canClaimNatively(Context context) {
+        return NativeSession.get(context).getAccessToken() != null;
+    }
+
+    /**
+     * Warm up the connection to the backend while the helper looks at the alert
+     */
+    static void prewarm(Context context) {
+        JobResponses.get(context).prewarm();
+    }
+
+    /**
+     * Intent that claims this job natively when sent
+     */
+    static Intent createIntent(Context context, String jobId, int notificationId, String title) {
+        Intent intent = new Intent(context, AcceptJobReceiver.class);
+        intent.putExtra("jobId", jobId);
+        intent.putExtra("notificationId", notificationId);
+        intent.putExtra("title", title);
+        return intent;
+    }
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        String jobId = intent.getStringExtra("jobId");
+        int notificationId = intent.getIntExtra("notificationId", 0);
+        String title = intent.getStringExtra("title");
+        if (jobId == null) return;
+
+        // Answered: off the alert stack, effects off once nothing else is waiting
+        if (JobAlertQueue.getInstance().remove(jobId) != null) {
+            AlertLatencyTracer.getInstance().mark(
+                jobId, AlertLatencyTracer.STAGE_ANSWERED, System.currentTimeMillis());
+        }
+        AlertEffects.get(context).onDone(jobId);
+
+        if (!canClaimNatively(context)) {
+            // Session expired since the alert was posted - let the web app accept it
+            JobAlertNotifications.showClaimStatus(context, notificationId, jobId, title, JobClaimClient.Result.UNAUTHORIZED);
+            return;
+        }
+
+        JobAlertNotifications.showClaimStatus(context, notificationId, jobId, title, null);
+        final PendingResult pending = goAsync();
+        // Keep the process alive through the first attempt; retries run on their own
+        JobResponses.get(context).accept(jobId, notificationId, title, pending::finish);
+    }
+}
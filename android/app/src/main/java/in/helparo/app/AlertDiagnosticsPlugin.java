@@ -0,0 +1,107 @@
+package in.helparo.app;
+
+import android.os.Build;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+/**
+ * Native Capacitor Plugin exposing job alert latency and native logs to the web app
+ * Used to measure push-to-alarm responsiveness per device model
+ */
+@CapacitorPlugin(name = "AlertDiagnostics")
+public class AlertDiagnosticsPlugin extends Plugin {
+
+    private static final int[] PERCENTILES = {50, 90, 99};
+
+    /**
+     * Get latency percentiles for the recently traced job alerts.
+     * Every stage is measured from the moment the push reached the device;
+     * "endToEnd" is from the server send to the first sound.
+     */
+    @PluginMethod
+    public void getAlertLatency(PluginCall call) {
+        AlertLatencyTracer tracer = AlertLatencyTracer.getInstance();
+
+        JSObject stages = new JSObject();
+        stages.put("delivery", latency(tracer, AlertLatencyTracer.STAGE_SENT, AlertLatencyTracer.STAGE_RECEIVED));
+        for (int stage = AlertLatencyTracer.STAGE_DECODED; stage <= AlertLatencyTracer.STAGE_ANSWERED; stage++) {
+            stages.put(AlertLatencyTracer.STAGE_NAMES[stage],
+                latency(tracer, AlertLatencyTracer.STAGE_RECEIVED, stage));
+        }
+
+        TimeToFirstSound sound = AlertSoundEngine.get(getContext()).getStats();
+        JSObject soundStats = new JSObject();
+        soundStats.put("count", sound.getCount());
+        soundStats.put("warmStarts", sound.getWarmStarts());
+        soundStats.put("coldStarts", sound.getColdStarts());
+        soundStats.put("fallbacks", sound.getFallbacks());
+        soundStats.put("overBudget", sound.getOverBudget());
+        soundStats.put("budgetMs", sound.getBudgetMs());
+        soundStats.put("medianMs", sound.getMedianMillis());
+        soundStats.put("maxMs", sound.getMaxMillis());
+
+        PushDedupeStore dedupe = PushDedupeStore.get(getContext());
+        JSObject dedupeStats = new JSObject();
+        dedupeStats.put("duplicates", dedupe.getHits());
+        dedupeStats.put("unique", dedupe.getMisses());
+
+        JSObject ret = new JSObject();
+        ret.put("manufacturer", Build.MANUFACTURER);
+        ret.put("model", Build.MODEL);
+        ret.put("sdkInt", Build.VERSION.SDK_INT);
+        ret.put("endToEnd", latency(tracer, AlertLatencyTracer.STAGE_SENT, AlertLatencyTracer.STAGE_SOUND_STARTED));
+        ret.put("stages", stages);
+        ret.put("sound", soundStats);
+        ret.put("dedupe", dedupeStats);
+        call.resolve(ret);
+    }
+
+    /**
+     * Forget the traced alerts, e.g. after they were uploaded
+     */
+    @PluginMethod
+    public void clearAlertLatency(PluginCall call) {
+        AlertLatencyTracer.getInstance().clear();
+        JSObject ret = new JSObject();
+        ret.put("success", true);
+        call.resolve(ret);
+    }
+
+    /**
+     * Get the warnings and errors logged by the native alert path on this device
+     */
+    @PluginMethod
+    public void getLogs(PluginCall call) {
+        HLog.init(getContext());
+        JSObject ret = new JSObject();
+        ret.put("logs", HLog.readPersisted());
+        call.resolve(ret);
+    }
+
+    /**
+     * Delete the on-device log, e.g. after support pulled it
+     */
+    @PluginMethod
+    public void clearLogs(PluginCall call) {
+        HLog.clearPersisted();
+        JSObject ret = new JSObject();
+        ret.put("success", true);
+        call.resolve(ret);
+    }
+
+    private static JSObject latency(AlertLatencyTracer tracer, int fromStage, int toStage) {
+        JSObject result = new JSObject();
+        long[] values = tracer.percentiles(fromStage, toStage, PERCENTILES);
+        result.put("count", tracer.count(fromStage, toStage));
+        if (values != null) {
+            result.put("p50", values[0]);
+            result.put("p90", values[1]);
+            result.put("p99", values[2]);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,192 @@
+package in.helparo.app;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.VibrationEffect;
+import android.os.Vibrator;
+import android.os.VibratorManager;
+
+import java.util.Set;
+
+/**
+ * Process-wide owner of the job alert effects: vibration, the alarm sound and
+ * the screen wake lock, for every job currently alerting.
+ *
+ * MyFirebaseMessagingService reports alerts as they arrive, JobAlertActivity
+ * reports the jobs it shows, and the alert screen and the notification
+ * actions report answers. {@link AlertEffectsState} turns those events into
+ * start/stop actions, so repeated calls from any of them are harmless.
+ *
+ * Once the last job is answered or expires everything stops at once, and is
+ * checked again {@link #STOP_CHECK_MS} later in case a start raced the stop.
+ */
+public final class AlertEffects {
+
+    private static final String TAG = "AlertEffects";
+
+    /** Screen-on time a push buys; the alert screen takes a longer reference once it shows */
+    private static final long PUSH_WAKE_MS = 30_000L;
+
+    /** Bound on how long any effect outlives the last answer or expiry */
+    static final long STOP_CHECK_MS = 1_000L;
+
+    /** Vibrate 1s, pause 0.5s, four times */
+    private static final long[] PULSE_PATTERN = {0, 1000, 500, 1000, 500, 1000, 500, 1000};
+    /** Vibrate 800ms, pause 400ms, repeating */
+    private static final long[] CONTINUOUS_PATTERN = {0, 800, 400, 800, 400, 800, 400};
+
+    private static AlertEffects instance;
+
+    private final AlertEffectsState state = new AlertEffectsState();
+    private final Vibrator vibrator;
+    private final AlertSoundEngine sound;
+    private final AlertWakeLock wakeLock;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable expiryCheck = this::onExpiryCheck;
+    private final Runnable stopCheck = this::onStopCheck;
+
+    private AlertEffects(Context context) {
+        vibrator = resolveVibrator(context);
+        sound = AlertSoundEngine.get(context);
+        wakeLock = AlertWakeLock.get(context);
+    }
+
+    public static synchronized AlertEffects get(Context context) {
+        if (instance == null) {
+            instance = new AlertEffects(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * A job alert arrived (push service)
+     *
+     * @param buzz vibrate, for the first job of a burst
+     * @param wakeScreen turn the screen on
+     */
+    public void onAlert(String jobId, long remainingMs, boolean buzz, boolean wakeScreen) {
+        long now = System.currentTimeMillis();
+        if (wakeScreen) wakeLock.acquire(jobId, Math.min(PUSH_WAKE_MS, remainingMs));
+        apply(state.onAlert(jobId, now + remainingMs, buzz, now), jobId);
+        scheduleExpiry();
+    }
+
+    /**
+     * A job is on the alert screen: ring, vibrate and keep the screen on until it is answered
+     *
+     * @param dismissAt when the job expires, epoch millis, or 0 if unknown
+     */
+    public void onShown(String jobId, long dismissAt) {
+        if (state.isShown(jobId)) return;
+        long now = System.currentTimeMillis();
+        int actions = state.onShown(jobId, dismissAt, now);
+        long holdMs = dismissAt > 0
+            ? Math.min(WakeLockLedger.MAX_HOLD_MS, dismissAt - now) : WakeLockLedger.MAX_HOLD_MS;
+        wakeLock.acquire(jobId, holdMs);
+        apply(actions, jobId);
+        scheduleExpiry();
+    }
+
+    /**
+     * A job was accepted, rejected or expired
+     */
+    public void onDone(String jobId) {
+        if (jobId == null) return;
+        wakeLock.releaseAlert(jobId);
+        apply(state.onDone(jobId), jobId);
+        scheduleExpiry();
+    }
+
+    /**
+     * Stop everything, e.g. when the helper opened the app to answer there
+     */
+    public void stopAll() {
+        for (String jobId : state.getJobs()) {
+            wakeLock.releaseAlert(jobId);
+        }
+        apply(state.stopAll(), null);
+        scheduleExpiry();
+    }
+
+    public AlertEffectsState getState() {
+        return state;
+    }
+
+    private void apply(int actions, String jobId) {
+        if ((actions & AlertEffectsState.ACTION_STOP) != 0) {
+            stopEffects();
+            return;
+        }
+        if ((actions & AlertEffectsState.ACTION_VIBRATE) != 0) {
+            vibrate(CONTINUOUS_PATTERN, 0);
+        } else if ((actions & AlertEffectsState.ACTION_PULSE) != 0) {
+            vibrate(PULSE_PATTERN, -1);
+        }
+        if ((actions & AlertEffectsState.ACTION_SOUND) != 0) {
+            sound.play(jobId);
+        }
+    }
+
+    private void stopEffects() {
+        HLog.d(TAG, "Stopping alert effects");
+        if (vibrator != null) vibrator.cancel();
+        sound.stop();
+        handler.removeCallbacks(stopCheck);
+        handler.postDelayed(stopCheck, STOP_CHECK_MS);
+    }
+
+    private void onStopCheck() {
+        if (state.isActive()) return; // A new alert started in the meantime
+        if (vibrator != null) vibrator.cancel();
+        sound.stop();
+    }
+
+    private void scheduleExpiry() {
+        handler.removeCallbacks(expiryCheck);
+        long next = state.nextDeadline();
+        if (next > 0) handler.postDelayed(expiryCheck, Math.max(0, next - System.currentTimeMillis()));
+    }
+
+    private void onExpiryCheck() {
+        Set<String> before = state.getJobs();
+        int actions = state.expire(System.currentTimeMillis());
+        before.removeAll(state.getJobs());
+        for (String jobId : before) {
+            wakeLock.releaseAlert(jobId);
+        }
+        apply(actions, null);
+        scheduleExpiry();
+    }
+
+    private void vibrate(long[] pattern, int repeat) {
+        if (vibrator == null) return;
+        try {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                vibrator.vibrate(VibrationEffect.createWaveform(pattern, repeat));
+            } else {
+                vibrator.vibrate(pattern, repeat);
+            }
+        } catch (Exception e) {
+            HLog.e(TAG, "Error starting vibration", e);
+        }
+    }
+
+    private static Vibrator resolveVibrator(Context context) {
+        try {
+            Vibrator vibrator;
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+                VibratorManager vibratorManager = (VibratorManager) context.getSystemService(Context.VIBRATOR_MANAGER_SERVICE);
+                vibrator = vibratorManager != null ? vibratorManager.getDefaultVibrator() : null;
+            } else {
+                vibrator = (Vibrator) context.getSystemService(Context.VIBRATOR_SERVICE);
+            }
+            if (vibrator != null && vibrator.hasVibrator()) return vibrator;
+            HLog.w(TAG, "No vibrator available on this device");
+        } catch (Exception e) {
+            HLog.e(TAG, "Error resolving vibrator", e);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,293 @@
+package in.helparo.app;
+
+import android.content.Context;
+import android.media.AudioAttributes;
+import android.media.AudioManager;
+import android.media.MediaPlayer;
+import android.media.Ringtone;
+import android.media.RingtoneManager;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.SystemClock;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Plays the looping job alarm without touching the main thread.
+ *
+ * The alarm is resolved and prepared on a dedicated HandlerThread ahead of time
+ * ({@link #prewarm()}), so an alert only has to call {@code start()} on an
+ * already-decoded player. After an alert the player is paused and rewound rather
+ * than released, so it stays ready for the next one. If the player is not ready
+ * when an alert needs it, it is prepared asynchronously and the Ringtone API is
+ * used as a fallback once {@link TimeToFirstSound#DEFAULT_BUDGET_MS} has passed.
+ *
+ * Prewarmed by MyFirebaseMessagingService as the push arrives; played and
+ * stopped by {@link AlertEffects}. play() is idempotent while the alarm is sounding.
+ */
+public final class AlertSoundEngine {
+
+    private static final String TAG = "AlertSoundEngine";
+
+    /** Bundled alarm (res/raw/job_alert), used in preference to the system alarm if present */
+    private static final String RAW_ALERT_SOUND = "job_alert";
+
+    private static volatile AlertSoundEngine instance;
+
+    private final Context appContext;
+    private final Handler handler;
+    private final TimeToFirstSound stats = new TimeToFirstSound(TimeToFirstSound.DEFAULT_BUDGET_MS);
+    private final Runnable budgetWatchdog = this::onBudgetExpired;
+    private final AtomicInteger stopGeneration = new AtomicInteger();
+
+    // Everything below is only touched on the engine thread
+    private MediaPlayer player;
+    private boolean prepared;
+    private Ringtone ringtone;
+    private boolean sounding;
+    /** elapsedRealtime of the pending play request, 0 when none */
+    private long requestedAt;
+    private boolean warmRequest;
+    private String traceJobId;
+
+    private AlertSoundEngine(Context context) {
+        appContext = context.getApplicationContext();
+        HandlerThread thread = new HandlerThread("alert-sound");
+        thread.start();
+        handler = new Handler(thread.getLooper());
+    }
+
+    public static AlertSoundEngine get(Context context) {
+        AlertSoundEngine engine = instance;
+        if (engine == null) {
+            synchronized (AlertSoundEngine.class) {
+                engine = instance;
+                if (engine == null) {
+                    engine = new AlertSoundEngine(context);
+                    instance = engine;
+                }
+            }
+        }
+        return engine;
+    }
+
+    /**
+     * Resolve and decode the alarm in the background so the next alert starts instantly
+     */
+    public void prewarm() {
+        handler.post(this::prepareIfNeeded);
+    }
+
+    /**
+     * Start the looping alarm. Returns immediately; the time until the player
+     * actually starts is recorded in {@link #getStats()} and, for the given job,
+     * in {@link AlertLatencyTracer}.
+     *
+     * @param traceJobId job whose alert asked for the sound, may be null
+     */
+    public void play(String traceJobId) {
+        final long requested = SystemClock.elapsedRealtime();
+        final int generation = stopGeneration.get();
+        handler.post(() -> {
+            // A stop issued after this play wins, even if it ran first
+            if (generation == stopGeneration.get()) playOnEngine(requested, traceJobId);
+        });
+    }
+
+    /**
+     * Silence the alarm, keeping the player prepared for the next alert.
+     * Jumps the engine queue, so it never waits behind a prepare.
+     */
+    public void stop() {
+        stopGeneration.incrementAndGet();
+        handler.postAtFrontOfQueue(this::stopOnEngine);
+    }
+
+    public TimeToFirstSound getStats() {
+        return stats;
+    }
+
+    private void playOnEngine(long requested, String traceJobId) {
+        if (sounding || requestedAt != 0) return; // Already sounding or starting
+
+        requestedAt = requested;
+        this.traceJobId = traceJobId;
+        warmRequest = prepared;
+        maximizeAlarmVolume();
+
+        if (prepared) {
+            startPlayer();
+            return;
+        }
+
+        // Cold start: prepare asynchronously, fall back to Ringtone if it takes too long
+        prepareIfNeeded();
+        handler.postDelayed(budgetWatchdog, stats.getBudgetMs());
+    }
+
+    private void prepareIfNeeded() {
+        if (player != null) return;
+
+        Uri uri = resolveAlertUri();
+        if (uri == null) {
+            HLog.w(TAG, "No alarm sound available");
+            return;
+        }
+
+        MediaPlayer mp = new MediaPlayer();
+        try {
+            mp.setDataSource(appContext, uri);
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+                mp.setAudioAttributes(new AudioAttributes.Builder()
+                    .setUsage(AudioAttributes.USAGE_ALARM)
+                    .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
+                    .build());
+            } else {
+                mp.setAudioStreamType(AudioManager.STREAM_ALARM);
+            }
+            mp.setLooping(true);
+            // Callbacks arrive on this thread's looper
+            mp.setOnPreparedListener(this::onPrepared);
+            mp.setOnErrorListener(this::onPlayerError);
+            mp.prepareAsync();
+            player = mp;
+            HLog.d(TAG, "🔊 Preparing alarm: ", uri);
+        } catch (Exception e) {
+            HLog.e(TAG, "Error preparing alarm sound", e);
+            mp.release();
+        }
+    }
+
+    private void onPrepared(MediaPlayer mp) {
+        if (mp != player) return;
+        prepared = true;
+        HLog.d(TAG, "🔊 Alarm ready");
+        if (requestedAt != 0) startPlayer();
+    }
+
+    private boolean onPlayerError(MediaPlayer mp, int what, int extra) {
+        HLog.e(TAG, "MediaPlayer error: " + what + "/" + extra);
+        boolean wasSounding = sounding && ringtone == null;
+        releasePlayer();
+        if (wasSounding || requestedAt != 0) {
+            sounding = false;
+            startFallback();
+        }
+        return true;
+    }
+
+    private void startPlayer() {
+        handler.removeCallbacks(budgetWatchdog);
+        try {
+            player.start();
+            sounding = true;
+            recordStart(false);
+        } catch (Exception e) {
+            HLog.e(TAG, "Error starting alarm sound", e);
+            releasePlayer();
+            startFallback();
+        }
+    }
+
+    private void onBudgetExpired() {
+        if (requestedAt == 0 || sounding) return;
+        HLog.w(TAG, "Alarm not ready within budget (ms): ", stats.getBudgetMs());
+        startFallback();
+    }
+
+    private void startFallback() {
+        handler.removeCallbacks(budgetWatchdog);
+        try {
+            Uri uri = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_ALARM);
+            ringtone = RingtoneManager.getRingtone(appContext, uri);
+            if (ringtone != null) {
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+                    ringtone.setLooping(true);
+                }
+                ringtone.play();
+                sounding = true;
+                // A player that failed mid-alert is not a new start
+                if (requestedAt != 0) recordStart(true);
+                return;
+            }
+        } catch (Exception e) {
+            HLog.e(TAG, "Fallback ringtone also failed", e);
+        }
+        requestedAt = 0;
+    }
+
+    private void recordStart(boolean fallback) {
+        long elapsed = SystemClock.elapsedRealtime() - requestedAt;
+        boolean withinBudget = stats.record(elapsed, warmRequest && !fallback, fallback);
+        AlertLatencyTracer.getInstance().mark(
+            traceJobId, AlertLatencyTracer.STAGE_SOUND_STARTED, System.currentTimeMillis());
+        requestedAt = 0;
+        traceJobId = null;
+        if (withinBudget) {
+            HLog.d(TAG, "🔊 Alarm started, ms: ", elapsed);
+        } else {
+            HLog.w(TAG, (fallback ? "Ringtone" : warmRequest ? "Warm alarm" : "Cold alarm")
+                + " started over budget, ms: " + elapsed);
+        }
+    }
+
+    private void stopOnEngine() {
+        handler.removeCallbacks(budgetWatchdog);
+        requestedAt = 0;
+        sounding = false;
+
+        if (player != null && prepared) {
+            try {
+                if (player.isPlaying()) {
+                    player.pause();
+                }
+                player.seekTo(0);
+            } catch (Exception e) {
+                HLog.e(TAG, "Error stopping MediaPlayer", e);
+                releasePlayer();
+            }
+        }
+
+        if (ringtone != null) {
+            try {
+                ringtone.stop();
+            } catch (Exception e) {
+                HLog.e(TAG, "Error stopping ringtone", e);
+            }
+            ringtone = null;
+        }
+    }
+
+    private void releasePlayer() {
+        if (player == null) return;
+        try {
+            player.release();
+        } catch (Exception ignored) {
+            // Already released
+        }
+        player = null;
+        prepared = false;
+    }
+
+    private void maximizeAlarmVolume() {
+        AudioManager audioManager = (AudioManager) appContext.getSystemService(Context.AUDIO_SERVICE);
+        if (audioManager == null) return;
+        int maxVolume = audioManager.getStreamMaxVolume(AudioManager.STREAM_ALARM);
+        audioManager.setStreamVolume(AudioManager.STREAM_ALARM, maxVolume, 0);
+    }
+
+    private Uri resolveAlertUri() {
+        int rawId = appContext.getResources()
+            .getIdentifier(RAW_ALERT_SOUND, "raw", appContext.getPackageName());
+        if (rawId != 0) {
+            return Uri.parse("android.resource://" + appContext.getPackageName() + "/" + rawId);
+        }
+
+        Uri uri = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_ALARM);
+        if (uri == null) uri = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_RINGTONE);
+        if (uri == null) uri = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_NOTIFICATION);
+        return uri;
+    }
+}
@@ -0,0 +1,113 @@
+package in.helparo.app;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.PowerManager;
+
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.TreeMap;
+
+/**
+ * The one wake lock job alerts use to turn the screen on, shared by the push
+ * service and the alert screen.
+ *
+ * Callers take and drop references per alert; a {@link WakeLockLedger}
+ * decides whether the lock is held and until when. The lock itself is not
+ * reference counted: it is acquired with a timeout at the ledger's deadline
+ * (so the system drops it even if this process dies) and released as soon as
+ * the last alert is answered or expires.
+ *
+ * Held time per day is kept in private SharedPreferences for reporting.
+ */
+public final class AlertWakeLock {
+
+    private static final String TAG = "AlertWakeLock";
+    private static final String LOCK_TAG = "helparo:jobalert";
+    private static final String PREFS_NAME = "helparo_wake_lock";
+
+    private static AlertWakeLock instance;
+
+    private final PowerManager.WakeLock wakeLock;
+    private final WakeLockLedger ledger = new WakeLockLedger(TimeZone.getDefault());
+    private final SharedPreferences prefs;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable expiryCheck = () -> apply(ledger.expire(System.currentTimeMillis()));
+
+    @SuppressWarnings("deprecation") // FULL_WAKE_LOCK is the only way to light the screen from a service
+    private AlertWakeLock(Context context) {
+        PowerManager powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+        wakeLock = powerManager != null
+            ? powerManager.newWakeLock(
+                PowerManager.FULL_WAKE_LOCK |
+                PowerManager.ACQUIRE_CAUSES_WAKEUP |
+                PowerManager.ON_AFTER_RELEASE,
+                LOCK_TAG)
+            : null;
+        if (wakeLock != null) wakeLock.setReferenceCounted(false);
+
+        prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        Map<String, Long> saved = new TreeMap<>();
+        for (Map.Entry<String, ?> day : prefs.getAll().entrySet()) {
+            if (day.getValue() instanceof Long) saved.put(day.getKey(), (Long) day.getValue());
+        }
+        ledger.restoreHeldByDay(saved);
+    }
+
+    public static synchronized AlertWakeLock get(Context context) {
+        if (instance == null) {
+            instance = new AlertWakeLock(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Take a reference for this alert, turning the screen on if needed
+     *
+     * @param holdMs how long this reference may keep the lock at most
+     */
+    public void acquire(String jobId, long holdMs) {
+        if (jobId == null) return;
+        apply(ledger.acquire(jobId, holdMs, System.currentTimeMillis()));
+    }
+
+    /**
+     * Drop every reference of an alert that was answered or expired
+     */
+    public void releaseAlert(String jobId) {
+        if (jobId == null) return;
+        apply(ledger.releaseAll(jobId, System.currentTimeMillis()));
+    }
+
+    public WakeLockLedger getLedger() {
+        return ledger;
+    }
+
+    private synchronized void apply(long deadline) {
+        handler.removeCallbacks(expiryCheck);
+        if (wakeLock == null) return;
+
+        long remaining = deadline - System.currentTimeMillis();
+        if (deadline > 0 && remaining > 0) {
+            // Re-acquiring moves the timeout to the new deadline
+            wakeLock.acquire(remaining);
+            handler.postDelayed(expiryCheck, remaining);
+            return;
+        }
+        if (wakeLock.isHeld()) {
+            wakeLock.release();
+            HLog.d(TAG, "Wake lock released");
+        }
+        saveTotals();
+    }
+
+    private void saveTotals() {
+        SharedPreferences.Editor editor = prefs.edit().clear();
+        for (Map.Entry<String, Long> day : ledger.getFinishedHeldByDay().entrySet()) {
+            editor.putLong(day.getKey(), day.getValue());
+        }
+        editor.apply();
+    }
+}
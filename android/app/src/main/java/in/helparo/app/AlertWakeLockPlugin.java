@@ -0,0 +1,38 @@
+package in.helparo.app;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import java.util.Map;
+
+/**
+ * Native Capacitor Plugin reporting how the shared job alert wake lock was used
+ * Used by src/lib/alert-wake-lock.ts to keep an eye on battery cost per day
+ */
+@CapacitorPlugin(name = "AlertWakeLock")
+public class AlertWakeLockPlugin extends Plugin {
+
+    /**
+     * Time the job alert wake lock was held per day, and how often it was taken
+     */
+    @PluginMethod
+    public void getStats(PluginCall call) {
+        WakeLockLedger ledger = AlertWakeLock.get(getContext()).getLedger();
+        JSObject days = new JSObject();
+        for (Map.Entry<String, Long> day : ledger.getHeldByDay(System.currentTimeMillis()).entrySet()) {
+            days.put(day.getKey(), day.getValue());
+        }
+        JSObject ret = new JSObject();
+        ret.put("heldMsByDay", days);
+        ret.put("held", ledger.isHeld());
+        ret.put("activeAlerts", ledger.getActiveAlerts());
+        ret.put("acquisitions", ledger.getAcquisitions());
+        ret.put("cappedAcquisitions", ledger.getCappedAcquisitions());
+        ret.put("holds", ledger.getHolds());
+        ret.put("maxHoldMs", WakeLockLedger.MAX_HOLD_MS);
+        call.resolve(ret);
+    }
+}
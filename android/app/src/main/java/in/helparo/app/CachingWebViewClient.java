@@ -0,0 +1,123 @@
+package in.helparo.app;
+
+import android.content.Context;
+import android.net.Uri;
+import android.webkit.WebResourceRequest;
+import android.webkit.WebResourceResponse;
+import android.webkit.WebView;
+
+import com.getcapacitor.Bridge;
+import com.getcapacitor.BridgeWebViewClient;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Bridge WebView client that serves the remote web app (server.url in
+ * capacitor.config.ts) through a disk-backed {@link WebAssetLoader}, so a cold
+ * start no longer downloads the Next.js shell and chunks on every launch.
+ *
+ * Documents are fetched through Capacitor's own proxy (super), which injects
+ * the native bridge JS; the cached copy therefore already contains it. That
+ * script only depends on the app build, and the cache is versioned by build.
+ */
+public class CachingWebViewClient extends BridgeWebViewClient {
+
+    private static final String TAG = "CachingWebViewClient";
+    private static final String CACHE_DIR = "web_assets";
+
+    /** Bump when the entry format or caching rules change */
+    private static final int CACHE_SCHEMA = 1;
+
+    /** A full Next.js build is a few MB; this keeps the current and previous deploy */
+    private static final long MAX_CACHE_BYTES = 30L * 1024 * 1024;
+
+    private static final int CONNECT_TIMEOUT_MS = 10_000;
+    private static final int READ_TIMEOUT_MS = 20_000;
+
+    private static WebAssetLoader loader;
+
+    private static final ExecutorService REVALIDATOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "web-revalidate");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final String serverHost;
+    private final WebAssetLoader.Origin assetOrigin =
+        new WebAssetLoader.HttpOrigin(CONNECT_TIMEOUT_MS, READ_TIMEOUT_MS);
+
+    public CachingWebViewClient(Bridge bridge, String serverUrl) {
+        super(bridge);
+        serverHost = Uri.parse(serverUrl).getHost();
+        WebAssetLoader webAssets = getLoader(bridge.getContext());
+        webAssets.setOnStaleBuild(() -> {
+            HLog.w(TAG, "Cached page is from an old deploy, reloading");
+            WebView webView = bridge.getWebView();
+            webView.post(webView::reload);
+        });
+    }
+
+    /**
+     * The process-wide loader, e.g. for stats or to clear documents on sign-out
+     */
+    public static synchronized WebAssetLoader getLoader(Context context) {
+        if (loader == null) {
+            String version = BuildConfig.VERSION_CODE + "/" + CACHE_SCHEMA;
+            WebAssetCache cache = new WebAssetCache(
+                new File(context.getApplicationContext().getCacheDir(), CACHE_DIR), MAX_CACHE_BYTES, version);
+            try {
+                cache.open();
+            } catch (IOException e) {
+                HLog.w(TAG, "Web cache unavailable: ", e.getMessage());
+            }
+            loader = new WebAssetLoader(cache, REVALIDATOR, WebAssetLoader.DEFAULT_MAX_DOCUMENT_AGE_MS);
+        }
+        return loader;
+    }
+
+    @Override
+    public WebResourceResponse shouldInterceptRequest(WebView view, WebResourceRequest request) {
+        Uri url = request.getUrl();
+        if (serverHost == null || !serverHost.equalsIgnoreCase(url.getHost())) {
+            return super.shouldInterceptRequest(view, request);
+        }
+
+        byte kind = WebAssetLoader.kindOf(request.getMethod(), url.getPath(), request.getRequestHeaders());
+        if (kind == 0) return super.shouldInterceptRequest(view, request);
+
+        WebAssetLoader.Origin origin = kind == WebAssetCache.KIND_DOCUMENT
+            ? (documentUrl, headers) -> fetchThroughBridge(view, request)
+            : assetOrigin;
+        WebAssetLoader.Response response = getLoader(view.getContext())
+            .load(url.toString(), kind, request.getRequestHeaders(), origin, System.currentTimeMillis());
+        if (response == null) return super.shouldInterceptRequest(view, request);
+
+        Map<String, String> headers = new HashMap<>(response.headers);
+        return new WebResourceResponse(response.mimeType, response.encoding, response.status,
+            response.status == 200 ? "OK" : "Error", headers, new ByteArrayInputStream(response.body));
+    }
+
+    /**
+     * Let Capacitor fetch the document (cookies, bridge JS injection) and buffer it for the cache
+     */
+    private WebAssetLoader.Response fetchThroughBridge(WebView view, WebResourceRequest request) throws IOException {
+        WebResourceResponse response = super.shouldInterceptRequest(view, request);
+        if (response == null || response.getData() == null) return null;
+        byte[] body;
+        try (InputStream in = response.getData()) {
+            body = WebAssetLoader.readAll(in);
+        }
+        Map<String, String> headers = response.getResponseHeaders() != null
+            ? response.getResponseHeaders() : new HashMap<>();
+        String mimeType = response.getMimeType() != null ? response.getMimeType() : "text/html";
+        return new WebAssetLoader.Response(response.getStatusCode(), mimeType, response.getEncoding(),
+            headers, body, false);
+    }
+}
@@ -0,0 +1,178 @@
+package in.helparo.app;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.pm.PackageManager;
+import android.location.Location;
+import android.location.LocationListener;
+import android.location.LocationManager;
+import android.os.Bundle;
+import android.os.Looper;
+
+import androidx.core.content.ContextCompat;
+
+/**
+ * The device's last known position and the helper's alert radius, kept
+ * natively so the push service can run the {@link DistanceGate} without
+ * asking for a fix.
+ *
+ * Fixes come from the web app (whenever it reads the position) and from the
+ * passive provider, which only repeats fixes other apps already paid for.
+ * Nothing here ever turns on GPS. The latest fix, the radius and the gate's
+ * counts are kept in private SharedPreferences, because pushes usually start
+ * a fresh process.
+ */
+public final class DeviceLocation {
+
+    private static final String TAG = "DeviceLocation";
+    private static final String PREFS_NAME = "helparo_device_location";
+
+    /** Passive updates closer together than this are not worth a prefs write */
+    private static final long PASSIVE_MIN_TIME_MS = 60_000L;
+    private static final float PASSIVE_MIN_DISTANCE_M = 100f;
+
+    private static DeviceLocation instance;
+
+    private final Context context;
+    private final SharedPreferences prefs;
+    private final DistanceGate gate = new DistanceGate();
+    private boolean listening;
+
+    private final LocationListener passiveListener = new LocationListener() {
+        @Override
+        public void onLocationChanged(Location location) {
+            update(location);
+        }
+
+        // Required before API 29
+        @Override
+        public void onStatusChanged(String provider, int status, Bundle extras) {
+        }
+
+        @Override
+        public void onProviderEnabled(String provider) {
+        }
+
+        @Override
+        public void onProviderDisabled(String provider) {
+        }
+    };
+
+    private DeviceLocation(Context context) {
+        this.context = context;
+        prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        gate.setRadiusKm(getDouble("radiusKm", DistanceGate.DEFAULT_RADIUS_KM));
+        if (prefs.contains("fixAt")) {
+            gate.updateFix(getDouble("lat", Double.NaN), getDouble("lng", Double.NaN),
+                getDouble("accuracyKm", 0), prefs.getLong("fixAt", 0));
+        }
+        gate.restoreCounts(prefs.getLong("delivered", 0), prefs.getLong("downgraded", 0),
+            prefs.getLong("suppressed", 0), prefs.getLong("noCoordinates", 0), prefs.getLong("noFix", 0));
+        readLastKnown();
+        startPassiveUpdates();
+    }
+
+    public static synchronized DeviceLocation get(Context context) {
+        if (instance == null) {
+            instance = new DeviceLocation(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Decide whether a job alert is near enough to ring; the outcome is counted
+     */
+    public AlertExpiryGate.Decision evaluate(JobAlert alert) {
+        AlertExpiryGate.Decision decision = gate.evaluate(alert, System.currentTimeMillis());
+        saveCounts();
+        return decision;
+    }
+
+    /**
+     * Record a fix the web app obtained
+     *
+     * @param accuracyM horizontal accuracy in metres, 0 if unknown
+     */
+    public void update(double latitude, double longitude, double accuracyM, long fixAtMillis) {
+        if (!gate.updateFix(latitude, longitude, accuracyM / 1000.0, fixAtMillis)) return;
+        prefs.edit()
+            .putLong("lat", Double.doubleToRawLongBits(latitude))
+            .putLong("lng", Double.doubleToRawLongBits(longitude))
+            .putLong("accuracyKm", Double.doubleToRawLongBits(gate.getFixAccuracyKm()))
+            .putLong("fixAt", fixAtMillis)
+            .apply();
+        // Permission may have been granted since the process started
+        startPassiveUpdates();
+    }
+
+    public void setRadiusKm(double radiusKm) {
+        gate.setRadiusKm(radiusKm);
+        prefs.edit().putLong("radiusKm", Double.doubleToRawLongBits(gate.getRadiusKm())).apply();
+    }
+
+    public DistanceGate getGate() {
+        return gate;
+    }
+
+    public void clearCounts() {
+        gate.clearCounts();
+        saveCounts();
+    }
+
+    private void update(Location location) {
+        if (location == null) return;
+        update(location.getLatitude(), location.getLongitude(),
+            location.hasAccuracy() ? location.getAccuracy() : 0, location.getTime());
+    }
+
+    private boolean hasPermission() {
+        return ContextCompat.checkSelfPermission(context, Manifest.permission.ACCESS_FINE_LOCATION)
+                == PackageManager.PERMISSION_GRANTED
+            || ContextCompat.checkSelfPermission(context, Manifest.permission.ACCESS_COARSE_LOCATION)
+                == PackageManager.PERMISSION_GRANTED;
+    }
+
+    /**
+     * Take whatever the system already knows; may be newer than our saved fix
+     */
+    @SuppressWarnings("MissingPermission") // Checked in hasPermission()
+    private void readLastKnown() {
+        if (!hasPermission()) return;
+        try {
+            LocationManager manager = (LocationManager) context.getSystemService(Context.LOCATION_SERVICE);
+            if (manager == null) return;
+            update(manager.getLastKnownLocation(LocationManager.PASSIVE_PROVIDER));
+        } catch (Exception e) {
+            HLog.w(TAG, "Could not read last known location: ", e.getMessage());
+        }
+    }
+
+    @SuppressWarnings("MissingPermission") // Checked in hasPermission()
+    private synchronized void startPassiveUpdates() {
+        if (listening || !hasPermission()) return;
+        try {
+            LocationManager manager = (LocationManager) context.getSystemService(Context.LOCATION_SERVICE);
+            if (manager == null) return;
+            manager.requestLocationUpdates(LocationManager.PASSIVE_PROVIDER,
+                PASSIVE_MIN_TIME_MS, PASSIVE_MIN_DISTANCE_M, passiveListener, Looper.getMainLooper());
+            listening = true;
+        } catch (Exception e) {
+            HLog.w(TAG, "Could not listen for passive locations: ", e.getMessage());
+        }
+    }
+
+    private void saveCounts() {
+        prefs.edit()
+            .putLong("delivered", gate.getDelivered())
+            .putLong("downgraded", gate.getDowngraded())
+            .putLong("suppressed", gate.getSuppressed())
+            .putLong("noCoordinates", gate.getNoCoordinates())
+            .putLong("noFix", gate.getNoFix())
+            .apply();
+    }
+
+    private double getDouble(String key, double fallback) {
+        return prefs.contains(key) ? Double.longBitsToDouble(prefs.getLong(key, 0)) : fallback;
+    }
+}
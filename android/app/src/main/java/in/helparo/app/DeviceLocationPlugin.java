@@ -0,0 +1,83 @@
+package in.helparo.app;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+/**
+ * Native Capacitor Plugin to hand the device position and alert radius to the native side,
+ * and to report what the distance gate did with them
+ * Used by the push service to hold back job alerts far from where the helper is now
+ */
+@CapacitorPlugin(name = "DeviceLocation")
+public class DeviceLocationPlugin extends Plugin {
+
+    /**
+     * Remember a position the web app obtained (latitude, longitude, accuracy in metres, timestamp)
+     */
+    @PluginMethod
+    public void setLocation(PluginCall call) {
+        Double latitude = call.getDouble("latitude");
+        Double longitude = call.getDouble("longitude");
+        if (latitude == null || longitude == null) {
+            call.reject("latitude and longitude are required");
+            return;
+        }
+        Double accuracy = call.getDouble("accuracy", 0.0);
+        Long timestamp = call.getLong("timestamp", System.currentTimeMillis());
+
+        DeviceLocation.get(getContext()).update(latitude, longitude, accuracy, timestamp);
+        JSObject ret = new JSObject();
+        ret.put("success", true);
+        call.resolve(ret);
+    }
+
+    /**
+     * Set the helper's service radius in km; full-screen alerts are limited to it
+     */
+    @PluginMethod
+    public void setAlertRadius(PluginCall call) {
+        Double radiusKm = call.getDouble("radiusKm");
+        if (radiusKm == null || radiusKm <= 0) {
+            call.reject("radiusKm must be positive");
+            return;
+        }
+
+        DeviceLocation.get(getContext()).setRadiusKm(radiusKm);
+        JSObject ret = new JSObject();
+        ret.put("success", true);
+        call.resolve(ret);
+    }
+
+    /**
+     * How many job alerts the distance gate let through, downgraded or suppressed,
+     * for tuning the server-side matching radius
+     */
+    @PluginMethod
+    public void getDistanceGateStats(PluginCall call) {
+        DistanceGate gate = DeviceLocation.get(getContext()).getGate();
+        JSObject ret = new JSObject();
+        ret.put("delivered", gate.getDelivered());
+        ret.put("downgraded", gate.getDowngraded());
+        ret.put("suppressed", gate.getSuppressed());
+        ret.put("noCoordinates", gate.getNoCoordinates());
+        ret.put("noFix", gate.getNoFix());
+        ret.put("radiusKm", gate.getRadiusKm());
+        ret.put("hasFix", gate.hasFix());
+        if (gate.hasFix()) ret.put("fixAgeMs", System.currentTimeMillis() - gate.getFixAtMillis());
+        call.resolve(ret);
+    }
+
+    /**
+     * Reset the distance gate counts, e.g. after reporting them
+     */
+    @PluginMethod
+    public void clearDistanceGateStats(PluginCall call) {
+        DeviceLocation.get(getContext()).clearCounts();
+        JSObject ret = new JSObject();
+        ret.put("success", true);
+        call.resolve(ret);
+    }
+}
@@ -0,0 +1,128 @@
+package in.helparo.app;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Logging facade for the native alert path.
+ *
+ * Debug logs only exist in debug builds: every {@code d()} returns on a
+ * compile-time constant before touching its arguments, and the overloads take
+ * the message and its argument separately so call sites never concatenate.
+ * Never pass customer data (names, addresses, tokens) to any level.
+ *
+ * Warnings and errors always go to logcat and are also appended, off the
+ * calling thread, to a bounded ring file that support can pull through
+ * {@link AlertDiagnosticsPlugin}.
+ */
+public final class HLog {
+
+    /** Folded to a constant by javac, so release builds skip debug logging entirely */
+    static final boolean DEBUG = BuildConfig.DEBUG;
+
+    /** Two segments of this size at most, see {@link RingLogFile} */
+    private static final long MAX_SEGMENT_BYTES = 64 * 1024;
+
+    private static volatile RingLogFile ringFile;
+
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "hlog-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private HLog() {
+    }
+
+    /**
+     * Open the ring file. Safe to call from every entry point; only the first call does anything.
+     */
+    public static void init(Context context) {
+        if (ringFile != null) return;
+        synchronized (HLog.class) {
+            if (ringFile == null) {
+                File dir = new File(context.getApplicationContext().getFilesDir(), "logs");
+                ringFile = new RingLogFile(dir, "alerts", MAX_SEGMENT_BYTES);
+            }
+        }
+    }
+
+    public static void d(String tag, String message) {
+        if (!DEBUG) return;
+        Log.d(tag, message);
+    }
+
+    public static void d(String tag, String message, Object arg) {
+        if (!DEBUG) return;
+        Log.d(tag, message + arg);
+    }
+
+    public static void d(String tag, String message, long arg) {
+        if (!DEBUG) return;
+        Log.d(tag, message + arg);
+    }
+
+    public static void d(String tag, String message, Object arg1, Object arg2) {
+        if (!DEBUG) return;
+        Log.d(tag, message + arg1 + arg2);
+    }
+
+    public static void w(String tag, String message) {
+        Log.w(tag, message);
+        persist("W", tag, message);
+    }
+
+    public static void w(String tag, String message, Object arg) {
+        w(tag, message + arg);
+    }
+
+    public static void e(String tag, String message) {
+        Log.e(tag, message);
+        persist("E", tag, message);
+    }
+
+    public static void e(String tag, String message, Throwable error) {
+        e(tag, message + ": " + error);
+    }
+
+    /**
+     * Everything in the ring file, oldest first. Blocks on file IO.
+     */
+    public static String readPersisted() {
+        RingLogFile file = ringFile;
+        if (file == null) return "";
+        try {
+            return file.read();
+        } catch (IOException e) {
+            Log.w("HLog", "Could not read log file: " + e.getMessage());
+            return "";
+        }
+    }
+
+    public static void clearPersisted() {
+        RingLogFile file = ringFile;
+        if (file != null) WRITER.execute(file::clear);
+    }
+
+    private static void persist(String level, String tag, String message) {
+        RingLogFile file = ringFile;
+        if (file == null) return;
+        long now = System.currentTimeMillis();
+        WRITER.execute(() -> {
+            try {
+                SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS", Locale.US);
+                file.append(format.format(new Date(now)) + " " + level + "/" + tag + ": " + message);
+            } catch (IOException e) {
+                Log.w("HLog", "Could not write log file: " + e.getMessage());
+            }
+        });
+    }
+}
@@ -1,30 +1,23 @@
 package in.helparo.app;
 
 import android.app.KeyguardManager;
-import android.app.NotificationManager;
-import android.content.Context;
 import android.content.Intent;
-import android.media.AudioAttributes;
-import android.media.AudioManager;
-import android.media.MediaPlayer;
-import android.media.Ringtone;
-import android.media.RingtoneManager;
-import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
-import android.os.PowerManager;
-import android.os.VibrationEffect;
-import android.os.Vibrator;
-import android.os.VibratorManager;
-import android.util.Log;
+import android.view.View;
+import android.view.ViewTreeObserver;
 import android.view.WindowManager;
 import android.widget.Button;
+import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.appcompat.app.AppCompatActivity;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Full-screen Job Alert Activity - Rapido/Uber style
  * 
@@ -32,6 +25,8 @@ import androidx.appcompat.app.AppCompatActivity;
  * - Continuous loud alarm sound
  * - Continuous vibration
  * - Accept/Reject buttons
+ * - A pageable stack when several jobs are waiting (see {@link JobAlertQueue});
+ *   accept/reject answers exactly the job on screen
  * 
  * The user MUST interact - cannot be dismissed by back button.
  */
@@ -39,62 +34,117 @@ public class JobAlertActivity extends AppCompatActivity {
 
     private static final String TAG = "JobAlertActivity";
     
-    private Vibrator vibrator;
-    private Ringtone ringtone;
-    private MediaPlayer mediaPlayer;
-    private PowerManager.WakeLock wakeLock;
     private Handler handler;
-    private Runnable vibrationRunnable;
+    private Runnable expiryRunnable;
     private boolean isAlertActive = true;
     
-    // Job data
-    private String jobId;
-    private String jobTitle;
-    private String jobDescription;
-    private String jobPrice;
-    private String jobLocation;
-    private String customerName;
+    // Jobs waiting for an answer, in display order, and the one on screen
+    private final JobAlertQueue queue = JobAlertQueue.getInstance();
+    private final JobAlertQueue.Listener queueListener = () -> {
+        if (handler != null) handler.post(this::refreshStack);
+    };
+    private List<JobAlertQueue.Entry> stack = Collections.emptyList();
+    private String currentJobId;
+    
+    // Views
+    private TextView titleView;
+    private TextView priceView;
+    private TextView locationView;
+    private TextView customerView;
+    private TextView descriptionView;
+    private ImageView imageView;
+    private View queueBar;
+    private TextView queuePositionView;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-        Log.d(TAG, "JobAlertActivity onCreate");
+        long createdAt = System.currentTimeMillis();
+        HLog.d(TAG, "JobAlertActivity onCreate");
         
         // CRITICAL: Set up window flags BEFORE setContentView
         setupWindowForLockScreen();
         
         setContentView(R.layout.activity_job_alert);
         
-        // Get job data from intent
-        Intent intent = getIntent();
-        jobId = intent.getStringExtra("jobId");
-        jobTitle = intent.getStringExtra("title");
-        jobDescription = intent.getStringExtra("description");
-        jobPrice = intent.getStringExtra("price");
-        jobLocation = intent.getStringExtra("location");
-        customerName = intent.getStringExtra("customerName");
+        // Initialize handler for repeating tasks
+        handler = new Handler(Looper.getMainLooper());
         
-        Log.d(TAG, "Job: " + jobTitle + " - ₹" + jobPrice);
+        // Make sure the job that launched us is queued (the process may have been restarted)
+        Intent intent = getIntent();
+        currentJobId = intent.getStringExtra("jobId");
+        seedFromIntent(intent);
+        AlertLatencyTracer.getInstance().mark(
+            currentJobId, AlertLatencyTracer.STAGE_ACTIVITY_CREATED, createdAt);
         
         // Set up UI
         setupUI();
+        traceFirstFrame(currentJobId);
+        queue.setListener(queueListener);
+        refreshStack();
+        // refreshStack() started the alert effects for every job on screen
+    }
+
+    @Override
+    protected void onNewIntent(Intent intent) {
+        super.onNewIntent(intent);
+        // Another job arrived while the alert is already on screen - it is added to the stack
+        setIntent(intent);
+        seedFromIntent(intent);
+        refreshStack();
+    }
+
+    /**
+     * Write everything the alert screen needs into an intent, so it can rebuild the
+     * job even if the process was restarted between notify() and the tap.
+     */
+    static void putAlertExtras(Intent intent, JobAlertQueue.Entry entry) {
+        JobAlert alert = entry.alert;
+        intent.putExtra("jobId", alert.getJobId());
+        intent.putExtra("type", alert.getType());
+        intent.putExtra("title", alert.getTitle());
+        intent.putExtra("description", alert.getDescription());
+        intent.putExtra("price", alert.getPrice());
+        intent.putExtra("location", alert.getLocation());
+        intent.putExtra("distance", alert.getDistance());
+        intent.putExtra("customerName", alert.getCustomerName());
+        intent.putExtra("urgency", alert.getUrgency());
+        intent.putExtra("imageUrl", alert.getImageUrl());
+        intent.putExtra("dismissAt", entry.dismissAt);
+        intent.putExtra("notificationId", entry.notificationId);
+    }
+
+    private void seedFromIntent(Intent intent) {
+        String jobId = intent.getStringExtra("jobId");
+        if (jobId == null || queue.get(jobId) != null) return;
         
-        // Initialize handler for repeating tasks
-        handler = new Handler(Looper.getMainLooper());
+        long dismissAt = intent.getLongExtra("dismissAt", 0);
+        if (dismissAt > 0 && dismissAt <= System.currentTimeMillis()) return;
         
-        // Start alert effects
-        startContinuousVibration();
-        startAlarmSound();
+        JobAlert alert = new JobAlert.Builder(intent.getStringExtra("type"), jobId)
+            .title(intent.getStringExtra("title"))
+            .description(intent.getStringExtra("description"))
+            .price(intent.getStringExtra("price"))
+            .location(intent.getStringExtra("location"))
+            .distance(intent.getStringExtra("distance"))
+            .customerName(intent.getStringExtra("customerName"))
+            .urgency(intent.getStringExtra("urgency"))
+            .imageUrl(intent.getStringExtra("imageUrl"))
+            .build();
+        JobAlertQueue.Entry entry = queue.add(alert, dismissAt);
         
-        // Cancel the notification since we're now showing the activity
-        cancelNotification();
+        // The re-queued job got a fresh ID; the old notification must not linger
+        int oldNotificationId = intent.getIntExtra("notificationId", 0);
+        if (oldNotificationId != 0 && oldNotificationId != entry.notificationId) {
+            cancelNotification(oldNotificationId);
+        }
     }
 
     /**
      * Configure window to show on lock screen and wake up device
      */
     private void setupWindowForLockScreen() {
-        Log.d(TAG, "Setting up window for lock screen display");
+        HLog.d(TAG, "Setting up window for lock screen display");
         
         // For Android O_MR1 (8.1) and above
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O_MR1) {
@@ -115,242 +165,259 @@ public class JobAlertActivity extends AppCompatActivity {
             WindowManager.LayoutParams.FLAG_KEEP_SCREEN_ON |
             WindowManager.LayoutParams.FLAG_ALLOW_LOCK_WHILE_SCREEN_ON
         );
-        
-        // Acquire wake lock to ensure screen stays on
-        PowerManager powerManager = (PowerManager) getSystemService(POWER_SERVICE);
-        if (powerManager != null) {
-            wakeLock = powerManager.newWakeLock(
-                PowerManager.FULL_WAKE_LOCK |
-                PowerManager.ACQUIRE_CAUSES_WAKEUP |
-                PowerManager.ON_AFTER_RELEASE,
-                "helparo:jobalert"
-            );
-            wakeLock.acquire(120 * 1000L); // 2 minutes max
-            Log.d(TAG, "WakeLock acquired");
-        }
+        // The wake lock is taken per job on screen by AlertEffects, see refreshStack()
     }
 
     private void setupUI() {
         // Find views
-        TextView titleView = findViewById(R.id.alert_title);
-        TextView priceView = findViewById(R.id.alert_price);
-        TextView locationView = findViewById(R.id.alert_location);
-        TextView customerView = findViewById(R.id.alert_customer);
-        TextView descriptionView = findViewById(R.id.alert_description);
+        titleView = findViewById(R.id.alert_title);
+        priceView = findViewById(R.id.alert_price);
+        locationView = findViewById(R.id.alert_location);
+        customerView = findViewById(R.id.alert_customer);
+        descriptionView = findViewById(R.id.alert_description);
+        imageView = findViewById(R.id.alert_image);
+        queueBar = findViewById(R.id.alert_queue_bar);
+        queuePositionView = findViewById(R.id.alert_queue_position);
         Button acceptButton = findViewById(R.id.btn_accept);
         Button rejectButton = findViewById(R.id.btn_reject);
-        
-        // Set data
-        if (titleView != null) {
-            titleView.setText(jobTitle != null ? jobTitle : "New Job Alert!");
-        }
-        if (priceView != null) {
-            priceView.setText("₹" + (jobPrice != null ? jobPrice : "0"));
-        }
-        if (locationView != null) {
-            locationView.setText(jobLocation != null ? jobLocation : "Nearby");
-        }
-        if (customerView != null && customerName != null && !customerName.isEmpty()) {
-            customerView.setText("Customer: " + customerName);
-        }
-        if (descriptionView != null && jobDescription != null) {
-            descriptionView.setText(jobDescription);
-        }
+        Button nextButton = findViewById(R.id.btn_next_job);
         
         // Accept button - opens app to show full details popup
         if (acceptButton != null) {
             acceptButton.setOnClickListener(v -> {
-                Log.d(TAG, "View & Accept button clicked for job: " + jobId);
+                JobAlertQueue.Entry entry = answerCurrent();
+                if (entry == null) return;
+                HLog.d(TAG, "View & Accept button clicked for job: ", entry.alert.getJobId());
+                
+                // Claim natively when we have a session - no need to wait for the WebView.
+                // The notification shows whether the job was confirmed.
+                if (AcceptJobReceiver.canClaimNatively(this)) {
+                    sendBroadcast(AcceptJobReceiver.createIntent(
+                        this, entry.alert.getJobId(), entry.notificationId, entry.alert.getTitle()));
+                    // refreshStack() closes the screen once the last job is gone
+                    refreshStack();
+                    return;
+                }
+                
                 stopAllAlerts();
                 
-                // Open main app - the web popup will show with full details
+                // Open main app - the web popup will show with full details.
+                // Any other queued jobs stay in the notification shade.
                 Intent mainIntent = new Intent(this, MainActivity.class);
                 mainIntent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
                 // Pass job ID so web app can highlight this job
-                mainIntent.putExtra("jobId", jobId);
+                mainIntent.putExtra("jobId", entry.alert.getJobId());
                 startActivity(mainIntent);
                 finish();
             });
         }
         
-        // Reject button - just dismiss and go back
+        // Reject button - drop this job and show the next one, if any
         if (rejectButton != null) {
             rejectButton.setOnClickListener(v -> {
-                Log.d(TAG, "Reject button clicked - dismissing alert");
-                stopAllAlerts();
-                // Don't open app, just close this screen
-                finish();
+                HLog.d(TAG, "Reject button clicked");
+                JobAlertQueue.Entry entry = answerCurrent();
+                if (entry != null) {
+                    // Also drops the job from the local store
+                    JobResponses.get(this).decline(entry.alert.getJobId());
+                }
+                // refreshStack() closes the screen once the last job is gone
+                refreshStack();
+            });
+        }
+        
+        // Next button - page through the stack without answering
+        if (nextButton != null) {
+            nextButton.setOnClickListener(v -> {
+                if (stack.size() < 2) return;
+                int index = indexOf(currentJobId);
+                currentJobId = stack.get((index + 1) % stack.size()).alert.getJobId();
+                bindCurrent();
             });
         }
     }
 
     /**
-     * Start continuous vibration that repeats until stopped
+     * Remove the job on screen from the queue and its notification from the shade.
+     *
+     * @return the answered entry, or null if nothing was on screen
      */
-    private void startContinuousVibration() {
-        Log.d(TAG, "Starting continuous vibration");
-        
-        try {
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
-                VibratorManager vibratorManager = (VibratorManager) getSystemService(Context.VIBRATOR_MANAGER_SERVICE);
-                vibrator = vibratorManager.getDefaultVibrator();
-            } else {
-                vibrator = (Vibrator) getSystemService(Context.VIBRATOR_SERVICE);
-            }
-            
-            if (vibrator != null && vibrator.hasVibrator()) {
-                // Vibration pattern: wait 0ms, vibrate 800ms, wait 400ms, vibrate 800ms...
-                // Index 0 = repeat from beginning
-                long[] pattern = {0, 800, 400, 800, 400, 800, 400};
-                
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-                    VibrationEffect effect = VibrationEffect.createWaveform(pattern, 0);
-                    vibrator.vibrate(effect);
-                } else {
-                    vibrator.vibrate(pattern, 0); // 0 = repeat from index 0
-                }
-                Log.d(TAG, "Vibration started successfully");
-            } else {
-                Log.w(TAG, "No vibrator available on this device");
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "Error starting vibration: " + e.getMessage());
+    private JobAlertQueue.Entry answerCurrent() {
+        JobAlertQueue.Entry entry = queue.remove(currentJobId);
+        if (entry != null) {
+            AlertLatencyTracer.getInstance().mark(
+                entry.alert.getJobId(), AlertLatencyTracer.STAGE_ANSWERED, System.currentTimeMillis());
+            cancelNotification(entry.notificationId);
+            AlertEffects.get(this).onDone(entry.alert.getJobId());
         }
+        return entry;
     }
 
     /**
-     * Start loud alarm sound that loops
+     * Record when the alert screen is first drawn
      */
-    private void startAlarmSound() {
-        Log.d(TAG, "Starting alarm sound");
-        
-        try {
-            // Set volume to maximum
-            AudioManager audioManager = (AudioManager) getSystemService(Context.AUDIO_SERVICE);
-            if (audioManager != null) {
-                int maxVolume = audioManager.getStreamMaxVolume(AudioManager.STREAM_ALARM);
-                audioManager.setStreamVolume(AudioManager.STREAM_ALARM, maxVolume, 0);
-                Log.d(TAG, "Volume set to max: " + maxVolume);
-            }
-            
-            // Get alarm sound URI
-            Uri alarmUri = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_ALARM);
-            if (alarmUri == null) {
-                alarmUri = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_RINGTONE);
-            }
-            if (alarmUri == null) {
-                alarmUri = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_NOTIFICATION);
-            }
-            
-            Log.d(TAG, "Using sound URI: " + alarmUri);
-            
-            // Use MediaPlayer for better control
-            mediaPlayer = new MediaPlayer();
-            mediaPlayer.setDataSource(this, alarmUri);
-            
-            // Set audio attributes for alarm
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-                AudioAttributes audioAttributes = new AudioAttributes.Builder()
-                    .setUsage(AudioAttributes.USAGE_ALARM)
-                    .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
-                    .build();
-                mediaPlayer.setAudioAttributes(audioAttributes);
-            } else {
-                mediaPlayer.setAudioStreamType(AudioManager.STREAM_ALARM);
+    private void traceFirstFrame(String jobId) {
+        final View decorView = getWindow().getDecorView();
+        decorView.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                decorView.getViewTreeObserver().removeOnPreDrawListener(this);
+                AlertLatencyTracer.getInstance().mark(
+                    jobId, AlertLatencyTracer.STAGE_FIRST_FRAME, System.currentTimeMillis());
+                return true;
             }
-            
-            mediaPlayer.setLooping(true);
-            mediaPlayer.prepare();
-            mediaPlayer.start();
-            
-            Log.d(TAG, "Alarm sound started");
-            
-        } catch (Exception e) {
-            Log.e(TAG, "Error starting alarm sound: " + e.getMessage());
-            
-            // Fallback to Ringtone API
-            try {
-                Uri uri = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_ALARM);
-                ringtone = RingtoneManager.getRingtone(this, uri);
-                if (ringtone != null) {
-                    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
-                        ringtone.setLooping(true);
-                    }
-                    ringtone.play();
-                    Log.d(TAG, "Fallback ringtone started");
-                }
-            } catch (Exception e2) {
-                Log.e(TAG, "Fallback ringtone also failed: " + e2.getMessage());
-            }
-        }
+        });
     }
 
     /**
-     * Cancel the notification that triggered this activity
+     * Re-read the queue: drop expired jobs, keep the job on screen if it is still
+     * queued, and close the screen once nothing is left.
      */
-    private void cancelNotification() {
-        NotificationManager notificationManager = 
-            (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
-        if (notificationManager != null) {
-            notificationManager.cancel(999); // Same ID used in FCM service
-            Log.d(TAG, "Notification cancelled");
+    private void refreshStack() {
+        if (isFinishing()) return;
+        
+        for (JobAlertQueue.Entry expired : queue.removeExpired(System.currentTimeMillis())) {
+            HLog.d(TAG, "Job expired - removing from stack");
+            cancelNotification(expired.notificationId);
+            AlertEffects.get(this).onDone(expired.alert.getJobId());
+        }
+        
+        stack = queue.snapshot();
+        showEffects();
+        if (stack.isEmpty()) {
+            stopAllAlerts();
+            finish();
+            return;
+        }
+        
+        if (indexOf(currentJobId) < 0) {
+            currentJobId = stack.get(0).alert.getJobId();
         }
+        bindCurrent();
+        scheduleExpiry(queue.nextDismissAt());
     }
 
     /**
-     * Stop all alert effects (sound, vibration, wake lock)
+     * Ring, vibrate and hold the screen for every job on screen; repeated
+     * calls for the same job are no-ops
      */
-    private void stopAllAlerts() {
-        Log.d(TAG, "Stopping all alerts");
-        isAlertActive = false;
-        
-        // Stop vibration
-        if (vibrator != null) {
-            vibrator.cancel();
-            Log.d(TAG, "Vibration stopped");
+    private void showEffects() {
+        AlertEffects effects = AlertEffects.get(this);
+        for (JobAlertQueue.Entry entry : stack) {
+            effects.onShown(entry.alert.getJobId(), entry.dismissAt);
         }
-        
-        // Stop MediaPlayer
-        if (mediaPlayer != null) {
-            try {
-                if (mediaPlayer.isPlaying()) {
-                    mediaPlayer.stop();
-                }
-                mediaPlayer.release();
-            } catch (Exception e) {
-                Log.e(TAG, "Error stopping MediaPlayer: " + e.getMessage());
-            }
-            mediaPlayer = null;
+    }
+
+    private int indexOf(String jobId) {
+        if (jobId == null) return -1;
+        for (int i = 0; i < stack.size(); i++) {
+            if (jobId.equals(stack.get(i).alert.getJobId())) return i;
         }
+        return -1;
+    }
+
+    private void bindCurrent() {
+        int index = indexOf(currentJobId);
+        if (index < 0) return;
+        JobAlert alert = stack.get(index).alert;
         
-        // Stop Ringtone
-        if (ringtone != null) {
-            try {
-                ringtone.stop();
-            } catch (Exception e) {
-                Log.e(TAG, "Error stopping ringtone: " + e.getMessage());
-            }
-            ringtone = null;
+        if (titleView != null) {
+            titleView.setText(alert.getTitle());
         }
-        
-        // Cancel handler callbacks
-        if (handler != null && vibrationRunnable != null) {
-            handler.removeCallbacks(vibrationRunnable);
+        if (priceView != null) {
+            priceView.setText("₹" + (alert.getPrice() != null ? alert.getPrice() : "0"));
+        }
+        if (locationView != null) {
+            locationView.setText(alert.getLocation() != null ? alert.getLocation() : "Nearby");
+        }
+        if (customerView != null) {
+            String customerName = alert.getCustomerName();
+            customerView.setText(customerName != null ? "Customer: " + customerName : "");
+        }
+        if (descriptionView != null) {
+            descriptionView.setText(alert.getDescription() != null ? alert.getDescription() : "");
+        }
+        bindImage(alert);
+        if (queueBar != null) {
+            queueBar.setVisibility(stack.size() > 1 ? View.VISIBLE : View.GONE);
         }
+        if (queuePositionView != null) {
+            queuePositionView.setText("Job " + (index + 1) + " of " + stack.size());
+        }
+    }
+
+    /**
+     * The job's photo, if it has one: straight from memory when the
+     * notification already loaded it, otherwise as soon as it arrives. The
+     * text never waits for it.
+     */
+    private void bindImage(JobAlert alert) {
+        if (imageView == null) return;
+        String url = alert.getImageUrl();
+        JobImageLoader.JobImage cached = url != null ? JobImageLoader.get(this).getCached(url) : null;
+        showImage(cached);
+        if (url == null || cached != null) return;
         
-        // Release wake lock
-        if (wakeLock != null && wakeLock.isHeld()) {
-            wakeLock.release();
-            Log.d(TAG, "WakeLock released");
+        String jobId = alert.getJobId();
+        JobImageLoader.get(this).load(url).thenAccept(image -> {
+            if (image == null || handler == null) return;
+            handler.post(() -> {
+                // The helper may have paged to another job meanwhile
+                if (jobId.equals(currentJobId) && !isFinishing()) showImage(image);
+            });
+        });
+    }
+
+    private void showImage(JobImageLoader.JobImage image) {
+        if (image != null) {
+            imageView.setImageBitmap(image.picture);
+            imageView.setVisibility(View.VISIBLE);
+        } else {
+            imageView.setImageDrawable(null);
+            imageView.setVisibility(View.GONE);
         }
+    }
+
+    /**
+     * Re-check the stack when the next job expires, so a helper is never asked
+     * to accept a job that is already gone.
+     */
+    private void scheduleExpiry(long dismissAt) {
+        if (expiryRunnable != null) {
+            handler.removeCallbacks(expiryRunnable);
+        }
+        if (dismissAt <= 0) return;
         
-        // Cancel notification
-        cancelNotification();
+        expiryRunnable = this::refreshStack;
+        handler.postDelayed(expiryRunnable, Math.max(0, dismissAt - System.currentTimeMillis()));
+    }
+
+    /**
+     * Cancel the notification of one answered or expired job
+     */
+    private void cancelNotification(int notificationId) {
+        JobAlertNotifications.cancel(this, notificationId);
+        HLog.d(TAG, "Notification cancelled");
+    }
+
+    /**
+     * Stop all alert effects (sound, vibration, wake lock)
+     */
+    private void stopAllAlerts() {
+        HLog.d(TAG, "Stopping all alerts");
+        isAlertActive = false;
+        
+        AlertEffects.get(this).stopAll();
+        
+        if (handler != null && expiryRunnable != null) {
+            handler.removeCallbacks(expiryRunnable);
+        }
     }
 
     @Override
     protected void onDestroy() {
-        Log.d(TAG, "onDestroy called");
+        HLog.d(TAG, "onDestroy called");
+        queue.removeListener(queueListener);
         stopAllAlerts();
         super.onDestroy();
     }
@@ -359,12 +426,12 @@ public class JobAlertActivity extends AppCompatActivity {
     protected void onPause() {
         super.onPause();
         // Don't stop alerts on pause - user might have just locked screen
-        Log.d(TAG, "onPause - alerts still active");
+        HLog.d(TAG, "onPause - alerts still active");
     }
 
     @Override
     public void onBackPressed() {
         // Prevent back button from dismissing - user MUST Accept or Reject
-        Log.d(TAG, "Back button pressed - ignored");
+        HLog.d(TAG, "Back button pressed - ignored");
     }
 }
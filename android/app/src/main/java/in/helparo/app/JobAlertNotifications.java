@@ -0,0 +1,148 @@
+package in.helparo.app;
+
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+
+import androidx.core.app.NotificationCompat;
+
+import java.util.List;
+
+/**
+ * Keeps the grouped job alert notifications in sync with {@link JobAlertQueue}.
+ *
+ * Every job notification belongs to one group. While two or more jobs are
+ * waiting, a silent InboxStyle summary lists them; it is updated in place
+ * (same ID) and removed once fewer than two jobs are left. Every component that
+ * answers or expires a job cancels it through here so the summary never goes stale.
+ */
+public final class JobAlertNotifications {
+
+    static final String GROUP = "helparo_job_alerts";
+
+    /** The old single job alert ID, now used for the group summary */
+    static final int SUMMARY_ID = 999;
+
+    /** A lost job is old news quickly */
+    private static final long CLAIM_LOST_TIMEOUT_MS = 15_000L;
+
+    /** InboxStyle shows at most this many lines on most launchers */
+    private static final int MAX_SUMMARY_LINES = 5;
+
+    private JobAlertNotifications() {
+    }
+
+    /**
+     * Cancel one job's notification and refresh the summary
+     */
+    static void cancel(Context context, int notificationId) {
+        NotificationManager notificationManager =
+            (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+        if (notificationManager == null) return;
+        notificationManager.cancel(notificationId);
+        updateSummary(context, notificationManager);
+    }
+
+    /**
+     * Replace a job's notification with the progress or outcome of a native claim.
+     *
+     * @param result null while the claim is in flight
+     */
+    static void showClaimStatus(Context context, int notificationId, String jobId, String title,
+                                JobClaimClient.Result result) {
+        NotificationManager notificationManager =
+            (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+        if (notificationManager == null) return;
+
+        String heading;
+        String text;
+        Intent intent = new Intent(context, MainActivity.class);
+        intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
+        long timeoutMs = 0;
+        if (result == null) {
+            heading = "⏳ Accepting job…";
+            text = title;
+        } else if (result == JobClaimClient.Result.CLAIMED) {
+            heading = "✅ Job confirmed";
+            text = "Tap to open job details";
+        } else if (result == JobClaimClient.Result.LOST) {
+            heading = "❌ Job taken by another helper";
+            text = title;
+            timeoutMs = CLAIM_LOST_TIMEOUT_MS;
+        } else {
+            // No session or no network: hand the accept over to the web app
+            heading = "⚠️ Could not accept job";
+            text = "Tap to accept in Helparo";
+            intent.putExtra("openJob", jobId);
+            intent.putExtra("action", "accept");
+        }
+
+        PendingIntent contentIntent = PendingIntent.getActivity(
+            context,
+            JobAlertQueue.requestCode(notificationId, JobAlertQueue.SLOT_CONTENT),
+            intent,
+            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+        );
+
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, NotificationChannels.DEFAULT)
+            .setSmallIcon(R.mipmap.ic_launcher)
+            .setContentTitle(heading)
+            .setContentText(text != null ? text : JobAlert.DEFAULT_TITLE)
+            .setSilent(true)
+            .setOnlyAlertOnce(true)
+            .setOngoing(result == null)
+            .setAutoCancel(result != null)
+            .setContentIntent(contentIntent);
+        if (result == null) builder.setProgress(0, 0, true);
+        if (timeoutMs > 0) builder.setTimeoutAfter(timeoutMs);
+
+        notificationManager.notify(notificationId, builder.build());
+        updateSummary(context, notificationManager);
+    }
+
+    static void updateSummary(Context context, NotificationManager notificationManager) {
+        List<JobAlertQueue.Entry> stack = JobAlertQueue.getInstance().snapshot();
+        if (stack.size() < 2) {
+            notificationManager.cancel(SUMMARY_ID);
+            return;
+        }
+
+        NotificationCompat.InboxStyle style = new NotificationCompat.InboxStyle()
+            .setBigContentTitle("🚨 " + stack.size() + " new jobs nearby");
+        for (int i = 0; i < stack.size() && i < MAX_SUMMARY_LINES; i++) {
+            JobAlert alert = stack.get(i).alert;
+            style.addLine(alert.getTitle() + " • " + alert.getSummary());
+        }
+        if (stack.size() > MAX_SUMMARY_LINES) {
+            style.setSummaryText("+" + (stack.size() - MAX_SUMMARY_LINES) + " more");
+        }
+
+        // Tapping the summary opens the alert screen on the most urgent job
+        Intent intent = new Intent(context, JobAlertActivity.class);
+        intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_SINGLE_TOP);
+        JobAlertActivity.putAlertExtras(intent, stack.get(0));
+        PendingIntent contentIntent = PendingIntent.getActivity(
+            context,
+            JobAlertQueue.requestCode(SUMMARY_ID, JobAlertQueue.SLOT_CONTENT),
+            intent,
+            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+        );
+
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, NotificationChannels.JOB_ALERTS)
+            .setSmallIcon(R.mipmap.ic_launcher)
+            .setContentTitle("🚨 " + stack.size() + " new jobs nearby")
+            .setContentText(stack.get(0).alert.getTitle())
+            .setStyle(style)
+            .setGroup(GROUP)
+            .setGroupSummary(true)
+            .setSilent(true) // The burst already alerted once
+            .setOnlyAlertOnce(true)
+            .setCategory(NotificationCompat.CATEGORY_CALL)
+            .setVisibility(NotificationCompat.VISIBILITY_PUBLIC)
+            .setContentIntent(contentIntent)
+            .setOngoing(true);
+
+        notificationManager.notify(SUMMARY_ID, builder.build());
+    }
+}
@@ -0,0 +1,207 @@
+package in.helparo.app;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Claims a job straight from native code by calling POST /api/requests/accept
+ * with the helper's access token, so accepting does not wait for the WebView.
+ * Declines go to POST /api/requests/respond in batches.
+ *
+ * HttpURLConnection keeps connections alive per host, so {@link #prewarm()}
+ * (called when the alert arrives) leaves a connected, TLS-negotiated socket in
+ * the pool and the claim that follows seconds later skips the handshakes.
+ *
+ * JobClaimClientTest runs it against a local stub server.
+ */
+public final class JobClaimClient {
+
+    public static final String DEFAULT_BASE_URL = "https://helparo.in";
+    static final String ACCEPT_PATH = "/api/requests/accept";
+    static final String RESPOND_PATH = "/api/requests/respond";
+
+    /** Status reported by {@link #decline} when the request never got an answer */
+    static final int STATUS_NO_RESPONSE = -1;
+
+    public enum Result {
+        /** The job is ours */
+        CLAIMED,
+        /** Another helper was faster, or the job is gone */
+        LOST,
+        /** No valid session; the web app has to accept */
+        UNAUTHORIZED,
+        /** Network or server problem; the outcome is unknown */
+        ERROR
+    }
+
+    private final String baseUrl;
+    private final int connectTimeoutMs;
+    private final int readTimeoutMs;
+
+    public JobClaimClient(String baseUrl, int connectTimeoutMs, int readTimeoutMs) {
+        this.baseUrl = baseUrl;
+        this.connectTimeoutMs = connectTimeoutMs;
+        this.readTimeoutMs = readTimeoutMs;
+    }
+
+    /**
+     * Open (or refresh) a keep-alive connection to the backend. Blocking; call
+     * from a background thread. Failures are ignored - the claim will simply
+     * connect itself.
+     */
+    public void prewarm() {
+        try {
+            // No disconnect(): that would close the socket we just warmed
+            HttpURLConnection connection = open(ACCEPT_PATH, "HEAD");
+            connection.getResponseCode();
+            drain(connection);
+        } catch (IOException ignored) {
+            // Best effort
+        }
+    }
+
+    /**
+     * Claim a job. Blocking; call from a background thread.
+     *
+     * @param accessToken the helper's Supabase access token
+     */
+    public Result claim(String requestId, String accessToken) {
+        return claim(requestId, accessToken, null);
+    }
+
+    /**
+     * Claim a job, tagging the request with the outbox entry's idempotency key
+     * so retries of the same answer can be told apart from new ones.
+     */
+    public Result claim(String requestId, String accessToken, String idempotencyKey) {
+        if (accessToken == null || accessToken.isEmpty()) return Result.UNAUTHORIZED;
+
+        String body = "{\"requestId\":\"" + escape(requestId) + "\"}";
+        int status = post(ACCEPT_PATH, body, accessToken, idempotencyKey);
+        return status == STATUS_NO_RESPONSE ? Result.ERROR : resultFor(status);
+    }
+
+    /**
+     * Send a batch of declined jobs in one request. Declining is idempotent on
+     * the backend, so a batch can be resent as a whole. Blocking.
+     *
+     * @return the HTTP status, or {@link #STATUS_NO_RESPONSE}
+     */
+    public int decline(List<ResponseOutbox.Entry> entries, String accessToken) {
+        if (accessToken == null || accessToken.isEmpty()) return 401;
+
+        StringBuilder body = new StringBuilder(64 + entries.size() * 96).append("{\"responses\":[");
+        for (int i = 0; i < entries.size(); i++) {
+            ResponseOutbox.Entry entry = entries.get(i);
+            if (i > 0) body.append(',');
+            body.append("{\"key\":\"").append(escape(entry.key))
+                .append("\",\"requestId\":\"").append(escape(entry.jobId))
+                .append("\",\"action\":\"decline\"}");
+        }
+        body.append("]}");
+        return post(RESPOND_PATH, body.toString(), accessToken, null);
+    }
+
+    /**
+     * Whether a failed send is worth repeating. Other 4xx answers will not
+     * change on a retry.
+     */
+    static boolean isRetryable(int status) {
+        return status == STATUS_NO_RESPONSE || status == 401 || status == 408 || status == 429 || status >= 500;
+    }
+
+    private int post(String path, String json, String accessToken, String idempotencyKey) {
+        try {
+            HttpURLConnection connection = open(path, "POST");
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            connection.setRequestProperty("Authorization", "Bearer " + accessToken);
+            if (idempotencyKey != null) {
+                connection.setRequestProperty("Idempotency-Key", idempotencyKey);
+            }
+
+            byte[] body = json.getBytes(StandardCharsets.UTF_8);
+            connection.setFixedLengthStreamingMode(body.length);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body);
+            }
+
+            int status = connection.getResponseCode();
+            drain(connection);
+            return status;
+        } catch (IOException e) {
+            return STATUS_NO_RESPONSE;
+        }
+    }
+
+    static Result resultFor(int status) {
+        if (status >= 200 && status < 300) return Result.CLAIMED;
+        switch (status) {
+            case 401:
+            case 403:
+                return Result.UNAUTHORIZED;
+            case 404: // Request withdrawn
+            case 409: // Already accepted, or no longer broadcasting
+                return Result.LOST;
+            default:
+                return Result.ERROR;
+        }
+    }
+
+    private HttpURLConnection open(String path, String method) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setRequestMethod(method);
+        connection.setConnectTimeout(connectTimeoutMs);
+        connection.setReadTimeout(readTimeoutMs);
+        connection.setUseCaches(false);
+        return connection;
+    }
+
+    /**
+     * Read the body to the end so the connection goes back to the keep-alive pool
+     */
+    private static void drain(HttpURLConnection connection) {
+        InputStream in = null;
+        try {
+            in = connection.getErrorStream();
+            if (in == null) in = connection.getInputStream();
+            byte[] buffer = new byte[1024];
+            while (in.read(buffer) > 0) {
+                // Discard
+            }
+        } catch (IOException ignored) {
+            // Nothing to drain
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException ignored) {
+                    // Already closed
+                }
+            }
+        }
+    }
+
+    /**
+     * Job IDs are validated UUID-like strings, but never trust them inside JSON
+     */
+    static String escape(String value) {
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,286 @@
+package in.helparo.app;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.DisplayMetrics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fetches the optional job image ({@link JobAlert#getImageUrl()}) for the job
+ * notification and the alert screen, without ever holding a full-size photo.
+ *
+ * Images are fetched on one background thread, decoded straight to the big
+ * picture size (see {@link ImageSampling}) in RGB_565 and kept in a
+ * {@link WeightedLruCache} bounded in bytes. The downsampled picture is also
+ * written as a small JPEG to a {@link WebAssetCache} in the cache directory,
+ * so a redelivery or the alert screen after a process restart skips the
+ * network. Budgets are smaller on low-RAM devices.
+ *
+ * Callers decide how long to wait: {@link #load} returns at once and
+ * {@link #await} gives up after a deadline, leaving the load to finish in the
+ * background.
+ */
+public final class JobImageLoader {
+
+    private static final String TAG = "JobImageLoader";
+
+    private static final String CACHE_DIR = "job_images";
+    /** Bump when the stored picture format changes; a new app build also wipes the cache */
+    private static final String CACHE_SCHEMA = "1";
+    private static final long MAX_DISK_BYTES = 2 * 1024 * 1024;
+
+    private static final long MAX_MEMORY_BYTES = 4 * 1024 * 1024;
+    private static final long MAX_MEMORY_BYTES_LOW_RAM = 1024 * 1024;
+
+    /** Anything bigger is not a job photo we want to decode on a phone */
+    private static final int MAX_DOWNLOAD_BYTES = 2 * 1024 * 1024;
+    private static final int CONNECT_TIMEOUT_MS = 3_000;
+    private static final int READ_TIMEOUT_MS = 5_000;
+
+    /** BigPictureStyle crops to about 2:1 and is never wider than the screen */
+    private static final int MAX_PICTURE_WIDTH_PX = 720;
+    private static final int MAX_PICTURE_WIDTH_PX_LOW_RAM = 480;
+    private static final int ICON_SIZE_DP = 64;
+    private static final int JPEG_QUALITY = 80;
+
+    /**
+     * A decoded job image: the big picture and a square large icon cut from it
+     */
+    public static final class JobImage {
+        public final Bitmap picture;
+        public final Bitmap icon;
+
+        JobImage(Bitmap picture, Bitmap icon) {
+            this.picture = picture;
+            this.icon = icon;
+        }
+
+        long byteCount() {
+            return picture.getAllocationByteCount() + icon.getAllocationByteCount();
+        }
+    }
+
+    private static JobImageLoader instance;
+
+    private static final ExecutorService FETCHER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "job-images");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final WeightedLruCache<String, JobImage> memory;
+    private final WebAssetCache disk;
+    private final int pictureWidth;
+    private final int pictureHeight;
+    private final int iconSize;
+
+    /** Loads in progress, so the notification and the alert screen share one fetch */
+    private final Map<String, CompletableFuture<JobImage>> inFlight = new HashMap<>();
+
+    /** Only touched on the fetcher thread */
+    private boolean diskOpened;
+
+    public static synchronized JobImageLoader get(Context context) {
+        if (instance == null) {
+            instance = new JobImageLoader(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private JobImageLoader(Context context) {
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        boolean lowRam = activityManager != null && activityManager.isLowRamDevice();
+
+        long budget = Math.min(Runtime.getRuntime().maxMemory() / 32,
+            lowRam ? MAX_MEMORY_BYTES_LOW_RAM : MAX_MEMORY_BYTES);
+        memory = new WeightedLruCache<>(budget, JobImage::byteCount);
+
+        DisplayMetrics metrics = context.getResources().getDisplayMetrics();
+        int screenWidth = Math.min(metrics.widthPixels, metrics.heightPixels);
+        pictureWidth = Math.min(screenWidth, lowRam ? MAX_PICTURE_WIDTH_PX_LOW_RAM : MAX_PICTURE_WIDTH_PX);
+        pictureHeight = pictureWidth / 2;
+        iconSize = Math.round(ICON_SIZE_DP * metrics.density);
+
+        String version = BuildConfig.VERSION_CODE + "/" + CACHE_SCHEMA;
+        disk = new WebAssetCache(new File(context.getCacheDir(), CACHE_DIR), MAX_DISK_BYTES, version);
+    }
+
+    /**
+     * The image if it is already in memory; never blocks
+     */
+    public JobImage getCached(String url) {
+        return url != null ? memory.get(url) : null;
+    }
+
+    /**
+     * Start loading the image, or join a load already running.
+     *
+     * @return completes with the image, or with null if it could not be loaded
+     */
+    public CompletableFuture<JobImage> load(String url) {
+        JobImage cached = getCached(url);
+        if (cached != null || url == null) return CompletableFuture.completedFuture(cached);
+
+        CompletableFuture<JobImage> future;
+        synchronized (inFlight) {
+            future = inFlight.get(url);
+            if (future != null) return future;
+            future = new CompletableFuture<>();
+            inFlight.put(url, future);
+        }
+
+        CompletableFuture<JobImage> result = future;
+        FETCHER.execute(() -> {
+            JobImage image = null;
+            try {
+                image = loadOnFetcher(url);
+            } catch (Exception | OutOfMemoryError e) {
+                // Text-only is always an acceptable outcome
+                HLog.w(TAG, "Job image not loaded: ", e.getClass().getSimpleName());
+            }
+            synchronized (inFlight) {
+                inFlight.remove(url);
+            }
+            result.complete(image);
+        });
+        return result;
+    }
+
+    /**
+     * Wait at most {@code timeoutMs} for a load; 0 only takes a result that is
+     * already there
+     *
+     * @return the image, or null if it is not ready in time or failed
+     */
+    public static JobImage await(CompletableFuture<JobImage> future, long timeoutMs) {
+        if (future.isDone() || timeoutMs <= 0) return future.getNow(null);
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /** Drop decoded images when the system is short of memory; the disk copies stay */
+    public static synchronized void trimMemory() {
+        if (instance != null) instance.memory.trimTo(0);
+    }
+
+    private JobImage loadOnFetcher(String url) throws IOException {
+        // Another caller may have finished the same URL while this one queued
+        JobImage image = memory.get(url);
+        if (image != null) return image;
+
+        if (!diskOpened) {
+            diskOpened = true;
+            try {
+                disk.open();
+            } catch (IOException e) {
+                HLog.w(TAG, "Job image cache unavailable: ", e.getMessage());
+            }
+        }
+
+        WebAssetCache.Entry stored = disk.get(url);
+        if (stored != null) {
+            image = decode(stored.body);
+            if (image != null) {
+                memory.put(url, image);
+                return image;
+            }
+            disk.remove(url);
+        }
+
+        byte[] body = fetch(url);
+        if (body == null) return null;
+        image = decode(body);
+        if (image == null) return null;
+        memory.put(url, image);
+
+        // The downsampled picture is a few tens of KB, unlike the original
+        ByteArrayOutputStream out = new ByteArrayOutputStream(32 * 1024);
+        if (image.picture.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, out)) {
+            disk.put(new WebAssetCache.Entry(WebAssetCache.KIND_IMMUTABLE, url, "image/jpeg", null,
+                System.currentTimeMillis(), new HashMap<>(), out.toByteArray()));
+        }
+        HLog.d(TAG, "Job image loaded, downloaded bytes: ", body.length);
+        return image;
+    }
+
+    /**
+     * Decode at the smallest sample size that still covers the picture, then
+     * scale to fit and cut the icon
+     */
+    private JobImage decode(byte[] bytes) {
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(bytes, 0, bytes.length, bounds);
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) return null;
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = ImageSampling.sampleSize(
+            bounds.outWidth, bounds.outHeight, pictureWidth, pictureHeight);
+        // Photos have no alpha; half the memory of ARGB_8888
+        options.inPreferredConfig = Bitmap.Config.RGB_565;
+        Bitmap decoded = BitmapFactory.decodeByteArray(bytes, 0, bytes.length, options);
+        if (decoded == null) return null;
+
+        int[] size = ImageSampling.fitWithin(decoded.getWidth(), decoded.getHeight(), pictureWidth, pictureHeight);
+        Bitmap picture = decoded;
+        if (size[0] != decoded.getWidth() || size[1] != decoded.getHeight()) {
+            picture = Bitmap.createScaledBitmap(decoded, size[0], size[1], true);
+            decoded.recycle();
+        }
+
+        int[] square = ImageSampling.centerSquare(picture.getWidth(), picture.getHeight());
+        Bitmap cropped = Bitmap.createBitmap(picture, square[0], square[1], square[2], square[2]);
+        Bitmap icon = Bitmap.createScaledBitmap(cropped, iconSize, iconSize, true);
+        if (cropped != icon && cropped != picture) cropped.recycle();
+
+        return new JobImage(picture, icon);
+    }
+
+    /**
+     * GET with a size cap; null unless it is a 200 image response
+     */
+    private static byte[] fetch(String url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        try {
+            connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+            connection.setReadTimeout(READ_TIMEOUT_MS);
+            connection.setUseCaches(false);
+
+            if (connection.getResponseCode() != 200) return null;
+            String contentType = connection.getContentType();
+            if (contentType == null || !contentType.startsWith("image/")) return null;
+            long length = connection.getContentLengthLong();
+            if (length > MAX_DOWNLOAD_BYTES) return null;
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(length > 0 ? (int) length : 32 * 1024);
+            byte[] buffer = new byte[8 * 1024];
+            try (InputStream in = connection.getInputStream()) {
+                int n;
+                while ((n = in.read(buffer)) > 0) {
+                    if (out.size() + n > MAX_DOWNLOAD_BYTES) return null;
+                    out.write(buffer, 0, n);
+                }
+            }
+            return out.toByteArray();
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
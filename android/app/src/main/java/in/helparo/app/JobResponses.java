@@ -0,0 +1,280 @@
+package in.helparo.app;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends the helper's answers to job alerts through a durable {@link ResponseOutbox}.
+ *
+ * Accept and reject only write the answer to disk and ask for a flush; all
+ * network work happens on one background thread. Accepts go first, one request
+ * each; declines are batched. Failed sends back off exponentially while the
+ * device is online and wait for a network callback while it is offline. The
+ * claim's outcome is shown on the job's notification.
+ */
+public final class JobResponses {
+
+    private static final String TAG = "JobResponses";
+    private static final String FILE_NAME = "job_responses.log";
+
+    /** A busy helper answers a few jobs a minute; anything beyond this is stale */
+    private static final int MAX_ENTRIES = 200;
+    private static final int MAX_DECLINE_BATCH = 20;
+
+    /** goAsync() gives us about 10 seconds; keep connect + read well inside that */
+    private static final int CONNECT_TIMEOUT_MS = 4_000;
+    private static final int READ_TIMEOUT_MS = 5_000;
+
+    private static JobResponses instance;
+
+    private final Context context;
+    private final ResponseOutbox outbox;
+    private final JobClaimClient client =
+        new JobClaimClient(JobClaimClient.DEFAULT_BASE_URL, CONNECT_TIMEOUT_MS, READ_TIMEOUT_MS);
+    private final ConnectivityManager connectivity;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "job-responses");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** Pending backoff retry; only touched on the executor thread */
+    private ScheduledFuture<?> retry;
+
+    private JobResponses(Context context) {
+        this.context = context;
+        outbox = new ResponseOutbox(new File(context.getNoBackupFilesDir(), FILE_NAME), MAX_ENTRIES);
+        connectivity = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+
+        executor.execute(() -> {
+            try {
+                reportExpired(outbox.open(System.currentTimeMillis()));
+            } catch (IOException e) {
+                HLog.w(TAG, "Could not restore pending responses: ", e.getMessage());
+            }
+            flushOnExecutor();
+        });
+
+        if (connectivity != null) {
+            try {
+                connectivity.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+                    @Override
+                    public void onAvailable(Network network) {
+                        executor.execute(() -> {
+                            // Whatever was backing off failed on the old network
+                            outbox.resetBackoff();
+                            flushOnExecutor();
+                        });
+                    }
+                });
+            } catch (RuntimeException e) {
+                // Too many callbacks registered by the app; backoff retries still run
+                HLog.w(TAG, "No network callback: ", e.getMessage());
+            }
+        }
+    }
+
+    public static synchronized JobResponses get(Context context) {
+        if (instance == null) {
+            instance = new JobResponses(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Warm up the connection to the backend while the helper looks at the alert
+     */
+    public void prewarm() {
+        executor.execute(client::prewarm);
+    }
+
+    /**
+     * Queue an accept and try to send it right away.
+     *
+     * @param onAttempted run on the background thread after the first attempt
+     *                    (e.g. to finish a goAsync() broadcast); may be null
+     */
+    public void accept(String jobId, int notificationId, String title, Runnable onAttempted) {
+        executor.execute(() -> {
+            try {
+                enqueue(ResponseOutbox.ACTION_ACCEPT, jobId, notificationId, title, expiresAt(jobId));
+                flushOnExecutor();
+            } finally {
+                if (onAttempted != null) onAttempted.run();
+            }
+        });
+    }
+
+    /**
+     * Queue a decline; it goes out with the next batch. The job is dropped from
+     * the {@link LocalJobStore} once its expiry has been read from there.
+     */
+    public void decline(String jobId) {
+        if (jobId == null) return;
+        executor.execute(() -> {
+            enqueue(ResponseOutbox.ACTION_DECLINE, jobId, 0, null, expiresAt(jobId));
+            LocalJobStore.get(context).remove(jobId);
+            flushOnExecutor();
+        });
+    }
+
+    /**
+     * Try pending answers now, e.g. after the web app handed over a fresh session
+     */
+    public void flush() {
+        executor.execute(this::flushOnExecutor);
+    }
+
+    /**
+     * The job's expiry from the local store; on the executor thread, since the read waits for disk
+     */
+    private long expiresAt(String jobId) {
+        LocalJobLog.StoredJob job = LocalJobStore.get(context).get(jobId);
+        if (job != null) return job.expiresAt;
+        return System.currentTimeMillis() + AlertExpiryGate.DEFAULT_JOB_TTL_MS;
+    }
+
+    private void enqueue(byte action, String jobId, int notificationId, String title, long expiresAt) {
+        try {
+            outbox.enqueue(action, jobId, notificationId, title, System.currentTimeMillis(), expiresAt);
+        } catch (IOException e) {
+            // Not durable, but still worth one attempt from memory
+            HLog.w(TAG, "Could not persist response: ", e.getMessage());
+        }
+    }
+
+    private void flushOnExecutor() {
+        if (retry != null) {
+            retry.cancel(false);
+            retry = null;
+        }
+
+        long now = System.currentTimeMillis();
+        List<ResponseOutbox.Entry> expired = new ArrayList<>();
+        List<ResponseOutbox.Entry> due;
+        try {
+            due = outbox.due(now, expired);
+        } catch (IOException e) {
+            HLog.w(TAG, "Could not read pending responses: ", e.getMessage());
+            return;
+        }
+        reportExpired(expired);
+        if (due.isEmpty()) {
+            scheduleRetry();
+            return;
+        }
+
+        if (!isOnline()) {
+            // The network callback flushes again once we are back online; until
+            // then only wake up to report accepts that expired on the way
+            HLog.d(TAG, "Offline, responses pending: ", due.size());
+            scheduleAt(outbox.nextExpiryAt());
+            return;
+        }
+
+        String accessToken = NativeSession.get(context).getAccessToken();
+        List<ResponseOutbox.Entry> declines = new ArrayList<>();
+        for (ResponseOutbox.Entry entry : due) {
+            if (entry.action == ResponseOutbox.ACTION_ACCEPT) {
+                sendAccept(entry, accessToken);
+            } else if (accessToken != null) {
+                declines.add(entry);
+            } else {
+                // No session yet: back off until NativeSessionPlugin.setSession() flushes, or expiry
+                outbox.retryLater(entry.key, now);
+            }
+        }
+        for (int start = 0; start < declines.size(); start += MAX_DECLINE_BATCH) {
+            sendDeclines(declines.subList(start, Math.min(declines.size(), start + MAX_DECLINE_BATCH)), accessToken);
+        }
+        scheduleRetry();
+    }
+
+    private void sendAccept(ResponseOutbox.Entry entry, String accessToken) {
+        JobClaimClient.Result result = client.claim(entry.jobId, accessToken, entry.key);
+        HLog.d(TAG, "Native claim result: ", result, " after retries: " + entry.getAttempts());
+        if (result == JobClaimClient.Result.ERROR) {
+            // Outcome unknown: keep "Accepting…" up and try again
+            outbox.retryLater(entry.key, System.currentTimeMillis());
+            return;
+        }
+        complete(entry);
+        if (result == JobClaimClient.Result.CLAIMED) {
+            // The accept route changed these rows server-side
+            RestReadCache restCache = RestCachePlugin.getCache(context);
+            restCache.invalidate(RestReadCache.REST_PATH + "service_requests");
+            restCache.invalidate(RestReadCache.REST_PATH + "helper_profiles");
+        }
+        if (result == JobClaimClient.Result.LOST) {
+            LocalJobStore.get(context).remove(entry.jobId);
+        }
+        JobAlertNotifications.showClaimStatus(context, entry.notificationId, entry.jobId, entry.title, result);
+    }
+
+    private void sendDeclines(List<ResponseOutbox.Entry> batch, String accessToken) {
+        int status = client.decline(batch, accessToken);
+        boolean sent = status >= 200 && status < 300;
+        if (!sent && JobClaimClient.isRetryable(status)) {
+            long now = System.currentTimeMillis();
+            for (ResponseOutbox.Entry entry : batch) {
+                outbox.retryLater(entry.key, now);
+            }
+            return;
+        }
+        if (!sent) HLog.w(TAG, "Declines refused with status ", status);
+        for (ResponseOutbox.Entry entry : batch) {
+            complete(entry);
+        }
+    }
+
+    private void complete(ResponseOutbox.Entry entry) {
+        try {
+            outbox.complete(entry.key);
+        } catch (IOException e) {
+            HLog.w(TAG, "Could not record sent response: ", e.getMessage());
+        }
+    }
+
+    /**
+     * An accept that never got through before its job expired is handed to the web app
+     */
+    private void reportExpired(List<ResponseOutbox.Entry> expired) {
+        for (ResponseOutbox.Entry entry : expired) {
+            if (entry.action != ResponseOutbox.ACTION_ACCEPT) continue;
+            JobAlertNotifications.showClaimStatus(context, entry.notificationId, entry.jobId,
+                entry.title, JobClaimClient.Result.ERROR);
+        }
+    }
+
+    private void scheduleRetry() {
+        long due = outbox.nextDueAt();
+        long expiry = outbox.nextExpiryAt();
+        scheduleAt(due < 0 || (expiry >= 0 && expiry < due) ? expiry : due);
+    }
+
+    private void scheduleAt(long next) {
+        if (next < 0) return;
+        long delay = Math.max(0, next - System.currentTimeMillis());
+        retry = executor.schedule(this::flushOnExecutor, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private boolean isOnline() {
+        if (connectivity == null) return true;
+        Network network = connectivity.getActiveNetwork();
+        if (network == null) return false;
+        NetworkCapabilities capabilities = connectivity.getNetworkCapabilities(network);
+        return capabilities == null
+            || capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET);
+    }
+}
@@ -0,0 +1,352 @@
+package in.helparo.app;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Append-only file of received job payloads with an in-memory index by jobId.
+ *
+ * Every put or remove appends one length-prefixed record, so recording a job is
+ * a single small write. {@link #open} replays the file and
+ * stops at the first torn record. The file is rewritten with only the live jobs
+ * (compaction) once dead records outnumber them, or when jobs have been expired
+ * for longer than {@code retentionMs}. At most {@code maxJobs} jobs are kept;
+ * the oldest is dropped first. A file from before coordinates and the image
+ * URL were recorded (HJL1) is still read, then rewritten in the current format.
+ *
+ * LocalJobLogTest reopens it over a temporary file to check replay,
+ * compaction and torn records.
+ */
+public final class LocalJobLog {
+
+    private static final int FILE_MAGIC = 0x484A4C32; // "HJL2"
+    /** Records before coordinates and image URL were stored; read, then rewritten as HJL2 */
+    private static final int FILE_MAGIC_V1 = 0x484A4C31; // "HJL1"
+    private static final byte OP_PUT = 1;
+    private static final byte OP_REMOVE = 2;
+
+    /** A job record is a handful of short strings; anything bigger is corruption */
+    private static final int MAX_RECORD_BYTES = 64 * 1024;
+
+    /**
+     * A stored job: the decoded alert plus when it arrived and when it stops being active
+     */
+    public static final class StoredJob {
+        public final JobAlert alert;
+        public final long receivedAt;
+        public final long expiresAt;
+
+        StoredJob(JobAlert alert, long receivedAt, long expiresAt) {
+            this.alert = alert;
+            this.receivedAt = receivedAt;
+            this.expiresAt = expiresAt;
+        }
+
+        public boolean isActive(long nowMillis) {
+            return expiresAt > nowMillis;
+        }
+    }
+
+    private final File file;
+    private final int maxJobs;
+    private final long retentionMs;
+
+    /** Insertion order == arrival order, so the first entry is the oldest */
+    private final LinkedHashMap<String, StoredJob> index = new LinkedHashMap<>();
+    private int deadRecords;
+
+    public LocalJobLog(File file, int maxJobs, long retentionMs) {
+        this.file = file;
+        this.maxJobs = maxJobs;
+        this.retentionMs = retentionMs;
+    }
+
+    /**
+     * Load the file into the index, dropping jobs past retention. Safe to call
+     * on a missing or truncated file.
+     */
+    public synchronized void open(long nowMillis) throws IOException {
+        index.clear();
+        deadRecords = 0;
+        boolean torn = false;
+        boolean outdated = false;
+
+        if (file.isFile()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                int magic = in.readInt();
+                if (magic == FILE_MAGIC) {
+                    torn = !replay(in, true);
+                } else if (magic == FILE_MAGIC_V1) {
+                    outdated = true;
+                    torn = !replay(in, false);
+                } else {
+                    torn = true;
+                }
+            } catch (EOFException e) {
+                torn = true;
+            }
+        }
+
+        if (torn || outdated || pruneLocked(nowMillis) || deadRecords > index.size()) {
+            compactLocked();
+        }
+    }
+
+    /**
+     * Record a job, replacing an earlier payload for the same jobId
+     */
+    public synchronized void put(JobAlert alert, long receivedAt, long expiresAt) throws IOException {
+        append(encodePut(alert, receivedAt, expiresAt));
+        indexLocked(new StoredJob(alert, receivedAt, expiresAt));
+        maybeCompactLocked(receivedAt);
+    }
+
+    /**
+     * Forget a job (rejected or answered elsewhere)
+     *
+     * @return true if the job was stored
+     */
+    public synchronized boolean remove(String jobId) throws IOException {
+        if (jobId == null || index.remove(jobId) == null) return false;
+        deadRecords++;
+        append(encodeRemove(jobId));
+        deadRecords++; // The tombstone itself is dead weight after compaction
+        return true;
+    }
+
+    public synchronized StoredJob get(String jobId) {
+        return jobId != null ? index.get(jobId) : null;
+    }
+
+    /**
+     * Jobs that have not expired yet, newest first
+     */
+    public synchronized List<StoredJob> listActive(long nowMillis) {
+        List<StoredJob> active = new ArrayList<>();
+        for (StoredJob job : index.values()) {
+            if (job.isActive(nowMillis)) active.add(job);
+        }
+        Collections.reverse(active);
+        return active;
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    /**
+     * Drop jobs past retention and rewrite the file with only the live ones
+     */
+    public synchronized void compact(long nowMillis) throws IOException {
+        pruneLocked(nowMillis);
+        compactLocked();
+    }
+
+    long fileLength() {
+        return file.length();
+    }
+
+    private boolean replay(DataInputStream in, boolean current) throws IOException {
+        while (true) {
+            int length;
+            try {
+                length = in.readInt();
+            } catch (EOFException e) {
+                return true; // Clean end of file
+            }
+            if (length <= 0 || length > MAX_RECORD_BYTES) return false;
+
+            byte[] record = new byte[length];
+            try {
+                in.readFully(record);
+            } catch (EOFException e) {
+                return false; // Torn write at the tail
+            }
+            if (!apply(record, current)) return false;
+        }
+    }
+
+    private boolean apply(byte[] record, boolean current) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(record))) {
+            byte op = in.readByte();
+            if (op == OP_REMOVE) {
+                if (index.remove(in.readUTF()) != null) deadRecords++;
+                deadRecords++;
+                return true;
+            }
+            if (op != OP_PUT) return false;
+
+            String type = in.readUTF();
+            String jobId = in.readUTF();
+            String title = in.readUTF();
+            String description = readOptional(in);
+            String price = readOptional(in);
+            String location = readOptional(in);
+            String distance = readOptional(in);
+            String customerName = readOptional(in);
+            String urgency = in.readUTF();
+            long sentAt = in.readLong();
+            long alertExpiresAt = in.readLong();
+            long receivedAt = in.readLong();
+            long expiresAt = in.readLong();
+            double latitude = Double.NaN;
+            double longitude = Double.NaN;
+            String imageUrl = null;
+            if (current) {
+                latitude = in.readDouble();
+                longitude = in.readDouble();
+                imageUrl = readOptional(in);
+            }
+
+            JobAlert alert = new JobAlert.Builder(type, jobId)
+                .title(title)
+                .description(description)
+                .price(price)
+                .location(location)
+                .distance(distance)
+                .customerName(customerName)
+                .urgency(urgency)
+                .sentAtMillis(sentAt)
+                .expiresAtMillis(alertExpiresAt)
+                .coordinates(latitude, longitude)
+                .imageUrl(imageUrl)
+                .build();
+            indexLocked(new StoredJob(alert, receivedAt, expiresAt));
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Add a job as the newest entry, dropping the oldest one past {@code maxJobs}
+     */
+    private void indexLocked(StoredJob job) {
+        String jobId = job.alert.getJobId();
+        if (index.remove(jobId) != null) deadRecords++;
+        index.put(jobId, job);
+        if (index.size() > maxJobs) {
+            Iterator<StoredJob> oldest = index.values().iterator();
+            oldest.next();
+            oldest.remove();
+            deadRecords++;
+        }
+    }
+
+    private boolean pruneLocked(long nowMillis) {
+        boolean pruned = false;
+        Iterator<StoredJob> it = index.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().expiresAt + retentionMs <= nowMillis) {
+                it.remove();
+                deadRecords++;
+                pruned = true;
+            }
+        }
+        return pruned;
+    }
+
+    private void maybeCompactLocked(long nowMillis) throws IOException {
+        if (deadRecords > Math.max(index.size(), maxJobs / 2)) {
+            pruneLocked(nowMillis);
+            compactLocked();
+        }
+    }
+
+    /**
+     * Write the live jobs to a temp file and swap it in, so a crash mid-way leaves
+     * either the old or the new file intact.
+     */
+    private void compactLocked() throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Cannot create " + parent);
+        }
+        File tmp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(FILE_MAGIC);
+            for (StoredJob job : index.values()) {
+                byte[] record = encodePut(job.alert, job.receivedAt, job.expiresAt);
+                out.writeInt(record.length);
+                out.write(record);
+            }
+        }
+        if (!tmp.renameTo(file)) {
+            // Some filesystems refuse to rename over an existing file
+            if (!file.delete() || !tmp.renameTo(file)) {
+                throw new IOException("Cannot replace " + file);
+            }
+        }
+        deadRecords = 0;
+    }
+
+    private void append(byte[] record) throws IOException {
+        boolean fresh = !file.isFile() || file.length() == 0;
+        if (fresh) {
+            File parent = file.getParentFile();
+            if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+                throw new IOException("Cannot create " + parent);
+            }
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)))) {
+            if (fresh) out.writeInt(FILE_MAGIC);
+            out.writeInt(record.length);
+            out.write(record);
+        }
+    }
+
+    private static byte[] encodePut(JobAlert alert, long receivedAt, long expiresAt) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(OP_PUT);
+        out.writeUTF(alert.getType());
+        out.writeUTF(alert.getJobId());
+        out.writeUTF(alert.getTitle());
+        writeOptional(out, alert.getDescription());
+        writeOptional(out, alert.getPrice());
+        writeOptional(out, alert.getLocation());
+        writeOptional(out, alert.getDistance());
+        writeOptional(out, alert.getCustomerName());
+        out.writeUTF(alert.getUrgency());
+        out.writeLong(alert.getSentAtMillis());
+        out.writeLong(alert.getExpiresAtMillis());
+        out.writeLong(receivedAt);
+        out.writeLong(expiresAt);
+        // NaN when the push had none, as in JobAlert
+        out.writeDouble(alert.getLatitude());
+        out.writeDouble(alert.getLongitude());
+        writeOptional(out, alert.getImageUrl());
+        return bytes.toByteArray();
+    }
+
+    private static byte[] encodeRemove(String jobId) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(OP_REMOVE);
+        out.writeUTF(jobId);
+        return bytes.toByteArray();
+    }
+
+    private static void writeOptional(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    private static String readOptional(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
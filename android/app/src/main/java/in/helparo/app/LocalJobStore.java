@@ -0,0 +1,131 @@
+package in.helparo.app;
+
+import android.content.Context;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Process-wide {@link LocalJobLog} of the job payloads this device received.
+ *
+ * The push already carries everything the job popup shows, so the web app reads
+ * it from here (through {@link LocalJobStorePlugin}) instead of querying
+ * Supabase again. The file lives in no-backup storage; jobs are kept for a
+ * while after they expire so an accepted job can still be rendered.
+ *
+ * All file work, including replaying the log on first use, runs on one writer
+ * thread, so a push or a receiver never waits for disk. Reads go through the
+ * same thread and therefore see every earlier put and remove; they block the
+ * caller, so only call them off the main thread.
+ */
+public final class LocalJobStore {
+
+    private static final String TAG = "LocalJobStore";
+    private static final String FILE_NAME = "local_jobs.log";
+
+    /** Far more than a helper can look at; bounds the file to a few tens of KB */
+    private static final int MAX_JOBS = 100;
+
+    /** How long an expired job stays readable, e.g. for the popup after Accept */
+    private static final long RETENTION_MS = 30 * 60 * 1000L;
+
+    private static LocalJobStore instance;
+
+    /** Job the app was last opened for from an alert, until the web app takes it */
+    private static volatile String openedJobId;
+
+    private final LocalJobLog log;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "local-jobs");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private LocalJobStore(Context context) {
+        log = new LocalJobLog(new File(context.getNoBackupFilesDir(), FILE_NAME), MAX_JOBS, RETENTION_MS);
+        writer.execute(() -> {
+            try {
+                log.open(System.currentTimeMillis());
+            } catch (IOException e) {
+                HLog.w(TAG, "Could not restore local jobs: ", e.getMessage());
+            }
+        });
+    }
+
+    public static synchronized LocalJobStore get(Context context) {
+        if (instance == null) {
+            instance = new LocalJobStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Remember a delivered job until {@code expiresAt} (plus retention)
+     */
+    public void put(JobAlert alert, long expiresAt) {
+        long receivedAt = System.currentTimeMillis();
+        writer.execute(() -> {
+            try {
+                log.put(alert, receivedAt, expiresAt);
+            } catch (IOException e) {
+                HLog.w(TAG, "Could not store job: ", e.getMessage());
+            }
+        });
+    }
+
+    public void remove(String jobId) {
+        writer.execute(() -> {
+            try {
+                log.remove(jobId);
+            } catch (IOException e) {
+                HLog.w(TAG, "Could not remove job: ", e.getMessage());
+            }
+        });
+    }
+
+    /** Blocks until earlier writes are done; not on the main thread */
+    public LocalJobLog.StoredJob get(String jobId) {
+        return read(() -> log.get(jobId));
+    }
+
+    /** Blocks until earlier writes are done; not on the main thread */
+    public List<LocalJobLog.StoredJob> listActive() {
+        List<LocalJobLog.StoredJob> active = read(() -> log.listActive(System.currentTimeMillis()));
+        return active != null ? Collections.unmodifiableList(active) : Collections.emptyList();
+    }
+
+    private <T> T read(Callable<T> task) {
+        try {
+            return writer.submit(task).get();
+        } catch (ExecutionException e) {
+            HLog.w(TAG, "Could not read local jobs: ", e.getCause());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Record that the helper opened the app to accept this job. No IO, so it is
+     * safe to call from the main thread.
+     */
+    public static void setOpenedJob(String jobId) {
+        openedJobId = jobId;
+    }
+
+    /**
+     * The job the app was opened for, if any; cleared once read
+     */
+    public static String takeOpenedJob() {
+        String jobId = openedJobId;
+        openedJobId = null;
+        return jobId;
+    }
+}
@@ -0,0 +1,92 @@
+package in.helparo.app;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+/**
+ * Native Capacitor Plugin to read job payloads received by push
+ * Lets the job popup render instantly without refetching from Supabase
+ */
+@CapacitorPlugin(name = "LocalJobStore")
+public class LocalJobStorePlugin extends Plugin {
+
+    /**
+     * Get one stored job by ID; resolves with job = null if it is not stored
+     */
+    @PluginMethod
+    public void getJob(PluginCall call) {
+        String jobId = call.getString("jobId");
+        if (jobId == null) {
+            call.reject("jobId is required");
+            return;
+        }
+
+        LocalJobLog.StoredJob job = LocalJobStore.get(getContext()).get(jobId);
+        JSObject ret = new JSObject();
+        ret.put("job", job != null ? toJson(job) : null);
+        call.resolve(ret);
+    }
+
+    /**
+     * List jobs that have not expired yet, newest first
+     */
+    @PluginMethod
+    public void listActiveJobs(PluginCall call) {
+        JSArray jobs = new JSArray();
+        for (LocalJobLog.StoredJob job : LocalJobStore.get(getContext()).listActive()) {
+            jobs.put(toJson(job));
+        }
+        JSObject ret = new JSObject();
+        ret.put("jobs", jobs);
+        call.resolve(ret);
+    }
+
+    /**
+     * Get the job the helper opened the app for from a job alert (Accept), once
+     */
+    @PluginMethod
+    public void consumeOpenedJob(PluginCall call) {
+        String jobId = LocalJobStore.takeOpenedJob();
+        LocalJobLog.StoredJob job = jobId != null ? LocalJobStore.get(getContext()).get(jobId) : null;
+        JSObject ret = new JSObject();
+        ret.put("job", job != null ? toJson(job) : null);
+        call.resolve(ret);
+    }
+
+    /**
+     * Same shape as JobAlertData in src/lib/job-alert-service.ts
+     */
+    private static JSObject toJson(LocalJobLog.StoredJob job) {
+        JobAlert alert = job.alert;
+        JSObject json = new JSObject();
+        json.put("jobId", alert.getJobId());
+        json.put("title", alert.getTitle());
+        json.put("description", alert.getDescription() != null ? alert.getDescription() : "");
+        json.put("price", parsePrice(alert.getPrice()));
+        json.put("location", alert.getLocation() != null ? alert.getLocation() : "Location not specified");
+        json.put("distance", alert.getDistance());
+        json.put("customerName", alert.getCustomerName());
+        json.put("urgency", alert.getUrgency());
+        json.put("expiresAt", job.expiresAt);
+        json.put("receivedAt", job.receivedAt);
+        if (alert.hasCoordinates()) {
+            json.put("lat", alert.getLatitude());
+            json.put("lng", alert.getLongitude());
+        }
+        if (alert.getImageUrl() != null) json.put("imageUrl", alert.getImageUrl());
+        return json;
+    }
+
+    private static double parsePrice(String price) {
+        if (price == null) return 0;
+        try {
+            return Double.parseDouble(price);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
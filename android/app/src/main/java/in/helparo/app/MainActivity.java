@@ -1,11 +1,7 @@
 package in.helparo.app;
 
-import android.app.NotificationChannel;
-import android.app.NotificationManager;
-import android.content.ContentResolver;
+import android.content.Intent;
 import android.graphics.Color;
-import android.media.AudioAttributes;
-import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
 import android.view.View;
@@ -18,14 +14,73 @@ public class MainActivity extends BridgeActivity {
   protected void onCreate(Bundle savedInstanceState) {
     // Register custom plugins BEFORE super.onCreate
     registerPlugin(SettingsPlugin.class);
+    registerPlugin(AlertDiagnosticsPlugin.class);
+    registerPlugin(LocalJobStorePlugin.class);
+    registerPlugin(NativeSessionPlugin.class);
+    registerPlugin(RestCachePlugin.class);
+    registerPlugin(WebCachePlugin.class);
+    registerPlugin(AlertWakeLockPlugin.class);
+    registerPlugin(DeviceLocationPlugin.class);
+    registerPlugin(PushPolicyPlugin.class);
     
     super.onCreate(savedInstanceState);
+    HLog.init(this);
+    
+    // Serve the remote web app's shell and chunks from disk. The first document
+    // request is dispatched after onCreate returns, so it already goes through this client.
+    String serverUrl = getBridge().getServerUrl();
+    if (serverUrl != null) {
+      getBridge().setWebViewClient(new CachingWebViewClient(getBridge(), serverUrl));
+    }
     
     // CRITICAL: Force status bar configuration for light theme visibility
     configureStatusBar();
     
-    // Create notification channels
-    createNotificationChannels();
+    // Create notification channels (only touches NotificationManager when a channel definition changed)
+    NotificationChannels.ensureRegistered(this);
+    
+    // Keep the job alarm decoded in the background so the first alert sounds instantly
+    AlertSoundEngine.get(this).prewarm();
+    
+    clearAnsweredJobAlert(getIntent());
+  }
+  
+  @Override
+  protected void onNewIntent(Intent intent) {
+    super.onNewIntent(intent);
+    clearAnsweredJobAlert(intent);
+  }
+  
+  @Override
+  public void onTrimMemory(int level) {
+    super.onTrimMemory(level);
+    // Decoded job images reload from their disk copies; the WebView needs the room more
+    if (level >= TRIM_MEMORY_RUNNING_LOW) {
+      JobImageLoader.trimMemory();
+    }
+  }
+  
+  /**
+   * The notification ACCEPT action opens the app directly; take that job off
+   * the alert stack and out of the shade, and hand it to the web app.
+   */
+  private void clearAnsweredJobAlert(Intent intent) {
+    if (intent == null) return;
+    // Accept from the alert screen passes jobId, the notification action passes openJob
+    String acceptedJobId = intent.getStringExtra("openJob");
+    if (acceptedJobId == null) acceptedJobId = intent.getStringExtra("jobId");
+    if (acceptedJobId != null) {
+      // The web app reads this job's payload from the local store instead of refetching it
+      LocalJobStore.setOpenedJob(acceptedJobId);
+    }
+    
+    JobAlertQueue.Entry entry = JobAlertQueue.getInstance().remove(intent.getStringExtra("openJob"));
+    if (entry != null) {
+      AlertLatencyTracer.getInstance().mark(
+          entry.alert.getJobId(), AlertLatencyTracer.STAGE_ANSWERED, System.currentTimeMillis());
+      AlertEffects.get(this).onDone(entry.alert.getJobId());
+      JobAlertNotifications.cancel(this, entry.notificationId);
+    }
   }
   
   /**
@@ -53,55 +108,4 @@ public class MainActivity extends BridgeActivity {
       decorView.setSystemUiVisibility(flags);
     }
   }
-  
-  private void createNotificationChannels() {
-    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-      NotificationManager notificationManager = getSystemService(NotificationManager.class);
-      
-      // 1. Default channel for general notifications
-      NotificationChannel defaultChannel = new NotificationChannel(
-        "default",
-        "General Notifications",
-        NotificationManager.IMPORTANCE_DEFAULT
-      );
-      defaultChannel.setDescription("General app notifications");
-      notificationManager.createNotificationChannel(defaultChannel);
-      
-      // 2. HIGH PRIORITY channel for urgent job alerts (like Rapido)
-      NotificationChannel jobAlertChannel = new NotificationChannel(
-        "job_alerts",
-        "New Job Alerts",
-        NotificationManager.IMPORTANCE_HIGH
-      );
-      jobAlertChannel.setDescription("Urgent alerts for new job requests");
-      jobAlertChannel.enableVibration(true);
-      jobAlertChannel.setVibrationPattern(new long[]{0, 500, 200, 500, 200, 500, 200, 500});
-      jobAlertChannel.enableLights(true);
-      jobAlertChannel.setLightColor(android.graphics.Color.GREEN);
-      jobAlertChannel.setBypassDnd(true); // Bypass Do Not Disturb
-      jobAlertChannel.setLockscreenVisibility(android.app.Notification.VISIBILITY_PUBLIC);
-      
-      // Set custom sound for job alerts
-      Uri soundUri = Uri.parse(ContentResolver.SCHEME_ANDROID_RESOURCE + "://" + getPackageName() + "/raw/job_alert");
-      AudioAttributes audioAttributes = new AudioAttributes.Builder()
-        .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
-        .setUsage(AudioAttributes.USAGE_NOTIFICATION_RINGTONE)
-        .build();
-      jobAlertChannel.setSound(soundUri, audioAttributes);
-      
-      notificationManager.createNotificationChannel(jobAlertChannel);
-      
-      // 3. SOS Emergency channel
-      NotificationChannel sosChannel = new NotificationChannel(
-        "sos_alerts",
-        "SOS Emergency Alerts",
-        NotificationManager.IMPORTANCE_HIGH
-      );
-      sosChannel.setDescription("Emergency SOS alerts");
-      sosChannel.enableVibration(true);
-      sosChannel.setVibrationPattern(new long[]{0, 1000, 500, 1000, 500, 1000});
-      sosChannel.setBypassDnd(true);
-      notificationManager.createNotificationChannel(sosChannel);
-    }
-  }
 }
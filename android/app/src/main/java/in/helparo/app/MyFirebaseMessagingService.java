@@ -1,20 +1,17 @@
 package in.helparo.app;
 
-import android.app.NotificationChannel;
 import android.app.NotificationManager;
 import android.app.PendingIntent;
 import android.content.Context;
 import android.content.Intent;
+import android.graphics.Bitmap;
 import android.graphics.Color;
-import android.media.AudioAttributes;
 import android.media.RingtoneManager;
 import android.net.Uri;
 import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
 import android.os.PowerManager;
-import android.os.VibrationEffect;
-import android.os.Vibrator;
-import android.os.VibratorManager;
-import android.util.Log;
 
 import androidx.annotation.NonNull;
 import androidx.core.app.NotificationCompat;
@@ -22,7 +19,11 @@ import androidx.core.app.NotificationCompat;
 import com.google.firebase.messaging.FirebaseMessagingService;
 import com.google.firebase.messaging.RemoteMessage;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.LongSupplier;
 
 /**
  * Handles FCM push notifications for Helparo
@@ -38,34 +39,145 @@ import java.util.Map;
 public class MyFirebaseMessagingService extends FirebaseMessagingService {
 
     private static final String TAG = "HelparoFCM";
-    private static final String JOB_ALERT_CHANNEL = "job_alerts";
-    private static final String DEFAULT_CHANNEL = "default";
-    private static final int JOB_ALERT_NOTIFICATION_ID = 999;
+
+    /** Jobs arriving within this long of the previous one share its wakeup */
+    private static final long COALESCE_WINDOW_MS = AlertCoalescer.DEFAULT_WINDOW_MS;
+
+    private static final AlertCoalescer COALESCER = new AlertCoalescer(
+        COALESCE_WINDOW_MS,
+        AlertCoalescer.DEFAULT_MAX_BURST_MS
+    );
+
+    /** How long the leading job's notification waits for its image before posting as text */
+    private static final long IMAGE_DEADLINE_MS = 250;
+
+    private static final AlertExpiryGate EXPIRY_GATE = new AlertExpiryGate(
+        AlertExpiryGate.DEFAULT_CLOCK_SKEW_MS,
+        AlertExpiryGate.DEFAULT_DOWNGRADE_WINDOW_MS
+    );
+
+    /**
+     * Wall clock for coalescing and expiry (latency tracing keeps the real one);
+     * the push replay harness swaps in a simulated clock so bursts replay without waiting
+     */
+    static LongSupplier clock = System::currentTimeMillis;
 
     @Override
     public void onMessageReceived(@NonNull RemoteMessage remoteMessage) {
         super.onMessageReceived(remoteMessage);
+        long receivedAt = System.currentTimeMillis();
         
-        Log.d(TAG, "========================================");
-        Log.d(TAG, "FCM Message Received!");
-        Log.d(TAG, "From: " + remoteMessage.getFrom());
+        HLog.init(this);
         
         Map<String, String> data = remoteMessage.getData();
-        Log.d(TAG, "Data payload: " + data.toString());
         
-        // Check if this is a job notification
-        String type = data.get("type");
-        Log.d(TAG, "Message type: " + type);
+        // Check if this is a job notification (v1 or compact v2 payload)
+        String type = JobAlertDecoder.typeOf(data);
+        HLog.d(TAG, "FCM message received, type: ", type);
         
-        if ("new_job".equals(type) || "urgent_job".equals(type)) {
-            Log.d(TAG, "🚨 JOB ALERT - Showing full screen notification");
-            showJobAlertNotification(data);
+        if (JobAlertDecoder.isJobAlertType(type)) {
+            // Decode and validate BEFORE any wakeup or vibration starts
+            JobAlert alert = JobAlertDecoder.decode(data);
+            long decodedAt = System.currentTimeMillis();
+            if (alert == null) {
+                HLog.w(TAG, "Dropping malformed job alert payload");
+            } else {
+                receiveJobAlert(alert, receivedAt, decodedAt);
+            }
+        } else if (JobAlertDecoder.TYPE_JOB_BATCH.equals(type)) {
+            // All or nothing: a partial batch would hide jobs the server ranked higher
+            List<JobAlert> batch = JobAlertDecoder.decodeBatch(data);
+            long decodedAt = System.currentTimeMillis();
+            if (batch == null) {
+                HLog.w(TAG, "Dropping malformed job batch payload");
+            } else {
+                HLog.d(TAG, "Job batch received, jobs: ", batch.size());
+                // In rank order: the first job that gets through the gates leads the
+                // burst and wakes the device, the rest join it silently
+                for (JobAlert alert : batch) {
+                    receiveJobAlert(alert, receivedAt, decodedAt);
+                }
+            }
+        } else if (PushDedupeStore.get(this).isDuplicate(type, regularDedupeId(remoteMessage))) {
+            HLog.d(TAG, "Duplicate notification ignored");
         } else {
-            Log.d(TAG, "📬 Regular notification");
+            HLog.d(TAG, "📬 Regular notification");
             showRegularNotification(remoteMessage);
         }
+    }
+
+    private void receiveJobAlert(JobAlert alert, long receivedAt, long decodedAt) {
+        if (PushDedupeStore.get(this).isDuplicate(
+                alert.getType(), jobDedupeId(alert), alert.getExpiresAtMillis())) {
+            HLog.d(TAG, "Duplicate job alert ignored");
+            return;
+        }
+        AlertLatencyTracer tracer = AlertLatencyTracer.getInstance();
+        tracer.begin(alert.getJobId(), alert.getSentAtMillis(), receivedAt);
+        tracer.mark(alert.getJobId(), AlertLatencyTracer.STAGE_DECODED, decodedAt);
+        handleJobAlert(alert);
+    }
+
+    /**
+     * Dedupe key for job alerts. A rebroadcast re-sends the same job with a new
+     * send time and must alert again, so the send time is part of the key.
+     */
+    private static String jobDedupeId(JobAlert alert) {
+        if (alert.getSentAtMillis() <= 0) return alert.getJobId();
+        return alert.getJobId() + "|" + alert.getSentAtMillis();
+    }
+
+    /**
+     * Dedupe key for non-job pushes. Types like helper_applied legitimately repeat
+     * for the same request, so the server timestamp is part of the key; a redelivery
+     * carries the same payload and therefore the same key.
+     */
+    private static String regularDedupeId(RemoteMessage remoteMessage) {
+        Map<String, String> data = remoteMessage.getData();
+        String requestId = data.get("requestId");
+        if (requestId == null) requestId = data.get("request_id");
+        if (requestId == null) return remoteMessage.getMessageId();
+        return requestId + "|" + data.get("timestamp");
+    }
+
+    /**
+     * Gate a decoded job alert on its expiry and distance before anything wakes
+     * the device. Late deliveries (Doze, retries) for jobs that are already gone
+     * are either downgraded to a quiet notice or dropped, and so are jobs far
+     * from where the device is now (see {@link DistanceGate}).
+     */
+    private void handleJobAlert(JobAlert alert) {
+        long now = clock.getAsLong();
+        switch (EXPIRY_GATE.evaluate(alert, now)) {
+            case DROP:
+                HLog.d(TAG, "Expired job alert dropped");
+                return;
+            case DOWNGRADE:
+                HLog.d(TAG, "Expired job alert downgraded to quiet notification");
+                showQuietJobNotification(alert, "Missed job: ");
+                return;
+            default:
+                break;
+        }
         
-        Log.d(TAG, "========================================");
+        long remainingMs = EXPIRY_GATE.remainingMillis(alert, now);
+        switch (DeviceLocation.get(this).evaluate(alert)) {
+            case DROP:
+                HLog.d(TAG, "Job alert outside the alert radius suppressed");
+                break;
+            case DOWNGRADE:
+                HLog.d(TAG, "Job alert just outside the alert radius downgraded to quiet notification");
+                showQuietJobNotification(alert, "Job further away: ");
+                LocalJobStore.get(this).put(alert, now + remainingMs);
+                break;
+            default:
+                HLog.d(TAG, "🚨 JOB ALERT - Showing full screen notification");
+                showJobAlertNotification(alert, remainingMs);
+                // Keep the payload so the web popup can render it without a refetch;
+                // written in the background, after the alert is up
+                LocalJobStore.get(this).put(alert, now + remainingMs);
+                break;
+        }
     }
 
     /**
@@ -75,34 +187,60 @@ public class MyFirebaseMessagingService extends FirebaseMessagingService {
      * - If screen is OFF/LOCKED: Activity launches automatically (full screen)
      * - If screen is ON and user is using phone: Shows heads-up notification
      * 
-     * The JobAlertActivity handles the sound and vibration when it opens.
-     * We also trigger vibration here as backup.
+     * Vibration, sound and screen wake go through {@link AlertEffects}: the
+     * push buzzes once here, the JobAlertActivity rings when it opens.
+     * 
+     * Bursts: only the first job of a burst wakes the device, vibrates and
+     * carries the full-screen intent. Jobs arriving within the coalescing window
+     * join the alert stack and the grouped notification silently.
+     *
+     * @param remainingMs how long the job is still open; the notification and
+     *                    the activity both go away after that
      */
-    private void showJobAlertNotification(Map<String, String> data) {
-        // First, ensure notification channel exists
-        createJobAlertChannel();
+    private void showJobAlertNotification(JobAlert alert, long remainingMs) {
+        // First, ensure notification channel exists (no-op after the first push)
+        NotificationChannels.ensureRegistered(this);
         
-        // Wake up the device
-        wakeUpDevice();
+        JobAlertQueue queue = JobAlertQueue.getInstance();
+        boolean leading = COALESCER.onJobArrived(clock.getAsLong(), !queue.isEmpty());
         
-        // Start vibration immediately (activity will also vibrate)
-        startVibration();
+        AlertEffects effects = AlertEffects.get(this);
+        if (leading) {
+            // Decode the alarm now so it is ready by the time the alert screen asks for it
+            AlertSoundEngine.get(this).prewarm();
+            
+            // Open the connection an Accept would use while the helper reads the alert
+            if (AcceptJobReceiver.canClaimNatively(this)) {
+                AcceptJobReceiver.prewarm(this);
+            }
+            
+            // Buzz now and turn the screen on if it is off
+            effects.onAlert(alert.getJobId(), remainingMs, true, !isScreenOn());
+        } else {
+            HLog.d(TAG, "Job joins current burst - no extra wakeup");
+            // Still tracked, so effects run until this job is answered or expires too
+            effects.onAlert(alert.getJobId(), remainingMs, false, false);
+        }
         
-        // Extract job data
-        String jobId = data.get("jobId");
-        if (jobId == null) jobId = data.get("job_id");
-        String title = data.get("title");
-        String description = data.get("description");
-        String price = data.get("price");
-        String location = data.get("location");
-        String customerName = data.get("customerName");
-        if (customerName == null) customerName = data.get("customer_name");
-        String urgency = data.get("urgency");
+        String jobId = alert.getJobId();
+        String title = alert.getTitle();
+        String body = alert.getSummary();
+        String description = alert.getDescription();
         
-        if (title == null) title = "New Job Alert!";
-        String body = "₹" + (price != null ? price : "0") + " • " + (location != null ? location : "Nearby");
+        NotificationManager notificationManager = 
+            (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
         
-        Log.d(TAG, "Job: " + title + " - " + body);
+        // Each job gets its own notification ID so a second job never overwrites the first
+        List<JobAlertQueue.Entry> evicted = new ArrayList<>(0);
+        JobAlertQueue.Entry entry = queue.add(
+            alert, clock.getAsLong() + remainingMs, evicted);
+        int notificationId = entry.notificationId;
+        for (JobAlertQueue.Entry old : evicted) {
+            effects.onDone(old.alert.getJobId());
+            if (notificationManager != null) {
+                notificationManager.cancel(old.notificationId);
+            }
+        }
         
         // Create intent for JobAlertActivity
         Intent fullScreenIntent = new Intent(this, JobAlertActivity.class);
@@ -110,20 +248,12 @@ public class MyFirebaseMessagingService extends FirebaseMessagingService {
                                   Intent.FLAG_ACTIVITY_CLEAR_TOP |
                                   Intent.FLAG_ACTIVITY_SINGLE_TOP |
                                   Intent.FLAG_ACTIVITY_NO_USER_ACTION);
-        fullScreenIntent.putExtra("jobId", jobId);
-        fullScreenIntent.putExtra("title", title);
-        fullScreenIntent.putExtra("description", description);
-        fullScreenIntent.putExtra("price", price);
-        fullScreenIntent.putExtra("location", location);
-        fullScreenIntent.putExtra("customerName", customerName);
-        fullScreenIntent.putExtra("urgency", urgency);
-        
-        // Use unique request code based on jobId to avoid PendingIntent collisions
-        int requestCode = jobId != null ? jobId.hashCode() : (int) System.currentTimeMillis();
+        JobAlertActivity.putAlertExtras(fullScreenIntent, entry);
         
+        // Request codes derive from the notification ID, so they never collide across jobs
         PendingIntent fullScreenPendingIntent = PendingIntent.getActivity(
             this,
-            requestCode,
+            JobAlertQueue.requestCode(notificationId, JobAlertQueue.SLOT_FULL_SCREEN),
             fullScreenIntent,
             PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
         );
@@ -131,7 +261,7 @@ public class MyFirebaseMessagingService extends FirebaseMessagingService {
         // Content intent (when user taps notification)
         PendingIntent contentIntent = PendingIntent.getActivity(
             this,
-            requestCode + 1,
+            JobAlertQueue.requestCode(notificationId, JobAlertQueue.SLOT_CONTENT),
             fullScreenIntent,
             PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
         );
@@ -143,7 +273,7 @@ public class MyFirebaseMessagingService extends FirebaseMessagingService {
         }
         
         // Build the notification
-        NotificationCompat.Builder builder = new NotificationCompat.Builder(this, JOB_ALERT_CHANNEL)
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(this, NotificationChannels.JOB_ALERTS)
             .setSmallIcon(R.mipmap.ic_launcher)
             .setContentTitle("🚨 " + title)
             .setContentText(body)
@@ -154,143 +284,181 @@ public class MyFirebaseMessagingService extends FirebaseMessagingService {
             .setCategory(NotificationCompat.CATEGORY_CALL) // Treat like incoming call
             .setVisibility(NotificationCompat.VISIBILITY_PUBLIC)
             .setContentIntent(contentIntent)
-            .setFullScreenIntent(fullScreenPendingIntent, true) // KEY: This triggers the activity
-            .setSound(alarmSound)
-            .setVibrate(new long[]{0, 1000, 500, 1000, 500, 1000})
-            .setLights(Color.RED, 500, 500)
+            .setGroup(JobAlertNotifications.GROUP)
             .setAutoCancel(false) // Don't auto-cancel - user must interact
             .setOngoing(true) // Can't be swiped away
-            .setTimeoutAfter(60000); // Auto-dismiss after 60 seconds
+            .setTimeoutAfter(remainingMs); // Auto-dismiss when the job expires
+        
+        if (leading) {
+            builder
+                .setFullScreenIntent(fullScreenPendingIntent, true) // KEY: This triggers the activity
+                .setSound(alarmSound)
+                .setVibrate(NotificationChannels.JOB_ALERT_VIBRATION)
+                .setLights(Color.RED, 500, 500);
+        } else {
+            // The alert screen already on display picks this job up from the queue
+            builder.setSilent(true);
+        }
         
         // Add action buttons directly on notification
-        Intent acceptIntent = new Intent(this, MainActivity.class);
-        acceptIntent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
-        acceptIntent.putExtra("openJob", jobId);
-        acceptIntent.putExtra("action", "accept");
-        PendingIntent acceptPendingIntent = PendingIntent.getActivity(this, requestCode + 2, acceptIntent, 
-            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+        // With a session, ACCEPT claims the job natively; otherwise the web app accepts it
+        PendingIntent acceptPendingIntent;
+        if (AcceptJobReceiver.canClaimNatively(this)) {
+            Intent acceptIntent = AcceptJobReceiver.createIntent(this, jobId, notificationId, title);
+            acceptPendingIntent = PendingIntent.getBroadcast(this,
+                JobAlertQueue.requestCode(notificationId, JobAlertQueue.SLOT_ACCEPT), acceptIntent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+        } else {
+            Intent acceptIntent = new Intent(this, MainActivity.class);
+            acceptIntent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
+            acceptIntent.putExtra("openJob", jobId);
+            acceptIntent.putExtra("action", "accept");
+            acceptPendingIntent = PendingIntent.getActivity(this,
+                JobAlertQueue.requestCode(notificationId, JobAlertQueue.SLOT_ACCEPT), acceptIntent, 
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+        }
         
         Intent rejectIntent = new Intent(this, NotificationDismissReceiver.class);
-        rejectIntent.putExtra("notificationId", JOB_ALERT_NOTIFICATION_ID);
-        PendingIntent rejectPendingIntent = PendingIntent.getBroadcast(this, requestCode + 3, rejectIntent,
+        rejectIntent.putExtra("notificationId", notificationId);
+        rejectIntent.putExtra("jobId", jobId);
+        PendingIntent rejectPendingIntent = PendingIntent.getBroadcast(this,
+            JobAlertQueue.requestCode(notificationId, JobAlertQueue.SLOT_REJECT), rejectIntent,
             PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
         
         builder.addAction(android.R.drawable.ic_menu_send, "✅ ACCEPT", acceptPendingIntent);
         builder.addAction(android.R.drawable.ic_menu_close_clear_cancel, "❌ REJECT", rejectPendingIntent);
         
-        NotificationManager notificationManager = 
-            (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
+        // Optional job photo: only the leading job waits for it, briefly; otherwise
+        // the notification posts as text and the picture is added in place later
+        CompletableFuture<JobImageLoader.JobImage> pendingImage = null;
+        if (alert.getImageUrl() != null) {
+            pendingImage = JobImageLoader.get(this).load(alert.getImageUrl());
+            JobImageLoader.JobImage image = JobImageLoader.await(pendingImage, leading ? IMAGE_DEADLINE_MS : 0);
+            if (image != null) {
+                applyJobImage(builder, image, body);
+                pendingImage = null;
+            }
+        }
         
         if (notificationManager != null) {
-            Log.d(TAG, "Showing notification with fullScreenIntent");
-            notificationManager.notify(JOB_ALERT_NOTIFICATION_ID, builder.build());
+            HLog.d(TAG, leading ? "Showing notification with fullScreenIntent" : "Adding job to alert group");
+            notificationManager.notify(notificationId, builder.build());
+            AlertLatencyTracer.getInstance().mark(
+                jobId, AlertLatencyTracer.STAGE_NOTIFIED, System.currentTimeMillis());
+            JobAlertNotifications.updateSummary(this, notificationManager);
+            
+            if (pendingImage != null) {
+                Context appContext = getApplicationContext();
+                Handler mainHandler = new Handler(Looper.getMainLooper());
+                // The answer receivers run on the main thread too, so an Accept or Reject
+                // can never fall between the re-check and the re-post
+                pendingImage.thenAccept(image -> mainHandler.post(() ->
+                    addJobImageInPlace(appContext, builder, jobId, notificationId, image, body)));
+            }
         }
     }
 
+    private static void applyJobImage(NotificationCompat.Builder builder, JobImageLoader.JobImage image,
+                                      String body) {
+        builder.setLargeIcon(image.icon)
+            .setStyle(new NotificationCompat.BigPictureStyle()
+                .bigPicture(image.picture)
+                .bigLargeIcon((Bitmap) null) // The picture already shows it when expanded
+                .setBigContentTitle("🚨 NEW JOB ALERT")
+                .setSummaryText(body));
+    }
+
     /**
-     * Wake up the device screen
+     * Re-post a job notification that went out as text with its image, unless
+     * the job was answered, expired or evicted meanwhile. Runs on the main
+     * thread, serialized with AcceptJobReceiver and NotificationDismissReceiver.
      */
-    private void wakeUpDevice() {
-        try {
-            PowerManager powerManager = (PowerManager) getSystemService(Context.POWER_SERVICE);
-            if (powerManager != null) {
-                boolean isScreenOn = Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT_WATCH
-                    ? powerManager.isInteractive()
-                    : powerManager.isScreenOn();
-                
-                Log.d(TAG, "Screen is currently: " + (isScreenOn ? "ON" : "OFF"));
-                
-                if (!isScreenOn) {
-                    PowerManager.WakeLock wakeLock = powerManager.newWakeLock(
-                        PowerManager.FULL_WAKE_LOCK |
-                        PowerManager.ACQUIRE_CAUSES_WAKEUP |
-                        PowerManager.ON_AFTER_RELEASE,
-                        "helparo:jobalert"
-                    );
-                    wakeLock.acquire(30 * 1000L); // 30 seconds
-                    Log.d(TAG, "WakeLock acquired to turn on screen");
-                }
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "Error waking up device: " + e.getMessage());
-        }
+    private static void addJobImageInPlace(Context context, NotificationCompat.Builder builder, String jobId,
+                                           int notificationId, JobImageLoader.JobImage image, String body) {
+        if (image == null) return;
+        JobAlertQueue.Entry entry = JobAlertQueue.getInstance().get(jobId);
+        if (entry == null || entry.notificationId != notificationId) return;
+        long remainingMs = entry.dismissAt - clock.getAsLong();
+        if (remainingMs <= 0) return;
+        
+        NotificationManager notificationManager =
+            (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+        if (notificationManager == null) return;
+        
+        applyJobImage(builder, image, body);
+        // An update, not a new alert: no second ring and no second full-screen launch
+        builder.setFullScreenIntent(null, false)
+            .setOnlyAlertOnce(true)
+            .setSilent(true)
+            .setTimeoutAfter(remainingMs);
+        notificationManager.notify(notificationId, builder.build());
+        HLog.d(TAG, "Job image added to notification");
     }
 
     /**
-     * Start vibration pattern for job alert
+     * Quiet notice for a job alert that does not deserve the full-screen path
+     * (expired, or just outside the alert radius): no wake lock, no vibration,
+     * no full-screen intent.
      */
-    private void startVibration() {
-        try {
-            Vibrator vibrator;
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
-                VibratorManager vibratorManager = (VibratorManager) getSystemService(Context.VIBRATOR_MANAGER_SERVICE);
-                vibrator = vibratorManager.getDefaultVibrator();
-            } else {
-                vibrator = (Vibrator) getSystemService(Context.VIBRATOR_SERVICE);
-            }
-            
-            if (vibrator != null && vibrator.hasVibrator()) {
-                // Strong vibration pattern: vibrate 1s, pause 0.5s, repeat 3 times
-                long[] pattern = {0, 1000, 500, 1000, 500, 1000, 500, 1000};
-                
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-                    vibrator.vibrate(VibrationEffect.createWaveform(pattern, -1)); // -1 = don't repeat
-                } else {
-                    vibrator.vibrate(pattern, -1);
-                }
-                Log.d(TAG, "Vibration started");
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "Error starting vibration: " + e.getMessage());
+    private void showQuietJobNotification(JobAlert alert, String titlePrefix) {
+        NotificationChannels.ensureRegistered(this);
+        
+        // Its own ID range, so it can never replace a job alert, regular push or summary
+        int notificationId = RegularNotificationBundler.quietJobId(alert.getJobId());
+        
+        Intent intent = new Intent(this, MainActivity.class);
+        intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
+        intent.putExtra("jobId", alert.getJobId());
+        
+        PendingIntent pendingIntent = PendingIntent.getActivity(
+            this,
+            notificationId,
+            intent,
+            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+        );
+        
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(this, NotificationChannels.DEFAULT)
+            .setSmallIcon(R.mipmap.ic_launcher)
+            .setContentTitle(titlePrefix + alert.getTitle())
+            .setContentText(alert.getSummary())
+            .setPriority(NotificationCompat.PRIORITY_LOW)
+            .setSilent(true)
+            .setAutoCancel(true)
+            .setContentIntent(pendingIntent);
+        
+        NotificationManager notificationManager = 
+            (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
+        
+        if (notificationManager != null) {
+            notificationManager.notify(notificationId, builder.build());
         }
     }
 
     /**
-     * Create the job alert notification channel with high importance
+     * Whether the screen is on; a push only takes the wake lock when it is off
      */
-    private void createJobAlertChannel() {
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            NotificationManager notificationManager = getSystemService(NotificationManager.class);
-            if (notificationManager == null) return;
-            
-            // Delete old channel if exists (to apply new settings)
-            notificationManager.deleteNotificationChannel(JOB_ALERT_CHANNEL);
-            
-            NotificationChannel channel = new NotificationChannel(
-                JOB_ALERT_CHANNEL,
-                "Job Alerts",
-                NotificationManager.IMPORTANCE_HIGH // HIGH allows heads-up and sound
-            );
-            
-            channel.setDescription("Urgent job notifications - shows on lock screen with sound and vibration");
-            channel.enableVibration(true);
-            channel.setVibrationPattern(new long[]{0, 1000, 500, 1000, 500, 1000});
-            channel.enableLights(true);
-            channel.setLightColor(Color.RED);
-            channel.setBypassDnd(true); // Bypass Do Not Disturb
-            channel.setLockscreenVisibility(NotificationCompat.VISIBILITY_PUBLIC);
-            channel.setShowBadge(true);
-            
-            // Set alarm sound
-            Uri alarmSound = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_ALARM);
-            if (alarmSound != null) {
-                AudioAttributes audioAttributes = new AudioAttributes.Builder()
-                    .setUsage(AudioAttributes.USAGE_ALARM)
-                    .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
-                    .build();
-                channel.setSound(alarmSound, audioAttributes);
+    private boolean isScreenOn() {
+        try {
+            PowerManager powerManager = (PowerManager) getSystemService(Context.POWER_SERVICE);
+            if (powerManager != null) {
+                boolean isScreenOn = Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT_WATCH
+                    ? powerManager.isInteractive()
+                    : powerManager.isScreenOn();
+                HLog.d(TAG, "Screen is currently: ", isScreenOn ? "ON" : "OFF");
+                return isScreenOn;
             }
-            
-            notificationManager.createNotificationChannel(channel);
-            Log.d(TAG, "Job alert notification channel created");
+        } catch (Exception e) {
+            HLog.e(TAG, "Error reading screen state", e);
         }
+        return false;
     }
 
     /**
-     * Show regular notification (non-job alerts)
+     * Show regular notification (non-job alerts), updating the one already
+     * shown for the same type and request
      */
     private void showRegularNotification(RemoteMessage remoteMessage) {
-        createDefaultChannel();
+        NotificationChannels.ensureRegistered(this);
         
         String title = "Helparo";
         String body = "";
@@ -310,55 +478,21 @@ public class MyFirebaseMessagingService extends FirebaseMessagingService {
         }
         if (body == null) body = "";
         
-        Intent intent = new Intent(this, MainActivity.class);
-        intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
-        
-        PendingIntent pendingIntent = PendingIntent.getActivity(
-            this, 
-            0, 
-            intent,
-            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-        );
-        
-        NotificationCompat.Builder builder = new NotificationCompat.Builder(this, DEFAULT_CHANNEL)
-            .setSmallIcon(R.mipmap.ic_launcher)
-            .setContentTitle(title)
-            .setContentText(body)
-            .setPriority(NotificationCompat.PRIORITY_HIGH)
-            .setAutoCancel(true)
-            .setContentIntent(pendingIntent);
+        Map<String, String> data = remoteMessage.getData();
+        String type = data.get("type");
+        String requestId = data.get("requestId");
+        if (requestId == null) requestId = data.get("request_id");
         
-        NotificationManager notificationManager = 
-            (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
+        // Per-type rate limits and quiet hours: held-back pushes are collected silently
+        boolean held = PushPolicyStore.get(this).evaluate(type) != PushPolicy.Decision.ALERT;
         
-        if (notificationManager != null) {
-            notificationManager.notify((int) System.currentTimeMillis(), builder.build());
-        }
-    }
-
-    /**
-     * Create default notification channel
-     */
-    private void createDefaultChannel() {
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            NotificationChannel channel = new NotificationChannel(
-                DEFAULT_CHANNEL,
-                "General Notifications",
-                NotificationManager.IMPORTANCE_HIGH
-            );
-            channel.setDescription("General app notifications");
-            
-            NotificationManager notificationManager = getSystemService(NotificationManager.class);
-            if (notificationManager != null) {
-                notificationManager.createNotificationChannel(channel);
-            }
-        }
+        RegularNotifications.show(this, type, requestId, title, body, data, held);
     }
 
     @Override
     public void onNewToken(@NonNull String token) {
         super.onNewToken(token);
-        Log.d(TAG, "FCM Token refreshed: " + token);
+        HLog.d(TAG, "FCM Token refreshed");
         // Token will be picked up by Capacitor Push Notifications plugin
     }
 }
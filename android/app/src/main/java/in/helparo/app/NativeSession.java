@@ -0,0 +1,242 @@
+package in.helparo.app;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.security.keystore.KeyGenParameterSpec;
+import android.security.keystore.KeyProperties;
+import android.util.Base64;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+
+/**
+ * The helper's Supabase session, handed over by the web app through
+ * {@link NativeSessionPlugin} so native components can call the backend
+ * without booting the WebView.
+ *
+ * The state lives in a {@link SessionManager}, persisted in private
+ * SharedPreferences encrypted with an Android Keystore key (so it survives the
+ * process being killed between pushes). An expired token is treated as
+ * absent; native callers then fall back to opening the app.
+ *
+ * Scheduled refreshes only run while the app is in the foreground: the web
+ * app keeps its own copy of the session in cookies, and a token rotated while
+ * it cannot hear about it would be replayed by the server-side middleware.
+ */
+public final class NativeSession {
+
+    private static final String TAG = "NativeSession";
+    private static final String PREFS_NAME = "helparo_native_session";
+    private static final String KEY_STATE = "state";
+    private static final String KEY_ALIAS = "helparo_session";
+    private static final String ANDROID_KEYSTORE = "AndroidKeyStore";
+    private static final int GCM_IV_BYTES = 12;
+
+    private static final int CONNECT_TIMEOUT_MS = 10_000;
+    private static final int READ_TIMEOUT_MS = 15_000;
+
+    /** Wait before retrying a scheduled refresh that could not reach the server */
+    private static final long RETRY_DELAY_MS = 30_000L;
+
+    private static NativeSession instance;
+
+    private final Context context;
+    private final SessionManager manager;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "native-session");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ScheduledFuture<?> scheduledRefresh;
+    private boolean autoRefresh;
+    private volatile Runnable onRefreshed;
+
+    private NativeSession(Context context) {
+        this.context = context;
+        manager = new SessionManager(new KeystoreStore(context), CONNECT_TIMEOUT_MS, READ_TIMEOUT_MS);
+        manager.load();
+    }
+
+    public static synchronized NativeSession get(Context context) {
+        if (instance == null) {
+            instance = new NativeSession(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    public SessionManager getManager() {
+        return manager;
+    }
+
+    /**
+     * Adopt the web app's session
+     *
+     * @param expiresAtMillis token expiry, epoch millis
+     * @param userJson the user object, or null
+     * @return false if native already refreshed past this session
+     */
+    public boolean set(String accessToken, String refreshToken, long expiresAtMillis, String userJson) {
+        boolean adopted = manager.set(accessToken, refreshToken, expiresAtMillis, userJson);
+        synchronized (this) {
+            if (autoRefresh) scheduleLocked(manager.refreshDelay(System.currentTimeMillis()));
+        }
+        return adopted;
+    }
+
+    public void clear() {
+        manager.clear();
+        synchronized (this) {
+            cancelLocked();
+        }
+    }
+
+    /**
+     * @return a token that is valid for at least a few more seconds, or null
+     */
+    public String getAccessToken() {
+        return manager.getAccessToken(System.currentTimeMillis());
+    }
+
+    /**
+     * Called on the scheduler thread after a scheduled refresh, so the web app can adopt the new session
+     */
+    public void setOnRefreshed(Runnable listener) {
+        onRefreshed = listener;
+    }
+
+    /**
+     * Keep the token fresh while the app is in the foreground
+     */
+    public synchronized void startAutoRefresh() {
+        autoRefresh = true;
+        scheduleLocked(manager.refreshDelay(System.currentTimeMillis()));
+    }
+
+    public synchronized void stopAutoRefresh() {
+        autoRefresh = false;
+        cancelLocked();
+    }
+
+    private void scheduleLocked(long delayMs) {
+        cancelLocked();
+        if (delayMs < 0) return;
+        scheduledRefresh = scheduler.schedule(this::refreshNow, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelLocked() {
+        if (scheduledRefresh != null) {
+            scheduledRefresh.cancel(false);
+            scheduledRefresh = null;
+        }
+    }
+
+    private void refreshNow() {
+        long retryIn = -1;
+        try {
+            SessionManager.Result result = manager.refresh(null, System.currentTimeMillis());
+            if (result.status == 200) {
+                HLog.d(TAG, "Session refreshed");
+                Runnable listener = onRefreshed;
+                if (listener != null) listener.run();
+                // Answers waiting for a valid token can go now
+                JobResponses.get(context).flush();
+            } else {
+                HLog.w(TAG, "Refresh refused: ", result.status);
+                retryIn = RETRY_DELAY_MS;
+            }
+        } catch (IOException e) {
+            HLog.w(TAG, "Refresh failed: ", e.getMessage());
+            retryIn = RETRY_DELAY_MS;
+        }
+        synchronized (this) {
+            scheduledRefresh = null;
+            if (!autoRefresh) return;
+            long delay = manager.refreshDelay(System.currentTimeMillis());
+            scheduleLocked(retryIn >= 0 && delay >= 0 ? Math.max(delay, retryIn) : delay);
+        }
+    }
+
+    /**
+     * State encrypted with AES-GCM under a non-exportable Keystore key
+     */
+    private static final class KeystoreStore implements SessionManager.Store {
+
+        private final SharedPreferences prefs;
+
+        KeystoreStore(Context context) {
+            prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+            if (prefs.contains("access_token")) {
+                // Plain-text token from older builds; the web app pushes the session again
+                prefs.edit().clear().apply();
+            }
+        }
+
+        @Override
+        public byte[] load() throws IOException {
+            String stored = prefs.getString(KEY_STATE, null);
+            if (stored == null) return null;
+            try {
+                byte[] sealed = Base64.decode(stored, Base64.NO_WRAP);
+                Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+                cipher.init(Cipher.DECRYPT_MODE, key(), new GCMParameterSpec(128, sealed, 0, GCM_IV_BYTES));
+                return cipher.doFinal(sealed, GCM_IV_BYTES, sealed.length - GCM_IV_BYTES);
+            } catch (GeneralSecurityException | IllegalArgumentException e) {
+                // Key gone (restored backup, cleared lock screen): start over
+                throw new IOException("Cannot decrypt session", e);
+            }
+        }
+
+        @Override
+        public void save(byte[] state) throws IOException {
+            try {
+                Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+                cipher.init(Cipher.ENCRYPT_MODE, key());
+                byte[] iv = cipher.getIV();
+                byte[] encrypted = cipher.doFinal(state);
+                byte[] sealed = new byte[iv.length + encrypted.length];
+                System.arraycopy(iv, 0, sealed, 0, iv.length);
+                System.arraycopy(encrypted, 0, sealed, iv.length, encrypted.length);
+                prefs.edit().putString(KEY_STATE, Base64.encodeToString(sealed, Base64.NO_WRAP)).apply();
+            } catch (GeneralSecurityException e) {
+                throw new IOException("Cannot encrypt session", e);
+            }
+        }
+
+        @Override
+        public void clear() {
+            prefs.edit().clear().apply();
+        }
+
+        private static SecretKey key() throws GeneralSecurityException {
+            KeyStore keyStore = KeyStore.getInstance(ANDROID_KEYSTORE);
+            try {
+                keyStore.load(null);
+            } catch (IOException e) {
+                throw new GeneralSecurityException(e);
+            }
+            KeyStore.Entry entry = keyStore.getEntry(KEY_ALIAS, null);
+            if (entry instanceof KeyStore.SecretKeyEntry) {
+                return ((KeyStore.SecretKeyEntry) entry).getSecretKey();
+            }
+            KeyGenerator generator = KeyGenerator.getInstance(KeyProperties.KEY_ALGORITHM_AES, ANDROID_KEYSTORE);
+            generator.init(new KeyGenParameterSpec.Builder(KEY_ALIAS,
+                KeyProperties.PURPOSE_ENCRYPT | KeyProperties.PURPOSE_DECRYPT)
+                .setBlockModes(KeyProperties.BLOCK_MODE_GCM)
+                .setEncryptionPaddings(KeyProperties.ENCRYPTION_PADDING_NONE)
+                .setKeySize(256)
+                .build());
+            return generator.generateKey();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package in.helparo.app;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Native Capacitor Plugin to share the signed-in session with native code
+ * Used by the native one-tap job accept and by supabase-js's auth requests
+ * (src/lib/native-session.ts)
+ */
+@CapacitorPlugin(name = "NativeSession")
+public class NativeSessionPlugin extends Plugin {
+
+    private static final String TAG = "NativeSessionPlugin";
+
+    /** Auth requests block on the network; keep them off Capacitor's shared plugin thread */
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "native-auth");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Override
+    public void load() {
+        NativeSession session = NativeSession.get(getContext());
+        session.setOnRefreshed(() -> notifyListeners("sessionRefreshed", toJs(session.getManager().getSession())));
+        session.startAutoRefresh();
+    }
+
+    @Override
+    protected void handleOnResume() {
+        NativeSession.get(getContext()).startAutoRefresh();
+    }
+
+    @Override
+    protected void handleOnPause() {
+        NativeSession.get(getContext()).stopAutoRefresh();
+    }
+
+    /**
+     * Store the current session: tokens, expiry (Unix seconds, as Supabase
+     * reports it), the user object as JSON, and the project URL and anon key
+     * needed to refresh it
+     */
+    @PluginMethod
+    public void setSession(PluginCall call) {
+        String accessToken = call.getString("accessToken");
+        Long expiresAt = call.getLong("expiresAt");
+        if (accessToken == null || accessToken.isEmpty()) {
+            call.reject("accessToken is required");
+            return;
+        }
+
+        String supabaseUrl = call.getString("supabaseUrl");
+        String anonKey = call.getString("anonKey");
+        NativeSession session = NativeSession.get(getContext());
+        if (supabaseUrl != null && supabaseUrl.startsWith("https://") && anonKey != null) {
+            session.getManager().configure(supabaseUrl, anonKey);
+        }
+        boolean adopted = session.set(accessToken, call.getString("refreshToken"),
+            expiresAt != null ? expiresAt * 1000L : 0, call.getString("user"));
+        // Answers queued while signed out (or with an expired token) can go now
+        JobResponses.get(getContext()).flush();
+        JSObject ret = new JSObject();
+        ret.put("success", true);
+        // Native refreshed past this session; the web app should take ours
+        ret.put("stale", !adopted);
+        call.resolve(ret);
+    }
+
+    /**
+     * The stored session, without a network request. Empty when signed out.
+     */
+    @PluginMethod
+    public void getSession(PluginCall call) {
+        call.resolve(toJs(NativeSession.get(getContext()).getManager().getSession()));
+    }
+
+    /**
+     * Forget the session (sign out)
+     */
+    @PluginMethod
+    public void clearSession(PluginCall call) {
+        NativeSession.get(getContext()).clear();
+        // Cached pages and reads belonged to the signed-in user
+        CachingWebViewClient.getLoader(getContext()).clearDocuments();
+        RestCachePlugin.getCache(getContext()).clear();
+        RegularNotifications.clear();
+        JSObject ret = new JSObject();
+        ret.put("success", true);
+        call.resolve(ret);
+    }
+
+    /**
+     * Answer a supabase-js auth request natively: GET /auth/v1/user from the
+     * stored user, and refresh-token grants through the shared single-flight
+     * refresh. Resolves with handled = false for anything else.
+     */
+    @PluginMethod
+    public void authFetch(PluginCall call) {
+        String url = call.getString("url", "");
+        String method = call.getString("method", "GET");
+        SessionManager manager = NativeSession.get(getContext()).getManager();
+        String authUrl = manager.getAuthUrl();
+
+        boolean isUser = authUrl != null && url.equals(authUrl + SessionManager.USER_PATH) && "GET".equals(method);
+        boolean isRefresh = authUrl != null && url.equals(authUrl + SessionManager.TOKEN_PATH) && "POST".equals(method);
+        if (!isUser && !isRefresh) {
+            JSObject ret = new JSObject();
+            ret.put("handled", false);
+            call.resolve(ret);
+            return;
+        }
+
+        EXECUTOR.execute(() -> {
+            try {
+                SessionManager.Result result;
+                long now = System.currentTimeMillis();
+                if (isUser) {
+                    // Header names arrive lower-cased from the Headers object in JS
+                    String authorization = call.getObject("headers", new JSObject()).optString("authorization", "");
+                    if (!authorization.regionMatches(true, 0, "Bearer ", 0, 7)) {
+                        JSObject ret = new JSObject();
+                        ret.put("handled", false);
+                        call.resolve(ret);
+                        return;
+                    }
+                    result = manager.getUser(authorization.substring(7), now);
+                } else {
+                    String body = call.getString("body", "");
+                    result = manager.refresh(SessionManager.jsonString(body, "refresh_token"), now);
+                }
+                JSObject ret = new JSObject();
+                ret.put("handled", true);
+                ret.put("status", result.status);
+                ret.put("body", result.body);
+                ret.put("fromCache", result.fromCache);
+                call.resolve(ret);
+            } catch (IOException e) {
+                HLog.w(TAG, "Native auth request failed: ", e.getMessage());
+                call.reject("Request failed: " + e.getMessage());
+            }
+        });
+    }
+
+    @PluginMethod
+    public void getStats(PluginCall call) {
+        SessionManager manager = NativeSession.get(getContext()).getManager();
+        JSObject ret = new JSObject();
+        ret.put("refreshes", manager.getRefreshes());
+        ret.put("refreshesShared", manager.getRefreshesShared());
+        ret.put("refreshesAvoided", manager.getRefreshesAvoided());
+        ret.put("userHits", manager.getUserHits());
+        ret.put("userFetches", manager.getUserFetches());
+        call.resolve(ret);
+    }
+
+    private static JSObject toJs(SessionManager.Session session) {
+        JSObject ret = new JSObject();
+        if (session == null) return ret;
+        ret.put("accessToken", session.accessToken);
+        ret.put("refreshToken", session.refreshToken);
+        ret.put("expiresAt", session.expiresAt / 1000);
+        if (session.userJson != null) ret.put("user", session.userJson);
+        return ret;
+    }
+}
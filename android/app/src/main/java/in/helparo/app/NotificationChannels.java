@@ -0,0 +1,199 @@
+package in.helparo.app;
+
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.graphics.Color;
+import android.media.AudioAttributes;
+import android.media.RingtoneManager;
+import android.net.Uri;
+import android.os.Build;
+
+import java.util.Arrays;
+
+/**
+ * Single registry for every notification channel the app posts to.
+ *
+ * Each channel is declared once below together with a version hash of its
+ * settings. {@link #ensureRegistered(Context)} only talks to NotificationManager
+ * when a channel's version differs from the one recorded in SharedPreferences,
+ * so MainActivity and the FCM service can both call it freely without repeated
+ * binder calls or the two of them overwriting each other's settings.
+ *
+ * Note: once a channel exists Android only lets the app update its name,
+ * description and (lower) importance - sound, vibration and lights belong to
+ * the user. The channel is therefore never deleted and re-created; a changed
+ * version just re-applies what the system allows.
+ */
+public final class NotificationChannels {
+
+    private static final String TAG = "NotificationChannels";
+    private static final String PREFS_NAME = "helparo_notification_channels";
+
+    public static final String DEFAULT = "default";
+    public static final String JOB_ALERTS = "job_alerts";
+    public static final String SOS_ALERTS = "sos_alerts";
+    /** Per-type channels the server targets; see {@link RegularNotificationBundler#channelFor} */
+    public static final String JOB_UPDATES = RegularNotificationBundler.CHANNEL_JOB_UPDATES;
+    public static final String PAYMENTS = RegularNotificationBundler.CHANNEL_PAYMENTS;
+    /** Regular pushes held back by {@link PushPolicy}: no sound, no heads-up */
+    public static final String HELD_UPDATES = "held_updates";
+
+    static final long[] JOB_ALERT_VIBRATION = {0, 1000, 500, 1000, 500, 1000};
+
+    private static final int SOUND_DEFAULT = 0;
+    private static final int SOUND_ALARM = 1;
+
+    private static final Spec[] CHANNELS = {
+        new Spec(DEFAULT, "General Notifications", "General app notifications",
+            NotificationManager.IMPORTANCE_HIGH)
+            .sound(SOUND_DEFAULT),
+        new Spec(JOB_ALERTS, "Job Alerts",
+            "Urgent job notifications - shows on lock screen with sound and vibration",
+            NotificationManager.IMPORTANCE_HIGH)
+            .vibration(JOB_ALERT_VIBRATION)
+            .lights(Color.RED)
+            .bypassDnd()
+            .sound(SOUND_ALARM),
+        new Spec(SOS_ALERTS, "SOS Emergency Alerts", "Emergency SOS alerts",
+            NotificationManager.IMPORTANCE_HIGH)
+            .vibration(new long[]{0, 1000, 500, 1000, 500, 1000})
+            .bypassDnd()
+            .sound(SOUND_DEFAULT),
+        new Spec(JOB_UPDATES, "Booking Updates",
+            "Helpers applying, arriving and finishing work on your bookings",
+            NotificationManager.IMPORTANCE_HIGH)
+            .sound(SOUND_DEFAULT),
+        new Spec(PAYMENTS, "Payments", "Payments due and money credited to your wallet",
+            NotificationManager.IMPORTANCE_DEFAULT)
+            .sound(SOUND_DEFAULT),
+        new Spec(HELD_UPDATES, "Quiet Updates",
+            "Updates that arrived during quiet hours or in a burst, collected silently",
+            NotificationManager.IMPORTANCE_LOW),
+    };
+
+    /** Set once per process so the hot path is a single volatile read */
+    private static volatile boolean registered;
+
+    private NotificationChannels() {
+    }
+
+    /**
+     * Make sure every declared channel exists with its current settings.
+     * Cheap after the first call in a process.
+     */
+    public static void ensureRegistered(Context context) {
+        if (registered) return;
+        synchronized (NotificationChannels.class) {
+            if (registered) return;
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                register(context.getApplicationContext());
+            }
+            registered = true;
+        }
+    }
+
+    private static void register(Context context) {
+        NotificationManager notificationManager = context.getSystemService(NotificationManager.class);
+        if (notificationManager == null) return;
+
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        SharedPreferences.Editor editor = null;
+
+        for (Spec spec : CHANNELS) {
+            int version = spec.version();
+            if (prefs.getInt(spec.id, 0) == version) continue;
+
+            notificationManager.createNotificationChannel(spec.build());
+            if (editor == null) editor = prefs.edit();
+            editor.putInt(spec.id, version);
+            HLog.d(TAG, "Channel registered: ", spec.id);
+        }
+
+        if (editor != null) editor.apply();
+    }
+
+    /**
+     * Declarative channel settings. Everything that goes into the NotificationChannel
+     * also goes into {@link #version()}.
+     */
+    private static final class Spec {
+        final String id;
+        final String name;
+        final String description;
+        final int importance;
+        long[] vibrationPattern;
+        int lightColor;
+        boolean lights;
+        boolean bypassDnd;
+        int sound = SOUND_DEFAULT;
+
+        Spec(String id, String name, String description, int importance) {
+            this.id = id;
+            this.name = name;
+            this.description = description;
+            this.importance = importance;
+        }
+
+        Spec vibration(long[] pattern) {
+            this.vibrationPattern = pattern;
+            return this;
+        }
+
+        Spec lights(int color) {
+            this.lights = true;
+            this.lightColor = color;
+            return this;
+        }
+
+        Spec bypassDnd() {
+            this.bypassDnd = true;
+            return this;
+        }
+
+        Spec sound(int sound) {
+            this.sound = sound;
+            return this;
+        }
+
+        int version() {
+            int hash = Arrays.hashCode(new Object[]{id, name, description, importance,
+                lights, lightColor, bypassDnd, sound});
+            hash = 31 * hash + Arrays.hashCode(vibrationPattern);
+            // 0 means "never registered" in prefs
+            return hash != 0 ? hash : 1;
+        }
+
+        NotificationChannel build() {
+            NotificationChannel channel = new NotificationChannel(id, name, importance);
+            channel.setDescription(description);
+            channel.setLockscreenVisibility(Notification.VISIBILITY_PUBLIC);
+            channel.setShowBadge(true);
+
+            if (vibrationPattern != null) {
+                channel.enableVibration(true);
+                channel.setVibrationPattern(vibrationPattern);
+            }
+            if (lights) {
+                channel.enableLights(true);
+                channel.setLightColor(lightColor);
+            }
+            if (bypassDnd) {
+                channel.setBypassDnd(true);
+            }
+            if (sound == SOUND_ALARM) {
+                Uri alarmSound = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_ALARM);
+                if (alarmSound != null) {
+                    AudioAttributes audioAttributes = new AudioAttributes.Builder()
+                        .setUsage(AudioAttributes.USAGE_ALARM)
+                        .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
+                        .build();
+                    channel.setSound(alarmSound, audioAttributes);
+                }
+            }
+            return channel;
+        }
+    }
+}
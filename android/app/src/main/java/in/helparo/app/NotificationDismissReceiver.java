@@ -1,15 +1,11 @@
 package in.helparo.app;
 
-import android.app.NotificationManager;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
-import android.os.Vibrator;
-import android.os.VibratorManager;
-import android.os.Build;
 
 /**
- * BroadcastReceiver to dismiss notification and stop vibration when user rejects a job
+ * BroadcastReceiver to dismiss notification and stop the alert when user rejects a job
  */
 public class NotificationDismissReceiver extends BroadcastReceiver {
     
@@ -17,28 +13,18 @@ public class NotificationDismissReceiver extends BroadcastReceiver {
     public void onReceive(Context context, Intent intent) {
         int notificationId = intent.getIntExtra("notificationId", 0);
         
-        // Dismiss the notification
-        NotificationManager notificationManager = 
-            (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
-        if (notificationManager != null) {
-            notificationManager.cancel(notificationId);
+        // Drop exactly this job from the alert stack
+        String jobId = intent.getStringExtra("jobId");
+        if (JobAlertQueue.getInstance().remove(jobId) != null) {
+            AlertLatencyTracer.getInstance().mark(
+                jobId, AlertLatencyTracer.STAGE_ANSWERED, System.currentTimeMillis());
         }
+        // Sound, vibration and screen wake stop once no other job is waiting
+        AlertEffects.get(context).onDone(jobId);
+        // Tell the backend (durably, off this thread); that also drops the local copy
+        JobResponses.get(context).decline(jobId);
         
-        // Stop any ongoing vibration
-        try {
-            Vibrator vibrator;
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
-                VibratorManager vibratorManager = (VibratorManager) context.getSystemService(Context.VIBRATOR_MANAGER_SERVICE);
-                vibrator = vibratorManager.getDefaultVibrator();
-            } else {
-                vibrator = (Vibrator) context.getSystemService(Context.VIBRATOR_SERVICE);
-            }
-            
-            if (vibrator != null) {
-                vibrator.cancel();
-            }
-        } catch (Exception e) {
-            // Ignore
-        }
+        // Dismiss the notification (and refresh the group summary)
+        JobAlertNotifications.cancel(context, notificationId);
     }
 }
@@ -0,0 +1,123 @@
+package in.helparo.app;
+
+import android.content.Context;
+import android.util.AtomicFile;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process-wide {@link PushDedupeCache} backed by a small file in no-backup storage.
+ *
+ * FCM redelivers messages after the process was killed, so the index is loaded
+ * on first use and written back (atomically) shortly after a new message is
+ * recorded. The lookup itself stays in memory; the write happens on a
+ * background thread, at most once per {@link #SAVE_DELAY_MS}, so disk I/O is
+ * never on the way to the notification.
+ */
+public final class PushDedupeStore {
+
+    private static final String TAG = "PushDedupeStore";
+    private static final String FILE_NAME = "push_dedupe.bin";
+
+    /** Enough for a very busy day of pushes; 256 * 16 bytes on disk */
+    private static final int MAX_ENTRIES = 256;
+
+    /** Longer than any push TTL we send (job alerts: 30-60s, FCM retries: minutes) */
+    private static final long TTL_MS = 15 * 60 * 1000L;
+
+    /** New entries are batched into one write this long after the first of them */
+    private static final long SAVE_DELAY_MS = 500;
+
+    private static PushDedupeStore instance;
+
+    private final AtomicFile file;
+    private final PushDedupeCache cache = new PushDedupeCache(MAX_ENTRIES, TTL_MS);
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "push-dedupe");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** Whether a write is already scheduled; guarded by this */
+    private boolean saveScheduled;
+
+    private PushDedupeStore(Context context) {
+        file = new AtomicFile(new File(context.getNoBackupFilesDir(), FILE_NAME));
+        load();
+    }
+
+    public static synchronized PushDedupeStore get(Context context) {
+        if (instance == null) {
+            instance = new PushDedupeStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * @return true if (type, id) was already handled recently and should be dropped
+     */
+    public boolean isDuplicate(String type, String id) {
+        return isDuplicate(type, id, 0);
+    }
+
+    /**
+     * @param notAfterMillis the entry is forgotten at this time if it comes before
+     *                       the usual TTL (e.g. the job's expiry); 0 for the TTL only
+     * @return true if (type, id) was already handled recently and should be dropped
+     */
+    public boolean isDuplicate(String type, String id, long notAfterMillis) {
+        if (id == null || id.isEmpty()) return false;
+
+        if (cache.checkAndMark(type, id, System.currentTimeMillis(), notAfterMillis)) {
+            HLog.d(TAG, "Duplicate push dropped, hits=", cache.getHits());
+            return true;
+        }
+        scheduleSave();
+        return false;
+    }
+
+    public long getHits() {
+        return cache.getHits();
+    }
+
+    public long getMisses() {
+        return cache.getMisses();
+    }
+
+    private void load() {
+        if (!file.getBaseFile().exists()) return;
+        try (FileInputStream in = file.openRead()) {
+            cache.readFrom(in, System.currentTimeMillis());
+        } catch (IOException e) {
+            HLog.w(TAG, "Could not restore dedupe index: ", e.getMessage());
+        }
+    }
+
+    private synchronized void scheduleSave() {
+        if (saveScheduled) return;
+        saveScheduled = true;
+        writer.schedule(this::save, SAVE_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /** Runs on the writer thread only */
+    private void save() {
+        synchronized (this) {
+            saveScheduled = false;
+        }
+        FileOutputStream out = null;
+        try {
+            out = file.startWrite();
+            cache.writeTo(out, System.currentTimeMillis());
+            file.finishWrite(out);
+        } catch (IOException e) {
+            if (out != null) file.failWrite(out);
+            HLog.w(TAG, "Could not persist dedupe index: ", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package in.helparo.app;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+/**
+ * Native Capacitor Plugin to configure quiet hours for regular pushes and read the push policy counts
+ * Used by the notification preferences screen
+ */
+@CapacitorPlugin(name = "PushPolicy")
+public class PushPolicyPlugin extends Plugin {
+
+    /**
+     * Apply quiet hours ({ enabled, start: "22:00", end: "07:00", timezone })
+     */
+    @PluginMethod
+    public void setQuietHours(PluginCall call) {
+        boolean enabled = call.getBoolean("enabled", false);
+        int start = parseMinute(call.getString("start"));
+        int end = parseMinute(call.getString("end"));
+        if (enabled && (start < 0 || end < 0)) {
+            call.reject("start and end must be HH:mm");
+            return;
+        }
+
+        PushPolicyStore.get(getContext()).setQuietHours(
+            enabled, Math.max(start, 0), Math.max(end, 0), call.getString("timezone"));
+        JSObject ret = new JSObject();
+        ret.put("success", true);
+        call.resolve(ret);
+    }
+
+    /**
+     * How many regular pushes alerted, and how many were held back and why
+     */
+    @PluginMethod
+    public void getStats(PluginCall call) {
+        PushPolicy policy = PushPolicyStore.get(getContext()).getPolicy();
+        JSObject ret = new JSObject();
+        ret.put("alerted", policy.getAlerted());
+        ret.put("quiet", policy.getQuieted());
+        ret.put("overLimit", policy.getOverLimit());
+        ret.put("quietHoursEnabled", policy.isQuietEnabled());
+        ret.put("quietHoursActive", policy.isQuietAt(System.currentTimeMillis()));
+        ret.put("timezone", policy.getTimeZoneId());
+        call.resolve(ret);
+    }
+
+    /**
+     * "HH:mm" to minutes after midnight, or -1 if malformed
+     */
+    static int parseMinute(String value) {
+        if (value == null) return -1;
+        int colon = value.indexOf(':');
+        if (colon < 1) return -1;
+        try {
+            int hours = Integer.parseInt(value.substring(0, colon));
+            int minutes = Integer.parseInt(value.substring(colon + 1));
+            if (hours < 0 || hours > 23 || minutes < 0 || minutes > 59) return -1;
+            return hours * 60 + minutes;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package in.helparo.app;
+
+import android.content.Context;
+import android.util.AtomicFile;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.TimeZone;
+
+/**
+ * Process-wide {@link PushPolicy} backed by a small file in no-backup storage.
+ *
+ * Pushes usually start a fresh process, so the buckets are loaded on first
+ * use and written back (atomically) after every decision.
+ */
+public final class PushPolicyStore {
+
+    private static final String TAG = "PushPolicyStore";
+    private static final String FILE_NAME = "push_policy.bin";
+
+    private static PushPolicyStore instance;
+
+    private final AtomicFile file;
+    private final PushPolicy policy = new PushPolicy(TimeZone.getDefault());
+
+    private PushPolicyStore(Context context) {
+        file = new AtomicFile(new File(context.getNoBackupFilesDir(), FILE_NAME));
+        load();
+    }
+
+    public static synchronized PushPolicyStore get(Context context) {
+        if (instance == null) {
+            instance = new PushPolicyStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Decide whether a regular push of this type may alert
+     */
+    public PushPolicy.Decision evaluate(String type) {
+        PushPolicy.Decision decision = policy.evaluate(type, System.currentTimeMillis());
+        save();
+        if (decision != PushPolicy.Decision.ALERT) {
+            HLog.d(TAG, "Push held back: ", decision);
+        }
+        return decision;
+    }
+
+    /**
+     * Apply the helper's quiet hours from their notification preferences
+     */
+    public void setQuietHours(boolean enabled, int startMinute, int endMinute, String timeZoneId) {
+        policy.setQuietHours(enabled, startMinute, endMinute,
+            timeZoneId != null ? TimeZone.getTimeZone(timeZoneId) : null);
+        save();
+    }
+
+    public PushPolicy getPolicy() {
+        return policy;
+    }
+
+    private void load() {
+        if (!file.getBaseFile().exists()) return;
+        try (FileInputStream in = file.openRead()) {
+            policy.readFrom(in);
+        } catch (IOException e) {
+            HLog.w(TAG, "Could not restore push policy: ", e.getMessage());
+        }
+    }
+
+    private synchronized void save() {
+        FileOutputStream out = null;
+        try {
+            out = file.startWrite();
+            policy.writeTo(out);
+            file.finishWrite(out);
+        } catch (IOException e) {
+            if (out != null) file.failWrite(out);
+            HLog.w(TAG, "Could not persist push policy: ", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package in.helparo.app;
+
+import android.app.Notification;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.service.notification.StatusBarNotification;
+
+import androidx.core.app.NotificationCompat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Posts regular (non job alert) pushes, grouped per type.
+ *
+ * Each (type, requestId) has one stable notification that later pushes update
+ * in place without alerting again (see {@link RegularNotificationBundler}).
+ * While a type has two or more notifications in the shade, a silent InboxStyle
+ * summary heads its group. Pushes held back by {@link PushPolicy} go to a
+ * separate quiet group with its own summary instead.
+ */
+final class RegularNotifications {
+
+    /** Group and summary for regular pushes held back by {@link PushPolicy} */
+    static final String HELD_GROUP = "helparo_held_updates";
+    static final int HELD_SUMMARY_ID = 998;
+
+    /** InboxStyle shows at most this many lines on most launchers */
+    private static final int MAX_SUMMARY_LINES = 5;
+
+    private static final RegularNotificationBundler BUNDLER = new RegularNotificationBundler();
+
+    private RegularNotifications() {
+    }
+
+    /**
+     * Post or update the notification for one push
+     *
+     * @param held true if {@link PushPolicy} did not let it alert
+     */
+    static void show(Context context, String type, String requestId, String title, String body,
+                     Map<String, String> data, boolean held) {
+        NotificationManager notificationManager =
+            (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+        if (notificationManager == null) return;
+
+        RegularNotificationBundler.Update update = BUNDLER.add(type, requestId, title, body, data);
+
+        Intent intent = new Intent(context, MainActivity.class);
+        intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
+        intent.putExtra("type", type);
+        intent.putExtra("requestId", requestId);
+        // One request code per notification so taps keep their own extras
+        PendingIntent pendingIntent = PendingIntent.getActivity(
+            context, update.getId(), intent, PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(
+                context, held ? NotificationChannels.HELD_UPDATES : update.getChannel())
+            .setSmallIcon(R.mipmap.ic_launcher)
+            .setContentTitle(update.getTitle())
+            .setContentText(update.getText())
+            .setAutoCancel(true)
+            .setOnlyAlertOnce(true) // A new bid updates the entry, it does not ring again
+            .setContentIntent(pendingIntent);
+        if (update.getCount() > 1) {
+            builder.setNumber(update.getCount());
+        }
+        if (held) {
+            builder.setPriority(NotificationCompat.PRIORITY_LOW)
+                .setSilent(true)
+                .setGroup(HELD_GROUP);
+        } else {
+            builder.setPriority(PushPolicy.ruleFor(type).isHighPriority()
+                    ? NotificationCompat.PRIORITY_HIGH : NotificationCompat.PRIORITY_DEFAULT)
+                .setGroup(update.getGroup());
+        }
+
+        notificationManager.notify(update.getId(), builder.build());
+        // The update may also have moved the entry out of the other group
+        updateSummaries(context, notificationManager, type);
+    }
+
+    /** Forget bundled counts and prices, e.g. on sign-out */
+    static void clear() {
+        BUNDLER.clear();
+    }
+
+    /**
+     * Refresh the held summary and the summary of this type's group from one
+     * look at the shade
+     */
+    private static void updateSummaries(Context context, NotificationManager notificationManager, String type) {
+        String group = RegularNotificationBundler.groupFor(type);
+        int summaryId = RegularNotificationBundler.summaryIdFor(type);
+
+        List<CharSequence> heldLines = new ArrayList<>();
+        List<CharSequence> typeLines = new ArrayList<>();
+        for (StatusBarNotification posted : notificationManager.getActiveNotifications()) {
+            Notification notification = posted.getNotification();
+            if ((notification.flags & Notification.FLAG_GROUP_SUMMARY) != 0) continue;
+            if (HELD_GROUP.equals(notification.getGroup())) {
+                // Mixed types: the title says what it is
+                CharSequence line = notification.extras.getCharSequence(Notification.EXTRA_TITLE);
+                if (line != null) heldLines.add(line);
+            } else if (group.equals(notification.getGroup())) {
+                // One type: the titles repeat, the text tells them apart
+                CharSequence line = notification.extras.getCharSequence(Notification.EXTRA_TEXT);
+                if (line == null) line = notification.extras.getCharSequence(Notification.EXTRA_TITLE);
+                if (line != null) typeLines.add(line);
+            }
+        }
+
+        updateSummary(context, notificationManager, heldLines, HELD_SUMMARY_ID, HELD_GROUP,
+            NotificationChannels.HELD_UPDATES, heldLines.size() + " updates");
+        updateSummary(context, notificationManager, typeLines, summaryId, group,
+            RegularNotificationBundler.channelFor(type),
+            RegularNotificationBundler.summaryTitle(type, typeLines.size()));
+    }
+
+    private static void updateSummary(Context context, NotificationManager notificationManager,
+                                      List<CharSequence> lines, int summaryId, String group,
+                                      String channel, String heading) {
+        if (lines.size() < 2) {
+            notificationManager.cancel(summaryId);
+            return;
+        }
+
+        NotificationCompat.InboxStyle style = new NotificationCompat.InboxStyle().setBigContentTitle(heading);
+        for (int i = 0; i < lines.size() && i < MAX_SUMMARY_LINES; i++) {
+            style.addLine(lines.get(i));
+        }
+        if (lines.size() > MAX_SUMMARY_LINES) {
+            style.setSummaryText("+" + (lines.size() - MAX_SUMMARY_LINES) + " more");
+        }
+
+        Intent intent = new Intent(context, MainActivity.class);
+        intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
+        PendingIntent pendingIntent = PendingIntent.getActivity(
+            context, summaryId, intent, PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, channel)
+            .setSmallIcon(R.mipmap.ic_launcher)
+            .setContentTitle(heading)
+            .setContentText(lines.get(0))
+            .setStyle(style)
+            .setGroup(group)
+            .setGroupSummary(true)
+            .setGroupAlertBehavior(NotificationCompat.GROUP_ALERT_CHILDREN)
+            .setSilent(true) // The children already alerted
+            .setOnlyAlertOnce(true)
+            .setPriority(NotificationCompat.PRIORITY_LOW)
+            .setAutoCancel(true)
+            .setContentIntent(pendingIntent);
+        notificationManager.notify(summaryId, builder.build());
+    }
+}
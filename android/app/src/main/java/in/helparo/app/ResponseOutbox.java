@@ -0,0 +1,364 @@
+package in.helparo.app;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Durable queue of the helper's answers to job alerts (accept / decline) that
+ * still have to reach the backend.
+ *
+ * Same file layout as {@link LocalJobLog}: an append-only file of
+ * length-prefixed records, replayed on {@link #open} up to the first torn
+ * record and compacted through a temp file. An answer is on disk before the
+ * first send attempt, so it survives the process being killed on flaky data.
+ *
+ * Every entry carries an idempotency key, and a job has at most one pending
+ * entry per action. Failed sends back off exponentially; entries whose job has
+ * expired are dropped, since the backend would refuse them anyway. Retry state
+ * is kept in memory only - after a restart everything is due at once.
+ *
+ * The current time is always passed in, so ResponseOutboxTest steps through
+ * backoff and expiry without waiting.
+ */
+public final class ResponseOutbox {
+
+    private static final int FILE_MAGIC = 0x48524F31; // "HRO1"
+    private static final byte OP_ADD = 1;
+    private static final byte OP_DONE = 2;
+
+    private static final int MAX_RECORD_BYTES = 16 * 1024;
+
+    public static final byte ACTION_ACCEPT = 1;
+    public static final byte ACTION_DECLINE = 2;
+
+    static final long BASE_BACKOFF_MS = 1_000L;
+    static final long MAX_BACKOFF_MS = 60_000L;
+
+    /**
+     * One pending answer. Retry state is mutated under the outbox lock only.
+     */
+    public static final class Entry {
+        public final String key;
+        public final byte action;
+        public final String jobId;
+        public final int notificationId;
+        public final String title;
+        public final long createdAt;
+        public final long expiresAt;
+
+        int attempts;
+        long nextAttemptAt;
+
+        Entry(String key, byte action, String jobId, int notificationId, String title,
+              long createdAt, long expiresAt) {
+            this.key = key;
+            this.action = action;
+            this.jobId = jobId;
+            this.notificationId = notificationId;
+            this.title = title;
+            this.createdAt = createdAt;
+            this.expiresAt = expiresAt;
+        }
+
+        public int getAttempts() {
+            return attempts;
+        }
+    }
+
+    private final File file;
+    private final int maxEntries;
+
+    /** Insertion order == answer order, so the first entry is the oldest */
+    private final LinkedHashMap<String, Entry> pending = new LinkedHashMap<>();
+    private int deadRecords;
+
+    public ResponseOutbox(File file, int maxEntries) {
+        this.file = file;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Load pending entries, dropping expired ones. Safe to call on a missing or
+     * truncated file.
+     *
+     * @return entries dropped because their job expired
+     */
+    public synchronized List<Entry> open(long nowMillis) throws IOException {
+        pending.clear();
+        deadRecords = 0;
+        boolean torn = false;
+
+        if (file.isFile()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                if (in.readInt() != FILE_MAGIC) {
+                    torn = true;
+                } else {
+                    torn = !replay(in);
+                }
+            } catch (EOFException e) {
+                torn = true;
+            }
+        }
+
+        List<Entry> expired = pruneLocked(nowMillis);
+        if (torn || !expired.isEmpty() || deadRecords > pending.size()) {
+            compactLocked();
+        }
+        return expired;
+    }
+
+    /**
+     * Queue an answer. A second answer of the same kind for the same job
+     * returns the pending entry instead of queueing a duplicate.
+     */
+    public synchronized Entry enqueue(byte action, String jobId, int notificationId, String title,
+                                      long nowMillis, long expiresAt) throws IOException {
+        for (Entry entry : pending.values()) {
+            if (entry.action == action && entry.jobId.equals(jobId)) return entry;
+        }
+        Entry entry = new Entry(UUID.randomUUID().toString(), action, jobId, notificationId,
+            title != null ? title : "", nowMillis, expiresAt);
+        pending.put(entry.key, entry);
+        if (pending.size() > maxEntries) {
+            // Only possible with a dead backend for a long time; the oldest answer matters least
+            Iterator<Entry> oldest = pending.values().iterator();
+            oldest.next();
+            oldest.remove();
+            deadRecords++;
+        }
+        // Indexed first: if the write fails the answer is still sent from memory
+        append(encodeAdd(entry));
+        return entry;
+    }
+
+    /**
+     * Entries whose backoff has elapsed, oldest first. Expired entries are
+     * removed and returned in {@code expiredOut} instead.
+     */
+    public synchronized List<Entry> due(long nowMillis, List<Entry> expiredOut) throws IOException {
+        for (Entry entry : pruneLocked(nowMillis)) {
+            append(encodeDone(entry.key));
+            deadRecords++;
+            expiredOut.add(entry);
+        }
+        List<Entry> due = new ArrayList<>();
+        for (Entry entry : pending.values()) {
+            if (entry.nextAttemptAt <= nowMillis) due.add(entry);
+        }
+        return due;
+    }
+
+    /**
+     * The backend has the answer (or refused it for good)
+     */
+    public synchronized void complete(String key) throws IOException {
+        if (pending.remove(key) == null) return;
+        append(encodeDone(key));
+        deadRecords += 2;
+        if (pending.isEmpty() || deadRecords > Math.max(pending.size(), maxEntries / 2)) {
+            compactLocked();
+        }
+    }
+
+    /**
+     * Sending failed; try this entry again after its backoff
+     *
+     * @return when the entry is due again
+     */
+    public synchronized long retryLater(String key, long nowMillis) {
+        Entry entry = pending.get(key);
+        if (entry == null) return -1;
+        entry.attempts++;
+        entry.nextAttemptAt = nowMillis + backoffMillis(entry.attempts);
+        return entry.nextAttemptAt;
+    }
+
+    /**
+     * Make every entry due now, e.g. when the network comes back
+     */
+    public synchronized void resetBackoff() {
+        for (Entry entry : pending.values()) {
+            entry.nextAttemptAt = 0;
+        }
+    }
+
+    /**
+     * @return the earliest time an entry is due, or -1 if nothing is pending
+     */
+    public synchronized long nextDueAt() {
+        long next = -1;
+        for (Entry entry : pending.values()) {
+            if (next < 0 || entry.nextAttemptAt < next) next = entry.nextAttemptAt;
+        }
+        return next;
+    }
+
+    /**
+     * @return the earliest expiry among pending entries, or -1 if nothing is pending
+     */
+    public synchronized long nextExpiryAt() {
+        long next = -1;
+        for (Entry entry : pending.values()) {
+            if (next < 0 || entry.expiresAt < next) next = entry.expiresAt;
+        }
+        return next;
+    }
+
+    public synchronized int size() {
+        return pending.size();
+    }
+
+    long fileLength() {
+        return file.length();
+    }
+
+    /**
+     * 1s, 2s, 4s ... capped at a minute - jobs expire within minutes, so longer
+     * gaps would only waste the answer
+     */
+    static long backoffMillis(int attempts) {
+        if (attempts <= 0) return 0;
+        int shift = Math.min(attempts - 1, 16);
+        return Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << shift);
+    }
+
+    private List<Entry> pruneLocked(long nowMillis) {
+        List<Entry> expired = new ArrayList<>();
+        Iterator<Entry> it = pending.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (entry.expiresAt <= nowMillis) {
+                it.remove();
+                deadRecords++;
+                expired.add(entry);
+            }
+        }
+        return expired;
+    }
+
+    private boolean replay(DataInputStream in) throws IOException {
+        while (true) {
+            int length;
+            try {
+                length = in.readInt();
+            } catch (EOFException e) {
+                return true; // Clean end of file
+            }
+            if (length <= 0 || length > MAX_RECORD_BYTES) return false;
+
+            byte[] record = new byte[length];
+            try {
+                in.readFully(record);
+            } catch (EOFException e) {
+                return false; // Torn write at the tail
+            }
+            if (!apply(record)) return false;
+        }
+    }
+
+    private boolean apply(byte[] record) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(record))) {
+            byte op = in.readByte();
+            if (op == OP_DONE) {
+                if (pending.remove(in.readUTF()) != null) deadRecords++;
+                deadRecords++;
+                return true;
+            }
+            if (op != OP_ADD) return false;
+
+            String key = in.readUTF();
+            byte action = in.readByte();
+            String jobId = in.readUTF();
+            int notificationId = in.readInt();
+            String title = in.readUTF();
+            long createdAt = in.readLong();
+            long expiresAt = in.readLong();
+            pending.put(key, new Entry(key, action, jobId, notificationId, title, createdAt, expiresAt));
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Write the pending entries to a temp file and swap it in, so a crash
+     * mid-way leaves either the old or the new file intact.
+     */
+    private void compactLocked() throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Cannot create " + parent);
+        }
+        File tmp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(FILE_MAGIC);
+            for (Entry entry : pending.values()) {
+                byte[] record = encodeAdd(entry);
+                out.writeInt(record.length);
+                out.write(record);
+            }
+        }
+        if (!tmp.renameTo(file)) {
+            // Some filesystems refuse to rename over an existing file
+            if (!file.delete() || !tmp.renameTo(file)) {
+                throw new IOException("Cannot replace " + file);
+            }
+        }
+        deadRecords = 0;
+    }
+
+    private void append(byte[] record) throws IOException {
+        boolean fresh = !file.isFile() || file.length() == 0;
+        if (fresh) {
+            File parent = file.getParentFile();
+            if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+                throw new IOException("Cannot create " + parent);
+            }
+        }
+        // Answers are rare and precious: sync each one so a crash right after cannot lose it
+        try (FileOutputStream fos = new FileOutputStream(file, true)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos));
+            if (fresh) out.writeInt(FILE_MAGIC);
+            out.writeInt(record.length);
+            out.write(record);
+            out.flush();
+            fos.getFD().sync();
+        }
+    }
+
+    private static byte[] encodeAdd(Entry entry) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(OP_ADD);
+        out.writeUTF(entry.key);
+        out.writeByte(entry.action);
+        out.writeUTF(entry.jobId);
+        out.writeInt(entry.notificationId);
+        out.writeUTF(entry.title);
+        out.writeLong(entry.createdAt);
+        out.writeLong(entry.expiresAt);
+        return bytes.toByteArray();
+    }
+
+    private static byte[] encodeDone(String key) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(OP_DONE);
+        out.writeUTF(key);
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,149 @@
+package in.helparo.app;
+
+import android.content.Context;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Native Capacitor Plugin to serve Supabase REST reads from a disk cache
+ * Used by the supabase-js fetch wrapper in src/lib/native-rest-cache.ts
+ */
+@CapacitorPlugin(name = "RestCache")
+public class RestCachePlugin extends Plugin {
+
+    private static final String TAG = "RestCachePlugin";
+    private static final String CACHE_DIR = "rest_cache";
+
+    /** Bump when the key format or caching rules change */
+    private static final int CACHE_SCHEMA = 1;
+
+    /** A day of a helper's reads, with room to spare */
+    private static final long MAX_CACHE_BYTES = 8L * 1024 * 1024;
+
+    private static final int CONNECT_TIMEOUT_MS = 10_000;
+    private static final int READ_TIMEOUT_MS = 20_000;
+
+    private static RestReadCache cache;
+
+    /** Reads block on the network; keep them off Capacitor's shared plugin thread */
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(4, runnable -> {
+        Thread thread = new Thread(runnable, "rest-cache");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public static synchronized RestReadCache getCache(Context context) {
+        if (cache == null) {
+            String version = BuildConfig.VERSION_CODE + "/" + CACHE_SCHEMA;
+            WebAssetCache store = new WebAssetCache(
+                new File(context.getApplicationContext().getCacheDir(), CACHE_DIR), MAX_CACHE_BYTES, version);
+            try {
+                store.open();
+            } catch (IOException e) {
+                HLog.w(TAG, "REST cache unavailable: ", e.getMessage());
+            }
+            cache = new RestReadCache(store, CONNECT_TIMEOUT_MS, READ_TIMEOUT_MS);
+        }
+        return cache;
+    }
+
+    /**
+     * GET a REST URL through the cache. Resolves with handled = false when the
+     * table is not cached, so the caller fetches it itself.
+     */
+    @PluginMethod
+    public void get(PluginCall call) {
+        String url = call.getString("url");
+        if (url == null || !url.startsWith("https://")) {
+            call.reject("An https url is required");
+            return;
+        }
+        if (!RestReadCache.isCacheable(url)) {
+            JSObject ret = new JSObject();
+            ret.put("handled", false);
+            call.resolve(ret);
+            return;
+        }
+
+        Map<String, String> headers = toMap(call.getObject("headers", new JSObject()));
+        RestReadCache restCache = getCache(getContext());
+        EXECUTOR.execute(() -> {
+            try {
+                RestReadCache.Response response = restCache.get(url, headers, System.currentTimeMillis());
+                JSObject responseHeaders = new JSObject();
+                for (Map.Entry<String, String> header : response.headers.entrySet()) {
+                    responseHeaders.put(header.getKey(), header.getValue());
+                }
+                JSObject ret = new JSObject();
+                ret.put("handled", true);
+                ret.put("status", response.status);
+                ret.put("headers", responseHeaders);
+                ret.put("body", new String(response.body, StandardCharsets.UTF_8));
+                ret.put("fromCache", response.fromCache);
+                call.resolve(ret);
+            } catch (IOException e) {
+                call.reject("Request failed: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Drop cached reads of the table a write went to
+     */
+    @PluginMethod
+    public void invalidate(PluginCall call) {
+        String url = call.getString("url");
+        if (url != null) getCache(getContext()).invalidate(url);
+        JSObject ret = new JSObject();
+        ret.put("success", true);
+        call.resolve(ret);
+    }
+
+    @PluginMethod
+    public void getStats(PluginCall call) {
+        RestReadCache restCache = getCache(getContext());
+        JSObject ret = new JSObject();
+        ret.put("hits", restCache.getHits());
+        ret.put("revalidated", restCache.getRevalidated());
+        ret.put("misses", restCache.getMisses());
+        ret.put("bytesReceived", restCache.getBytesReceived());
+        ret.put("bytesSaved", restCache.getBytesSaved());
+        ret.put("entries", restCache.getCache().size());
+        ret.put("sizeBytes", restCache.getCache().sizeBytes());
+        ret.put("evictions", restCache.getCache().getEvictions());
+        call.resolve(ret);
+    }
+
+    @PluginMethod
+    public void clear(PluginCall call) {
+        getCache(getContext()).clear();
+        JSObject ret = new JSObject();
+        ret.put("success", true);
+        call.resolve(ret);
+    }
+
+    private static Map<String, String> toMap(JSONObject json) {
+        Map<String, String> map = new HashMap<>();
+        Iterator<String> keys = json.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            map.put(key, json.optString(key));
+        }
+        return map;
+    }
+}
@@ -0,0 +1,317 @@
+package in.helparo.app;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Caches Supabase REST (PostgREST) reads for a whitelist of tables.
+ *
+ * A cached response is returned without a request until its table's TTL runs
+ * out. After that it is revalidated with If-None-Match / If-Modified-Since when
+ * the server sent a validator, so an unchanged result costs a 304 instead of the
+ * full body. Responses are requested gzip-compressed.
+ *
+ * Results depend on who asks (row level security), so cache keys include the
+ * user from the access token, as well as the Accept and Prefer headers that
+ * change PostgREST's representation. Writes to a table drop its cached reads.
+ *
+ * Tested against a local HTTP server (RestReadCacheTest).
+ */
+public final class RestReadCache {
+
+    static final String REST_PATH = "/rest/v1/";
+
+    /** Cacheable tables and how long a read stays fresh. Everything else is passed through. */
+    static final Map<String, Long> TABLE_TTL_MS;
+
+    static {
+        Map<String, Long> ttl = new HashMap<>();
+        // Reference data: changes with admin edits only
+        ttl.put("service_categories", 60 * 60_000L);
+        ttl.put("service_areas", 60 * 60_000L);
+        ttl.put("legal_documents", 60 * 60_000L);
+        // Profiles: read on nearly every screen, edited rarely
+        ttl.put("profiles", 60_000L);
+        ttl.put("helper_profiles", 30_000L);
+        ttl.put("reviews", 5 * 60_000L);
+        // Job lists: changed by API routes and other users too, so only absorb
+        // the bursts of identical reads from polling and screens mounting together
+        ttl.put("service_requests", 5_000L);
+        TABLE_TTL_MS = Collections.unmodifiableMap(ttl);
+    }
+
+    /** Bigger results are passed through uncached */
+    private static final int MAX_BODY_BYTES = 512 * 1024;
+
+    private static final Pattern JWT_SUBJECT = Pattern.compile("\"sub\"\\s*:\\s*\"([^\"]+)\"");
+
+    /** Response headers supabase-js or revalidation needs */
+    private static final String[] KEPT_HEADERS = {
+        "Content-Type", "Content-Range", "ETag", "Last-Modified", "Preference-Applied",
+    };
+
+    /**
+     * A response for the web app
+     */
+    public static final class Response {
+        public final int status;
+        public final Map<String, String> headers;
+        public final byte[] body;
+        /** Served from disk, with or without a 304 */
+        public final boolean fromCache;
+
+        Response(int status, Map<String, String> headers, byte[] body, boolean fromCache) {
+            this.status = status;
+            this.headers = headers;
+            this.body = body;
+            this.fromCache = fromCache;
+        }
+    }
+
+    private final WebAssetCache cache;
+    private final int connectTimeoutMs;
+    private final int readTimeoutMs;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong revalidated = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private final AtomicLong bytesSaved = new AtomicLong();
+
+    public RestReadCache(WebAssetCache cache, int connectTimeoutMs, int readTimeoutMs) {
+        this.cache = cache;
+        this.connectTimeoutMs = connectTimeoutMs;
+        this.readTimeoutMs = readTimeoutMs;
+    }
+
+    /**
+     * The table a REST URL reads, or null if it is not a REST URL
+     */
+    static String tableOf(String url) {
+        int start = url.indexOf(REST_PATH);
+        if (start < 0) return null;
+        start += REST_PATH.length();
+        int end = start;
+        while (end < url.length() && url.charAt(end) != '?' && url.charAt(end) != '/' && url.charAt(end) != '#') {
+            end++;
+        }
+        return end > start ? url.substring(start, end) : null;
+    }
+
+    /**
+     * Whether {@link #get} caches this URL
+     */
+    public static boolean isCacheable(String url) {
+        String table = tableOf(url);
+        return table != null && TABLE_TTL_MS.containsKey(table);
+    }
+
+    /**
+     * GET a REST URL, from the cache when fresh. Blocking.
+     *
+     * @return the response, or null if the URL is not cacheable
+     */
+    public Response get(String url, Map<String, String> requestHeaders, long nowMillis) throws IOException {
+        String table = tableOf(url);
+        Long ttl = table != null ? TABLE_TTL_MS.get(table) : null;
+        if (ttl == null) return null;
+
+        String key = key(table, url, requestHeaders);
+        WebAssetCache.Entry cached = cache.get(key);
+        if (cached != null && nowMillis - cached.storedAt < ttl) {
+            hits.incrementAndGet();
+            bytesSaved.addAndGet(cached.body.length);
+            return new Response(200, cached.headers, cached.body, true);
+        }
+
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        try {
+            connection.setConnectTimeout(connectTimeoutMs);
+            connection.setReadTimeout(readTimeoutMs);
+            connection.setUseCaches(false);
+            for (Map.Entry<String, String> header : requestHeaders.entrySet()) {
+                connection.setRequestProperty(header.getKey(), header.getValue());
+            }
+            // Set explicitly, so we decode it ourselves on every platform
+            connection.setRequestProperty("Accept-Encoding", "gzip");
+            if (cached != null) {
+                String etag = cached.headers.get("ETag");
+                String lastModified = cached.headers.get("Last-Modified");
+                if (etag != null) connection.setRequestProperty("If-None-Match", etag);
+                if (lastModified != null) connection.setRequestProperty("If-Modified-Since", lastModified);
+            }
+
+            int status = connection.getResponseCode();
+            if (status == HttpURLConnection.HTTP_NOT_MODIFIED && cached != null) {
+                revalidated.incrementAndGet();
+                bytesSaved.addAndGet(cached.body.length);
+                store(key, cached.headers, cached.body, nowMillis);
+                return new Response(200, cached.headers, cached.body, true);
+            }
+
+            misses.incrementAndGet();
+            Map<String, String> headers = new LinkedHashMap<>();
+            for (String name : KEPT_HEADERS) {
+                String value = connection.getHeaderField(name);
+                if (value != null) headers.put(name, value);
+            }
+            byte[] body = readBody(connection, status);
+            if (status == 200 && body.length <= MAX_BODY_BYTES) {
+                store(key, headers, body, nowMillis);
+            } else if (cached != null) {
+                cache.remove(key);
+            }
+            return new Response(status, headers, body, false);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Drop every cached read of a table, after the web app wrote to it
+     */
+    public void invalidate(String url) {
+        String table = tableOf(url);
+        if (table != null) cache.clearPrefix(table + "|");
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getRevalidated() {
+        return revalidated.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /** Compressed bytes actually transferred for bodies */
+    public long getBytesReceived() {
+        return bytesReceived.get();
+    }
+
+    /** Body bytes served from disk instead of the network */
+    public long getBytesSaved() {
+        return bytesSaved.get();
+    }
+
+    public WebAssetCache getCache() {
+        return cache;
+    }
+
+    private void store(String key, Map<String, String> headers, byte[] body, long nowMillis) {
+        try {
+            cache.put(new WebAssetCache.Entry(WebAssetCache.KIND_REST, key, "application/json", "utf-8",
+                nowMillis, headers, body));
+        } catch (IOException e) {
+            // Served anyway; the next read is a miss
+        }
+    }
+
+    private byte[] readBody(HttpURLConnection connection, int status) throws IOException {
+        InputStream raw = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+        if (raw == null) return new byte[0];
+        CountingInputStream counted = new CountingInputStream(raw);
+        InputStream in = "gzip".equalsIgnoreCase(connection.getContentEncoding())
+            ? new GZIPInputStream(counted) : counted;
+        try {
+            return WebAssetLoader.readAll(in);
+        } finally {
+            in.close();
+            bytesReceived.addAndGet(counted.count);
+        }
+    }
+
+    /**
+     * "table|user|accept|prefer|url", so {@link #invalidate} can drop a table by prefix
+     */
+    static String key(String table, String url, Map<String, String> requestHeaders) {
+        String accept = WebAssetLoader.header(requestHeaders, "Accept");
+        String prefer = WebAssetLoader.header(requestHeaders, "Prefer");
+        return table + "|" + userOf(WebAssetLoader.header(requestHeaders, "Authorization"))
+            + "|" + (accept != null ? accept : "") + "|" + (prefer != null ? prefer : "") + "|" + url;
+    }
+
+    /**
+     * The JWT subject of a bearer token. Tokens rotate hourly, the subject does
+     * not. Tokens without one (the anon key) are keyed by the token itself.
+     */
+    static String userOf(String authorization) {
+        if (authorization == null) return "-";
+        String token = authorization.regionMatches(true, 0, "Bearer ", 0, 7)
+            ? authorization.substring(7) : authorization;
+        String[] parts = token.split("\\.");
+        if (parts.length == 3) {
+            Matcher matcher = JWT_SUBJECT.matcher(decodeBase64Url(parts[1]));
+            if (matcher.find()) return matcher.group(1);
+        }
+        return "t" + Integer.toHexString(token.hashCode()) + "." + token.length();
+    }
+
+    /**
+     * java.util.Base64 needs API 26; JWT payloads only need this much
+     */
+    static String decodeBase64Url(String value) {
+        byte[] out = new byte[value.length() * 3 / 4 + 3];
+        int length = 0;
+        int buffer = 0;
+        int bits = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            int digit;
+            if (c >= 'A' && c <= 'Z') digit = c - 'A';
+            else if (c >= 'a' && c <= 'z') digit = c - 'a' + 26;
+            else if (c >= '0' && c <= '9') digit = c - '0' + 52;
+            else if (c == '-' || c == '+') digit = 62;
+            else if (c == '_' || c == '/') digit = 63;
+            else if (c == '=') break;
+            else return "";
+            buffer = (buffer << 6) | digit;
+            bits += 6;
+            if (bits >= 8) {
+                bits -= 8;
+                out[length++] = (byte) (buffer >> bits);
+            }
+        }
+        return new String(out, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static final class CountingInputStream extends java.io.FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) count += n;
+            return n;
+        }
+    }
+}
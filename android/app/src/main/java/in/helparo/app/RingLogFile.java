@@ -0,0 +1,93 @@
+package in.helparo.app;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Bounded on-device log made of two segment files.
+ *
+ * Lines are appended to the current segment; once it would grow past
+ * {@code maxSegmentBytes} it replaces the previous segment and a new one is
+ * started. The log therefore never takes more than twice the segment size on
+ * disk, and always holds at least the last {@code maxSegmentBytes} of lines.
+ *
+ * Plain java.io, so RingLogFileTest checks segment rotation with tiny
+ * segments on the JVM.
+ */
+public final class RingLogFile {
+
+    private final File current;
+    private final File previous;
+    private final long maxSegmentBytes;
+    private long currentSize = -1;
+
+    public RingLogFile(File dir, String name, long maxSegmentBytes) {
+        this.current = new File(dir, name + ".log");
+        this.previous = new File(dir, name + ".1.log");
+        this.maxSegmentBytes = maxSegmentBytes;
+    }
+
+    /**
+     * Append one line (a newline is added)
+     */
+    public synchronized void append(String line) throws IOException {
+        byte[] bytes = (line + "\n").getBytes(StandardCharsets.UTF_8);
+        if (currentSize < 0) {
+            File dir = current.getParentFile();
+            if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+                throw new IOException("Cannot create " + dir);
+            }
+            currentSize = current.length();
+        }
+        if (currentSize > 0 && currentSize + bytes.length > maxSegmentBytes) {
+            rotate();
+        }
+        try (OutputStream out = new FileOutputStream(current, true)) {
+            out.write(bytes);
+        }
+        currentSize += bytes.length;
+    }
+
+    /**
+     * Everything still on disk, oldest line first
+     */
+    public synchronized String read() throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        copy(previous, buffer);
+        copy(current, buffer);
+        return new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    public synchronized void clear() {
+        previous.delete();
+        current.delete();
+        currentSize = -1;
+    }
+
+    private void rotate() throws IOException {
+        if (previous.exists() && !previous.delete()) {
+            throw new IOException("Cannot delete " + previous);
+        }
+        if (!current.renameTo(previous)) {
+            throw new IOException("Cannot rotate " + current);
+        }
+        currentSize = 0;
+    }
+
+    private static void copy(File file, OutputStream out) throws IOException {
+        if (!file.isFile()) return;
+        try (InputStream in = new FileInputStream(file)) {
+            byte[] chunk = new byte[8192];
+            int read;
+            while ((read = in.read(chunk)) > 0) {
+                out.write(chunk, 0, read);
+            }
+        }
+    }
+}
@@ -0,0 +1,631 @@
+package in.helparo.app;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Owns the helper's Supabase session on the device: the access token native
+ * callers use, the refresh token, and the user record, so the web app can read
+ * them without asking the auth server.
+ *
+ * All token refreshes go through {@link #refresh}. Concurrent refreshes of the
+ * same token share one request. Supabase refresh tokens are single use, so the
+ * tokens this class has already rotated away are remembered (hashed): when the
+ * web app presents one of those, it gets the current session back instead of a
+ * request that the server would treat as token reuse.
+ *
+ * Kept free of Android classes so SessionManagerTest can drive refreshes
+ * against a local stub auth server.
+ */
+public final class SessionManager {
+
+    static final String TOKEN_PATH = "/auth/v1/token?grant_type=refresh_token";
+    static final String USER_PATH = "/auth/v1/user";
+
+    /** Don't start a request with a token that may expire while it is in flight */
+    public static final long EXPIRY_MARGIN_MS = 30_000L;
+
+    /** Scheduled refreshes run this long before expiry, ahead of supabase-js's own check */
+    public static final long REFRESH_AHEAD_MS = 120_000L;
+
+    private static final int STATE_MAGIC = 0x48535331; // "HSS1"
+
+    /** Enough for every token a web view that slept through several refreshes might still hold */
+    private static final int MAX_ROTATED = 16;
+
+    /**
+     * Persists the encoded state, e.g. encrypted in private storage
+     */
+    public interface Store {
+        /** @return the last saved state, or null */
+        byte[] load() throws IOException;
+
+        void save(byte[] state) throws IOException;
+
+        void clear();
+    }
+
+    /**
+     * A signed-in session
+     */
+    public static final class Session {
+        public final String accessToken;
+        public final String refreshToken;
+        /** Access token expiry, epoch millis */
+        public final long expiresAt;
+        /** GoTrue user object as JSON, or null if not known yet */
+        public final String userJson;
+
+        public Session(String accessToken, String refreshToken, long expiresAt, String userJson) {
+            this.accessToken = accessToken;
+            this.refreshToken = refreshToken;
+            this.expiresAt = expiresAt;
+            this.userJson = userJson;
+        }
+
+        /**
+         * The session as a GoTrue token response, which is what supabase-js expects from a refresh
+         */
+        public String toTokenResponse(long nowMillis) {
+            StringBuilder json = new StringBuilder(accessToken.length() + 256
+                + (userJson != null ? userJson.length() : 0));
+            json.append("{\"access_token\":").append(quote(accessToken))
+                .append(",\"token_type\":\"bearer\"")
+                .append(",\"expires_in\":").append(Math.max(0, (expiresAt - nowMillis) / 1000))
+                .append(",\"expires_at\":").append(expiresAt / 1000)
+                .append(",\"refresh_token\":").append(quote(refreshToken));
+            if (userJson != null) json.append(",\"user\":").append(userJson);
+            return json.append('}').toString();
+        }
+    }
+
+    /**
+     * An auth server answer (or one given on its behalf) for the web app
+     */
+    public static final class Result {
+        public final int status;
+        public final String body;
+        /** Answered without a request */
+        public final boolean fromCache;
+
+        Result(int status, String body, boolean fromCache) {
+            this.status = status;
+            this.body = body;
+            this.fromCache = fromCache;
+        }
+    }
+
+    private final Store store;
+    private final int connectTimeoutMs;
+    private final int readTimeoutMs;
+
+    private String authUrl;
+    private String apiKey;
+    private Session session;
+    /** SHA-256 of refresh tokens already exchanged, oldest first */
+    private final LinkedHashSet<String> rotated = new LinkedHashSet<>();
+    private final Map<String, FutureTask<Result>> inFlight = new HashMap<>();
+
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong refreshesShared = new AtomicLong();
+    private final AtomicLong refreshesAvoided = new AtomicLong();
+    private final AtomicLong userHits = new AtomicLong();
+    private final AtomicLong userFetches = new AtomicLong();
+
+    public SessionManager(Store store, int connectTimeoutMs, int readTimeoutMs) {
+        this.store = store;
+        this.connectTimeoutMs = connectTimeoutMs;
+        this.readTimeoutMs = readTimeoutMs;
+    }
+
+    /**
+     * Restore the saved state. Unreadable state is dropped; the web app pushes
+     * the session again on its next start.
+     */
+    public synchronized void load() {
+        try {
+            byte[] state = store.load();
+            if (state != null) decode(state);
+        } catch (IOException e) {
+            authUrl = null;
+            apiKey = null;
+            session = null;
+            rotated.clear();
+            store.clear();
+        }
+    }
+
+    /**
+     * @param authUrl the Supabase project URL
+     * @param apiKey the anon key, sent as apikey
+     */
+    public synchronized void configure(String authUrl, String apiKey) {
+        String url = authUrl.endsWith("/") ? authUrl.substring(0, authUrl.length() - 1) : authUrl;
+        if (url.equals(this.authUrl) && apiKey.equals(this.apiKey)) return;
+        this.authUrl = url;
+        this.apiKey = apiKey;
+        save();
+    }
+
+    public synchronized String getAuthUrl() {
+        return authUrl;
+    }
+
+    /**
+     * Adopt the session the web app holds.
+     *
+     * @param userJson the user object, or null to keep the known one
+     * @return false if the session is one this class has already refreshed past;
+     *     the web app should adopt {@link #getSession()} instead
+     */
+    public synchronized boolean set(String accessToken, String refreshToken, long expiresAtMillis, String userJson) {
+        if (refreshToken != null && rotated.contains(hash(refreshToken))) return false;
+
+        Session current = session;
+        if (current != null && refreshToken != null && !refreshToken.equals(current.refreshToken)) {
+            if (RestReadCache.userOf(accessToken).equals(RestReadCache.userOf(current.accessToken))) {
+                // Refreshed elsewhere (e.g. by the server): our token is spent too
+                remember(current.refreshToken);
+            } else {
+                rotated.clear();
+            }
+        }
+        if (userJson == null && current != null && accessToken.equals(current.accessToken)) {
+            userJson = current.userJson;
+        }
+        session = new Session(accessToken, refreshToken, expiresAtMillis, userJson);
+        save();
+        return true;
+    }
+
+    public synchronized void clear() {
+        session = null;
+        rotated.clear();
+        save();
+    }
+
+    public synchronized Session getSession() {
+        return session;
+    }
+
+    /**
+     * @return a token that is valid for at least a few more seconds, or null
+     */
+    public synchronized String getAccessToken(long nowMillis) {
+        Session current = session;
+        if (current == null || !isValid(current, nowMillis)) return null;
+        return current.accessToken;
+    }
+
+    /**
+     * Milliseconds until a scheduled refresh is due (0 if overdue), or -1 if
+     * there is nothing to refresh
+     */
+    public synchronized long refreshDelay(long nowMillis) {
+        Session current = session;
+        if (current == null || current.refreshToken == null || authUrl == null) return -1;
+        return Math.max(0, current.expiresAt - REFRESH_AHEAD_MS - nowMillis);
+    }
+
+    /**
+     * Exchange a refresh token for a new session. Blocking.
+     *
+     * Refreshes of the same token share one request. A token this class has
+     * already rotated away is answered with the current session, refreshed
+     * first if that one is about to expire.
+     *
+     * @param presentedToken the refresh token the caller holds, or null for the current one
+     * @return the auth server's answer, as GoTrue would give it
+     */
+    public Result refresh(String presentedToken, long nowMillis) throws IOException {
+        String token;
+        FutureTask<Result> task;
+        boolean owner = false;
+        synchronized (this) {
+            if (authUrl == null) throw new IOException("Not configured");
+            Session current = session;
+            token = presentedToken;
+            if (current != null && (token == null || rotated.contains(hash(token)))) {
+                token = current.refreshToken;
+                if (presentedToken != null && current.userJson != null && isValid(current, nowMillis)) {
+                    refreshesAvoided.incrementAndGet();
+                    return new Result(200, current.toTokenResponse(nowMillis), true);
+                }
+            }
+            if (token == null) throw new IOException("No refresh token");
+
+            task = inFlight.get(token);
+            if (task == null) {
+                String refreshToken = token;
+                task = new FutureTask<>(() -> requestRefresh(refreshToken));
+                inFlight.put(token, task);
+                owner = true;
+            } else {
+                refreshesShared.incrementAndGet();
+            }
+        }
+
+        if (owner) {
+            try {
+                task.run();
+            } finally {
+                synchronized (this) {
+                    inFlight.remove(token);
+                }
+            }
+        }
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * GET the user for an access token, from memory when it is the current
+     * session's token. Blocking.
+     */
+    public Result getUser(String accessToken, long nowMillis) throws IOException {
+        String url;
+        String key;
+        synchronized (this) {
+            Session current = session;
+            if (current != null && current.userJson != null && current.accessToken.equals(accessToken)
+                && nowMillis < current.expiresAt) {
+                userHits.incrementAndGet();
+                return new Result(200, current.userJson, true);
+            }
+            if (authUrl == null) throw new IOException("Not configured");
+            url = authUrl + USER_PATH;
+            key = apiKey;
+        }
+
+        userFetches.incrementAndGet();
+        Result result = request(url, key, "GET", accessToken, null);
+        if (result.status == 200) {
+            synchronized (this) {
+                Session current = session;
+                if (current != null && current.accessToken.equals(accessToken)) {
+                    session = new Session(current.accessToken, current.refreshToken, current.expiresAt, result.body);
+                    save();
+                }
+            }
+        }
+        return new Result(result.status, result.body, false);
+    }
+
+    /** Refresh requests sent to the auth server */
+    public long getRefreshes() {
+        return refreshes.get();
+    }
+
+    /** Refreshes that joined one already in flight */
+    public long getRefreshesShared() {
+        return refreshesShared.get();
+    }
+
+    /** Refreshes of spent tokens answered with the current session */
+    public long getRefreshesAvoided() {
+        return refreshesAvoided.get();
+    }
+
+    public long getUserHits() {
+        return userHits.get();
+    }
+
+    public long getUserFetches() {
+        return userFetches.get();
+    }
+
+    private Result requestRefresh(String refreshToken) throws IOException {
+        String url;
+        String key;
+        synchronized (this) {
+            url = authUrl + TOKEN_PATH;
+            key = apiKey;
+        }
+        refreshes.incrementAndGet();
+        Result result = request(url, key, "POST", null, "{\"refresh_token\":" + quote(refreshToken) + "}");
+
+        synchronized (this) {
+            Session current = session;
+            boolean ours = current != null && refreshToken.equals(current.refreshToken);
+            if (result.status != 200) {
+                // The server refused our own token: it is revoked or already spent
+                if (ours && result.status >= 400 && result.status < 500) {
+                    session = null;
+                    rotated.clear();
+                    save();
+                }
+                return result;
+            }
+
+            String accessToken = jsonString(result.body, "access_token");
+            String newRefreshToken = jsonString(result.body, "refresh_token");
+            if (accessToken == null || newRefreshToken == null) throw new IOException("Malformed token response");
+            long nowMillis = System.currentTimeMillis();
+            Long expiresAt = jsonLong(result.body, "expires_at");
+            Long expiresIn = jsonLong(result.body, "expires_in");
+            long expiresAtMillis = expiresAt != null ? expiresAt * 1000L
+                : nowMillis + (expiresIn != null ? expiresIn : 3600L) * 1000L;
+            String userJson = jsonMember(result.body, "user");
+            if (userJson == null && current != null) userJson = current.userJson;
+
+            remember(refreshToken);
+            if (ours || current == null) {
+                session = new Session(accessToken, newRefreshToken, expiresAtMillis, userJson);
+            }
+            save();
+            return result;
+        }
+    }
+
+    private Result request(String url, String key, String method, String bearer, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        try {
+            connection.setConnectTimeout(connectTimeoutMs);
+            connection.setReadTimeout(readTimeoutMs);
+            connection.setUseCaches(false);
+            connection.setRequestMethod(method);
+            connection.setRequestProperty("apikey", key);
+            connection.setRequestProperty("Authorization", "Bearer " + (bearer != null ? bearer : key));
+            if (body != null) {
+                byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+                connection.setDoOutput(true);
+                connection.setRequestProperty("Content-Type", "application/json");
+                connection.setFixedLengthStreamingMode(bytes.length);
+                try (OutputStream out = connection.getOutputStream()) {
+                    out.write(bytes);
+                }
+            }
+
+            int status = connection.getResponseCode();
+            InputStream in = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+            if (in == null) return new Result(status, "", false);
+            try {
+                return new Result(status, new String(WebAssetLoader.readAll(in), StandardCharsets.UTF_8), false);
+            } finally {
+                in.close();
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static boolean isValid(Session session, long nowMillis) {
+        return session.expiresAt <= 0 || nowMillis + EXPIRY_MARGIN_MS < session.expiresAt;
+    }
+
+    private void remember(String refreshToken) {
+        if (refreshToken == null) return;
+        String hashed = hash(refreshToken);
+        rotated.remove(hashed);
+        rotated.add(hashed);
+        Iterator<String> oldest = rotated.iterator();
+        while (rotated.size() > MAX_ROTATED && oldest.hasNext()) {
+            oldest.next();
+            oldest.remove();
+        }
+    }
+
+    private void save() {
+        try {
+            store.save(encode());
+        } catch (IOException e) {
+            // Kept in memory; the web app pushes the session again on its next start
+        }
+    }
+
+    private byte[] encode() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(2048);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(STATE_MAGIC);
+        out.writeUTF(authUrl != null ? authUrl : "");
+        out.writeUTF(apiKey != null ? apiKey : "");
+        Session current = session;
+        out.writeBoolean(current != null);
+        if (current != null) {
+            out.writeUTF(current.accessToken);
+            out.writeUTF(current.refreshToken != null ? current.refreshToken : "");
+            out.writeLong(current.expiresAt);
+            byte[] user = current.userJson != null ? current.userJson.getBytes(StandardCharsets.UTF_8) : new byte[0];
+            out.writeInt(user.length);
+            out.write(user);
+        }
+        out.writeShort(rotated.size());
+        for (String hashed : rotated) {
+            out.writeUTF(hashed);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private void decode(byte[] state) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(state));
+        if (in.readInt() != STATE_MAGIC) throw new IOException("Bad magic");
+        String url = in.readUTF();
+        String key = in.readUTF();
+        Session restored = null;
+        if (in.readBoolean()) {
+            String accessToken = in.readUTF();
+            String refreshToken = in.readUTF();
+            long expiresAt = in.readLong();
+            byte[] user = new byte[in.readInt()];
+            in.readFully(user);
+            restored = new Session(accessToken, refreshToken.isEmpty() ? null : refreshToken, expiresAt,
+                user.length > 0 ? new String(user, StandardCharsets.UTF_8) : null);
+        }
+        List<String> hashes = new ArrayList<>();
+        int count = in.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            hashes.add(in.readUTF());
+        }
+
+        authUrl = url.isEmpty() ? null : url;
+        apiKey = key.isEmpty() ? null : key;
+        session = restored;
+        rotated.clear();
+        rotated.addAll(hashes);
+    }
+
+    static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String quote(String value) {
+        StringBuilder out = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') out.append('\\').append(c);
+            else if (c < 0x20) out.append(String.format("\\u%04x", (int) c));
+            else out.append(c);
+        }
+        return out.append('"').toString();
+    }
+
+    /**
+     * The raw JSON text of a top-level member, or null. Nested objects are
+     * skipped whole, so a "user" object's own fields never match.
+     */
+    static String jsonMember(String json, String name) {
+        int depth = 0;
+        int i = 0;
+        int n = json.length();
+        while (i < n) {
+            char c = json.charAt(i);
+            if (c == '"') {
+                int end = skipString(json, i);
+                if (depth == 1) {
+                    int colon = skipWhitespace(json, end);
+                    if (colon < n && json.charAt(colon) == ':') {
+                        int start = skipWhitespace(json, colon + 1);
+                        int valueEnd = skipValue(json, start);
+                        if (name.equals(json.substring(i + 1, end - 1))) return json.substring(start, valueEnd);
+                        i = valueEnd;
+                        continue;
+                    }
+                }
+                i = end;
+                continue;
+            }
+            if (c == '{' || c == '[') depth++;
+            else if (c == '}' || c == ']') depth--;
+            i++;
+        }
+        return null;
+    }
+
+    static String jsonString(String json, String name) {
+        String raw = jsonMember(json, name);
+        if (raw == null || raw.length() < 2 || raw.charAt(0) != '"') return null;
+        StringBuilder out = new StringBuilder(raw.length());
+        for (int i = 1; i < raw.length() - 1; i++) {
+            char c = raw.charAt(i);
+            if (c != '\\' || i + 1 >= raw.length() - 1) {
+                out.append(c);
+                continue;
+            }
+            char escaped = raw.charAt(++i);
+            switch (escaped) {
+                case 'n': out.append('\n'); break;
+                case 't': out.append('\t'); break;
+                case 'r': out.append('\r'); break;
+                case 'b': out.append('\b'); break;
+                case 'f': out.append('\f'); break;
+                case 'u':
+                    if (i + 4 < raw.length()) {
+                        out.append((char) Integer.parseInt(raw.substring(i + 1, i + 5), 16));
+                        i += 4;
+                    }
+                    break;
+                default: out.append(escaped);
+            }
+        }
+        return out.toString();
+    }
+
+    static Long jsonLong(String json, String name) {
+        String raw = jsonMember(json, name);
+        if (raw == null) return null;
+        try {
+            return (long) Double.parseDouble(raw);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static int skipString(String json, int quote) {
+        int i = quote + 1;
+        while (i < json.length()) {
+            char c = json.charAt(i);
+            if (c == '\\') i += 2;
+            else if (c == '"') return i + 1;
+            else i++;
+        }
+        return json.length();
+    }
+
+    private static int skipWhitespace(String json, int i) {
+        while (i < json.length() && Character.isWhitespace(json.charAt(i))) i++;
+        return i;
+    }
+
+    private static int skipValue(String json, int start) {
+        if (start >= json.length()) return start;
+        char first = json.charAt(start);
+        if (first == '"') return skipString(json, start);
+        if (first != '{' && first != '[') {
+            int i = start;
+            while (i < json.length() && ",}] \t\r\n".indexOf(json.charAt(i)) < 0) i++;
+            return i;
+        }
+        int depth = 0;
+        int i = start;
+        while (i < json.length()) {
+            char c = json.charAt(i);
+            if (c == '"') {
+                i = skipString(json, i);
+                continue;
+            }
+            if (c == '{' || c == '[') depth++;
+            else if (c == '}' || c == ']') {
+                if (--depth == 0) return i + 1;
+            }
+            i++;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,318 @@
+package in.helparo.app;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded LRU disk cache of HTTP responses, one file per key (usually the URL).
+ *
+ * The in-memory index (URL -> file, kind, size) is ordered by access and
+ * rebuilt on {@link #open} from the files themselves, oldest write first. File
+ * IO happens outside the index lock: entries are written to a temp file and
+ * renamed into place, so a reader sees either the old or the new response.
+ *
+ * The directory is stamped with a version string; opening it with a different
+ * version (new app build, new file format) wipes it.
+ *
+ * Works on plain files, so WebAssetCacheTest runs it on the JVM over a
+ * temporary directory.
+ */
+public final class WebAssetCache {
+
+    private static final int FILE_MAGIC = 0x48574331; // "HWC1"
+    private static final String VERSION_FILE = "version";
+    private static final String SUFFIX = ".entry";
+
+    /** Hashed /_next/static assets: never change for a given URL */
+    public static final byte KIND_IMMUTABLE = 1;
+    /** HTML documents: served stale while revalidating */
+    public static final byte KIND_DOCUMENT = 2;
+    /** Supabase REST reads, revalidated after a per-table TTL */
+    public static final byte KIND_REST = 3;
+
+    /**
+     * A cached response
+     */
+    public static final class Entry {
+        public final byte kind;
+        public final String url;
+        public final String mimeType;
+        /** Charset, or null */
+        public final String encoding;
+        public final long storedAt;
+        public final Map<String, String> headers;
+        public final byte[] body;
+
+        public Entry(byte kind, String url, String mimeType, String encoding, long storedAt,
+                     Map<String, String> headers, byte[] body) {
+            this.kind = kind;
+            this.url = url;
+            this.mimeType = mimeType;
+            this.encoding = encoding;
+            this.storedAt = storedAt;
+            this.headers = headers;
+            this.body = body;
+        }
+    }
+
+    private static final class Meta {
+        final File file;
+        final byte kind;
+        final long size;
+
+        Meta(File file, byte kind, long size) {
+            this.file = file;
+            this.kind = kind;
+            this.size = size;
+        }
+    }
+
+    private final File dir;
+    private final long maxBytes;
+    private final String version;
+
+    private final LinkedHashMap<String, Meta> index = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalBytes;
+    private long evictions;
+
+    public WebAssetCache(File dir, long maxBytes, String version) {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+        this.version = version;
+    }
+
+    /**
+     * Load the index from disk, wiping the cache if it was written by another version
+     */
+    public synchronized void open() throws IOException {
+        index.clear();
+        totalBytes = 0;
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+
+        File versionFile = new File(dir, VERSION_FILE);
+        if (!version.equals(readVersion(versionFile))) {
+            deleteEntries();
+            writeVersion(versionFile);
+            return;
+        }
+
+        File[] files = dir.listFiles((d, name) -> name.endsWith(SUFFIX));
+        if (files == null) return;
+        // Least recently written first, so the LRU order survives a restart roughly
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (File file : files) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 512))) {
+                if (in.readInt() != FILE_MAGIC) throw new IOException("Bad magic");
+                byte kind = in.readByte();
+                String url = in.readUTF();
+                index.put(url, new Meta(file, kind, file.length()));
+                totalBytes += file.length();
+            } catch (IOException e) {
+                file.delete();
+            }
+        }
+        trimLocked();
+    }
+
+    /**
+     * @return the cached response for this URL, or null
+     */
+    public Entry get(String url) {
+        Meta meta;
+        synchronized (this) {
+            meta = index.get(url);
+        }
+        if (meta == null) return null;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(meta.file)))) {
+            if (in.readInt() != FILE_MAGIC) throw new IOException("Bad magic");
+            byte kind = in.readByte();
+            String storedUrl = in.readUTF();
+            if (!storedUrl.equals(url)) return null; // Hash collision; the other URL owns the file
+            String mimeType = in.readUTF();
+            String encoding = in.readUTF();
+            long storedAt = in.readLong();
+            int headerCount = in.readUnsignedShort();
+            Map<String, String> headers = new LinkedHashMap<>();
+            for (int i = 0; i < headerCount; i++) {
+                headers.put(in.readUTF(), in.readUTF());
+            }
+            byte[] body = new byte[in.readInt()];
+            in.readFully(body);
+            return new Entry(kind, url, mimeType, encoding.isEmpty() ? null : encoding, storedAt, headers, body);
+        } catch (IOException e) {
+            // Evicted under us, or a damaged file
+            synchronized (this) {
+                removeLocked(url, meta);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Store a response, evicting least recently used entries past the size limit
+     */
+    public void put(Entry entry) throws IOException {
+        File file = fileFor(entry.url);
+        File tmp = new File(dir, file.getName() + "." + Thread.currentThread().getId() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(FILE_MAGIC);
+            out.writeByte(entry.kind);
+            out.writeUTF(entry.url);
+            out.writeUTF(entry.mimeType);
+            out.writeUTF(entry.encoding != null ? entry.encoding : "");
+            out.writeLong(entry.storedAt);
+            out.writeShort(entry.headers.size());
+            for (Map.Entry<String, String> header : entry.headers.entrySet()) {
+                out.writeUTF(header.getKey());
+                out.writeUTF(header.getValue());
+            }
+            out.writeInt(entry.body.length);
+            out.write(entry.body);
+        }
+
+        List<File> evicted;
+        synchronized (this) {
+            if (!tmp.renameTo(file) && (!file.delete() || !tmp.renameTo(file))) {
+                tmp.delete();
+                throw new IOException("Cannot replace " + file);
+            }
+            Meta old = index.remove(entry.url);
+            if (old != null) totalBytes -= old.size;
+            Meta meta = new Meta(file, entry.kind, file.length());
+            index.put(entry.url, meta);
+            totalBytes += meta.size;
+            evicted = trimLocked();
+        }
+        for (File dead : evicted) {
+            dead.delete();
+        }
+    }
+
+    public synchronized void remove(String url) {
+        Meta meta = index.get(url);
+        if (meta != null) removeLocked(url, meta);
+    }
+
+    /**
+     * Drop every entry of one kind, e.g. documents on sign-out
+     */
+    public synchronized void clear(byte kind) {
+        Iterator<Map.Entry<String, Meta>> it = index.entrySet().iterator();
+        while (it.hasNext()) {
+            Meta meta = it.next().getValue();
+            if (meta.kind != kind) continue;
+            it.remove();
+            totalBytes -= meta.size;
+            meta.file.delete();
+        }
+    }
+
+    /**
+     * Drop every entry whose key starts with {@code prefix}
+     *
+     * @return how many entries were dropped
+     */
+    public synchronized int clearPrefix(String prefix) {
+        int removed = 0;
+        Iterator<Map.Entry<String, Meta>> it = index.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Meta> entry = it.next();
+            if (!entry.getKey().startsWith(prefix)) continue;
+            it.remove();
+            totalBytes -= entry.getValue().size;
+            entry.getValue().file.delete();
+            removed++;
+        }
+        return removed;
+    }
+
+    public synchronized void clear() {
+        index.clear();
+        totalBytes = 0;
+        deleteEntries();
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    public synchronized long sizeBytes() {
+        return totalBytes;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    private List<File> trimLocked() {
+        if (totalBytes <= maxBytes) return Collections.emptyList();
+        List<File> evicted = new ArrayList<>();
+        Iterator<Meta> eldest = index.values().iterator();
+        // Keep the newest entry even if it alone is over budget
+        while (totalBytes > maxBytes && index.size() > 1 && eldest.hasNext()) {
+            Meta meta = eldest.next();
+            eldest.remove();
+            totalBytes -= meta.size;
+            evictions++;
+            evicted.add(meta.file);
+        }
+        return evicted;
+    }
+
+    private void removeLocked(String url, Meta meta) {
+        if (index.get(url) != meta) return;
+        index.remove(url);
+        totalBytes -= meta.size;
+        meta.file.delete();
+    }
+
+    private File fileFor(String url) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0, n = url.length(); i < n; i++) {
+            hash = (hash ^ url.charAt(i)) * 0x100000001b3L;
+        }
+        return new File(dir, Long.toHexString(hash) + SUFFIX);
+    }
+
+    private void deleteEntries() {
+        File[] files = dir.listFiles((d, name) -> name.endsWith(SUFFIX) || name.endsWith(".tmp"));
+        if (files == null) return;
+        for (File file : files) {
+            file.delete();
+        }
+    }
+
+    private static String readVersion(File file) {
+        if (!file.isFile()) return null;
+        try (FileInputStream in = new FileInputStream(file)) {
+            byte[] bytes = new byte[(int) Math.min(file.length(), 256)];
+            int n = in.read(bytes);
+            return n > 0 ? new String(bytes, 0, n, StandardCharsets.UTF_8) : "";
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void writeVersion(File file) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(version.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package in.helparo.app;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serves the remote-loaded web app from a {@link WebAssetCache}.
+ *
+ * Hashed Next.js build output under /_next/static/ never changes for a given
+ * URL, so it is served from disk without asking the server. HTML documents are
+ * served stale-while-revalidate: the cached copy is returned at once and a
+ * fresh one is fetched in the background for the next start. Anything else
+ * (API calls, images, non-GET requests) is left to the WebView.
+ *
+ * Fetches with plain HttpURLConnection, so WebAssetLoaderTest runs it against
+ * a local HTTP server.
+ */
+public final class WebAssetLoader {
+
+    static final String STATIC_PREFIX = "/_next/static/";
+
+    /** Past this a cached document is too old to show, even briefly */
+    public static final long DEFAULT_MAX_DOCUMENT_AGE_MS = 24 * 60 * 60 * 1000L;
+
+    /** Bigger responses are passed through uncached */
+    private static final int MAX_ENTRY_BYTES = 2 * 1024 * 1024;
+
+    /** Response headers worth replaying from the cache */
+    private static final String[] KEPT_HEADERS = {
+        "Cache-Control", "Content-Security-Policy", "Access-Control-Allow-Origin",
+        "X-Content-Type-Options", "X-Frame-Options", "Referrer-Policy", "Permissions-Policy",
+    };
+
+    /**
+     * Where fresh responses come from
+     */
+    public interface Origin {
+        /**
+         * @return the response, or null if the request failed
+         */
+        Response fetch(String url, Map<String, String> requestHeaders) throws IOException;
+    }
+
+    /**
+     * A response for the WebView
+     */
+    public static final class Response {
+        public final int status;
+        public final String mimeType;
+        /** Charset, or null */
+        public final String encoding;
+        public final Map<String, String> headers;
+        public final byte[] body;
+        public final boolean fromCache;
+
+        public Response(int status, String mimeType, String encoding, Map<String, String> headers,
+                        byte[] body, boolean fromCache) {
+            this.status = status;
+            this.mimeType = mimeType;
+            this.encoding = encoding;
+            this.headers = headers;
+            this.body = body;
+            this.fromCache = fromCache;
+        }
+    }
+
+    private final WebAssetCache cache;
+    private final Executor revalidator;
+    private final long maxDocumentAgeMs;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong staleServed = new AtomicLong();
+    private final AtomicLong revalidations = new AtomicLong();
+    private final AtomicLong revalidationFailures = new AtomicLong();
+    private final AtomicLong bytesServed = new AtomicLong();
+
+    private volatile boolean servedStaleDocument;
+    private volatile Runnable onStaleBuild;
+
+    /**
+     * @param revalidator runs background document refreshes
+     */
+    public WebAssetLoader(WebAssetCache cache, Executor revalidator, long maxDocumentAgeMs) {
+        this.cache = cache;
+        this.revalidator = revalidator;
+        this.maxDocumentAgeMs = maxDocumentAgeMs;
+    }
+
+    /**
+     * Which cache policy applies to a request, or 0 if it should not be cached
+     */
+    static byte kindOf(String method, String path, Map<String, String> requestHeaders) {
+        if (!"GET".equalsIgnoreCase(method) || path == null) return 0;
+        if (path.startsWith(STATIC_PREFIX)) return WebAssetCache.KIND_IMMUTABLE;
+        if (path.startsWith("/api/") || path.startsWith("/_next/")) return 0;
+        String accept = header(requestHeaders, "Accept");
+        if (accept != null && accept.contains("text/html")) return WebAssetCache.KIND_DOCUMENT;
+        return 0;
+    }
+
+    /**
+     * @return a response for the WebView, or null to let it load the URL itself
+     */
+    public Response load(String url, byte kind, Map<String, String> requestHeaders, Origin origin, long nowMillis) {
+        if (kind == 0) return null;
+
+        WebAssetCache.Entry cached = cache.get(url);
+        if (cached != null && kind == WebAssetCache.KIND_IMMUTABLE) {
+            hits.incrementAndGet();
+            return served(cached);
+        }
+        if (cached != null && nowMillis - cached.storedAt < maxDocumentAgeMs) {
+            staleServed.incrementAndGet();
+            servedStaleDocument = true;
+            revalidator.execute(() -> revalidate(url, requestHeaders, origin));
+            return served(cached);
+        }
+
+        misses.incrementAndGet();
+        Response fresh = fetchAndStore(url, kind, requestHeaders, origin, nowMillis);
+        if (fresh == null) return null;
+        if (kind == WebAssetCache.KIND_IMMUTABLE && fresh.status != 200) {
+            if (fresh.status == 404 && servedStaleDocument) {
+                // The stale page references a build that is gone from the server
+                servedStaleDocument = false;
+                clearDocuments();
+                Runnable listener = onStaleBuild;
+                if (listener != null) listener.run();
+            }
+            return null; // Let the WebView load (and report) it itself
+        }
+        bytesServed.addAndGet(fresh.body.length);
+        return fresh;
+    }
+
+    /**
+     * Called (on a loader thread) when a stale document asked for build assets
+     * that no longer exist, e.g. to reload the page with fresh HTML
+     */
+    public void setOnStaleBuild(Runnable listener) {
+        onStaleBuild = listener;
+    }
+
+    /**
+     * Forget cached documents, e.g. on sign-out or when a stale one turned out to be broken
+     */
+    public void clearDocuments() {
+        cache.clear(WebAssetCache.KIND_DOCUMENT);
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getStaleServed() {
+        return staleServed.get();
+    }
+
+    public long getRevalidations() {
+        return revalidations.get();
+    }
+
+    public long getRevalidationFailures() {
+        return revalidationFailures.get();
+    }
+
+    public long getBytesServed() {
+        return bytesServed.get();
+    }
+
+    /**
+     * Share of handled requests answered from disk, 0..1
+     */
+    public double getHitRate() {
+        long fromCache = hits.get() + staleServed.get();
+        long total = fromCache + misses.get();
+        return total == 0 ? 0 : (double) fromCache / total;
+    }
+
+    public WebAssetCache getCache() {
+        return cache;
+    }
+
+    private Response served(WebAssetCache.Entry entry) {
+        bytesServed.addAndGet(entry.body.length);
+        return new Response(200, entry.mimeType, entry.encoding, entry.headers, entry.body, true);
+    }
+
+    private void revalidate(String url, Map<String, String> requestHeaders, Origin origin) {
+        revalidations.incrementAndGet();
+        Response fresh = fetchAndStore(url, WebAssetCache.KIND_DOCUMENT, requestHeaders, origin, System.currentTimeMillis());
+        if (fresh == null || fresh.status != 200) {
+            revalidationFailures.incrementAndGet();
+            if (fresh != null && fresh.status != 304) {
+                // Signed out, moved or gone: don't show the old page again
+                cache.remove(url);
+            }
+        }
+    }
+
+    private Response fetchAndStore(String url, byte kind, Map<String, String> requestHeaders, Origin origin, long nowMillis) {
+        Response response;
+        try {
+            response = origin.fetch(url, requestHeaders);
+        } catch (IOException e) {
+            return null;
+        }
+        if (response == null) return null;
+
+        if (response.status == 200 && response.body.length <= MAX_ENTRY_BYTES && isStorable(response)) {
+            try {
+                cache.put(new WebAssetCache.Entry(kind, url, response.mimeType, response.encoding, nowMillis,
+                    keptHeaders(response.headers), response.body));
+            } catch (IOException e) {
+                // Serve it anyway; next time is another miss
+            }
+        }
+        return response;
+    }
+
+    private static boolean isStorable(Response response) {
+        String cacheControl = header(response.headers, "Cache-Control");
+        if (cacheControl == null) return true;
+        cacheControl = cacheControl.toLowerCase(Locale.ROOT);
+        return !cacheControl.contains("no-store") && !cacheControl.contains("private");
+    }
+
+    private static Map<String, String> keptHeaders(Map<String, String> headers) {
+        Map<String, String> kept = new LinkedHashMap<>();
+        for (String name : KEPT_HEADERS) {
+            String value = header(headers, name);
+            if (value != null) kept.put(name, value);
+        }
+        return kept;
+    }
+
+    static String header(Map<String, String> headers, String name) {
+        if (headers == null) return null;
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            if (name.equalsIgnoreCase(header.getKey())) return header.getValue();
+        }
+        return null;
+    }
+
+    /**
+     * Plain HTTP origin for static assets. Redirects are not followed: a
+     * redirected asset is not cacheable under its original URL.
+     */
+    public static final class HttpOrigin implements Origin {
+
+        private final int connectTimeoutMs;
+        private final int readTimeoutMs;
+
+        public HttpOrigin(int connectTimeoutMs, int readTimeoutMs) {
+            this.connectTimeoutMs = connectTimeoutMs;
+            this.readTimeoutMs = readTimeoutMs;
+        }
+
+        @Override
+        public Response fetch(String url, Map<String, String> requestHeaders) throws IOException {
+            HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+            try {
+                connection.setInstanceFollowRedirects(false);
+                connection.setConnectTimeout(connectTimeoutMs);
+                connection.setReadTimeout(readTimeoutMs);
+                connection.setUseCaches(false);
+                if (requestHeaders != null) {
+                    for (Map.Entry<String, String> header : requestHeaders.entrySet()) {
+                        // HttpURLConnection negotiates and decodes gzip itself
+                        if ("Accept-Encoding".equalsIgnoreCase(header.getKey())) continue;
+                        connection.setRequestProperty(header.getKey(), header.getValue());
+                    }
+                }
+
+                int status = connection.getResponseCode();
+                if (status != 200) return new Response(status, "", null, new LinkedHashMap<>(), new byte[0], false);
+
+                Map<String, String> headers = new LinkedHashMap<>();
+                for (String name : KEPT_HEADERS) {
+                    String value = connection.getHeaderField(name);
+                    if (value != null) headers.put(name, value);
+                }
+
+                String[] contentType = splitContentType(connection.getContentType());
+                byte[] body;
+                try (InputStream in = connection.getInputStream()) {
+                    body = readAll(in);
+                }
+                return new Response(status, contentType[0], contentType[1], headers, body, false);
+            } finally {
+                connection.disconnect();
+            }
+        }
+    }
+
+    /**
+     * "text/html; charset=utf-8" -> {"text/html", "utf-8"}
+     */
+    static String[] splitContentType(String contentType) {
+        if (contentType == null) return new String[] {"application/octet-stream", null};
+        String[] parts = contentType.split(";");
+        String mimeType = parts[0].trim();
+        String charset = null;
+        for (int i = 1; i < parts.length; i++) {
+            String part = parts[i].trim();
+            if (part.regionMatches(true, 0, "charset=", 0, 8)) {
+                charset = part.substring(8).replace("\"", "").trim();
+            }
+        }
+        return new String[] {mimeType, charset};
+    }
+
+    static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 * 1024);
+        byte[] buffer = new byte[8 * 1024];
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,46 @@
+package in.helparo.app;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+/**
+ * Native Capacitor Plugin exposing the disk cache the web app is served from
+ * Used by src/lib/native-web-cache.ts to report hit rates and drop a bad deploy
+ */
+@CapacitorPlugin(name = "WebCache")
+public class WebCachePlugin extends Plugin {
+
+    /**
+     * Hit rate and size of the disk cache the web app is served from
+     */
+    @PluginMethod
+    public void getStats(PluginCall call) {
+        WebAssetLoader loader = CachingWebViewClient.getLoader(getContext());
+        JSObject ret = new JSObject();
+        ret.put("hits", loader.getHits());
+        ret.put("staleServed", loader.getStaleServed());
+        ret.put("misses", loader.getMisses());
+        ret.put("hitRate", loader.getHitRate());
+        ret.put("revalidations", loader.getRevalidations());
+        ret.put("revalidationFailures", loader.getRevalidationFailures());
+        ret.put("bytesServed", loader.getBytesServed());
+        ret.put("entries", loader.getCache().size());
+        ret.put("sizeBytes", loader.getCache().sizeBytes());
+        ret.put("evictions", loader.getCache().getEvictions());
+        call.resolve(ret);
+    }
+
+    /**
+     * Drop every cached web asset; the next start loads everything from the server
+     */
+    @PluginMethod
+    public void clear(PluginCall call) {
+        CachingWebViewClient.getLoader(getContext()).clear();
+        JSObject ret = new JSObject();
+        ret.put("success", true);
+        call.resolve(ret);
+    }
+}
@@ -0,0 +1,161 @@
+package in.helparo.app;
+
+import static org.junit.Assert.*;
+
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * JVM tests for {@link JobClaimClient} against a local stub of /api/requests/accept.
+ */
+public class JobClaimClientTest {
+
+    private HttpServer server;
+    private JobClaimClient client;
+
+    private final AtomicInteger status = new AtomicInteger(200);
+    private final AtomicReference<String> lastBody = new AtomicReference<>();
+    private final AtomicReference<String> lastAuth = new AtomicReference<>();
+    private final AtomicReference<String> lastMethod = new AtomicReference<>();
+
+    @Before
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext(JobClaimClient.ACCEPT_PATH, exchange -> {
+            lastMethod.set(exchange.getRequestMethod());
+            lastAuth.set(exchange.getRequestHeaders().getFirst("Authorization"));
+            lastBody.set(read(exchange.getRequestBody()));
+
+            byte[] response = "{\"success\":true}".getBytes(StandardCharsets.UTF_8);
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+            } else {
+                exchange.sendResponseHeaders(status.get(), response.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(response);
+                }
+            }
+            exchange.close();
+        });
+        server.createContext(JobClaimClient.RESPOND_PATH, exchange -> {
+            lastMethod.set(exchange.getRequestMethod());
+            lastAuth.set(exchange.getRequestHeaders().getFirst("Authorization"));
+            lastBody.set(read(exchange.getRequestBody()));
+            exchange.sendResponseHeaders(status.get(), -1);
+            exchange.close();
+        });
+        server.start();
+        client = new JobClaimClient("http://127.0.0.1:" + server.getAddress().getPort(), 2_000, 2_000);
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    private static String read(InputStream in) throws java.io.IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[256];
+        int n;
+        while ((n = in.read(buffer)) > 0) out.write(buffer, 0, n);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void claimPostsRequestIdWithBearerToken() {
+        assertEquals(JobClaimClient.Result.CLAIMED, client.claim("job-123", "token-abc"));
+        assertEquals("POST", lastMethod.get());
+        assertEquals("Bearer token-abc", lastAuth.get());
+        assertEquals("{\"requestId\":\"job-123\"}", lastBody.get());
+    }
+
+    @Test
+    public void conflictMeansLost() {
+        status.set(409);
+        assertEquals(JobClaimClient.Result.LOST, client.claim("job-123", "token"));
+        status.set(404);
+        assertEquals(JobClaimClient.Result.LOST, client.claim("job-123", "token"));
+    }
+
+    @Test
+    public void rejectedTokenMeansUnauthorized() {
+        status.set(401);
+        assertEquals(JobClaimClient.Result.UNAUTHORIZED, client.claim("job-123", "expired"));
+    }
+
+    @Test
+    public void missingTokenIsNotSent() {
+        assertEquals(JobClaimClient.Result.UNAUTHORIZED, client.claim("job-123", null));
+        assertNull(lastMethod.get());
+    }
+
+    @Test
+    public void serverErrorIsReported() {
+        status.set(500);
+        assertEquals(JobClaimClient.Result.ERROR, client.claim("job-123", "token"));
+    }
+
+    @Test
+    public void unreachableServerIsReported() {
+        server.stop(0);
+        assertEquals(JobClaimClient.Result.ERROR, client.claim("job-123", "token"));
+    }
+
+    @Test
+    public void prewarmDoesNotClaim() {
+        client.prewarm();
+        assertEquals("HEAD", lastMethod.get());
+        assertEquals(JobClaimClient.Result.CLAIMED, client.claim("job-123", "token"));
+    }
+
+    @Test
+    public void declinesAreBatched() throws Exception {
+        File dir = Files.createTempDirectory("outbox").toFile();
+        File file = new File(dir, "job_responses.log");
+        try {
+            ResponseOutbox outbox = new ResponseOutbox(file, 10);
+            outbox.open(0);
+            ResponseOutbox.Entry first = outbox.enqueue(ResponseOutbox.ACTION_DECLINE, "job-1", 0, null, 0, 60_000);
+            ResponseOutbox.Entry second = outbox.enqueue(ResponseOutbox.ACTION_DECLINE, "job-2", 0, null, 0, 60_000);
+
+            assertEquals(200, client.decline(Arrays.asList(first, second), "token"));
+            assertEquals("Bearer token", lastAuth.get());
+            assertEquals("{\"responses\":["
+                + "{\"key\":\"" + first.key + "\",\"requestId\":\"job-1\",\"action\":\"decline\"},"
+                + "{\"key\":\"" + second.key + "\",\"requestId\":\"job-2\",\"action\":\"decline\"}]}",
+                lastBody.get());
+        } finally {
+            file.delete();
+            dir.delete();
+        }
+    }
+
+    @Test
+    public void onlyTransientFailuresAreRetried() {
+        assertTrue(JobClaimClient.isRetryable(JobClaimClient.STATUS_NO_RESPONSE));
+        assertTrue(JobClaimClient.isRetryable(503));
+        assertTrue(JobClaimClient.isRetryable(429));
+        assertTrue(JobClaimClient.isRetryable(401));
+        assertFalse(JobClaimClient.isRetryable(400));
+        assertFalse(JobClaimClient.isRetryable(404));
+    }
+
+    @Test
+    public void requestIdIsEscaped() {
+        assertEquals("a\\\"b\\\\c\\u000a", JobClaimClient.escape("a\"b\\c\n"));
+    }
+}
@@ -0,0 +1,216 @@
+package in.helparo.app;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * JVM tests for {@link LocalJobLog}.
+ */
+public class LocalJobLogTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+
+    private File dir;
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("jobs").toFile();
+        file = new File(dir, "local_jobs.log");
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) f.delete();
+        }
+        dir.delete();
+    }
+
+    private static JobAlert job(String id) {
+        return new JobAlert.Builder(JobAlertDecoder.TYPE_NEW_JOB, id)
+            .title("Fix tap " + id)
+            .description("Leaking tap")
+            .price("499")
+            .location("Andheri")
+            .distance("1.2 km")
+            .customerName("Asha")
+            .urgency(JobAlert.URGENCY_URGENT)
+            .sentAtMillis(NOW - 1_000)
+            .expiresAtMillis(NOW + 60_000)
+            .build();
+    }
+
+    private LocalJobLog open() throws Exception {
+        LocalJobLog log = new LocalJobLog(file, 10, 60_000);
+        log.open(NOW);
+        return log;
+    }
+
+    @Test
+    public void survivesReopen() throws Exception {
+        LocalJobLog log = open();
+        log.put(job("job-1"), NOW, NOW + 60_000);
+        log.put(job("job-2"), NOW + 1, NOW + 60_000);
+
+        LocalJobLog reopened = open();
+        LocalJobLog.StoredJob stored = reopened.get("job-1");
+        assertNotNull(stored);
+        assertEquals("Fix tap job-1", stored.alert.getTitle());
+        assertEquals("499", stored.alert.getPrice());
+        assertEquals("Asha", stored.alert.getCustomerName());
+        assertEquals(JobAlert.URGENCY_URGENT, stored.alert.getUrgency());
+        assertEquals(NOW + 60_000, stored.alert.getExpiresAtMillis());
+        assertEquals(NOW, stored.receivedAt);
+        assertEquals(2, reopened.size());
+    }
+
+    @Test
+    public void keepsCoordinatesAndImage() throws Exception {
+        LocalJobLog log = open();
+        log.put(new JobAlert.Builder(JobAlertDecoder.TYPE_NEW_JOB, "job-1")
+            .coordinates(19.1197, 72.8468)
+            .imageUrl("https://img.helparo.in/job-1.jpg")
+            .build(), NOW, NOW + 60_000);
+        log.put(job("job-2"), NOW + 1, NOW + 60_000);
+
+        LocalJobLog reopened = open();
+        JobAlert withExtras = reopened.get("job-1").alert;
+        assertEquals(19.1197, withExtras.getLatitude(), 0);
+        assertEquals(72.8468, withExtras.getLongitude(), 0);
+        assertEquals("https://img.helparo.in/job-1.jpg", withExtras.getImageUrl());
+        JobAlert without = reopened.get("job-2").alert;
+        assertFalse(without.hasCoordinates());
+        assertNull(without.getImageUrl());
+    }
+
+    @Test
+    public void upgradesFileWithoutCoordinates() throws Exception {
+        // One HJL1 put record: no coordinates or image URL after the four longs
+        ByteArrayOutputStream record = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(record);
+        out.writeByte(1);
+        out.writeUTF(JobAlertDecoder.TYPE_NEW_JOB);
+        out.writeUTF("job-1");
+        out.writeUTF("Fix tap");
+        for (int i = 0; i < 5; i++) out.writeBoolean(false);
+        out.writeUTF(JobAlert.URGENCY_NORMAL);
+        out.writeLong(NOW - 1_000);
+        out.writeLong(NOW + 60_000);
+        out.writeLong(NOW);
+        out.writeLong(NOW + 60_000);
+        try (DataOutputStream stream = new DataOutputStream(new FileOutputStream(file))) {
+            stream.writeInt(0x484A4C31);
+            stream.writeInt(record.size());
+            stream.write(record.toByteArray());
+        }
+
+        LocalJobLog log = open();
+        assertEquals("Fix tap", log.get("job-1").alert.getTitle());
+        log.put(job("job-2"), NOW + 1, NOW + 60_000);
+
+        LocalJobLog reopened = open();
+        assertEquals(2, reopened.size());
+        assertFalse(reopened.get("job-1").alert.hasCoordinates());
+    }
+
+    @Test
+    public void optionalFieldsStayNull() throws Exception {
+        LocalJobLog log = open();
+        log.put(new JobAlert.Builder(JobAlertDecoder.TYPE_NEW_JOB, "job-1").build(), NOW, NOW + 1_000);
+
+        LocalJobLog.StoredJob stored = open().get("job-1");
+        assertNull(stored.alert.getDescription());
+        assertNull(stored.alert.getCustomerName());
+    }
+
+    @Test
+    public void removeIsPersisted() throws Exception {
+        LocalJobLog log = open();
+        log.put(job("job-1"), NOW, NOW + 60_000);
+        assertTrue(log.remove("job-1"));
+        assertFalse(log.remove("job-1"));
+
+        assertNull(open().get("job-1"));
+    }
+
+    @Test
+    public void listsActiveJobsNewestFirst() throws Exception {
+        LocalJobLog log = open();
+        log.put(job("old"), NOW, NOW + 10);
+        log.put(job("a"), NOW + 1, NOW + 60_000);
+        log.put(job("b"), NOW + 2, NOW + 60_000);
+
+        List<LocalJobLog.StoredJob> active = log.listActive(NOW + 100);
+        assertEquals(2, active.size());
+        assertEquals("b", active.get(0).alert.getJobId());
+        assertEquals("a", active.get(1).alert.getJobId());
+        // Expired but within retention: still readable by ID
+        assertNotNull(log.get("old"));
+    }
+
+    @Test
+    public void keepsAtMostMaxJobs() throws Exception {
+        LocalJobLog log = open();
+        for (int i = 0; i < 15; i++) {
+            log.put(job("job-" + i), NOW + i, NOW + 60_000);
+        }
+
+        assertEquals(10, log.size());
+        assertNull(log.get("job-4"));
+        assertNotNull(log.get("job-5"));
+        assertEquals(10, open().size());
+    }
+
+    @Test
+    public void compactionBoundsTheFile() throws Exception {
+        LocalJobLog log = open();
+        for (int i = 0; i < 500; i++) {
+            log.put(job("job-1"), NOW + i, NOW + 60_000);
+        }
+        long oneJob = log.fileLength();
+
+        assertTrue("file grew to " + oneJob, oneJob < 2_000);
+        assertEquals(1, open().size());
+    }
+
+    @Test
+    public void dropsJobsPastRetentionOnOpen() throws Exception {
+        LocalJobLog log = open();
+        log.put(job("job-1"), NOW, NOW + 1_000);
+
+        LocalJobLog later = new LocalJobLog(file, 10, 60_000);
+        later.open(NOW + 1_000 + 60_000);
+        assertNull(later.get("job-1"));
+    }
+
+    @Test
+    public void tornTailIsDropped() throws Exception {
+        LocalJobLog log = open();
+        log.put(job("job-1"), NOW, NOW + 60_000);
+        log.put(job("job-2"), NOW, NOW + 60_000);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 5);
+        }
+
+        LocalJobLog reopened = open();
+        assertNotNull(reopened.get("job-1"));
+        assertNull(reopened.get("job-2"));
+
+        // Appending after the repair must not be hidden behind the torn record
+        reopened.put(job("job-3"), NOW, NOW + 60_000);
+        assertNotNull(open().get("job-3"));
+    }
+}
@@ -0,0 +1,415 @@
+package in.helparo.app;
+
+import static org.robolectric.Shadows.shadowOf;
+
+import android.app.Application;
+import android.app.Notification;
+import android.app.NotificationManager;
+import android.content.Context;
+import android.os.Looper;
+import android.os.PowerManager;
+import android.service.notification.StatusBarNotification;
+
+import com.google.firebase.messaging.RemoteMessage;
+
+import org.json.JSONObject;
+import org.robolectric.Robolectric;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Replays a schedule of FCM data maps through
+ * {@link MyFirebaseMessagingService#onMessageReceived} under Robolectric and
+ * reports what the helper's phone would have done.
+ *
+ * Pushes are delivered at their offsets on a simulated clock: the service's
+ * coalescing and expiry clock and the main looper are advanced together, so
+ * posted work runs in between and a scenario takes no longer than its
+ * processing. Each scenario writes build/reports/push-replay/&lt;name&gt;.json,
+ * so runs before and after a change can be compared number by number.
+ *
+ * Recordings are JSON lines, {"atMs": 0, "data": {...}}, for example captured
+ * from the service's debug log. Send and expiry times in them are moved to
+ * the replay time, keeping each job's original lifetime; a redelivery keeps
+ * the send time of the first copy, as it would from FCM.
+ */
+final class PushReplay {
+
+    /** Lifetime for jobs whose payload does not say */
+    static final long DEFAULT_JOB_TTL_MS = 30_000L;
+
+    private static final File REPORT_DIR = new File("build/reports/push-replay");
+
+    /** One push at an offset from the start of the scenario */
+    static final class Push {
+        final long atMs;
+        final Map<String, String> data;
+
+        Push(long atMs, Map<String, String> data) {
+            this.atMs = atMs;
+            this.data = data;
+        }
+    }
+
+    /** What one scenario did */
+    static final class Report {
+        final String name;
+        int messages;
+        /** Notifications under a new ID */
+        int posted;
+        /** notify() on an ID that was still showing: the previous content is gone */
+        int overwritten;
+        int cancelled;
+        /** Group summaries are expected to be rebuilt, so they are counted apart */
+        int summaryUpdates;
+        /** Posted or updated with a full-screen intent: the system would open the alert screen */
+        int fullScreenLaunches;
+        /** startActivity() calls made directly */
+        int activityStarts;
+        long wakeLockAcquisitions;
+        long[] processingNanos;
+
+        Report(String name) {
+            this.name = name;
+        }
+
+        long percentileMicros(int percentile) {
+            if (processingNanos.length == 0) return 0;
+            long[] sorted = processingNanos.clone();
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1000;
+        }
+
+        String toJson() {
+            return String.format(Locale.ROOT,
+                "{\"scenario\":\"%s\",\"messages\":%d,\"posted\":%d,\"overwritten\":%d,"
+                    + "\"cancelled\":%d,\"summaryUpdates\":%d,\"fullScreenLaunches\":%d,"
+                    + "\"activityStarts\":%d,\"wakeLockAcquisitions\":%d,"
+                    + "\"p50Micros\":%d,\"p95Micros\":%d,\"maxMicros\":%d}",
+                name, messages, posted, overwritten, cancelled, summaryUpdates,
+                fullScreenLaunches, activityStarts, wakeLockAcquisitions,
+                percentileMicros(50), percentileMicros(95), percentileMicros(100));
+        }
+    }
+
+    private final Application app;
+    private final MyFirebaseMessagingService service;
+    private final NotificationManager notificationManager;
+    private int messageCount;
+    /** Simulated wall time the service reads; only moves in {@link #idleFor} */
+    private long now;
+
+    PushReplay(Application app) {
+        this.app = app;
+        service = Robolectric.setupService(MyFirebaseMessagingService.class);
+        notificationManager = (NotificationManager) app.getSystemService(Context.NOTIFICATION_SERVICE);
+    }
+
+    /**
+     * Whether the phone is in the helper's hand; a locked phone is the case
+     * that takes wake locks and full-screen launches
+     */
+    void setScreenOn(boolean on) {
+        shadowOf((PowerManager) app.getSystemService(Context.POWER_SERVICE)).setIsInteractive(on);
+    }
+
+    /**
+     * Forget earlier scenarios: the queue, effects and notifications are
+     * process-wide and outlive a single test
+     */
+    void reset() {
+        JobAlertQueue.getInstance().clear();
+        RegularNotifications.clear();
+        AlertEffects.get(app).stopAll();
+        notificationManager.cancelAll();
+        shadowOf(Looper.getMainLooper()).idle();
+        while (shadowOf(app).getNextStartedActivity() != null) {
+            // Drain
+        }
+    }
+
+    Report run(String name, List<Push> pushes) throws IOException {
+        Report report = new Report(name);
+        report.processingNanos = new long[pushes.size()];
+        WakeLockLedger ledger = AlertWakeLock.get(app).getLedger();
+        long acquisitionsBefore = ledger.getAcquisitions();
+
+        // Schedules are built just before, so their send times are at or before the start
+        now = System.currentTimeMillis();
+        MyFirebaseMessagingService.clock = () -> now;
+        long replayedUpTo = 0;
+        try {
+            for (Push push : pushes) {
+                if (push.atMs > replayedUpTo) {
+                    idleFor(push.atMs - replayedUpTo);
+                    replayedUpTo = push.atMs;
+                }
+
+                Map<Integer, Notification> before = activeNotifications();
+                long begin = System.nanoTime();
+                service.onMessageReceived(message(push.data));
+                shadowOf(Looper.getMainLooper()).idle();
+                report.processingNanos[report.messages++] = System.nanoTime() - begin;
+
+                count(report, before, activeNotifications());
+                while (shadowOf(app).getNextStartedActivity() != null) {
+                    report.activityStarts++;
+                }
+            }
+        } finally {
+            MyFirebaseMessagingService.clock = System::currentTimeMillis;
+        }
+
+        report.wakeLockAcquisitions = ledger.getAcquisitions() - acquisitionsBefore;
+        write(report);
+        return report;
+    }
+
+    /** Move the service's clock and the main looper forward together */
+    private void idleFor(long millis) {
+        now += millis;
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(millis));
+    }
+
+    private static void count(Report report, Map<Integer, Notification> before, Map<Integer, Notification> after) {
+        for (Map.Entry<Integer, Notification> entry : after.entrySet()) {
+            Notification previous = before.get(entry.getKey());
+            Notification current = entry.getValue();
+            if (previous == current) continue;
+
+            if ((current.flags & Notification.FLAG_GROUP_SUMMARY) != 0) {
+                report.summaryUpdates++;
+                continue;
+            }
+            if (previous == null) {
+                report.posted++;
+            } else {
+                report.overwritten++;
+            }
+            if (current.fullScreenIntent != null) report.fullScreenLaunches++;
+        }
+        for (Integer id : before.keySet()) {
+            if (!after.containsKey(id)) report.cancelled++;
+        }
+    }
+
+    private Map<Integer, Notification> activeNotifications() {
+        Map<Integer, Notification> active = new HashMap<>();
+        for (StatusBarNotification posted : notificationManager.getActiveNotifications()) {
+            active.put(posted.getId(), posted.getNotification());
+        }
+        return active;
+    }
+
+    private RemoteMessage message(Map<String, String> data) {
+        return new RemoteMessage.Builder("helparo@fcm.googleapis.com")
+            .setMessageId("replay-" + (++messageCount))
+            .setData(data)
+            .build();
+    }
+
+    private static void write(Report report) throws IOException {
+        if (!REPORT_DIR.isDirectory() && !REPORT_DIR.mkdirs()) {
+            throw new IOException("Could not create " + REPORT_DIR);
+        }
+        File file = new File(REPORT_DIR, report.name + ".json");
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            out.write(report.toJson());
+            out.write('\n');
+        }
+    }
+
+    // ---- Synthetic schedules ----
+
+    /**
+     * {@code count} distinct jobs, {@code spacingMs} apart, as the job-alert
+     * route sends them (v1) or in the compact v2 form
+     */
+    static List<Push> jobBurst(String prefix, int count, long spacingMs, boolean compact) {
+        long now = System.currentTimeMillis();
+        List<Push> pushes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long at = i * spacingMs;
+            String jobId = prefix + "-" + i;
+            pushes.add(new Push(at, compact
+                ? compactJob(jobId, now + at, DEFAULT_JOB_TTL_MS)
+                : v1Job(jobId, now + at, DEFAULT_JOB_TTL_MS)));
+        }
+        return pushes;
+    }
+
+    /** Every push of the schedule delivered twice, the copy {@code delayMs} later */
+    static List<Push> withRedeliveries(List<Push> pushes, long delayMs) {
+        List<Push> doubled = new ArrayList<>(pushes.size() * 2);
+        for (Push push : pushes) {
+            doubled.add(push);
+            doubled.add(new Push(push.atMs + delayMs, push.data));
+        }
+        doubled.sort((a, b) -> Long.compare(a.atMs, b.atMs));
+        return doubled;
+    }
+
+    /**
+     * helper_applied bids for {@code bookings} requests, {@code bidsEach} per
+     * request, interleaved {@code spacingMs} apart as the dispatcher sends them
+     */
+    static List<Push> helperBids(String prefix, int bookings, int bidsEach, long spacingMs) {
+        long now = System.currentTimeMillis();
+        List<Push> pushes = new ArrayList<>(bookings * bidsEach);
+        for (int bid = 0; bid < bidsEach; bid++) {
+            for (int booking = 0; booking < bookings; booking++) {
+                long at = pushes.size() * spacingMs;
+                Map<String, String> data = new HashMap<>();
+                data.put("type", "helper_applied");
+                data.put("requestId", prefix + "-" + booking);
+                data.put("title", "🙋 New helper applied!");
+                data.put("body", "Helper " + bid + " applied for ₹" + (599 - bid * 50));
+                data.put("helperName", "Helper " + bid);
+                data.put("proposedPrice", "₹" + (599 - bid * 50));
+                data.put("totalBids", Integer.toString(bid + 1));
+                data.put("timestamp", iso(now + at));
+                data.put("version", "1");
+                pushes.add(new Push(at, data));
+            }
+        }
+        return pushes;
+    }
+
+    /** One new_job_batch message carrying {@code count} ranked jobs */
+    static Push jobBatch(String prefix, int count) {
+        long now = System.currentTimeMillis();
+        Map<String, String> data = new HashMap<>();
+        data.put("v", "2");
+        data.put("t", "b");
+        data.put("s", Long.toString(now, 36));
+        data.put("n", Integer.toString(count));
+        for (int rank = 0; rank < count; rank++) {
+            Map<String, String> job = compactJob(prefix + "-" + rank, now, DEFAULT_JOB_TTL_MS);
+            for (Map.Entry<String, String> field : job.entrySet()) {
+                if (field.getKey().equals("v") || field.getKey().equals("s")) continue;
+                data.put(field.getKey() + rank, field.getValue());
+            }
+        }
+        return new Push(0, data);
+    }
+
+    static Map<String, String> v1Job(String jobId, long sentAt, long ttlMs) {
+        Map<String, String> data = new HashMap<>();
+        data.put("type", "new_job");
+        data.put("jobId", jobId);
+        data.put("job_id", jobId);
+        data.put("title", "Plumbing - Tap Repair");
+        data.put("description", "Kitchen tap leaking since morning");
+        data.put("price", "500");
+        data.put("location", "Labbipet, Vijayawada");
+        data.put("distance", "2.3 km");
+        data.put("customerName", "Ravi");
+        data.put("customer_name", "Ravi");
+        data.put("urgency", "urgent");
+        data.put("expiresAt", Long.toString(sentAt + ttlMs));
+        data.put("timestamp", iso(sentAt));
+        return data;
+    }
+
+    static Map<String, String> compactJob(String jobId, long sentAt, long ttlMs) {
+        Map<String, String> data = new HashMap<>();
+        data.put("v", "2");
+        data.put("t", "n");
+        data.put("i", jobId);
+        data.put("h", "Electrician - Fan Fitting");
+        data.put("d", "Two ceiling fans, wiring is ready");
+        data.put("p", "650");
+        data.put("l", "Benz Circle, Vijayawada");
+        data.put("k", "3.1 km");
+        data.put("u", "n");
+        data.put("s", Long.toString(sentAt, 36));
+        data.put("x", Long.toString(ttlMs / 1000));
+        return data;
+    }
+
+    // ---- Recordings ----
+
+    /**
+     * Read a JSON lines recording from the test resources (or any stream)
+     */
+    static List<Push> load(InputStream in) throws IOException {
+        long now = System.currentTimeMillis();
+        List<Push> pushes = new ArrayList<>();
+        Map<String, Long> sendTimes = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                try {
+                    JSONObject json = new JSONObject(line);
+                    long at = json.optLong("atMs", 0);
+                    JSONObject fields = json.getJSONObject("data");
+                    Map<String, String> data = new HashMap<>();
+                    for (Iterator<String> keys = fields.keys(); keys.hasNext(); ) {
+                        String key = keys.next();
+                        data.put(key, fields.getString(key));
+                    }
+                    pushes.add(new Push(at, rebase(data, now + at, sendTimes)));
+                } catch (Exception e) {
+                    throw new IOException("Bad recording line: " + line, e);
+                }
+            }
+        }
+        pushes.sort((a, b) -> Long.compare(a.atMs, b.atMs));
+        return pushes;
+    }
+
+    /**
+     * Move a recorded payload's send and expiry times to the replay time, so
+     * the expiry gate judges it as it did when it was recorded. Payloads with
+     * the same recorded send time get the same replay time.
+     */
+    static Map<String, String> rebase(Map<String, String> data, long sentAt, Map<String, Long> sendTimes) {
+        String compactSentAt = data.get("s");
+        String recorded = compactSentAt != null ? compactSentAt : data.get("timestamp");
+        if (recorded != null) {
+            Long first = sendTimes.putIfAbsent(recorded, sentAt);
+            if (first != null) sentAt = first;
+        }
+        if ("2".equals(data.get("v")) && compactSentAt != null) {
+            data.put("s", Long.toString(sentAt, 36)); // Expiry is relative in v2
+            return data;
+        }
+        long recordedSentAt = PushTimestamps.parse(data.get("timestamp"));
+        long recordedExpiresAt = PushTimestamps.parse(data.get("expiresAt"));
+        if (data.containsKey("timestamp")) data.put("timestamp", iso(sentAt));
+        if (data.containsKey("expiresAt")) {
+            long ttl = recordedSentAt > 0 && recordedExpiresAt > recordedSentAt
+                ? recordedExpiresAt - recordedSentAt
+                : DEFAULT_JOB_TTL_MS;
+            data.put("expiresAt", Long.toString(sentAt + ttl));
+        }
+        return data;
+    }
+
+    private static String iso(long millis) {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.ROOT);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return format.format(millis);
+    }
+}
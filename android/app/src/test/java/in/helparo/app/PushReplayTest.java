@@ -0,0 +1,144 @@
+package in.helparo.app;
+
+import static org.junit.Assert.*;
+
+import android.app.Application;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Push bursts replayed through the real receive path with {@link PushReplay}.
+ *
+ * The assertions pin down what a burst must never do (wake the phone per job,
+ * overwrite a job's notification, ring for a redelivery); the timings and
+ * counts in build/reports/push-replay are there to compare across changes.
+ * Run with {@code ./gradlew :app:testDebugUnitTest --tests '*PushReplayTest'}.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class PushReplayTest {
+
+    private PushReplay replay;
+
+    @Before
+    public void setUp() {
+        Application app = ApplicationProvider.getApplicationContext();
+        replay = new PushReplay(app);
+        replay.reset();
+        replay.setScreenOn(false);
+    }
+
+    @Test
+    public void twentyJobsInTenSecondsWakeOnce() throws Exception {
+        PushReplay.Report report = replay.run("burst-20-in-10s",
+            PushReplay.jobBurst("burst10s", 20, 500, false));
+
+        assertEquals(20, report.messages);
+        assertEquals(20, report.posted);
+        assertEquals(0, report.overwritten);
+        assertEquals(0, report.cancelled);
+        assertEquals(1, report.fullScreenLaunches);
+        assertEquals(1, report.wakeLockAcquisitions);
+    }
+
+    @Test
+    public void instantBurstOfCompactPayloads() throws Exception {
+        PushReplay.Report report = replay.run("burst-20-instant-v2",
+            PushReplay.jobBurst("instant", 20, 0, true));
+
+        assertEquals(20, report.posted);
+        assertEquals(0, report.overwritten);
+        assertEquals(1, report.fullScreenLaunches);
+        assertEquals(1, report.wakeLockAcquisitions);
+    }
+
+    @Test
+    public void redeliveriesNeverAlertTwice() throws Exception {
+        List<PushReplay.Push> pushes = PushReplay.withRedeliveries(
+            PushReplay.jobBurst("redelivered", 10, 300, false), 150);
+
+        PushReplay.Report report = replay.run("redeliveries-10x2", pushes);
+
+        assertEquals(20, report.messages);
+        assertEquals(10, report.posted);
+        assertEquals(0, report.overwritten);
+        assertEquals(1, report.fullScreenLaunches);
+    }
+
+    @Test
+    public void batchFansOutWithOneWakeup() throws Exception {
+        List<PushReplay.Push> pushes = new ArrayList<>();
+        pushes.add(PushReplay.jobBatch("batch", 10));
+
+        PushReplay.Report report = replay.run("batch-10", pushes);
+
+        assertEquals(1, report.messages);
+        assertEquals(10, report.posted);
+        assertEquals(1, report.fullScreenLaunches);
+        assertEquals(1, report.wakeLockAcquisitions);
+    }
+
+    @Test
+    public void surgeBeyondTheQueueReplacesOldestJobs() throws Exception {
+        int jobs = JobAlertQueue.MAX_ALERTS + 8;
+        PushReplay.Report report = replay.run("surge-40-instant",
+            PushReplay.jobBurst("surge", jobs, 0, true));
+
+        // With every ID in use, an evicted job's ID goes to the job that evicted it
+        assertEquals(JobAlertQueue.MAX_ALERTS, report.posted);
+        assertEquals(8, report.overwritten);
+        assertEquals(1, report.fullScreenLaunches);
+        assertEquals(1, report.wakeLockAcquisitions);
+    }
+
+    @Test
+    public void screenOnBurstTakesNoWakeLock() throws Exception {
+        replay.setScreenOn(true);
+
+        PushReplay.Report report = replay.run("burst-5-screen-on",
+            PushReplay.jobBurst("screenOn", 5, 0, false));
+
+        assertEquals(5, report.posted);
+        assertEquals(0, report.wakeLockAcquisitions);
+    }
+
+    @Test
+    public void helperBidsUpdateOneNotificationPerBooking() throws Exception {
+        PushReplay.Report report = replay.run("helper-bids-2x3",
+            PushReplay.helperBids("booking", 2, 3, 200));
+
+        assertEquals(6, report.messages);
+        // Later bids rewrite the booking's entry ("3 helpers applied — best ₹499")
+        assertEquals(2, report.posted);
+        assertEquals(4, report.overwritten);
+        assertTrue(report.summaryUpdates >= 1);
+        assertEquals(0, report.fullScreenLaunches);
+    }
+
+    @Test
+    public void replaysRecording() throws Exception {
+        List<PushReplay.Push> pushes;
+        try (InputStream in = getClass().getResourceAsStream("/push-replay/sample.jsonl")) {
+            assertNotNull(in);
+            pushes = PushReplay.load(in);
+        }
+
+        PushReplay.Report report = replay.run("recording-sample", pushes);
+
+        assertEquals(5, report.messages);
+        // Three jobs and one regular push; the redelivered job is dropped
+        assertEquals(4, report.posted);
+        assertEquals(0, report.overwritten);
+        assertEquals(1, report.fullScreenLaunches);
+    }
+}
@@ -0,0 +1,170 @@
+package in.helparo.app;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JVM tests for {@link ResponseOutbox}.
+ */
+public class ResponseOutboxTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+
+    private File dir;
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("outbox").toFile();
+        file = new File(dir, "job_responses.log");
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) f.delete();
+        }
+        dir.delete();
+    }
+
+    private ResponseOutbox open() throws Exception {
+        ResponseOutbox outbox = new ResponseOutbox(file, 10);
+        outbox.open(NOW);
+        return outbox;
+    }
+
+    private static List<ResponseOutbox.Entry> due(ResponseOutbox outbox, long now) throws Exception {
+        return outbox.due(now, new ArrayList<>());
+    }
+
+    @Test
+    public void survivesReopen() throws Exception {
+        ResponseOutbox outbox = open();
+        ResponseOutbox.Entry accept = outbox.enqueue(ResponseOutbox.ACTION_ACCEPT, "job-1", 42, "Fix tap", NOW, NOW + 60_000);
+        outbox.enqueue(ResponseOutbox.ACTION_DECLINE, "job-2", 0, null, NOW, NOW + 60_000);
+
+        List<ResponseOutbox.Entry> pending = due(open(), NOW);
+        assertEquals(2, pending.size());
+        ResponseOutbox.Entry restored = pending.get(0);
+        assertEquals(accept.key, restored.key);
+        assertEquals(ResponseOutbox.ACTION_ACCEPT, restored.action);
+        assertEquals("job-1", restored.jobId);
+        assertEquals(42, restored.notificationId);
+        assertEquals("Fix tap", restored.title);
+        assertEquals(NOW + 60_000, restored.expiresAt);
+        assertEquals(ResponseOutbox.ACTION_DECLINE, pending.get(1).action);
+    }
+
+    @Test
+    public void sameAnswerIsQueuedOnce() throws Exception {
+        ResponseOutbox outbox = open();
+        ResponseOutbox.Entry first = outbox.enqueue(ResponseOutbox.ACTION_DECLINE, "job-1", 0, null, NOW, NOW + 60_000);
+        ResponseOutbox.Entry second = outbox.enqueue(ResponseOutbox.ACTION_DECLINE, "job-1", 0, null, NOW + 5, NOW + 60_000);
+
+        assertSame(first, second);
+        assertEquals(1, outbox.size());
+    }
+
+    @Test
+    public void completedEntriesStayGone() throws Exception {
+        ResponseOutbox outbox = open();
+        ResponseOutbox.Entry entry = outbox.enqueue(ResponseOutbox.ACTION_ACCEPT, "job-1", 1, "t", NOW, NOW + 60_000);
+        outbox.enqueue(ResponseOutbox.ACTION_DECLINE, "job-2", 0, null, NOW, NOW + 60_000);
+        outbox.complete(entry.key);
+
+        ResponseOutbox reopened = open();
+        assertEquals(1, reopened.size());
+        assertEquals("job-2", due(reopened, NOW).get(0).jobId);
+    }
+
+    @Test
+    public void backoffDoublesUpToTheCap() {
+        assertEquals(0, ResponseOutbox.backoffMillis(0));
+        assertEquals(1_000, ResponseOutbox.backoffMillis(1));
+        assertEquals(2_000, ResponseOutbox.backoffMillis(2));
+        assertEquals(4_000, ResponseOutbox.backoffMillis(3));
+        assertEquals(ResponseOutbox.MAX_BACKOFF_MS, ResponseOutbox.backoffMillis(10));
+        assertEquals(ResponseOutbox.MAX_BACKOFF_MS, ResponseOutbox.backoffMillis(Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void failedEntriesWaitForTheirBackoff() throws Exception {
+        ResponseOutbox outbox = open();
+        ResponseOutbox.Entry entry = outbox.enqueue(ResponseOutbox.ACTION_ACCEPT, "job-1", 1, "t", NOW, NOW + 60_000);
+
+        assertEquals(NOW + 1_000, outbox.retryLater(entry.key, NOW));
+        assertTrue(due(outbox, NOW + 999).isEmpty());
+        assertEquals(1, due(outbox, NOW + 1_000).size());
+        assertEquals(NOW + 1_000, outbox.nextDueAt());
+
+        assertEquals(NOW + 1_000 + 2_000, outbox.retryLater(entry.key, NOW + 1_000));
+        assertEquals(2, entry.getAttempts());
+
+        outbox.resetBackoff();
+        assertEquals(1, due(outbox, NOW + 1_000).size());
+    }
+
+    @Test
+    public void expiredEntriesAreDroppedAndReported() throws Exception {
+        ResponseOutbox outbox = open();
+        outbox.enqueue(ResponseOutbox.ACTION_ACCEPT, "stale", 1, "t", NOW, NOW + 1_000);
+        outbox.enqueue(ResponseOutbox.ACTION_DECLINE, "fresh", 0, null, NOW, NOW + 60_000);
+        assertEquals(NOW + 1_000, outbox.nextExpiryAt());
+
+        List<ResponseOutbox.Entry> expired = new ArrayList<>();
+        List<ResponseOutbox.Entry> due = outbox.due(NOW + 1_000, expired);
+        assertEquals(1, expired.size());
+        assertEquals("stale", expired.get(0).jobId);
+        assertEquals(1, due.size());
+        assertEquals("fresh", due.get(0).jobId);
+        assertEquals(1, open().size());
+    }
+
+    @Test
+    public void expiredEntriesAreDroppedOnOpen() throws Exception {
+        open().enqueue(ResponseOutbox.ACTION_ACCEPT, "job-1", 1, "t", NOW, NOW + 1_000);
+
+        ResponseOutbox later = new ResponseOutbox(file, 10);
+        List<ResponseOutbox.Entry> expired = later.open(NOW + 2_000);
+        assertEquals(1, expired.size());
+        assertEquals(0, later.size());
+        assertEquals(-1, later.nextDueAt());
+    }
+
+    @Test
+    public void tornTailIsDropped() throws Exception {
+        ResponseOutbox outbox = open();
+        outbox.enqueue(ResponseOutbox.ACTION_DECLINE, "job-1", 0, null, NOW, NOW + 60_000);
+        outbox.enqueue(ResponseOutbox.ACTION_DECLINE, "job-2", 0, null, NOW, NOW + 60_000);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 5);
+        }
+
+        ResponseOutbox reopened = open();
+        assertEquals(1, reopened.size());
+        reopened.enqueue(ResponseOutbox.ACTION_DECLINE, "job-3", 0, null, NOW, NOW + 60_000);
+        assertEquals(2, open().size());
+    }
+
+    @Test
+    public void fileShrinksOnceEverythingIsSent() throws Exception {
+        ResponseOutbox outbox = open();
+        for (int i = 0; i < 50; i++) {
+            ResponseOutbox.Entry entry = outbox.enqueue(ResponseOutbox.ACTION_DECLINE, "job-" + i, 0, null, NOW, NOW + 60_000);
+            outbox.complete(entry.key);
+        }
+
+        assertTrue("file is " + outbox.fileLength(), outbox.fileLength() <= 4);
+        assertEquals(0, open().size());
+    }
+}
@@ -0,0 +1,190 @@
+package in.helparo.app;
+
+import static org.junit.Assert.*;
+
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * JVM tests for {@link RestReadCache} against a local stand-in for Supabase REST.
+ */
+public class RestReadCacheTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+    private static final String ROWS = "[{\"id\":1,\"name\":\"Plumbing\"}]";
+
+    // {"sub":"user-1","role":"authenticated"} and {"sub":"user-2"}
+    private static final String USER_1 = "Bearer h.eyJzdWIiOiJ1c2VyLTEiLCJyb2xlIjoiYXV0aGVudGljYXRlZCJ9.s";
+    private static final String USER_2 = "Bearer h.eyJzdWIiOiJ1c2VyLTIifQ.s";
+
+    private HttpServer server;
+    private String base;
+    private File dir;
+    private RestReadCache cache;
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicReference<String> etag = new AtomicReference<>("\"v1\"");
+    private final AtomicReference<String> lastIfNoneMatch = new AtomicReference<>();
+
+    @Before
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/rest/v1/", exchange -> {
+            requests.incrementAndGet();
+            String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+            lastIfNoneMatch.set(ifNoneMatch);
+            exchange.getResponseHeaders().set("ETag", etag.get());
+            exchange.getResponseHeaders().set("Content-Range", "0-0/1");
+            if (etag.get().equals(ifNoneMatch)) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            byte[] body = ROWS.getBytes(StandardCharsets.UTF_8);
+            if ("gzip".equals(exchange.getRequestHeaders().getFirst("Accept-Encoding"))) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+                    gzip.write(body);
+                }
+                body = bytes.toByteArray();
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        base = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        dir = Files.createTempDirectory("rest-cache").toFile();
+        WebAssetCache store = new WebAssetCache(dir, 1 << 20, "1/1");
+        store.open();
+        cache = new RestReadCache(store, 2_000, 2_000);
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) f.delete();
+        }
+        dir.delete();
+    }
+
+    private RestReadCache.Response get(String path, String authorization, long now) throws Exception {
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Authorization", authorization);
+        headers.put("Accept", "application/json");
+        return cache.get(base + path, headers, now);
+    }
+
+    private static String text(RestReadCache.Response response) {
+        return new String(response.body, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void findsTheTable() {
+        assertEquals("profiles", RestReadCache.tableOf("https://x.supabase.co/rest/v1/profiles?select=*&id=eq.1"));
+        assertEquals("service_categories", RestReadCache.tableOf("https://x.supabase.co/rest/v1/service_categories"));
+        assertNull(RestReadCache.tableOf("https://x.supabase.co/auth/v1/user"));
+        assertTrue(RestReadCache.isCacheable("https://x.supabase.co/rest/v1/profiles?select=*"));
+        assertFalse(RestReadCache.isCacheable("https://x.supabase.co/rest/v1/wallet_accounts?select=*"));
+    }
+
+    @Test
+    public void keysByTokenSubject() {
+        assertEquals("user-1", RestReadCache.userOf(USER_1));
+        assertEquals("user-2", RestReadCache.userOf(USER_2));
+        assertEquals(RestReadCache.userOf("Bearer opaque"), RestReadCache.userOf("Bearer opaque"));
+        assertNotEquals(RestReadCache.userOf("Bearer opaque"), RestReadCache.userOf("Bearer other"));
+    }
+
+    @Test
+    public void decodesBase64Url() {
+        assertEquals("{\"sub\":\"user-2\"}", RestReadCache.decodeBase64Url("eyJzdWIiOiJ1c2VyLTIifQ"));
+    }
+
+    @Test
+    public void freshReadsComeFromDisk() throws Exception {
+        RestReadCache.Response first = get("/rest/v1/service_categories?select=*", USER_1, NOW);
+        assertFalse(first.fromCache);
+        assertEquals(ROWS, text(first));
+        assertEquals("0-0/1", first.headers.get("Content-Range"));
+
+        RestReadCache.Response second = get("/rest/v1/service_categories?select=*", USER_1, NOW + 1_000);
+        assertTrue(second.fromCache);
+        assertEquals(ROWS, text(second));
+        assertEquals(1, requests.get());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void gzipIsRequestedAndDecoded() throws Exception {
+        get("/rest/v1/service_categories?select=*", USER_1, NOW);
+
+        assertTrue(cache.getBytesReceived() > 0);
+        assertTrue(cache.getBytesReceived() != ROWS.length());
+    }
+
+    @Test
+    public void expiredReadsAreRevalidatedWithTheEtag() throws Exception {
+        get("/rest/v1/profiles?select=*", USER_1, NOW);
+        RestReadCache.Response revalidated = get("/rest/v1/profiles?select=*", USER_1, NOW + 61_000);
+
+        assertEquals("\"v1\"", lastIfNoneMatch.get());
+        assertTrue(revalidated.fromCache);
+        assertEquals(ROWS, text(revalidated));
+        assertEquals(1, cache.getRevalidated());
+
+        // The 304 restarted the TTL
+        get("/rest/v1/profiles?select=*", USER_1, NOW + 62_000);
+        assertEquals(2, requests.get());
+
+        etag.set("\"v2\"");
+        RestReadCache.Response changed = get("/rest/v1/profiles?select=*", USER_1, NOW + 200_000);
+        assertFalse(changed.fromCache);
+    }
+
+    @Test
+    public void usersDoNotShareResults() throws Exception {
+        get("/rest/v1/profiles?select=*", USER_1, NOW);
+        RestReadCache.Response other = get("/rest/v1/profiles?select=*", USER_2, NOW + 1);
+
+        assertFalse(other.fromCache);
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    public void writesDropTheTable() throws Exception {
+        get("/rest/v1/profiles?select=*", USER_1, NOW);
+        get("/rest/v1/service_categories?select=*", USER_1, NOW);
+        cache.invalidate(base + "/rest/v1/profiles?id=eq.1");
+
+        assertFalse(get("/rest/v1/profiles?select=*", USER_1, NOW + 1).fromCache);
+        assertTrue(get("/rest/v1/service_categories?select=*", USER_1, NOW + 1).fromCache);
+    }
+
+    @Test
+    public void otherTablesAreNotHandled() throws Exception {
+        assertNull(get("/rest/v1/wallet_accounts?select=*", USER_1, NOW));
+        assertEquals(0, requests.get());
+    }
+}
@@ -0,0 +1,79 @@
+package in.helparo.app;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+
+/**
+ * JVM tests for {@link RingLogFile}.
+ */
+public class RingLogFileTest {
+
+    private File dir;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("ringlog").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        delete(dir);
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) delete(child);
+        }
+        file.delete();
+    }
+
+    @Test
+    public void readsLinesInOrder() throws Exception {
+        RingLogFile log = new RingLogFile(new File(dir, "logs"), "alerts", 1024);
+        log.append("first");
+        log.append("second");
+
+        assertEquals("first\nsecond\n", log.read());
+    }
+
+    @Test
+    public void staysWithinTwoSegments() throws Exception {
+        RingLogFile log = new RingLogFile(dir, "alerts", 100);
+        for (int i = 0; i < 100; i++) {
+            log.append(String.format("line %03d ..........", i));
+        }
+
+        String content = log.read();
+        assertTrue(content.length() <= 200);
+        assertTrue(content.endsWith("line 099 ..........\n"));
+        assertFalse(content.contains("line 000"));
+        assertEquals(2, dir.listFiles().length);
+    }
+
+    @Test
+    public void keepsAppendingAfterReopen() throws Exception {
+        new RingLogFile(dir, "alerts", 1024).append("before restart");
+        RingLogFile reopened = new RingLogFile(dir, "alerts", 1024);
+        reopened.append("after restart");
+
+        assertEquals("before restart\nafter restart\n", reopened.read());
+    }
+
+    @Test
+    public void clearRemovesEverything() throws Exception {
+        RingLogFile log = new RingLogFile(new File(dir, "logs"), "alerts", 1024);
+        log.append("line");
+        log.clear();
+        assertEquals("", log.read());
+
+        log.append("again");
+        assertEquals("again\n", log.read());
+    }
+}
@@ -0,0 +1,326 @@
+package in.helparo.app;
+
+import static org.junit.Assert.*;
+
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * JVM tests for {@link SessionManager} against a local stand-in for Supabase auth.
+ */
+public class SessionManagerTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+
+    // Payload {"sub":"user-1"}; the signature part doubles as a token counter
+    private static final String JWT_PREFIX = "h.eyJzdWIiOiJ1c2VyLTEifQ.";
+    private static final String USER = "{\"id\":\"user-1\",\"email\":\"helper@example.com\"}";
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private String base;
+    private MemoryStore store;
+    private SessionManager manager;
+
+    private final AtomicInteger tokenRequests = new AtomicInteger();
+    private final AtomicInteger userRequests = new AtomicInteger();
+    private final AtomicReference<String> validToken = new AtomicReference<>("rt-0");
+    private final AtomicReference<String> lastApiKey = new AtomicReference<>();
+    private volatile CountDownLatch releaseRefresh;
+
+    @Before
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/auth/v1/token", exchange -> {
+            tokenRequests.incrementAndGet();
+            lastApiKey.set(exchange.getRequestHeaders().getFirst("apikey"));
+            String body = new String(WebAssetLoader.readAll(exchange.getRequestBody()), StandardCharsets.UTF_8);
+            CountDownLatch latch = releaseRefresh;
+            if (latch != null) {
+                try {
+                    latch.await();
+                } catch (InterruptedException ignored) {
+                    // Answer anyway
+                }
+            }
+            String presented = SessionManager.jsonString(body, "refresh_token");
+            synchronized (validToken) {
+                if (!validToken.get().equals(presented)) {
+                    send(exchange, 400, "{\"error\":\"invalid_grant\",\"error_description\":\"Invalid Refresh Token\"}");
+                    return;
+                }
+                int next = Integer.parseInt(presented.substring(3)) + 1;
+                validToken.set("rt-" + next);
+                send(exchange, 200, "{\"access_token\":\"" + JWT_PREFIX + next + "\",\"token_type\":\"bearer\","
+                    + "\"expires_in\":3600,\"expires_at\":" + (NOW / 1000 + 3600) + ","
+                    + "\"refresh_token\":\"rt-" + next + "\",\"user\":" + USER + "}");
+            }
+        });
+        server.createContext("/auth/v1/user", exchange -> {
+            userRequests.incrementAndGet();
+            send(exchange, 200, USER);
+        });
+        serverThreads = Executors.newCachedThreadPool();
+        server.setExecutor(serverThreads);
+        server.start();
+        base = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        store = new MemoryStore();
+        manager = newManager();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Test
+    public void refreshExchangesTheTokenAndPersistsTheNewSession() throws Exception {
+        manager.set(JWT_PREFIX + 0, "rt-0", NOW + 60_000, USER);
+
+        SessionManager.Result result = manager.refresh(null, NOW);
+
+        assertEquals(200, result.status);
+        assertFalse(result.fromCache);
+        assertEquals("anon-key", lastApiKey.get());
+        assertEquals("rt-1", manager.getSession().refreshToken);
+        assertEquals(JWT_PREFIX + 1, manager.getSession().accessToken);
+        assertEquals((NOW / 1000 + 3600) * 1000, manager.getSession().expiresAt);
+        assertEquals(USER, manager.getSession().userJson);
+
+        SessionManager reloaded = newManager();
+        assertEquals("rt-1", reloaded.getSession().refreshToken);
+        assertEquals(JWT_PREFIX + 1, reloaded.getAccessToken(NOW));
+        assertEquals(base, reloaded.getAuthUrl());
+    }
+
+    @Test
+    public void concurrentRefreshesShareOneRequest() throws Exception {
+        manager.set(JWT_PREFIX + 0, "rt-0", NOW + 60_000, USER);
+        releaseRefresh = new CountDownLatch(1);
+
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        List<Future<SessionManager.Result>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            String presented = i % 2 == 0 ? "rt-0" : null;
+            results.add(callers.submit(() -> manager.refresh(presented, NOW)));
+        }
+        // Let every caller reach the in-flight request before the server answers
+        long deadline = System.currentTimeMillis() + 2_000;
+        while (manager.getRefreshesShared() < 7 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        releaseRefresh.countDown();
+
+        String body = null;
+        for (Future<SessionManager.Result> future : results) {
+            SessionManager.Result result = future.get();
+            assertEquals(200, result.status);
+            if (body == null) body = result.body;
+            assertEquals(body, result.body);
+        }
+        callers.shutdown();
+
+        assertEquals(1, tokenRequests.get());
+        assertEquals(1, manager.getRefreshes());
+        assertEquals(7, manager.getRefreshesShared());
+        assertEquals("rt-1", manager.getSession().refreshToken);
+    }
+
+    @Test
+    public void spentTokenIsAnsweredWithTheCurrentSession() throws Exception {
+        manager.set(JWT_PREFIX + 0, "rt-0", NOW + 60_000, USER);
+        manager.refresh(null, NOW);
+
+        // The web view slept through the refresh and still holds rt-0
+        SessionManager.Result result = manager.refresh("rt-0", NOW);
+
+        assertEquals(200, result.status);
+        assertTrue(result.fromCache);
+        assertEquals(1, tokenRequests.get());
+        assertEquals("rt-1", SessionManager.jsonString(result.body, "refresh_token"));
+        assertEquals(JWT_PREFIX + 1, SessionManager.jsonString(result.body, "access_token"));
+        assertEquals(Long.valueOf(3600), SessionManager.jsonLong(result.body, "expires_in"));
+        assertEquals(USER, SessionManager.jsonMember(result.body, "user"));
+        assertEquals(1, manager.getRefreshesAvoided());
+    }
+
+    @Test
+    public void spentTokenRefreshesTheCurrentSessionWhenItIsExpiring() throws Exception {
+        manager.set(JWT_PREFIX + 0, "rt-0", NOW + 60_000, USER);
+        manager.refresh(null, NOW);
+        long later = manager.getSession().expiresAt - 10_000;
+
+        SessionManager.Result result = manager.refresh("rt-0", later);
+
+        assertEquals(200, result.status);
+        assertEquals(2, tokenRequests.get());
+        assertEquals("rt-2", manager.getSession().refreshToken);
+    }
+
+    @Test
+    public void pushingARotatedSessionIsRefused() throws Exception {
+        manager.set(JWT_PREFIX + 0, "rt-0", NOW + 60_000, USER);
+        manager.refresh(null, NOW);
+
+        assertFalse(manager.set(JWT_PREFIX + 0, "rt-0", NOW + 60_000, USER));
+        assertEquals("rt-1", manager.getSession().refreshToken);
+    }
+
+    @Test
+    public void refreshElsewhereMarksOurTokenSpent() throws Exception {
+        manager.set(JWT_PREFIX + 0, "rt-0", NOW + 60_000, USER);
+        // The server-side client refreshed rt-0 and the web app pushed the result
+        manager.set(JWT_PREFIX + 1, "rt-1", NOW + 3_600_000, USER);
+
+        SessionManager.Result result = manager.refresh("rt-0", NOW);
+
+        assertTrue(result.fromCache);
+        assertEquals(0, tokenRequests.get());
+    }
+
+    @Test
+    public void refusedRefreshClearsTheSession() throws Exception {
+        manager.set(JWT_PREFIX + 0, "rt-revoked", NOW + 60_000, USER);
+
+        SessionManager.Result result = manager.refresh(null, NOW);
+
+        assertEquals(400, result.status);
+        assertTrue(result.body.contains("invalid_grant"));
+        assertNull(manager.getSession());
+        assertNull(newManager().getSession());
+    }
+
+    @Test
+    public void unreachableServerKeepsTheSession() throws Exception {
+        server.stop(0);
+        manager.set(JWT_PREFIX + 0, "rt-0", NOW + 60_000, USER);
+
+        try {
+            manager.refresh(null, NOW);
+            fail("Expected IOException");
+        } catch (IOException expected) {
+            // Retried later
+        }
+        assertEquals("rt-0", manager.getSession().refreshToken);
+    }
+
+    @Test
+    public void userIsFetchedOnceThenServedFromMemory() throws Exception {
+        manager.set(JWT_PREFIX + 0, "rt-0", NOW + 60_000, null);
+
+        SessionManager.Result first = manager.getUser(JWT_PREFIX + 0, NOW);
+        SessionManager.Result second = manager.getUser(JWT_PREFIX + 0, NOW);
+
+        assertFalse(first.fromCache);
+        assertTrue(second.fromCache);
+        assertEquals(USER, second.body);
+        assertEquals(1, userRequests.get());
+        assertEquals(USER, newManager().getSession().userJson);
+    }
+
+    @Test
+    public void userOfAnotherOrExpiredTokenGoesToTheServer() throws Exception {
+        manager.set(JWT_PREFIX + 0, "rt-0", NOW + 60_000, USER);
+
+        assertFalse(manager.getUser(JWT_PREFIX + 9, NOW).fromCache);
+        assertFalse(manager.getUser(JWT_PREFIX + 0, NOW + 60_000).fromCache);
+        assertEquals(2, userRequests.get());
+    }
+
+    @Test
+    public void accessTokenAndRefreshScheduleFollowExpiry() {
+        assertNull(manager.getAccessToken(NOW));
+        assertEquals(-1, manager.refreshDelay(NOW));
+
+        manager.set(JWT_PREFIX + 0, "rt-0", NOW + 600_000, USER);
+
+        assertEquals(JWT_PREFIX + 0, manager.getAccessToken(NOW));
+        assertNull(manager.getAccessToken(NOW + 600_000 - SessionManager.EXPIRY_MARGIN_MS));
+        assertEquals(600_000 - SessionManager.REFRESH_AHEAD_MS, manager.refreshDelay(NOW));
+        assertEquals(0, manager.refreshDelay(NOW + 590_000));
+    }
+
+    @Test
+    public void clearForgetsEverything() {
+        manager.set(JWT_PREFIX + 0, "rt-0", NOW + 600_000, USER);
+        manager.clear();
+
+        assertNull(manager.getSession());
+        assertNull(newManager().getSession());
+        assertEquals(base, newManager().getAuthUrl());
+    }
+
+    @Test
+    public void unreadableStateIsDropped() {
+        store.state = new byte[] {1, 2, 3};
+        SessionManager damaged = new SessionManager(store, 2_000, 2_000);
+        damaged.load();
+
+        assertNull(damaged.getSession());
+        assertNull(store.state);
+    }
+
+    @Test
+    public void jsonMemberOnlyMatchesTopLevelFields() {
+        String json = "{\"user\":{\"access_token\":\"nested\",\"list\":[1,{\"a\":\"}\"}]},"
+            + "\"access_token\":\"top \\\"quoted\\\"\",\"expires_in\":3600}";
+
+        assertEquals("top \"quoted\"", SessionManager.jsonString(json, "access_token"));
+        assertEquals(Long.valueOf(3600), SessionManager.jsonLong(json, "expires_in"));
+        assertEquals("{\"access_token\":\"nested\",\"list\":[1,{\"a\":\"}\"}]}", SessionManager.jsonMember(json, "user"));
+        assertNull(SessionManager.jsonMember(json, "list"));
+    }
+
+    private SessionManager newManager() {
+        SessionManager created = new SessionManager(store, 2_000, 2_000);
+        created.load();
+        created.configure(base + "/", "anon-key");
+        return created;
+    }
+
+    private static void send(com.sun.net.httpserver.HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static final class MemoryStore implements SessionManager.Store {
+        byte[] state;
+
+        @Override
+        public byte[] load() {
+            return state;
+        }
+
+        @Override
+        public void save(byte[] state) {
+            this.state = state;
+        }
+
+        @Override
+        public void clear() {
+            state = null;
+        }
+    }
+}
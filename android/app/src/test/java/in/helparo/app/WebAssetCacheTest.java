@@ -0,0 +1,125 @@
+package in.helparo.app;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * JVM tests for {@link WebAssetCache}.
+ */
+public class WebAssetCacheTest {
+
+    private static final String BASE = "https://helparo.in/_next/static/chunks/";
+
+    private File dir;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("web-assets").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) f.delete();
+        }
+        dir.delete();
+    }
+
+    private WebAssetCache open(long maxBytes, String version) throws Exception {
+        WebAssetCache cache = new WebAssetCache(dir, maxBytes, version);
+        cache.open();
+        return cache;
+    }
+
+    private static WebAssetCache.Entry entry(byte kind, String url, int size) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("Cache-Control", "public, max-age=31536000, immutable");
+        byte[] body = new byte[size];
+        body[0] = 42;
+        return new WebAssetCache.Entry(kind, url, "application/javascript", "utf-8", 1_000L, headers, body);
+    }
+
+    @Test
+    public void roundTripsAResponse() throws Exception {
+        WebAssetCache cache = open(1 << 20, "1/1");
+        cache.put(entry(WebAssetCache.KIND_IMMUTABLE, BASE + "main-abc.js", 100));
+
+        WebAssetCache.Entry stored = open(1 << 20, "1/1").get(BASE + "main-abc.js");
+        assertNotNull(stored);
+        assertEquals("application/javascript", stored.mimeType);
+        assertEquals("utf-8", stored.encoding);
+        assertEquals(1_000L, stored.storedAt);
+        assertEquals("public, max-age=31536000, immutable", stored.headers.get("Cache-Control"));
+        assertEquals(100, stored.body.length);
+        assertEquals(42, stored.body[0]);
+        assertNull(cache.get(BASE + "other.js"));
+    }
+
+    @Test
+    public void missingCharsetStaysNull() throws Exception {
+        WebAssetCache cache = open(1 << 20, "1/1");
+        cache.put(new WebAssetCache.Entry(WebAssetCache.KIND_IMMUTABLE, BASE + "font.woff2", "font/woff2",
+            null, 0, Collections.emptyMap(), new byte[] {1, 2, 3}));
+
+        assertNull(cache.get(BASE + "font.woff2").encoding);
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedPastTheLimit() throws Exception {
+        WebAssetCache cache = open(2_000, "1/1");
+        cache.put(entry(WebAssetCache.KIND_IMMUTABLE, BASE + "a.js", 600));
+        cache.put(entry(WebAssetCache.KIND_IMMUTABLE, BASE + "b.js", 600));
+        assertNotNull(cache.get(BASE + "a.js")); // a is now more recent than b
+        cache.put(entry(WebAssetCache.KIND_IMMUTABLE, BASE + "c.js", 600));
+
+        assertNotNull(cache.get(BASE + "a.js"));
+        assertNull(cache.get(BASE + "b.js"));
+        assertNotNull(cache.get(BASE + "c.js"));
+        assertEquals(1, cache.getEvictions());
+        assertTrue(cache.sizeBytes() <= 2_000);
+        assertEquals(2, dir.listFiles((d, name) -> name.endsWith(".entry")).length);
+    }
+
+    @Test
+    public void newVersionWipesTheCache() throws Exception {
+        open(1 << 20, "1/1").put(entry(WebAssetCache.KIND_IMMUTABLE, BASE + "a.js", 10));
+
+        WebAssetCache upgraded = open(1 << 20, "2/1");
+        assertNull(upgraded.get(BASE + "a.js"));
+        assertEquals(0, upgraded.size());
+        assertEquals(0, open(1 << 20, "2/1").size());
+    }
+
+    @Test
+    public void clearsOneKind() throws Exception {
+        WebAssetCache cache = open(1 << 20, "1/1");
+        cache.put(entry(WebAssetCache.KIND_IMMUTABLE, BASE + "a.js", 10));
+        cache.put(entry(WebAssetCache.KIND_DOCUMENT, "https://helparo.in/helper/dashboard", 10));
+        cache.clear(WebAssetCache.KIND_DOCUMENT);
+
+        assertNull(cache.get("https://helparo.in/helper/dashboard"));
+        assertNotNull(cache.get(BASE + "a.js"));
+        assertEquals(1, open(1 << 20, "1/1").size());
+    }
+
+    @Test
+    public void damagedFilesAreDropped() throws Exception {
+        open(1 << 20, "1/1").put(entry(WebAssetCache.KIND_IMMUTABLE, BASE + "a.js", 10));
+        File stored = dir.listFiles((d, name) -> name.endsWith(".entry"))[0];
+        Files.write(stored.toPath(), "garbage".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(0, open(1 << 20, "1/1").size());
+        assertFalse(stored.exists());
+    }
+}
@@ -0,0 +1,208 @@
+package in.helparo.app;
+
+import static org.junit.Assert.*;
+
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * JVM tests for {@link WebAssetLoader} against a local stand-in for the web app server.
+ */
+public class WebAssetLoaderTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+    private static final String CHUNK = "/_next/static/chunks/main-abc123.js";
+    private static final Map<String, String> HTML_ACCEPT =
+        Collections.singletonMap("Accept", "text/html,application/xhtml+xml");
+
+    private HttpServer server;
+    private String base;
+    private File dir;
+    private WebAssetLoader loader;
+
+    private final AtomicInteger chunkRequests = new AtomicInteger();
+    private final AtomicInteger pageRequests = new AtomicInteger();
+    private final AtomicReference<String> page = new AtomicReference<>("<html>v1</html>");
+    private final AtomicInteger pageStatus = new AtomicInteger(200);
+    /** Background revalidations, run by hand so the test controls the timing */
+    private final List<Runnable> revalidations = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/_next/static/", exchange -> {
+            chunkRequests.incrementAndGet();
+            if (!exchange.getRequestURI().getPath().equals(CHUNK)) {
+                exchange.sendResponseHeaders(404, -1);
+                exchange.close();
+                return;
+            }
+            byte[] body = "console.log('main')".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/javascript; charset=utf-8");
+            exchange.getResponseHeaders().set("Cache-Control", "public, max-age=31536000, immutable");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.createContext("/helper/dashboard", exchange -> {
+            pageRequests.incrementAndGet();
+            byte[] body = page.get().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+            exchange.sendResponseHeaders(pageStatus.get(), body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        base = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        dir = Files.createTempDirectory("web-assets").toFile();
+        WebAssetCache cache = new WebAssetCache(dir, 1 << 20, "1/1");
+        cache.open();
+        loader = new WebAssetLoader(cache, revalidations::add, WebAssetLoader.DEFAULT_MAX_DOCUMENT_AGE_MS);
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) f.delete();
+        }
+        dir.delete();
+    }
+
+    private WebAssetLoader.Response load(String path, Map<String, String> headers, long now) {
+        byte kind = WebAssetLoader.kindOf("GET", path, headers);
+        return loader.load(base + path, kind, headers, new WebAssetLoader.HttpOrigin(2_000, 2_000), now);
+    }
+
+    private static String text(WebAssetLoader.Response response) {
+        return new String(response.body, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void classifiesRequests() {
+        assertEquals(WebAssetCache.KIND_IMMUTABLE, WebAssetLoader.kindOf("GET", CHUNK, null));
+        assertEquals(WebAssetCache.KIND_DOCUMENT, WebAssetLoader.kindOf("GET", "/helper/dashboard", HTML_ACCEPT));
+        assertEquals(0, WebAssetLoader.kindOf("POST", CHUNK, null));
+        assertEquals(0, WebAssetLoader.kindOf("GET", "/api/requests/accept", HTML_ACCEPT));
+        assertEquals(0, WebAssetLoader.kindOf("GET", "/_next/image", HTML_ACCEPT));
+        assertEquals(0, WebAssetLoader.kindOf("GET", "/logo.png", Collections.singletonMap("Accept", "image/*")));
+    }
+
+    @Test
+    public void immutableAssetsComeFromDiskAfterTheFirstLoad() {
+        WebAssetLoader.Response first = load(CHUNK, null, NOW);
+        assertFalse(first.fromCache);
+        assertEquals("application/javascript", first.mimeType);
+        assertEquals("utf-8", first.encoding);
+
+        WebAssetLoader.Response second = load(CHUNK, null, NOW + 1);
+        assertTrue(second.fromCache);
+        assertEquals("console.log('main')", text(second));
+        assertEquals("public, max-age=31536000, immutable", second.headers.get("Cache-Control"));
+
+        assertEquals(1, chunkRequests.get());
+        assertEquals(1, loader.getHits());
+        assertEquals(1, loader.getMisses());
+        assertEquals(0.5, loader.getHitRate(), 0.001);
+    }
+
+    @Test
+    public void documentsAreServedStaleWhileRevalidating() {
+        assertEquals("<html>v1</html>", text(load("/helper/dashboard", HTML_ACCEPT, NOW)));
+        page.set("<html>v2</html>");
+
+        WebAssetLoader.Response stale = load("/helper/dashboard", HTML_ACCEPT, NOW + 1_000);
+        assertTrue(stale.fromCache);
+        assertEquals("<html>v1</html>", text(stale));
+        assertEquals(1, revalidations.size());
+
+        revalidations.remove(0).run();
+        assertEquals(2, pageRequests.get());
+        assertEquals("<html>v2</html>", text(load("/helper/dashboard", HTML_ACCEPT, NOW + 2_000)));
+        assertEquals(2, loader.getStaleServed());
+        assertEquals(1, loader.getRevalidations());
+    }
+
+    @Test
+    public void oldDocumentsAreRefetched() {
+        load("/helper/dashboard", HTML_ACCEPT, NOW);
+        page.set("<html>v2</html>");
+
+        WebAssetLoader.Response response = load("/helper/dashboard", HTML_ACCEPT,
+            System.currentTimeMillis() + WebAssetLoader.DEFAULT_MAX_DOCUMENT_AGE_MS);
+        assertFalse(response.fromCache);
+        assertEquals("<html>v2</html>", text(response));
+        assertTrue(revalidations.isEmpty());
+    }
+
+    @Test
+    public void failedRevalidationDropsTheDocument() {
+        load("/helper/dashboard", HTML_ACCEPT, NOW);
+        load("/helper/dashboard", HTML_ACCEPT, NOW + 1);
+        pageStatus.set(500);
+
+        revalidations.remove(0).run();
+        assertEquals(1, loader.getRevalidationFailures());
+        assertEquals(0, loader.getCache().size());
+    }
+
+    @Test
+    public void missingAssetFromAnOldDeployDropsStaleDocuments() {
+        AtomicInteger reloads = new AtomicInteger();
+        loader.setOnStaleBuild(reloads::incrementAndGet);
+        load("/helper/dashboard", HTML_ACCEPT, NOW);
+        load("/helper/dashboard", HTML_ACCEPT, NOW + 1);
+
+        assertNull(load("/_next/static/chunks/main-old999.js", null, NOW + 2));
+        assertEquals(1, reloads.get());
+        assertEquals(0, loader.getCache().size());
+    }
+
+    @Test
+    public void noStoreResponsesAreNotCached() {
+        server.createContext("/_next/static/private/", exchange -> {
+            byte[] body = "x".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Cache-Control", "no-store");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+
+        assertNotNull(load("/_next/static/private/a.js", null, NOW));
+        assertEquals(0, loader.getCache().size());
+    }
+
+    @Test
+    public void unreachableServerFallsBackToTheWebView() {
+        server.stop(0);
+        assertNull(load(CHUNK, null, NOW));
+    }
+
+    @Test
+    public void splitsContentType() {
+        String[] parts = WebAssetLoader.splitContentType("text/html; charset=\"UTF-8\"");
+        assertEquals("text/html", parts[0]);
+        assertEquals("UTF-8", parts[1]);
+        assertNull(WebAssetLoader.splitContentType("font/woff2")[1]);
+    }
+}
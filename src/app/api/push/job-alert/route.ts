@@ -1,6 +1,10 @@
 import { NextResponse } from 'next/server'
 import { createAdminClient } from '@/lib/supabase/admin'
 import admin from 'firebase-admin'
+import { encodeCompactJobAlert } from '@/lib/push-system/compact-payload'
+
+// Older app builds only understand v1, so the compact format is opt-in
+const USE_COMPACT_PAYLOAD = process.env.PUSH_COMPACT_JOB_ALERTS === 'true'
 
 // Initialize Firebase Admin (only once)
 if (!admin.apps.length) {
@@ -22,7 +26,12 @@ export interface JobAlertPayload {
   price: number
   location: string
   distance?: string
+  /** Job coordinates; the app holds back alerts far from where the helper is now */
+  latitude?: number | null
+  longitude?: number | null
   customerName?: string
+  /** Shown in the notification and the alert screen; must be an https URL */
+  imageUrl?: string
   urgency: 'normal' | 'urgent' | 'emergency'
   expiresInSeconds?: number  // Default 30 seconds
 }
@@ -44,7 +53,10 @@ export async function POST(request: Request) {
       price,
       location,
       distance,
+      latitude,
+      longitude,
       customerName,
+      imageUrl,
       urgency = 'urgent',
       expiresInSeconds = 30
     } = payload
@@ -85,17 +97,33 @@ export async function POST(request: Request) {
     console.log(`🚨 Sending URGENT job alert to ${tokenList.length} device(s)`)
 
     // Calculate expiration timestamp
-    const expiresAt = Date.now() + (expiresInSeconds * 1000)
-
-    // Build the high-priority FCM message 
-    // IMPORTANT: Use DATA-ONLY message (no notification payload)
-    // This ensures our MyFirebaseMessagingService.onMessageReceived() is ALWAYS called
-    // even when app is in background/killed. The notification field would cause
-    // Android to handle the notification automatically and bypass our service.
-    const message = {
-      tokens: tokenList,
-      // NO notification field - we handle display in MyFirebaseMessagingService
-      data: {
+    const sentAt = Date.now()
+    const expiresAt = sentAt + (expiresInSeconds * 1000)
+
+    // Only sent when both are known; FCM data values must be strings
+    const coordinates: Record<string, string> =
+      Number.isFinite(latitude) && Number.isFinite(longitude)
+        ? { lat: String(latitude), lng: String(longitude) }
+        : {}
+
+    const data: Record<string, string> = USE_COMPACT_PAYLOAD
+      ? encodeCompactJobAlert({
+          type: 'new_job',
+          jobId,
+          title,
+          description,
+          price: String(price),
+          location,
+          distance,
+          customerName,
+          urgency,
+          latitude,
+          longitude,
+          imageUrl,
+          sentAt,
+          expiresAt,
+        })
+      : {
         // Type indicator for the app to show full-screen alert
         type: 'new_job',
         jobId: jobId,
@@ -109,9 +137,21 @@ export async function POST(request: Request) {
         customer_name: customerName || '',
         urgency: urgency,
         expiresAt: String(expiresAt),
+        ...coordinates,
+        ...(imageUrl ? { imageUrl } : {}),
         // Timestamp for deduplication
-        timestamp: new Date().toISOString()
-      },
+        timestamp: new Date(sentAt).toISOString()
+      }
+
+    // Build the high-priority FCM message 
+    // IMPORTANT: Use DATA-ONLY message (no notification payload)
+    // This ensures our MyFirebaseMessagingService.onMessageReceived() is ALWAYS called
+    // even when app is in background/killed. The notification field would cause
+    // Android to handle the notification automatically and bypass our service.
+    const message = {
+      tokens: tokenList,
+      // NO notification field - we handle display in MyFirebaseMessagingService
+      data,
       android: {
         // Maximum priority for time-sensitive alerts
         priority: 'high' as const,
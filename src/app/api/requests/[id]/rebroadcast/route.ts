@@ -383,6 +383,8 @@ export async function POST(
               description: serviceRequest.description || `${customerName} needs help!`,
               price: serviceRequest.estimated_price,
               location: serviceRequest.service_address,
+              latitude: serviceLat,
+              longitude: serviceLng,
               customerName,
               urgency: serviceRequest.urgency_level === 'urgent' ? 'urgent' : 'normal',
               expiresInSeconds: 30
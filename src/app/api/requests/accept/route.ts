@@ -1,15 +1,20 @@
 import { NextRequest, NextResponse } from 'next/server'
-import { createClient } from '@/lib/supabase/server'
+import { createClient, createTokenClient } from '@/lib/supabase/server'
 import { sendPushNotification } from '@/lib/send-push'
 
 export async function POST(request: NextRequest) {
   console.log('🎯 Accept Job API called')
   
   try {
-    const supabase = await createClient()
+    // The native Android accept sends a bearer token instead of session cookies
+    const authHeader = request.headers.get('authorization')
+    const bearerToken = authHeader?.startsWith('Bearer ') ? authHeader.slice(7) : null
+    const supabase = bearerToken ? createTokenClient(bearerToken) : await createClient()
     
     // Check authentication
-    const { data: { user }, error: authError } = await supabase.auth.getUser()
+    const { data: { user }, error: authError } = bearerToken
+      ? await supabase.auth.getUser(bearerToken)
+      : await supabase.auth.getUser()
     if (authError || !user) {
       return NextResponse.json({ error: 'Unauthorized' }, { status: 401 })
     }
@@ -33,6 +38,25 @@ export async function POST(request: NextRequest) {
       return NextResponse.json({ error: 'Helper profile not found' }, { status: 404 })
     }
 
+    // A retried accept (native outbox, Idempotency-Key) whose first attempt went
+    // through but whose response was lost: report success again
+    const { data: ownRequest } = await supabase
+      .from('service_requests')
+      .select('id')
+      .eq('id', requestId)
+      .eq('assigned_helper_id', user.id)
+      .maybeSingle()
+
+    if (ownRequest) {
+      console.log('↩️ Job already accepted by this helper, key:', request.headers.get('idempotency-key'))
+      return NextResponse.json({
+        success: true,
+        alreadyAccepted: true,
+        message: 'Job accepted successfully!',
+        requestId: requestId
+      })
+    }
+
     // Do not allow a helper to accept a new job while already working
     if ((helperProfile as any).is_on_job === true) {
       return NextResponse.json(
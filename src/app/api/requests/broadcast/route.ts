@@ -554,7 +554,11 @@ async function processBackgroundTasks(
             description,
             price: estimatedPrice,
             location: address,
+            latitude: locationLat,
+            longitude: locationLng,
             customerName,
+            // Uploads can still be base64 here; only a hosted photo is worth a fetch on the phone
+            imageUrl: images?.find((image) => image.startsWith('https://')),
             urgency: urgency || 'urgent',
             expiresInSeconds: 30
           })
@@ -0,0 +1,82 @@
+import { NextRequest, NextResponse } from 'next/server'
+import { createClient, createTokenClient } from '@/lib/supabase/server'
+
+const MAX_BATCH = 50
+
+type JobResponse = {
+  key: string
+  requestId: string
+  action: 'decline'
+}
+
+/**
+ * Batched job declines from the native Android outbox.
+ * Idempotent: only broadcasts still waiting for an answer are updated, so a
+ * resent batch (same keys) changes nothing.
+ */
+export async function POST(request: NextRequest) {
+  try {
+    const authHeader = request.headers.get('authorization')
+    const bearerToken = authHeader?.startsWith('Bearer ') ? authHeader.slice(7) : null
+    const supabase = bearerToken ? createTokenClient(bearerToken) : await createClient()
+
+    const { data: { user }, error: authError } = bearerToken
+      ? await supabase.auth.getUser(bearerToken)
+      : await supabase.auth.getUser()
+    if (authError || !user) {
+      return NextResponse.json({ error: 'Unauthorized' }, { status: 401 })
+    }
+
+    const body = await request.json()
+    const responses: JobResponse[] = Array.isArray(body?.responses) ? body.responses : []
+    if (responses.length === 0 || responses.length > MAX_BATCH) {
+      return NextResponse.json(
+        { error: `Between 1 and ${MAX_BATCH} responses are required` },
+        { status: 400 }
+      )
+    }
+
+    const declined = responses.filter(
+      (r) => r && r.action === 'decline' && typeof r.requestId === 'string' && typeof r.key === 'string'
+    )
+    if (declined.length !== responses.length) {
+      return NextResponse.json({ error: 'Invalid response in batch' }, { status: 400 })
+    }
+
+    const { data: helperProfile } = await supabase
+      .from('helper_profiles')
+      .select('id')
+      .eq('user_id', user.id)
+      .single()
+
+    if (!helperProfile) {
+      return NextResponse.json({ error: 'Helper profile not found' }, { status: 404 })
+    }
+
+    const { error: updateError } = await supabase
+      .from('broadcast_notifications')
+      .update({
+        status: 'declined',
+        responded_at: new Date().toISOString()
+      })
+      .eq('helper_id', helperProfile.id)
+      .in('request_id', declined.map((r) => r.requestId))
+      .in('status', ['sent', 'viewed'])
+
+    if (updateError) {
+      console.error('❌ Decline update failed:', updateError)
+      return NextResponse.json({ error: 'Failed to record responses' }, { status: 500 })
+    }
+
+    return NextResponse.json({
+      success: true,
+      processed: declined.map((r) => r.key)
+    })
+  } catch (error) {
+    console.error('❌ Job Respond API Error:', error)
+    return NextResponse.json(
+      { error: error instanceof Error ? error.message : 'Failed to record responses' },
+      { status: 500 }
+    )
+  }
+}
@@ -2,6 +2,7 @@
 
 import { useState, useEffect } from 'react'
 import { createClient } from '@/lib/supabase/client'
+import { setNativeQuietHours } from '@/lib/push-policy'
 import { Bell, Mail, Smartphone, MessageSquare, Clock, Save, Check } from 'lucide-react'
 
 interface NotificationPrefs {
@@ -49,6 +50,7 @@ export default function NotificationPreferencesPage() {
 
     if (data) {
       setPrefs(data)
+      setNativeQuietHours(data.quiet_hours)
       if (data.quiet_hours) {
         setQuietHoursEnabled(true)
         setQuietStart(data.quiet_hours.start)
@@ -85,6 +87,7 @@ export default function NotificationPreferencesPage() {
 
     if (!error) {
       setPrefs(updatedPrefs)
+      setNativeQuietHours(updatedPrefs.quiet_hours)
       setSaved(true)
       setTimeout(() => setSaved(false), 3000)
     }
@@ -3,6 +3,8 @@
 import { useState, useEffect, useCallback, useRef } from 'react'
 import { useRouter } from 'next/navigation'
 import { createClient } from '@/lib/supabase/client'
+import { invalidateRestCache } from '@/lib/native-rest-cache'
+import { rememberDeviceLocation, setAlertRadiusKm } from '@/lib/device-location'
 import { Button } from '@/components/ui/button'
 import Image from 'next/image'
 import { 
@@ -657,7 +659,7 @@ export function useJobNotifications() {
 
       const { data: profile, error } = await supabase
         .from('helper_profiles')
-        .select('id, is_on_job')
+        .select('id, is_on_job, service_radius_km')
         .eq('user_id', user.id)
         .single()
 
@@ -666,8 +668,10 @@ export function useJobNotifications() {
         return
       }
 
-      const typedProfile = profile as { id: string; is_on_job?: boolean | null } | null
+      const typedProfile = profile as { id: string; is_on_job?: boolean | null; service_radius_km?: number | null } | null
       if (typedProfile) {
+        // Full-screen job alerts are limited to the helper's service radius
+        if (typedProfile.service_radius_km) setAlertRadiusKm(typedProfile.service_radius_km)
         console.log('🔔 Helper profile found:', typedProfile.id, 'is_on_job:', typedProfile.is_on_job)
         setHelperProfile(typedProfile)
         setIsOnJob(typedProfile.is_on_job === true)
@@ -1120,6 +1124,7 @@ export function useJobNotifications() {
           })
           helperLat = position.coords.latitude
           helperLng = position.coords.longitude
+          rememberDeviceLocation(position)
           console.log('📍 Got fresh location for accept:', helperLat, helperLng)
           
           // Update helper_profiles with fresh location
@@ -1163,6 +1168,9 @@ export function useJobNotifications() {
       toast.success('🎉 Job accepted! Contact details shared.')
       setNotification(null)
 
+      // The accept route changed these server-side; don't let the dashboard read cached rows
+      await invalidateRestCache('service_requests', 'helper_profiles')
+
       // Helper is now on a job; suppress future notifications until cleared
       setIsOnJob(true)
       
@@ -4,6 +4,7 @@ import { useState, useEffect } from 'react'
 import { MapPin, X } from 'lucide-react'
 import { createClient } from '@/lib/supabase/client'
 import { useToast } from '../ui/toast-notification'
+import { rememberDeviceLocation } from '@/lib/device-location'
 
 export function LocationPermissionPrompt() {
   const { showError } = useToast()
@@ -49,6 +50,7 @@ export function LocationPermissionPrompt() {
     navigator.geolocation.getCurrentPosition(
       async (position) => {
         const { latitude, longitude } = position.coords
+        rememberDeviceLocation(position)
         
         // Try to fetch address for helper as well
         let address = ''
@@ -0,0 +1,89 @@
+'use client'
+
+import { Capacitor, registerPlugin } from '@capacitor/core'
+
+export interface LatencyPercentiles {
+  count: number
+  p50?: number
+  p90?: number
+  p99?: number
+}
+
+export interface AlertLatencyReport {
+  manufacturer: string
+  model: string
+  sdkInt: number
+  /** Server send -> first sound */
+  endToEnd: LatencyPercentiles
+  /** delivery is server send -> device; every other stage is measured from the push reaching the device */
+  stages: {
+    delivery: LatencyPercentiles
+    decoded: LatencyPercentiles
+    notified: LatencyPercentiles
+    activityCreated: LatencyPercentiles
+    firstFrame: LatencyPercentiles
+    soundStarted: LatencyPercentiles
+    answered: LatencyPercentiles
+  }
+  sound: {
+    count: number
+    warmStarts: number
+    coldStarts: number
+    fallbacks: number
+    overBudget: number
+    budgetMs: number
+    medianMs: number
+    maxMs: number
+  }
+  dedupe: {
+    duplicates: number
+    unique: number
+  }
+}
+
+// Register the native alert diagnostics plugin (Android only)
+const AlertDiagnostics = registerPlugin<{
+  getAlertLatency: () => Promise<AlertLatencyReport>
+  clearAlertLatency: () => Promise<{ success: boolean }>
+  getLogs: () => Promise<{ logs: string }>
+  clearLogs: () => Promise<{ success: boolean }>
+}>('AlertDiagnostics')
+
+/**
+ * Job alert latency percentiles for this device, or null outside the Android app
+ */
+export async function getAlertLatency(): Promise<AlertLatencyReport | null> {
+  if (Capacitor.getPlatform() !== 'android') return null
+  try {
+    return await AlertDiagnostics.getAlertLatency()
+  } catch (error) {
+    console.error('Failed to read alert latency:', error)
+    return null
+  }
+}
+
+/**
+ * Forget the traced alerts, e.g. after reporting them
+ */
+export async function clearAlertLatency(): Promise<void> {
+  if (Capacitor.getPlatform() !== 'android') return
+  try {
+    await AlertDiagnostics.clearAlertLatency()
+  } catch (error) {
+    console.error('Failed to clear alert latency:', error)
+  }
+}
+
+/**
+ * Native warnings and errors kept on the device, for support requests
+ */
+export async function getNativeAlertLogs(): Promise<string> {
+  if (Capacitor.getPlatform() !== 'android') return ''
+  try {
+    const { logs } = await AlertDiagnostics.getLogs()
+    return logs
+  } catch (error) {
+    console.error('Failed to read native logs:', error)
+    return ''
+  }
+}
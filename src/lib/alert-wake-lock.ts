@@ -0,0 +1,35 @@
+'use client'
+
+import { Capacitor, registerPlugin } from '@capacitor/core'
+
+export interface WakeLockStats {
+  /** Milliseconds the job alert wake lock was held, per local day (yyyy-MM-dd) */
+  heldMsByDay: Record<string, number>
+  held: boolean
+  /** Alerts currently holding the lock */
+  activeAlerts: number
+  acquisitions: number
+  /** Acquisitions cut short by the per-hold cap */
+  cappedAcquisitions: number
+  /** Times the lock went from released to held */
+  holds: number
+  maxHoldMs: number
+}
+
+// Register the native alert wake lock plugin (Android only)
+const AlertWakeLock = registerPlugin<{
+  getStats: () => Promise<WakeLockStats>
+}>('AlertWakeLock')
+
+/**
+ * How long job alerts kept the screen on per day, or null outside the Android app
+ */
+export async function getWakeLockStats(): Promise<WakeLockStats | null> {
+  if (Capacitor.getPlatform() !== 'android') return null
+  try {
+    return await AlertWakeLock.getStats()
+  } catch (error) {
+    console.error('Failed to read wake lock stats:', error)
+    return null
+  }
+}
@@ -2,6 +2,8 @@
 
 import { createBrowserClient } from '@supabase/ssr'
 import { App } from '@capacitor/app'
+import { showOpenedLocalJob } from './local-job-store'
+import { startNativeSessionSync } from './native-session'
 
 /**
  * Check if running inside Capacitor native app
@@ -275,5 +277,14 @@ export async function initializeCapacitor() {
   // Set up deep link handling
   initializeDeepLinkListener()
   
+  // Share the session with native code for one-tap job accept
+  startNativeSessionSync()
+  
+  // Accept on the native job alert opens the app; show that job from the push payload
+  showOpenedLocalJob()
+  App.addListener('resume', () => {
+    showOpenedLocalJob()
+  })
+  
   console.log('✅ Capacitor initialized')
 }
@@ -0,0 +1,86 @@
+'use client'
+
+import { Capacitor, registerPlugin } from '@capacitor/core'
+
+export interface DistanceGateStats {
+  /** Job alerts within the alert radius */
+  delivered: number
+  /** Job alerts just outside the radius, shown as a quiet notification */
+  downgraded: number
+  /** Job alerts far outside the radius, not shown at all */
+  suppressed: number
+  /** Delivered because the push carried no job coordinates */
+  noCoordinates: number
+  /** Delivered because the device had no recent position */
+  noFix: number
+  radiusKm: number
+  hasFix: boolean
+  fixAgeMs?: number
+}
+
+// Register the native device location plugin (Android only)
+const DeviceLocation = registerPlugin<{
+  setLocation: (options: { latitude: number; longitude: number; accuracy?: number; timestamp?: number }) => Promise<{ success: boolean }>
+  setAlertRadius: (options: { radiusKm: number }) => Promise<{ success: boolean }>
+  getDistanceGateStats: () => Promise<DistanceGateStats>
+  clearDistanceGateStats: () => Promise<{ success: boolean }>
+}>('DeviceLocation')
+
+function isAndroidApp(): boolean {
+  return Capacitor.getPlatform() === 'android'
+}
+
+/**
+ * Hand a position we already have to the native side, so job alerts far from
+ * it do not take over the screen. Never requests a fix by itself.
+ */
+export async function rememberDeviceLocation(position: GeolocationPosition): Promise<void> {
+  if (!isAndroidApp()) return
+  try {
+    await DeviceLocation.setLocation({
+      latitude: position.coords.latitude,
+      longitude: position.coords.longitude,
+      accuracy: position.coords.accuracy || 0,
+      timestamp: position.timestamp || Date.now()
+    })
+  } catch (error) {
+    console.error('Failed to store device location:', error)
+  }
+}
+
+/**
+ * Limit full-screen job alerts to the helper's service radius
+ */
+export async function setAlertRadiusKm(radiusKm: number): Promise<void> {
+  if (!isAndroidApp() || !(radiusKm > 0)) return
+  try {
+    await DeviceLocation.setAlertRadius({ radiusKm })
+  } catch (error) {
+    console.error('Failed to set alert radius:', error)
+  }
+}
+
+/**
+ * How many job alerts were held back for being far from the device, or null outside the Android app
+ */
+export async function getDistanceGateStats(): Promise<DistanceGateStats | null> {
+  if (!isAndroidApp()) return null
+  try {
+    return await DeviceLocation.getDistanceGateStats()
+  } catch (error) {
+    console.error('Failed to read distance gate stats:', error)
+    return null
+  }
+}
+
+/**
+ * Reset the distance gate counts, e.g. after reporting them
+ */
+export async function clearDistanceGateStats(): Promise<void> {
+  if (!isAndroidApp()) return
+  try {
+    await DeviceLocation.clearDistanceGateStats()
+  } catch (error) {
+    console.error('Failed to clear distance gate stats:', error)
+  }
+}
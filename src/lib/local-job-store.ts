@@ -0,0 +1,71 @@
+'use client'
+
+import { Capacitor, registerPlugin } from '@capacitor/core'
+import { JobAlertService, JobAlertData } from './job-alert-service'
+
+export interface LocalJob extends JobAlertData {
+  /** When the push reached the device (Unix ms) */
+  receivedAt: number
+  /** Job position, when the push carried one */
+  lat?: number
+  lng?: number
+  /** https photo or location thumbnail, when the push carried one */
+  imageUrl?: string
+}
+
+// Register the native local job store plugin (Android only)
+const LocalJobStore = registerPlugin<{
+  getJob: (options: { jobId: string }) => Promise<{ job: LocalJob | null }>
+  listActiveJobs: () => Promise<{ jobs: LocalJob[] }>
+  consumeOpenedJob: () => Promise<{ job: LocalJob | null }>
+}>('LocalJobStore')
+
+function isAndroidApp(): boolean {
+  return Capacitor.getPlatform() === 'android'
+}
+
+/**
+ * Job details as delivered by push, or null if this device did not receive the job.
+ * Use this before querying Supabase - it costs no network round trip.
+ */
+export async function getLocalJob(jobId: string): Promise<LocalJob | null> {
+  if (!isAndroidApp()) return null
+  try {
+    const { job } = await LocalJobStore.getJob({ jobId })
+    return job
+  } catch (error) {
+    console.error('Failed to read local job:', error)
+    return null
+  }
+}
+
+/**
+ * Jobs received by push that have not expired yet, newest first
+ */
+export async function listActiveLocalJobs(): Promise<LocalJob[]> {
+  if (!isAndroidApp()) return []
+  try {
+    const { jobs } = await LocalJobStore.listActiveJobs()
+    return jobs
+  } catch (error) {
+    console.error('Failed to list local jobs:', error)
+    return []
+  }
+}
+
+/**
+ * If the app was opened from the native alert's Accept button, show that job's
+ * popup straight from the stored payload
+ */
+export async function showOpenedLocalJob(): Promise<void> {
+  if (!isAndroidApp()) return
+  try {
+    const { job } = await LocalJobStore.consumeOpenedJob()
+    if (job) {
+      console.log('🚨 Showing accepted job from local store', job.jobId)
+      JobAlertService.showAlert(job)
+    }
+  } catch (error) {
+    console.error('Failed to read opened job:', error)
+  }
+}
@@ -0,0 +1,100 @@
+import { Capacitor, registerPlugin } from '@capacitor/core'
+import { isAuthUrl, nativeAuthFetch } from './native-session'
+
+export interface RestCacheStats {
+  /** Reads answered from disk within their TTL */
+  hits: number
+  /** Reads answered from disk after a 304 */
+  revalidated: number
+  misses: number
+  /** Compressed body bytes actually downloaded */
+  bytesReceived: number
+  /** Body bytes served from disk instead of the network */
+  bytesSaved: number
+  entries: number
+  sizeBytes: number
+  evictions: number
+}
+
+type NativeRestResponse =
+  | { handled: false }
+  | { handled: true; status: number; headers: Record<string, string>; body: string; fromCache: boolean }
+
+// Register the native REST cache plugin (Android only)
+const RestCache = registerPlugin<{
+  get: (options: { url: string; headers: Record<string, string> }) => Promise<NativeRestResponse>
+  invalidate: (options: { url: string }) => Promise<{ success: boolean }>
+  getStats: () => Promise<RestCacheStats>
+  clear: () => Promise<{ success: boolean }>
+}>('RestCache')
+
+const REST_PATH = '/rest/v1/'
+
+function isNativeAndroid() {
+  return typeof window !== 'undefined' && Capacitor.getPlatform() === 'android'
+}
+
+/**
+ * fetch() for supabase-js: on Android, whitelisted REST reads go through the
+ * native disk cache (per-table TTL, ETag revalidation, gzip) and writes drop
+ * the cached reads of their table, and auth calls go to the native session.
+ * Everything else is a plain fetch.
+ */
+export const nativeCachedFetch: typeof fetch = async (input, init) => {
+  if (!isNativeAndroid() || input instanceof Request) return fetch(input, init)
+
+  const url = input.toString()
+  if (isAuthUrl(url)) return nativeAuthFetch(url, init)
+  if (!url.includes(REST_PATH)) return fetch(input, init)
+
+  const method = (init?.method || 'GET').toUpperCase()
+  if (method !== 'GET') {
+    const response = await fetch(input, init)
+    if (response.ok) {
+      await RestCache.invalidate({ url }).catch(() => undefined)
+    }
+    return response
+  }
+
+  const headers: Record<string, string> = {}
+  new Headers(init?.headers).forEach((value, key) => {
+    headers[key] = value
+  })
+
+  try {
+    const result = await RestCache.get({ url, headers })
+    if (!result.handled) return fetch(input, init)
+    return new Response(result.status === 204 ? null : result.body, {
+      status: result.status,
+      headers: result.headers,
+    })
+  } catch (error) {
+    // Native cache unavailable or request failed there: let the WebView try
+    console.error('Native REST cache failed, fetching directly:', error)
+    return fetch(input, init)
+  }
+}
+
+/**
+ * Drop cached reads of these tables after a write that did not go through
+ * supabase-js (API routes, server actions), so the next read is fresh
+ */
+export async function invalidateRestCache(...tables: string[]): Promise<void> {
+  if (!isNativeAndroid()) return
+  await Promise.all(
+    tables.map((table) => RestCache.invalidate({ url: `${REST_PATH}${table}` }).catch(() => undefined))
+  )
+}
+
+/**
+ * Hit and byte counters of the native REST cache, or null outside the Android app
+ */
+export async function getRestCacheStats(): Promise<RestCacheStats | null> {
+  if (!isNativeAndroid()) return null
+  try {
+    return await RestCache.getStats()
+  } catch (error) {
+    console.error('Failed to read REST cache stats:', error)
+    return null
+  }
+}
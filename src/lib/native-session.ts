@@ -0,0 +1,171 @@
+'use client'
+
+import { Capacitor, registerPlugin } from '@capacitor/core'
+
+interface NativeSessionData {
+  accessToken?: string
+  refreshToken?: string
+  /** Unix seconds */
+  expiresAt?: number
+  /** User object as JSON */
+  user?: string
+}
+
+type NativeAuthResponse =
+  | { handled: false }
+  | { handled: true; status: number; body: string; fromCache: boolean }
+
+export interface NativeAuthStats {
+  /** Refresh requests sent to the auth server */
+  refreshes: number
+  /** Refreshes that joined one already in flight */
+  refreshesShared: number
+  /** Refreshes of already-rotated tokens answered with the current session */
+  refreshesAvoided: number
+  /** getUser() calls answered from the stored user */
+  userHits: number
+  userFetches: number
+}
+
+// Register the native session plugin (Android only)
+const NativeSession = registerPlugin<{
+  setSession: (options: {
+    accessToken: string
+    refreshToken?: string
+    expiresAt?: number
+    user?: string
+    supabaseUrl?: string
+    anonKey?: string
+  }) => Promise<{ success: boolean; stale: boolean }>
+  getSession: () => Promise<NativeSessionData>
+  clearSession: () => Promise<{ success: boolean }>
+  authFetch: (options: {
+    url: string
+    method: string
+    headers: Record<string, string>
+    body?: string
+  }) => Promise<NativeAuthResponse>
+  getStats: () => Promise<NativeAuthStats>
+  addListener: (
+    eventName: 'sessionRefreshed',
+    listener: (session: NativeSessionData) => void
+  ) => Promise<{ remove: () => Promise<void> }>
+}>('NativeSession')
+
+const AUTH_PATH = '/auth/v1/'
+
+let syncStarted = false
+
+function isNativeAndroid() {
+  return typeof window !== 'undefined' && Capacitor.getPlatform() === 'android'
+}
+
+/**
+ * Keep the native side's copy of the session current, so Accept on a native
+ * job alert can claim the job without waiting for the WebView, and take over
+ * sessions the native side refreshed on its own.
+ */
+export function startNativeSessionSync() {
+  if (syncStarted || !isNativeAndroid()) return
+  syncStarted = true
+
+  // Imported lazily: the client's fetch wrapper imports this module
+  import('./supabase/client').then(({ supabase }) => {
+    const adopt = (session: NativeSessionData) => {
+      if (!session.accessToken || !session.refreshToken) return
+      supabase.auth
+        .setSession({ access_token: session.accessToken, refresh_token: session.refreshToken })
+        .catch((error) => console.error('Failed to adopt native session:', error))
+    }
+
+    NativeSession.addListener('sessionRefreshed', adopt)
+
+    supabase.auth.onAuthStateChange((event, session) => {
+      if (session?.access_token) {
+        NativeSession.setSession({
+          accessToken: session.access_token,
+          refreshToken: session.refresh_token,
+          expiresAt: session.expires_at,
+          user: session.user ? JSON.stringify(session.user) : undefined,
+          supabaseUrl: process.env.NEXT_PUBLIC_SUPABASE_URL,
+          anonKey: process.env.NEXT_PUBLIC_SUPABASE_ANON_KEY,
+        })
+          .then((result) => {
+            // Native already refreshed past this session (e.g. while the page reloaded)
+            if (result.stale) return NativeSession.getSession().then(adopt)
+          })
+          .catch((error) => console.error('Failed to share session with native:', error))
+      } else if (event === 'SIGNED_OUT') {
+        NativeSession.clearSession()
+          .catch((error) => console.error('Failed to clear native session:', error))
+      }
+    })
+  })
+}
+
+/**
+ * The stored access token, without a network request, or null when signed
+ * out, expired or outside the Android app
+ */
+export async function getNativeAccessToken(): Promise<string | null> {
+  if (!isNativeAndroid()) return null
+  try {
+    const session = await NativeSession.getSession()
+    if (!session.accessToken || !session.expiresAt) return null
+    return session.expiresAt * 1000 > Date.now() + 30_000 ? session.accessToken : null
+  } catch {
+    return null
+  }
+}
+
+/**
+ * Whether {@link nativeAuthFetch} may handle this URL
+ */
+export function isAuthUrl(url: string): boolean {
+  return url.includes(AUTH_PATH)
+}
+
+/**
+ * fetch() for supabase-js auth calls on Android: getUser() is answered from
+ * the stored user and token refreshes share one native in-flight request.
+ * Anything the native side does not handle is a plain fetch.
+ */
+export async function nativeAuthFetch(url: string, init?: RequestInit): Promise<Response> {
+  if (!isNativeAndroid()) return fetch(url, init)
+
+  const headers: Record<string, string> = {}
+  new Headers(init?.headers).forEach((value, key) => {
+    headers[key] = value
+  })
+
+  try {
+    const result = await NativeSession.authFetch({
+      url,
+      method: (init?.method || 'GET').toUpperCase(),
+      headers,
+      body: typeof init?.body === 'string' ? init.body : undefined,
+    })
+    if (!result.handled) return fetch(url, init)
+    return new Response(result.body, {
+      status: result.status,
+      headers: { 'Content-Type': 'application/json' },
+    })
+  } catch (error) {
+    // Native side unreachable or not configured yet: let the WebView try
+    console.error('Native auth request failed, fetching directly:', error)
+    return fetch(url, init)
+  }
+}
+
+/**
+ * Counters of auth requests the native side sent or saved, or null outside the Android app
+ */
+export async function getNativeAuthStats(): Promise<NativeAuthStats | null> {
+  if (!isNativeAndroid()) return null
+  try {
+    return await NativeSession.getStats()
+  } catch (error) {
+    console.error('Failed to read native auth stats:', error)
+    return null
+  }
+}
@@ -0,0 +1,49 @@
+'use client'
+
+import { Capacitor, registerPlugin } from '@capacitor/core'
+
+export interface WebCacheStats {
+  /** Hashed build assets served from disk */
+  hits: number
+  /** Pages served from disk while a fresh copy was fetched */
+  staleServed: number
+  misses: number
+  hitRate: number
+  revalidations: number
+  revalidationFailures: number
+  bytesServed: number
+  entries: number
+  sizeBytes: number
+  evictions: number
+}
+
+// Register the native web asset cache plugin (Android only)
+const WebCache = registerPlugin<{
+  getStats: () => Promise<WebCacheStats>
+  clear: () => Promise<{ success: boolean }>
+}>('WebCache')
+
+/**
+ * Hit rate of the native disk cache the app shell is served from, or null outside the Android app
+ */
+export async function getWebCacheStats(): Promise<WebCacheStats | null> {
+  if (Capacitor.getPlatform() !== 'android') return null
+  try {
+    return await WebCache.getStats()
+  } catch (error) {
+    console.error('Failed to read web cache stats:', error)
+    return null
+  }
+}
+
+/**
+ * Drop the native web cache, e.g. when a broken deploy was cached
+ */
+export async function clearWebCache(): Promise<void> {
+  if (Capacitor.getPlatform() !== 'android') return
+  try {
+    await WebCache.clear()
+  } catch (error) {
+    console.error('Failed to clear web cache:', error)
+  }
+}
@@ -0,0 +1,53 @@
+'use client'
+
+import { Capacitor, registerPlugin } from '@capacitor/core'
+
+export interface QuietHours {
+  start: string     // "22:00"
+  end: string       // "07:00"
+  timezone: string  // "Asia/Kolkata"
+}
+
+export interface PushPolicyStats {
+  /** Regular pushes shown normally */
+  alerted: number
+  /** Held back silently because of quiet hours */
+  quiet: number
+  /** Held back silently because their type hit its hourly or daily limit */
+  overLimit: number
+  quietHoursEnabled: boolean
+  quietHoursActive: boolean
+  timezone: string
+}
+
+// Register the native push policy plugin (Android only)
+const PushPolicy = registerPlugin<{
+  setQuietHours: (options: { enabled: boolean } & Partial<QuietHours>) => Promise<{ success: boolean }>
+  getStats: () => Promise<PushPolicyStats>
+}>('PushPolicy')
+
+/**
+ * Mirror the user's quiet hours natively, so low-priority pushes arriving in
+ * them are collected silently instead of waking the device. null turns them off.
+ */
+export async function setNativeQuietHours(quietHours: QuietHours | null): Promise<void> {
+  if (Capacitor.getPlatform() !== 'android') return
+  try {
+    await PushPolicy.setQuietHours(quietHours ? { enabled: true, ...quietHours } : { enabled: false })
+  } catch (error) {
+    console.error('Failed to set native quiet hours:', error)
+  }
+}
+
+/**
+ * How many regular pushes the native policy held back, or null outside the Android app
+ */
+export async function getPushPolicyStats(): Promise<PushPolicyStats | null> {
+  if (Capacitor.getPlatform() !== 'android') return null
+  try {
+    return await PushPolicy.getStats()
+  } catch (error) {
+    console.error('Failed to read push policy stats:', error)
+    return null
+  }
+}
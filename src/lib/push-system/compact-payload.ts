@@ -0,0 +1,142 @@
+/**
+ * ============================================================================
+ * COMPACT (v2) JOB ALERT PAYLOAD
+ * ============================================================================
+ *
+ * FCM data payloads are capped at 4 KB. The v1 job alert spends a good part
+ * of that on long keys and compatibility aliases (jobId + job_id,
+ * customerName + customer_name) and on ISO timestamps.
+ *
+ * v2 uses one single-letter key per field:
+ *
+ *   v  '2'                       i  job ID
+ *   t  'n' new_job, 'u' urgent_job
+ *   h  title                     d  description
+ *   p  price                     l  location
+ *   k  distance                  c  customer name
+ *   u  urgency: 'n', 'u', 'e'    g  'lat,lng'
+ *   s  sent at, epoch millis in base 36
+ *   x  expires this many seconds after s
+ *   m  image URL, https only
+ *
+ * Empty fields are left out. JobAlertDecoder on Android decodes both v1 and
+ * v2; keep the two in sync.
+ *
+ * A new_job_batch message (t = 'b') carries several jobs ranked by the
+ * server: the shared send time 's', the count 'n' and each job's fields with
+ * its rank appended ('i0', 'h0', ... 'i1', 'h1', ...). The app rejects a
+ * batch as a whole if it is over 4 KB or any announced job is missing.
+ */
+
+export const COMPACT_PAYLOAD_VERSION = '2'
+
+/** FCM's limit for the whole data payload, keys included */
+export const MAX_PAYLOAD_BYTES = 4096
+
+/** Must match JobAlertDecoder.MAX_BATCH_JOBS */
+export const MAX_BATCH_JOBS = 20
+
+export interface CompactJobAlertInput {
+  type: 'new_job' | 'urgent_job'
+  jobId: string
+  title: string
+  description?: string
+  price: string
+  location?: string
+  distance?: string
+  customerName?: string
+  urgency: 'normal' | 'urgent' | 'emergency'
+  latitude?: number | null
+  longitude?: number | null
+  /** Job photo or location thumbnail; the app ignores anything but https */
+  imageUrl?: string
+  sentAt: number              // epoch millis
+  expiresAt: number           // epoch millis
+}
+
+const URGENCY_CODES: Record<CompactJobAlertInput['urgency'], string> = {
+  normal: 'n',
+  urgent: 'u',
+  emergency: 'e',
+}
+
+/**
+ * Encode a job alert as a v2 FCM data block (all values are strings)
+ */
+export function encodeCompactJobAlert(input: CompactJobAlertInput): Record<string, string> {
+  return {
+    v: COMPACT_PAYLOAD_VERSION,
+    s: Math.floor(input.sentAt).toString(36),
+    ...jobFields(input, input.sentAt, ''),
+  }
+}
+
+/**
+ * Encode ranked jobs as one new_job_batch message. Jobs are taken in order
+ * until the next one would push the payload past 4 KB; send the rest in
+ * another batch.
+ *
+ * @returns the data block and how many of the jobs it carries
+ */
+export function encodeCompactJobBatch(
+  jobs: CompactJobAlertInput[],
+  sentAt: number
+): { data: Record<string, string>; count: number } {
+  const data: Record<string, string> = {
+    v: COMPACT_PAYLOAD_VERSION,
+    t: 'b',
+    s: Math.floor(sentAt).toString(36),
+    n: '0',
+  }
+
+  let count = 0
+  for (const job of jobs.slice(0, MAX_BATCH_JOBS)) {
+    const fields = jobFields(job, sentAt, String(count))
+    const candidate = { ...data, ...fields, n: String(count + 1) }
+    if (payloadBytes(candidate) > MAX_PAYLOAD_BYTES) break
+    Object.assign(data, fields)
+    count++
+    data.n = String(count)
+  }
+
+  return { data, count }
+}
+
+/**
+ * One job's fields, keys suffixed with its rank in a batch ('' for a single alert)
+ */
+function jobFields(input: CompactJobAlertInput, sentAt: number, suffix: string): Record<string, string> {
+  const fields: Record<string, string> = {
+    t: input.type === 'urgent_job' ? 'u' : 'n',
+    i: input.jobId,
+    h: input.title,
+    p: input.price,
+    u: URGENCY_CODES[input.urgency] ?? 'n',
+    x: String(Math.max(0, Math.round((input.expiresAt - sentAt) / 1000))),
+  }
+
+  if (input.description) fields.d = input.description
+  if (input.location) fields.l = input.location
+  if (input.distance) fields.k = input.distance
+  if (input.customerName) fields.c = input.customerName
+  if (input.imageUrl) fields.m = input.imageUrl
+  if (Number.isFinite(input.latitude) && Number.isFinite(input.longitude)) {
+    // ~1 m precision is plenty for a radius check
+    fields.g = `${Number((input.latitude as number).toFixed(5))},${Number((input.longitude as number).toFixed(5))}`
+  }
+
+  if (!suffix) return fields
+  return Object.fromEntries(Object.entries(fields).map(([key, value]) => [key + suffix, value]))
+}
+
+/**
+ * Size FCM counts against its 4 KB limit: keys plus values, UTF-8
+ */
+export function payloadBytes(data: Record<string, string>): number {
+  const encoder = new TextEncoder()
+  let total = 0
+  for (const [key, value] of Object.entries(data)) {
+    total += encoder.encode(key).length + encoder.encode(value).length
+  }
+  return total
+}
@@ -273,6 +273,11 @@ export async function sendNotification(params: SendNotificationParams): Promise<
           ttl: decision.ttlSeconds * 1000,
           notification: {
             channelId: getChannelId(eventType),
+            // A newer push for this request replaces the old one in the shade. Without a
+            // request every push stands alone, like the app's standaloneId(). This only
+            // applies to notifications the system posts (app in background); the app
+            // posts under its own int IDs, so the two never replace each other.
+            tag: requestId ? `${eventType}:${requestId}` : `${eventType}:${fullPayload.timestamp}`,
             priority: decision.priority === 'high' ? 'max' : 'default',
             defaultVibrateTimings: decision.priority === 'high',
           },
@@ -406,6 +411,8 @@ function getClickAction(eventType: NotificationEventType, requestId?: string): s
   }
 }
 
+// The Android app creates these channels (NotificationChannels.java) and
+// posts to them itself via RegularNotificationBundler.channelFor; keep in sync
 function getChannelId(eventType: NotificationEventType): string {
   switch (eventType) {
     case 'new_job_nearby':
@@ -11,6 +11,16 @@ export * from './types'
 export { sendNotification, sendToMultipleUsers } from './dispatcher'
 export type { SendNotificationParams, SendResult } from './dispatcher'
 
+// Compact (v2) job alert payload
+export {
+  encodeCompactJobAlert,
+  encodeCompactJobBatch,
+  payloadBytes,
+  COMPACT_PAYLOAD_VERSION,
+  MAX_BATCH_JOBS,
+} from './compact-payload'
+export type { CompactJobAlertInput } from './compact-payload'
+
 // Event handlers
 export * from './handlers'
 
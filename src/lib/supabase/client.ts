@@ -1,5 +1,6 @@
 import { createBrowserClient } from '@supabase/ssr'
 import type { Database } from './database.types'
+import { nativeCachedFetch } from '../native-rest-cache'
 
 const supabaseUrl = process.env.NEXT_PUBLIC_SUPABASE_URL!
 const supabaseAnonKey = process.env.NEXT_PUBLIC_SUPABASE_ANON_KEY!
@@ -15,7 +16,11 @@ function getSupabaseSingleton() {
         flowType: 'pkce',
         detectSessionInUrl: true,
         persistSession: true,
-      }
+      },
+      global: {
+        // Android app: read-heavy REST calls are served from a native disk cache
+        fetch: nativeCachedFetch,
+      },
     })
   }
   return _supabaseInstance